@@ -4,10 +4,9 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.scheduling.annotation.EnableAsync;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import xyz.staffjoy.common.async.ContextCopyingDecorator;
+import xyz.staffjoy.common.async.AsyncExecutorFactory;
 import xyz.staffjoy.common.config.StaffjoyRestConfig;
 
 import java.util.concurrent.Executor;
@@ -59,24 +58,9 @@ public class AppConfig {
      * @return
      */
     @Bean(name = ASYNC_EXECUTOR_NAME)
-    public Executor asyncExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        // for passing in request scope context
-        executor.setTaskDecorator(new ContextCopyingDecorator());
-        //核心线程池数量，方法: 返回可用处理器的Java虚拟机的数量。
-        executor.setCorePoolSize(3);
-        //最大线程数量
-        executor.setMaxPoolSize(5);
-        //线程池的队列容量
-        executor.setQueueCapacity(100);
-        executor.setWaitForTasksToCompleteOnShutdown(true);
-        //线程名称的前缀
-        executor.setThreadNamePrefix("AsyncThread-");
-        // setRejectedExecutionHandler：当pool已经达到max size的时候，如何处理新任务
-        // CallerRunsPolicy：不在新线程中执行任务，而是由调用者所在的线程来执行
-        //executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
-        executor.initialize();
-        return executor;
+    public Executor asyncExecutor(AsyncExecutorFactory asyncExecutorFactory) {
+        // 线程池大小和拒绝策略由 staffjoy.async.executors.asyncExecutor 配置
+        return asyncExecutorFactory.create(ASYNC_EXECUTOR_NAME);
     }
 
     @Bean
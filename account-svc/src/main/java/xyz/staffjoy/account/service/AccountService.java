@@ -22,6 +22,8 @@ import xyz.staffjoy.account.repo.AccountSecretRepo;
 import xyz.staffjoy.account.service.helper.ServiceHelper;
 import xyz.staffjoy.common.api.BaseResponse;
 import xyz.staffjoy.common.api.ResultCode;
+import xyz.staffjoy.common.auditlog.AuditDiff;
+import xyz.staffjoy.common.auditlog.AuditLogger;
 import xyz.staffjoy.common.auditlog.LogEntry;
 import xyz.staffjoy.common.auth.AuthConstant;
 import xyz.staffjoy.common.auth.AuthContext;
@@ -63,6 +65,9 @@ public class AccountService {
 
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private AuditLogger auditLogger;
+
     // ModelMapper 是一个 Object To Object 的工具
     private ModelMapper modelMapper;
 
@@ -171,7 +176,7 @@ public class AccountService {
                 .updatedContents(account.toString())
                 .build();
 
-        logger.info("created account", auditLog);
+        auditLogger.log(logger, "created account", auditLog);
 
         AccountDto accountDto = this.convertToDto(account);
         return accountDto;
@@ -263,11 +268,10 @@ public class AccountService {
                 .currentUserId(AuthContext.getUserId())
                 .targetType("account")
                 .targetId(newAccount.getId())
-                .originalContents(existingAccount.toString())
-                .updatedContents(newAccount.toString())
+                .changes(AuditDiff.of(existingAccount, newAccount))
                 .build();
 
-        logger.info("updated account", auditLog);
+        auditLogger.log(logger, "updated account", auditLog);
 
         // 如果account激活（activated） 并且 phonenumber被用户更改——send text
         if (newAccount.isConfirmedAndActive() &&
@@ -297,7 +301,7 @@ public class AccountService {
                 .targetId(userId)
                 .build();
 
-        logger.info("updated password", auditLog);
+        auditLogger.log(logger, "updated password", auditLog);
 
         this.trackEventWithAuthCheck("password_updated");
     }
@@ -403,7 +407,7 @@ public class AccountService {
                 .updatedContents(email)
                 .build();
 
-        logger.info("changed email", auditLog);
+        auditLogger.log(logger, "changed email", auditLog);
 
         this.trackEventWithAuthCheck("email_updated");
     }
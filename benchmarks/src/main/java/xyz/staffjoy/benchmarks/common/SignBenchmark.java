@@ -0,0 +1,80 @@
+package xyz.staffjoy.benchmarks.common;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import xyz.staffjoy.common.crypto.Sign;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ *
+ * JWT签名和验证基准测试（多线程共享密钥缓存）
+ * 会话Token：faraday验证，account-svc签发；邮件确认Token：account-svc签发，web-app验证
+ * ROTATING：同时配置新旧密钥，verifyOldKey为用旧密钥签名的Token（先用新密钥验证失败）
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class SignBenchmark {
+
+    private static final String NEW_SECRET = "BENCHMARK_SIGNING_SECRET_NEW";
+    private static final String OLD_SECRET = "BENCHMARK_SIGNING_SECRET_OLD";
+
+    @Param({"SINGLE", "ROTATING"})
+    public String keys;
+
+    private String signingSecret;
+    private String sessionToken;
+    private String oldSessionToken;
+    private String emailToken;
+
+    @Setup
+    public void setUp() {
+        signingSecret = "ROTATING".equals(keys) ? NEW_SECRET + Sign.SECRET_SEPARATOR + OLD_SECRET : NEW_SECRET;
+        sessionToken = Sign.generateSessionToken("benchmark-user", signingSecret, false, TimeUnit.DAYS.toMillis(1));
+        oldSessionToken = Sign.generateSessionToken("benchmark-user", OLD_SECRET, false, TimeUnit.DAYS.toMillis(1));
+        emailToken = Sign.generateEmailConfirmationToken("benchmark-user", "benchmark@staffjoy.xyz", signingSecret);
+    }
+
+    @Benchmark
+    public String signSession() {
+        return Sign.generateSessionToken("benchmark-user", signingSecret, false, TimeUnit.DAYS.toMillis(1));
+    }
+
+    @Benchmark
+    public DecodedJWT verifySession() {
+        return Sign.verifySessionToken(sessionToken, signingSecret);
+    }
+
+    @Benchmark
+    public String signEmailConfirmation() {
+        return Sign.generateEmailConfirmationToken("benchmark-user", "benchmark@staffjoy.xyz", signingSecret);
+    }
+
+    @Benchmark
+    public DecodedJWT verifyEmailConfirmation() {
+        return Sign.verifyEmailConfirmationToken(emailToken, signingSecret);
+    }
+
+    @Benchmark
+    public DecodedJWT verifyOldKey() {
+        // SINGLE时旧密钥就是唯一的密钥
+        return Sign.verifySessionToken(oldSessionToken, "ROTATING".equals(keys) ? signingSecret : OLD_SECRET);
+    }
+}
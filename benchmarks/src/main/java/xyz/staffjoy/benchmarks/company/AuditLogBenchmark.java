@@ -0,0 +1,111 @@
+package xyz.staffjoy.benchmarks.company;
+
+import com.github.structlog4j.ILogger;
+import com.github.structlog4j.SLoggerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import xyz.staffjoy.common.auditlog.AuditDiff;
+import xyz.staffjoy.common.auditlog.AuditLogProperties;
+import xyz.staffjoy.common.auditlog.AuditLogger;
+import xyz.staffjoy.common.auditlog.LogEntry;
+import xyz.staffjoy.company.dto.ShiftDto;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/*
+ *
+ * 每次更新班次（ShiftHelper.updateShift）的审计日志开销
+ * fullDump：原来的方式，请求线程上输出修改前后的完整toString
+ * fieldDiff：字段级差异，放入AuditLogger的队列（请求线程上的开销，队列满时丢弃）
+ * fieldDiffWriteThrough：字段级差异并在当前线程上格式化输出（队列满时WRITE_THROUGH的开销）
+ * 日志只格式化不输出，加 -prof gc 运行时 gc.alloc.rate.norm 为每次更新分配的字节数
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditLogBenchmark {
+
+    private static final ILogger logger = SLoggerFactory.getLogger(AuditLogBenchmark.class);
+
+    private ShiftDto orig;
+    private ShiftDto updated;
+    private AuditLogger auditLogger;
+
+    @Setup
+    public void setUp() {
+        Instant start = Instant.now().plus(1, ChronoUnit.DAYS).truncatedTo(ChronoUnit.HOURS);
+        orig = ShiftDto.builder()
+                .id("ff808081a14e35bf01a14e35eb790000")
+                .companyId("ef7ced77-5175-47c0-a09e-021d653bce99")
+                .teamId("bead7e34-ea7c-487a-b729-1a6bd8bf44fa")
+                .start(start)
+                .stop(start.plus(8, ChronoUnit.HOURS))
+                .jobId("1f3606ca-fbc9-450e-b501-d1621006576b")
+                .build();
+        // 批量发布：分配员工并发布
+        updated = orig.toBuilder()
+                .userId("b3c52bc3-aba5-40f3-ba99-afdd7c39316c")
+                .published(true)
+                .build();
+        auditLogger = new AuditLogger(new AuditLogProperties(), Optional.empty());
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        auditLogger.destroy();
+    }
+
+    @Benchmark
+    public LogEntry fullDump() {
+        LogEntry auditLog = entry()
+                .originalContents(orig.toString())
+                .updatedContents(updated.toString())
+                .build();
+        logger.info("updated shift", auditLog);
+        return auditLog;
+    }
+
+    @Benchmark
+    public LogEntry fieldDiff() {
+        LogEntry auditLog = entry()
+                .changes(AuditDiff.of(orig, updated))
+                .build();
+        auditLogger.log(logger, "updated shift", auditLog);
+        return auditLog;
+    }
+
+    @Benchmark
+    public LogEntry fieldDiffWriteThrough() {
+        LogEntry auditLog = entry()
+                .changes(AuditDiff.of(orig, updated))
+                .build();
+        logger.info("updated shift", auditLog);
+        return auditLog;
+    }
+
+    private LogEntry.LogEntryBuilder entry() {
+        return LogEntry.builder()
+                .currentUserId("b3c52bc3-aba5-40f3-ba99-afdd7c39316c")
+                .authorization("authenticated_user")
+                .targetType("shift")
+                .targetId(updated.getId())
+                .companyId(updated.getCompanyId())
+                .teamId(updated.getTeamId());
+    }
+}
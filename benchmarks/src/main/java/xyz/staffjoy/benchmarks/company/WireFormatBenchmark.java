@@ -0,0 +1,149 @@
+package xyz.staffjoy.benchmarks.company;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import xyz.staffjoy.company.dto.DirectoryEntryDto;
+import xyz.staffjoy.company.dto.DirectoryList;
+import xyz.staffjoy.company.dto.GenericShiftListResponse;
+import xyz.staffjoy.company.dto.ListDirectoryResponse;
+import xyz.staffjoy.company.dto.ShiftDto;
+import xyz.staffjoy.company.dto.ShiftList;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ *
+ * 服务间调用的编码开销：JSON与Smile编码、解码GenericShiftListResponse和ListDirectoryResponse
+ * 两个ObjectMapper使用相同的Jackson2ObjectMapperBuilder配置（与StaffjoySmileConfig一致）
+ * 报文大小（原始和gzip后）在Setup时输出
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"shifts", "directory"})
+    private String payload;
+
+    @Param({"10", "500"})
+    private int size;
+
+    private ObjectMapper jsonMapper;
+    private ObjectMapper smileMapper;
+    private Object response;
+    private Class<?> responseType;
+    private byte[] json;
+    private byte[] smile;
+
+    @Setup
+    public void setUp() throws IOException {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        jsonMapper = builder.build();
+        smileMapper = new ObjectMapper(new SmileFactory());
+        builder.configure(smileMapper);
+
+        response = "shifts".equals(payload) ? shiftListResponse(size) : directoryResponse(size);
+        responseType = response.getClass();
+        json = jsonMapper.writeValueAsBytes(response);
+        smile = smileMapper.writeValueAsBytes(response);
+        System.out.println();
+        System.out.println("payload bytes: json=" + json.length + ", smile=" + smile.length
+                + ", json+gzip=" + gzip(json).length + ", smile+gzip=" + gzip(smile).length);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws IOException {
+        return jsonMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] encodeSmile() throws IOException {
+        return smileMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public Object decodeJson() throws IOException {
+        return jsonMapper.readValue(json, responseType);
+    }
+
+    @Benchmark
+    public Object decodeSmile() throws IOException {
+        return smileMapper.readValue(smile, responseType);
+    }
+
+    private static GenericShiftListResponse shiftListResponse(int size) {
+        Instant start = Instant.now().truncatedTo(ChronoUnit.HOURS);
+        String companyId = UUID.randomUUID().toString();
+        String teamId = UUID.randomUUID().toString();
+        List<ShiftDto> shifts = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Instant shiftStart = start.plus(i, ChronoUnit.HOURS);
+            shifts.add(ShiftDto.builder()
+                    .id(UUID.randomUUID().toString())
+                    .companyId(companyId)
+                    .teamId(teamId)
+                    .start(shiftStart)
+                    .stop(shiftStart.plus(8, ChronoUnit.HOURS))
+                    .userId(i % 3 == 0 ? null : UUID.randomUUID().toString())
+                    .jobId(UUID.randomUUID().toString())
+                    .published(i % 2 == 0)
+                    .build());
+        }
+        ShiftList shiftList = ShiftList.builder()
+                .shifts(shifts)
+                .shiftStartAfter(start)
+                .shiftStartBefore(start.plus(size, ChronoUnit.HOURS))
+                .build();
+        return new GenericShiftListResponse(shiftList);
+    }
+
+    private static ListDirectoryResponse directoryResponse(int size) {
+        String companyId = UUID.randomUUID().toString();
+        List<DirectoryEntryDto> accounts = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            accounts.add(DirectoryEntryDto.builder()
+                    .userId(UUID.randomUUID().toString())
+                    .internalId(String.valueOf(10000 + i))
+                    .companyId(companyId)
+                    .name("Worker " + i)
+                    .email("worker" + i + "@staffjoy.xyz")
+                    .confirmedAndActive(i % 5 != 0)
+                    .phoneNumber("1380000" + String.format("%04d", i))
+                    .photoUrl("https://www.gravatar.com/avatar/" + UUID.randomUUID().toString().replace("-", ""))
+                    .build());
+        }
+        return new ListDirectoryResponse(DirectoryList.builder().accounts(accounts).limit(size).offset(0).build());
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,109 @@
+package xyz.staffjoy.benchmarks.faraday;
+
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+import xyz.staffjoy.faraday.config.FaradayProperties;
+import xyz.staffjoy.faraday.config.MappingProperties;
+import xyz.staffjoy.faraday.core.http.HttpClientProvider;
+import xyz.staffjoy.faraday.core.metrics.RouteMetricsProvider;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ *
+ * HTTP/2转发基准测试
+ * 64个线程并发请求同一个本地桩服务（每个响应延迟5毫秒），比较HTTP/1.1连接池与h2c多路复用的尾延迟
+ * SampleTime模式输出p99、p99.9等分位数，每轮结束时打印桩服务接受的连接数
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Threads(64)
+@Fork(1)
+public class Http2ForwardingBenchmark {
+
+    private static final String MAPPING_NAME = "benchmark_route";
+
+    @Param({"HTTP_1_1", "H2C"})
+    public String protocol;
+
+    private MockWebServer server;
+    private RestTemplate restTemplate;
+    private URI uri;
+    // 桩服务接受的连接数（每个连接上第一个请求的序号为0）
+    private final AtomicInteger connections = new AtomicInteger();
+
+    @Setup
+    public void setUp() throws IOException {
+        boolean h2c = "H2C".equals(protocol);
+        server = new MockWebServer();
+        if (h2c) {
+            server.setProtocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE));
+        }
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (request.getSequenceNumber() == 0) {
+                    connections.incrementAndGet();
+                }
+                return new MockResponse().setBody("{\"status\":\"ok\"}").setBodyDelay(5, TimeUnit.MILLISECONDS);
+            }
+        });
+        server.start();
+        uri = server.url("/api/v2/companies").uri();
+
+        MappingProperties mapping = new MappingProperties();
+        mapping.setName(MAPPING_NAME);
+        mapping.setHost("benchmark.staffjoy-v2.local");
+        mapping.setDestinations(Collections.singletonList(server.url("/").toString()));
+        mapping.getHttp2().setEnabled(h2c);
+        HttpClientProvider provider = new HttpClientProvider(new FaradayProperties(), Optional.empty(), new RouteMetricsProvider(new FaradayProperties(), Optional.empty()));
+        provider.updateHttpClients(Collections.singletonList(mapping));
+        restTemplate = provider.getHttpClient(MAPPING_NAME);
+    }
+
+    @TearDown(Level.Iteration)
+    public void drainRecordedRequests() throws InterruptedException {
+        // 桩服务会保存所有收到的请求，每轮结束时清空，避免占用内存
+        while (server.takeRequest(0, TimeUnit.MILLISECONDS) != null) {
+        }
+        System.out.println(protocol + " connections accepted: " + connections.get());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> forward() {
+        return restTemplate.getForEntity(uri, byte[].class);
+    }
+}
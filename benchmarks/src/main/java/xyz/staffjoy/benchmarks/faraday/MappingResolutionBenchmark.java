@@ -0,0 +1,107 @@
+package xyz.staffjoy.benchmarks.faraday;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import xyz.staffjoy.faraday.config.FaradayProperties;
+import xyz.staffjoy.faraday.config.MappingProperties;
+import xyz.staffjoy.faraday.core.http.HttpClientProvider;
+import xyz.staffjoy.faraday.core.mappings.ConfigurationMappingsProvider;
+import xyz.staffjoy.faraday.core.mappings.MappingsValidator;
+import xyz.staffjoy.faraday.core.metrics.RouteMetricsProvider;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/*
+ *
+ * 路由映射查找基准测试
+ * exact：精确host命中，wildcard：按后缀命中通配host，miss：没有对应的映射
+ * 加 -prof gc 运行时 gc.alloc.rate.norm 为每次查找分配的字节数
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingResolutionBenchmark {
+
+    @Param({"10", "100"})
+    public int mappingsCount;
+
+    private BenchmarkMappingsProvider mappingsProvider;
+    private String exactHost;
+    private String wildcardHost;
+    private String unknownHost;
+
+    @Setup
+    public void setUp() {
+        List<MappingProperties> mappings = new ArrayList<>(mappingsCount);
+        for (int i = 0; i < mappingsCount - 1; i++) {
+            mappings.add(mapping("service_" + i, "service-" + i + ".staffjoy-v2.local"));
+        }
+        mappings.add(mapping("apps_route", "*.apps.staffjoy-v2.local"));
+
+        FaradayProperties faradayProperties = new FaradayProperties();
+        faradayProperties.setMappings(mappings);
+        RouteMetricsProvider routeMetricsProvider = new RouteMetricsProvider(faradayProperties, Optional.empty());
+        mappingsProvider = new BenchmarkMappingsProvider(faradayProperties,
+                new HttpClientProvider(faradayProperties, Optional.empty(), routeMetricsProvider));
+        mappingsProvider.refresh();
+
+        exactHost = "service-" + (mappingsCount / 2) + ".staffjoy-v2.local";
+        wildcardHost = "acme.apps.staffjoy-v2.local";
+        unknownHost = "unknown.staffjoy-v2.local";
+    }
+
+    @Benchmark
+    public MappingProperties exact() {
+        return mappingsProvider.resolveMapping(exactHost, null);
+    }
+
+    @Benchmark
+    public MappingProperties wildcard() {
+        return mappingsProvider.resolveMapping(wildcardHost, null);
+    }
+
+    @Benchmark
+    public MappingProperties miss() {
+        return mappingsProvider.resolveMapping(unknownHost, null);
+    }
+
+    private static MappingProperties mapping(String name, String host) {
+        MappingProperties mapping = new MappingProperties();
+        mapping.setName(name);
+        mapping.setHost(host);
+        mapping.setDestinations(Collections.singletonList("localhost:8080"));
+        return mapping;
+    }
+
+    /**
+     * 不依赖Spring容器加载映射表
+     */
+    private static class BenchmarkMappingsProvider extends ConfigurationMappingsProvider {
+
+        private BenchmarkMappingsProvider(FaradayProperties faradayProperties, HttpClientProvider httpClientProvider) {
+            super(new ServerProperties(), faradayProperties, new MappingsValidator(), httpClientProvider);
+        }
+
+        private void refresh() {
+            updateMappings();
+        }
+    }
+}
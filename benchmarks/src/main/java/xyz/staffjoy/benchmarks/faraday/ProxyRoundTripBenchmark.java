@@ -0,0 +1,181 @@
+package xyz.staffjoy.benchmarks.faraday;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import xyz.staffjoy.common.auth.AuthConstant;
+import xyz.staffjoy.common.crypto.Sign;
+import xyz.staffjoy.common.env.EnvConfig;
+import xyz.staffjoy.common.env.EnvConstant;
+import xyz.staffjoy.faraday.config.FaradayProperties;
+import xyz.staffjoy.faraday.config.MappingProperties;
+import xyz.staffjoy.faraday.core.balancer.LoadBalancer;
+import xyz.staffjoy.faraday.core.balancer.MappingLoadBalancer;
+import xyz.staffjoy.faraday.core.breaker.CircuitBreakerProvider;
+import xyz.staffjoy.faraday.core.compression.GzipContentEncoder;
+import xyz.staffjoy.faraday.core.compression.ResponseCompressor;
+import xyz.staffjoy.faraday.core.http.HttpClientProvider;
+import xyz.staffjoy.faraday.core.http.RequestCoalescer;
+import xyz.staffjoy.faraday.core.http.RequestDataExtractor;
+import xyz.staffjoy.faraday.core.http.RequestForwarder;
+import xyz.staffjoy.faraday.core.http.ReverseProxyFilter;
+import xyz.staffjoy.faraday.core.interceptor.AuthRequestInterceptor;
+import xyz.staffjoy.faraday.core.interceptor.CacheResponseInterceptor;
+import xyz.staffjoy.faraday.core.interceptor.CompositePostForwardResponseInterceptor;
+import xyz.staffjoy.faraday.core.interceptor.CompositePreForwardRequestInterceptor;
+import xyz.staffjoy.faraday.core.mappings.ConfigurationMappingsProvider;
+import xyz.staffjoy.faraday.core.mappings.MappingsValidator;
+import xyz.staffjoy.faraday.core.metrics.RouteMetricsProvider;
+import xyz.staffjoy.faraday.core.retry.RetryProvider;
+import xyz.staffjoy.faraday.core.trace.LoggingTraceInterceptor;
+import xyz.staffjoy.faraday.core.trace.ProxyingTraceInterceptor;
+
+import javax.servlet.http.Cookie;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/*
+ *
+ * 代理完整往返基准测试
+ * 在进程内调用ReverseProxyFilter（会话校验、路由查找、转发、响应处理），转发到本地桩服务
+ * BUFFERED：缓冲整个请求和响应体，STREAMING：流式转发
+ * 加 -prof gc 运行时 gc.alloc.rate.norm 为每个请求分配的字节数（包括模拟的servlet请求和响应）
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProxyRoundTripBenchmark {
+
+    private static final String SIGNING_SECRET = "BENCHMARK_SIGNING_SECRET";
+    private static final String HOST = "www.staffjoy-v2.local";
+    private static final String RESPONSE_BODY = "{\"companies\":[{\"id\":\"4d6f6c4a\",\"name\":\"Staffjoy\",\"defaultTimezone\":\"UTC\","
+            + "\"defaultDayWeekStarts\":\"Monday\",\"archived\":false}],\"limit\":20,\"offset\":0}";
+
+    @Param({"BUFFERED", "STREAMING"})
+    public String mode;
+
+    private MockWebServer server;
+    private ReverseProxyFilter filter;
+    private RetryProvider retryProvider;
+    private Cookie sessionCookie;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse()
+                        .setHeader(HttpHeaders.CONTENT_TYPE, "application/json")
+                        .setBody(RESPONSE_BODY);
+            }
+        });
+        server.start();
+
+        MappingProperties mapping = new MappingProperties();
+        mapping.setName("www_route");
+        mapping.setHost(HOST);
+        mapping.setDestinations(Collections.singletonList(server.url("/").toString()));
+
+        FaradayProperties faradayProperties = new FaradayProperties();
+        faradayProperties.getStreaming().setEnabled("STREAMING".equals(mode));
+        faradayProperties.setMappings(Collections.singletonList(mapping));
+
+        RouteMetricsProvider routeMetricsProvider = new RouteMetricsProvider(faradayProperties, Optional.empty());
+        HttpClientProvider httpClientProvider = new HttpClientProvider(faradayProperties, Optional.empty(), routeMetricsProvider);
+        ProxyingTraceInterceptor traceInterceptor = new ProxyingTraceInterceptor(faradayProperties, new LoggingTraceInterceptor());
+        LoadBalancer loadBalancer = new MappingLoadBalancer();
+        CircuitBreakerProvider circuitBreakerProvider = new CircuitBreakerProvider(faradayProperties, Optional.empty(), traceInterceptor);
+        retryProvider = new RetryProvider(routeMetricsProvider);
+        ResponseCompressor responseCompressor = new ResponseCompressor(faradayProperties.getCompression(),
+                Collections.singletonList(new GzipContentEncoder(faradayProperties.getCompression().getGzipLevel())));
+
+        BenchmarkMappingsProvider mappingsProvider = new BenchmarkMappingsProvider(faradayProperties, httpClientProvider);
+        mappingsProvider.addListener(loadBalancer::onMappingsUpdated);
+        mappingsProvider.addListener(circuitBreakerProvider::onMappingsUpdated);
+        mappingsProvider.addListener(retryProvider::onMappingsUpdated);
+        mappingsProvider.addListener(routeMetricsProvider::onMappingsUpdated);
+        mappingsProvider.refresh();
+
+        RequestForwarder requestForwarder = new RequestForwarder(
+                new ServerProperties(), faradayProperties, httpClientProvider,
+                mappingsProvider, loadBalancer, circuitBreakerProvider, Optional.empty(), traceInterceptor,
+                new CompositePostForwardResponseInterceptor(Collections.singletonList(new CacheResponseInterceptor())),
+                responseCompressor, new RequestCoalescer(faradayProperties, Optional.empty()),
+                routeMetricsProvider, retryProvider);
+        EnvConfig envConfig = EnvConfig.getEnvConfg(EnvConstant.ENV_TEST);
+        filter = new ReverseProxyFilter(faradayProperties, new RequestDataExtractor(), mappingsProvider,
+                requestForwarder, traceInterceptor,
+                new CompositePreForwardRequestInterceptor(Collections.singletonList(
+                        new AuthRequestInterceptor(SIGNING_SECRET, envConfig, 10000))),
+                responseCompressor, routeMetricsProvider);
+
+        String token = Sign.generateSessionToken("benchmark-user", SIGNING_SECRET, false, TimeUnit.DAYS.toMillis(1));
+        sessionCookie = new Cookie(AuthConstant.COOKIE_NAME, token);
+    }
+
+    @TearDown(Level.Iteration)
+    public void drainRecordedRequests() throws InterruptedException {
+        // 桩服务会保存所有收到的请求，每轮结束时清空，避免占用内存
+        while (server.takeRequest(0, TimeUnit.MILLISECONDS) != null) {
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        retryProvider.close();
+        server.shutdown();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse roundTrip() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v2/companies");
+        request.setQueryString("offset=0&limit=20");
+        request.setServerName(HOST);
+        request.addHeader(HttpHeaders.HOST, HOST);
+        request.addHeader(HttpHeaders.ACCEPT, "application/json");
+        request.setCookies(sessionCookie);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    /**
+     * 不依赖Spring容器加载映射表
+     */
+    private static class BenchmarkMappingsProvider extends ConfigurationMappingsProvider {
+
+        private BenchmarkMappingsProvider(FaradayProperties faradayProperties, HttpClientProvider httpClientProvider) {
+            super(new ServerProperties(), faradayProperties, new MappingsValidator(), httpClientProvider);
+        }
+
+        private void refresh() {
+            updateMappings();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package xyz.staffjoy.benchmarks.faraday;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.DelegatingServletInputStream;
+import org.springframework.mock.web.MockHttpServletRequest;
+import xyz.staffjoy.faraday.config.FaradayProperties;
+import xyz.staffjoy.faraday.core.http.RequestData;
+import xyz.staffjoy.faraday.core.http.RequestDataExtractor;
+import xyz.staffjoy.faraday.core.http.ReverseProxyFilter;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/*
+ *
+ * 请求数据提取基准测试
+ * extract：与ReverseProxyFilter相同的提取顺序（URI、host、请求头、方法、请求体），POST带1KB请求体
+ * addForwardHeaders：在请求头视图上追加X-Forwarded-*请求头
+ * 加 -prof gc 运行时 gc.alloc.rate.norm 为每个请求分配的字节数
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestExtractionBenchmark {
+
+    @Param({"GET", "POST"})
+    public String method;
+
+    private RequestDataExtractor extractor;
+    private ForwardHeadersFilter filter;
+    private HttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        extractor = new RequestDataExtractor();
+        filter = new ForwardHeadersFilter(extractor);
+
+        MockHttpServletRequest mockRequest = new MockHttpServletRequest(method, "/api/v2/companies/123/teams");
+        mockRequest.setQueryString("offset=0&limit=20");
+        mockRequest.setServerName("www.staffjoy-v2.local");
+        mockRequest.setRemoteAddr("10.0.0.15");
+        mockRequest.addHeader(HttpHeaders.HOST, "www.staffjoy-v2.local");
+        mockRequest.addHeader(HttpHeaders.USER_AGENT, "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_14_2) AppleWebKit/537.36");
+        mockRequest.addHeader(HttpHeaders.ACCEPT, "application/json, text/plain, */*");
+        mockRequest.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br");
+        mockRequest.addHeader(HttpHeaders.ACCEPT_LANGUAGE, "en-US,en;q=0.9");
+        mockRequest.addHeader(HttpHeaders.COOKIE, "staffjoy-faraday=eyJhbGciOiJIUzUxMiJ9.benchmark");
+        mockRequest.addHeader("X-Forwarded-For", "203.0.113.7");
+
+        byte[] body = new byte[0];
+        if ("POST".equals(method)) {
+            body = new byte[1024];
+            Arrays.fill(body, (byte) 'a');
+            mockRequest.setContentType("application/json");
+            mockRequest.addHeader(HttpHeaders.CONTENT_TYPE, "application/json");
+            mockRequest.addHeader(HttpHeaders.CONTENT_LENGTH, body.length);
+        }
+        request = new ReplayableBodyRequest(mockRequest, body);
+    }
+
+    @Benchmark
+    public RequestData extract() {
+        String uri = extractor.extractUri(request);
+        String host = extractor.extractHost(request);
+        HttpHeaders headers = extractor.extractHttpHeaders(request);
+        HttpMethod httpMethod = extractor.extractHttpMethod(request);
+        byte[] body = extractor.extractBody(request);
+        return new RequestData(httpMethod, host, uri, headers, body, request);
+    }
+
+    @Benchmark
+    public HttpHeaders addForwardHeaders() {
+        HttpHeaders headers = extractor.extractHttpHeaders(request);
+        filter.addForwardHeaders(request, headers);
+        return headers;
+    }
+
+    /**
+     * 只用来调用addForwardHeaders，不转发请求
+     */
+    private static class ForwardHeadersFilter extends ReverseProxyFilter {
+
+        private ForwardHeadersFilter(RequestDataExtractor extractor) {
+            super(new FaradayProperties(), extractor, null, null, null, null, null, null);
+        }
+
+        @Override
+        public void addForwardHeaders(HttpServletRequest request, HttpHeaders headers) {
+            super.addForwardHeaders(request, headers);
+        }
+    }
+
+    /**
+     * MockHttpServletRequest的输入流只能读取一次，每次调用都返回新的输入流
+     */
+    private static class ReplayableBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private ReplayableBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return new DelegatingServletInputStream(new ByteArrayInputStream(body));
+        }
+    }
+}
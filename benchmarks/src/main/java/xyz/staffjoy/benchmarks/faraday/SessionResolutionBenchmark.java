@@ -0,0 +1,86 @@
+package xyz.staffjoy.benchmarks.faraday;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockHttpServletRequest;
+import xyz.staffjoy.common.auth.AuthConstant;
+import xyz.staffjoy.common.crypto.Sign;
+import xyz.staffjoy.common.env.EnvConfig;
+import xyz.staffjoy.common.env.EnvConstant;
+import xyz.staffjoy.faraday.config.MappingProperties;
+import xyz.staffjoy.faraday.core.http.RequestData;
+import xyz.staffjoy.faraday.core.interceptor.AuthRequestInterceptor;
+
+import javax.servlet.http.Cookie;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/*
+ *
+ * 会话解析基准测试
+ * cold：每次请求都校验JWT签名并解码声明（未启用会话缓存）
+ * warm：同一个cookie的重复请求命中已校验会话缓存
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionResolutionBenchmark {
+
+    private static final String SIGNING_SECRET = "BENCHMARK_SIGNING_SECRET";
+
+    private AuthRequestInterceptor uncachedInterceptor;
+    private AuthRequestInterceptor cachedInterceptor;
+    private MockHttpServletRequest request;
+    private MappingProperties mapping;
+
+    @Setup
+    public void setUp() {
+        EnvConfig envConfig = EnvConfig.getEnvConfg(EnvConstant.ENV_TEST);
+        uncachedInterceptor = new AuthRequestInterceptor(SIGNING_SECRET, envConfig, 0);
+        cachedInterceptor = new AuthRequestInterceptor(SIGNING_SECRET, envConfig, 10000);
+
+        String token = Sign.generateSessionToken("benchmark-user", SIGNING_SECRET, false, TimeUnit.DAYS.toMillis(1));
+        request = new MockHttpServletRequest("GET", "/");
+        request.setCookies(new Cookie(AuthConstant.COOKIE_NAME, token));
+
+        mapping = new MappingProperties();
+        mapping.setName("www_route");
+        mapping.setHost("www.staffjoy-v2.local");
+        mapping.setDestinations(Collections.singletonList("localhost:8080"));
+
+        // 预热会话缓存
+        cachedInterceptor.intercept(requestData(), mapping);
+    }
+
+    @Benchmark
+    public RequestData cold() {
+        RequestData data = requestData();
+        uncachedInterceptor.intercept(data, mapping);
+        return data;
+    }
+
+    @Benchmark
+    public RequestData warm() {
+        RequestData data = requestData();
+        cachedInterceptor.intercept(data, mapping);
+        return data;
+    }
+
+    private RequestData requestData() {
+        return new RequestData(HttpMethod.GET, "www.staffjoy-v2.local", "/", new HttpHeaders(), null, request);
+    }
+}
@@ -4,8 +4,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.scheduling.annotation.EnableAsync;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
-import xyz.staffjoy.common.async.ContextCopyingDecorator;
+import xyz.staffjoy.common.async.AsyncExecutorFactory;
 import xyz.staffjoy.common.config.StaffjoyRestConfig;
 
 import java.util.concurrent.Executor;
@@ -31,16 +30,9 @@ public class AppConfig {
      * @return
      */
     @Bean(name = ASYNC_EXECUTOR_NAME)
-    public Executor asyncExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setTaskDecorator(new ContextCopyingDecorator());
-        executor.setCorePoolSize(3);
-        executor.setMaxPoolSize(5);
-        executor.setQueueCapacity(100);
-        executor.setWaitForTasksToCompleteOnShutdown(true);
-        executor.setThreadNamePrefix("AsyncThread-");
-        executor.initialize();
-        return executor;
+    public Executor asyncExecutor(AsyncExecutorFactory asyncExecutorFactory) {
+        // 线程池大小和拒绝策略由 staffjoy.async.executors.asyncExecutor 配置
+        return asyncExecutorFactory.create(ASYNC_EXECUTOR_NAME);
     }
 
 }
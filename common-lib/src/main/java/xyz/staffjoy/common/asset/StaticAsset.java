@@ -0,0 +1,157 @@
+package xyz.staffjoy.common.asset;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/*
+ *
+ * 静态资源（不可变）
+ * 启动时预先计算好的各编码版本（原始、gzip、br）和强ETag，URL中带内容摘要时可以长期缓存
+ *
+ */
+public final class StaticAsset {
+
+    private final String path;
+    private final String hashedPath;
+    private final String contentType;
+    // 按优先级排列，原始版本在最后
+    private final List<Variant> variants;
+
+    StaticAsset(String path, String hashedPath, String contentType, List<Variant> variants) {
+        this.path = path;
+        this.hashedPath = hashedPath;
+        this.contentType = contentType;
+        this.variants = variants;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * 带内容摘要的路径，例如 /assets/css/main-5d41402abc4b2a76b9719d911017c592.css
+     *
+     * @return
+     */
+    public String getHashedPath() {
+        return hashedPath;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * 是否有压缩版本（响应需要 Vary: Accept-Encoding）
+     *
+     * @return
+     */
+    public boolean isEncoded() {
+        return variants.size() > 1;
+    }
+
+    /**
+     * 按Accept-Encoding选择编码版本，br优先于gzip，客户端都不支持时返回原始版本
+     *
+     * @param acceptEncoding
+     * @return
+     */
+    public Variant selectVariant(String acceptEncoding) {
+        for (Variant variant : variants) {
+            if (variant.encoding == null || accepts(acceptEncoding, variant.encoding)) {
+                return variant;
+            }
+        }
+        return variants.get(variants.size() - 1);
+    }
+
+    /**
+     * If-None-Match是否匹配任一版本的ETag（各版本内容相同，按弱比较）
+     *
+     * @param ifNoneMatch
+     * @return
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            for (Variant variant : variants) {
+                if (variant.etag.equals(tag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean accepts(String acceptEncoding, String encoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase(encoding)) {
+                // gzip;q=0 表示不接受
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 资源的一个编码版本，小文件保存在内存中，大文件保存在临时文件中以便零拷贝输出
+     */
+    public static final class Variant {
+
+        private final String encoding;
+        private final String etag;
+        private final long length;
+        private final byte[] content;
+        private final Path file;
+
+        Variant(String encoding, String etag, long length, byte[] content, Path file) {
+            this.encoding = encoding;
+            this.etag = etag;
+            this.length = length;
+            this.content = content;
+            this.file = file;
+        }
+
+        /**
+         * @return Content-Encoding，原始版本为null
+         */
+        public String getEncoding() {
+            return encoding;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        /**
+         * @return 内存中的内容，保存在文件中时为null
+         */
+        public byte[] getContent() {
+            return content;
+        }
+
+        /**
+         * @return 保存内容的文件，保存在内存中时为null
+         */
+        public Path getFile() {
+            return file;
+        }
+    }
+}
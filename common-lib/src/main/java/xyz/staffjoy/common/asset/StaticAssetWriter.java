@@ -0,0 +1,85 @@
+package xyz.staffjoy.common.asset;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+
+import javax.servlet.ServletResponseWrapper;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ *
+ * 输出静态资源
+ * 处理If-None-Match（304）、按Accept-Encoding选择预先压缩的版本
+ * 临时文件中的大资源交给Tomcat用sendfile输出，容器不支持时用FileChannel.transferTo输出
+ *
+ */
+public class StaticAssetWriter {
+
+    // 带内容摘要的URL内容不会变化
+    public static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    // 原始URL每次都要用ETag重新验证
+    public static final String REVALIDATE = "no-cache";
+
+    // Tomcat的sendfile请求属性
+    static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    public void write(HttpServletRequest request, HttpServletResponse response, StaticAsset asset, String cacheControl) throws IOException {
+        StaticAsset.Variant variant = asset.selectVariant(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setHeader(HttpHeaders.ETAG, variant.getEtag());
+        if (asset.isEncoded()) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (asset.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(asset.getContentType());
+        if (variant.getEncoding() != null) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, variant.getEncoding());
+        }
+        response.setContentLengthLong(variant.getLength());
+        if (HttpMethod.HEAD.matches(request.getMethod())) {
+            return;
+        }
+        if (variant.getFile() == null) {
+            response.getOutputStream().write(variant.getContent());
+        } else if (isSendfileSupported(request, response)) {
+            request.setAttribute(SENDFILE_FILENAME_ATTR, variant.getFile().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START_ATTR, 0L);
+            request.setAttribute(SENDFILE_END_ATTR, variant.getLength());
+        } else {
+            transferTo(variant.getFile(), variant.getLength(), response);
+        }
+    }
+
+    /**
+     * 响应被包装时（例如会缓存响应体的过滤器）不能绕过包装直接sendfile
+     */
+    protected boolean isSendfileSupported(HttpServletRequest request, HttpServletResponse response) {
+        return Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))
+                && !(response instanceof ServletResponseWrapper);
+    }
+
+    protected void transferTo(Path file, long length, HttpServletResponse response) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < length) {
+                position += channel.transferTo(position, length - position, out);
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package xyz.staffjoy.common.asset;
+
+import com.github.structlog4j.ILogger;
+import com.github.structlog4j.SLoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ *
+ * 静态资源表
+ * 启动时加载一个目录下的所有资源，计算内容摘要、强ETag，并预先压缩文本类资源
+ * 可以按原始路径或带内容摘要的路径查找
+ * JDK没有brotli编码器，只使用构建时生成的 .br 文件（与原文件放在一起）
+ *
+ */
+public class StaticAssets {
+
+    private static final ILogger log = SLoggerFactory.getLogger(StaticAssets.class);
+
+    public static final String GZIP = "gzip";
+    public static final String BROTLI = "br";
+    // 不小于该大小的资源保存在临时文件中，输出时使用零拷贝
+    public static final int FILE_THRESHOLD = 64 * 1024;
+    // 压缩后至少要小10%才保留压缩版本
+    private static final double MIN_COMPRESSION_RATIO = 0.9;
+
+    private static final String BROTLI_SUFFIX = ".br";
+    private static final String GZIP_SUFFIX = ".gz";
+
+    // <原始路径,StaticAsset>
+    private final Map<String, StaticAsset> assets;
+    // <带内容摘要的路径,StaticAsset>
+    private final Map<String, StaticAsset> hashedAssets;
+
+    private StaticAssets(Map<String, StaticAsset> assets) {
+        this.assets = assets;
+        Map<String, StaticAsset> hashed = new HashMap<>();
+        assets.values().forEach(asset -> hashed.put(asset.getHashedPath(), asset));
+        this.hashedAssets = hashed;
+    }
+
+    /**
+     * 加载目录下的所有资源
+     *
+     * @param location  资源目录，例如 classpath:static/assets/
+     * @param urlPrefix 资源的URL前缀，例如 /assets/
+     * @return
+     * @throws IOException
+     */
+    public static StaticAssets load(String location, String urlPrefix) throws IOException {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        String root = resolver.getResource(location).getURL().toString();
+        // <相对路径,内容>
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        for (Resource resource : resolver.getResources(location + "**")) {
+            String url = resource.getURL().toString();
+            if (!url.startsWith(root) || url.endsWith("/") || !resource.isReadable()) {
+                continue;
+            }
+            try (InputStream in = resource.getInputStream()) {
+                contents.put(url.substring(root.length()), StreamUtils.copyToByteArray(in));
+            }
+        }
+
+        Path directory = null;
+        Map<String, StaticAsset> assets = new HashMap<>();
+        for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
+            String relativePath = entry.getKey();
+            if (isPrecompressed(relativePath, contents)) {
+                continue;
+            }
+            byte[] content = entry.getValue();
+            if (directory == null && content.length >= FILE_THRESHOLD) {
+                directory = createDirectory();
+            }
+            String path = urlPrefix + relativePath;
+            assets.put(path, build(path, content,
+                    contents.get(relativePath + BROTLI_SUFFIX), contents.get(relativePath + GZIP_SUFFIX), directory));
+        }
+        log.info("Static assets loaded", "location", location, "assets", assets.size());
+        return new StaticAssets(Collections.unmodifiableMap(assets));
+    }
+
+    /**
+     * 单个资源（例如网站图标）
+     *
+     * @param path
+     * @param content
+     * @return
+     */
+    public static StaticAsset of(String path, byte[] content) {
+        try {
+            return build(path, content, null, null, content.length >= FILE_THRESHOLD ? createDirectory() : null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error building static asset " + path, e);
+        }
+    }
+
+    /**
+     * 按原始路径或带内容摘要的路径查找资源
+     *
+     * @param path
+     * @return 没有该资源时返回null
+     */
+    public StaticAsset get(String path) {
+        StaticAsset asset = hashedAssets.get(path);
+        return asset != null ? asset : assets.get(path);
+    }
+
+    /**
+     * 路径是否是带内容摘要的路径（内容不会变化，可以长期缓存）
+     *
+     * @param path
+     * @return
+     */
+    public boolean isHashedPath(String path) {
+        return hashedAssets.containsKey(path);
+    }
+
+    /**
+     * 原始路径对应的带内容摘要的路径
+     *
+     * @param path
+     * @return 没有该资源时返回原始路径
+     */
+    public String getHashedPath(String path) {
+        StaticAsset asset = assets.get(path);
+        return asset != null ? asset.getHashedPath() : path;
+    }
+
+    public int size() {
+        return assets.size();
+    }
+
+    private static StaticAsset build(String path, byte[] content, byte[] brotli, byte[] gzip, Path directory) throws IOException {
+        String hash = DigestUtils.md5DigestAsHex(content);
+        String contentType = MediaTypeFactory.getMediaType(path).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+        if (gzip == null && isCompressible(contentType)) {
+            gzip = gzip(content);
+        }
+
+        List<StaticAsset.Variant> variants = new ArrayList<>(3);
+        if (brotli != null && brotli.length < content.length) {
+            variants.add(variant(BROTLI, hash, brotli, directory));
+        }
+        if (gzip != null && gzip.length < content.length * MIN_COMPRESSION_RATIO) {
+            variants.add(variant(GZIP, hash, gzip, directory));
+        }
+        variants.add(variant(null, hash, content, directory));
+        return new StaticAsset(path, hashedPath(path, hash), contentType, Collections.unmodifiableList(variants));
+    }
+
+    private static StaticAsset.Variant variant(String encoding, String hash, byte[] content, Path directory) throws IOException {
+        // 不同编码是不同的表示，强ETag不能相同
+        String etag = "\"" + hash + (encoding == null ? "" : "-" + encoding) + "\"";
+        if (directory == null || content.length < FILE_THRESHOLD) {
+            return new StaticAsset.Variant(encoding, etag, content.length, content, null);
+        }
+        Path file = directory.resolve(hash + (encoding == null ? "" : "." + encoding));
+        Files.write(file, content);
+        file.toFile().deleteOnExit();
+        return new StaticAsset.Variant(encoding, etag, content.length, null, file);
+    }
+
+    /**
+     * /assets/css/main.css -> /assets/css/main-{hash}.css
+     */
+    private static String hashedPath(String path, String hash) {
+        int slash = path.lastIndexOf('/');
+        int dot = path.lastIndexOf('.');
+        if (dot <= slash + 1) {
+            return path + "-" + hash;
+        }
+        return path.substring(0, dot) + "-" + hash + path.substring(dot);
+    }
+
+    private static boolean isPrecompressed(String relativePath, Map<String, byte[]> contents) {
+        for (String suffix : new String[]{BROTLI_SUFFIX, GZIP_SUFFIX}) {
+            if (relativePath.endsWith(suffix)
+                    && contents.containsKey(relativePath.substring(0, relativePath.length() - suffix.length()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isCompressible(String contentType) {
+        return contentType.startsWith("text/") || contentType.endsWith("javascript") || contentType.endsWith("json")
+                || contentType.endsWith("xml") || contentType.startsWith("image/svg") || contentType.contains("icon")
+                || contentType.contains("font") || contentType.endsWith("opentype")
+                || contentType.equals("application/vnd.ms-fontobject");
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 2);
+        // 只在启动时压缩一次，使用最高压缩级别
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(content);
+        }
+        return out.toByteArray();
+    }
+
+    private static Path createDirectory() throws IOException {
+        Path directory = Files.createTempDirectory("staffjoy-assets-");
+        // deleteOnExit按注册的相反顺序删除，目录在其中的文件之后删除
+        directory.toFile().deleteOnExit();
+        return directory;
+    }
+}
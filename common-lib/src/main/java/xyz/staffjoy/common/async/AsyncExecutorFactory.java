@@ -0,0 +1,146 @@
+package xyz.staffjoy.common.async;
+
+import com.github.structlog4j.ILogger;
+import com.github.structlog4j.SLoggerFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.core.task.AsyncListenableTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/*
+ *
+ * 按名称创建异步线程池，配置见AsyncExecutorProperties
+ * 任务复制提交线程的请求上下文，并记录排队时间、执行时间、活跃线程数、队列长度和饱和次数
+ * 指标名称为 executor.*，用name标签区分线程池
+ *
+ */
+public class AsyncExecutorFactory {
+
+    private static final ILogger log = SLoggerFactory.getLogger(AsyncExecutorFactory.class);
+
+    protected final AsyncExecutorProperties properties;
+    protected final MeterRegistry registry;
+
+    public AsyncExecutorFactory(AsyncExecutorProperties properties, Optional<MeterRegistry> meterRegistry) {
+        this.properties = properties;
+        this.registry = meterRegistry.orElseGet(CompositeMeterRegistry::new);
+    }
+
+    /**
+     * 创建线程池，没有配置时使用默认值
+     *
+     * @param name 线程池bean名称
+     * @return
+     */
+    public AsyncListenableTaskExecutor create(String name) {
+        return create(name, new AsyncExecutorProperties.ExecutorProperties());
+    }
+
+    /**
+     * 创建线程池，没有配置时使用服务提供的默认值
+     *
+     * @param name     线程池bean名称
+     * @param defaults
+     * @return
+     */
+    public AsyncListenableTaskExecutor create(String name, AsyncExecutorProperties.ExecutorProperties defaults) {
+        AsyncExecutorProperties.ExecutorProperties executor = properties.getExecutors().getOrDefault(name, defaults);
+        Tags tags = Tags.of("name", name);
+        Counter rejected = Counter.builder("executor.rejected")
+                .description("Tasks submitted while the executor was saturated")
+                .tags(tags)
+                .register(registry);
+        TaskDecorator decorator = new MeteredTaskDecorator(
+                Timer.builder("executor.queued.time").description("Time tasks wait before running").tags(tags).register(registry),
+                Timer.builder("executor.execution").description("Task execution time").tags(tags).register(registry));
+
+        if (executor.isVirtualThreads()) {
+            VirtualThreadTaskExecutor virtualThreadExecutor = VirtualThreadTaskExecutor.create(
+                    executor.getMaxPoolSize() + executor.getQueueCapacity(), executor.getRejectionPolicy(),
+                    executor.getBlockTimeoutMillis(), executor.getAwaitTerminationSeconds(), rejected::increment);
+            if (virtualThreadExecutor != null) {
+                virtualThreadExecutor.setTaskDecorator(decorator);
+                Gauge.builder("executor.active", virtualThreadExecutor, VirtualThreadTaskExecutor::getActiveCount)
+                        .description("Running tasks")
+                        .tags(tags)
+                        .register(registry);
+                log.info("Virtual thread executor created", "name", name);
+                return virtualThreadExecutor;
+            }
+            log.warn("Virtual threads are not supported by this JVM, falling back to thread pool", "name", name);
+        }
+
+        ThreadPoolTaskExecutor threadPoolExecutor = new ThreadPoolTaskExecutor();
+        // for passing in request scope context
+        threadPoolExecutor.setTaskDecorator(decorator);
+        threadPoolExecutor.setCorePoolSize(executor.getCorePoolSize());
+        threadPoolExecutor.setMaxPoolSize(executor.getMaxPoolSize());
+        threadPoolExecutor.setQueueCapacity(executor.getQueueCapacity());
+        RejectedExecutionHandler handler = executor.getRejectionPolicy().toHandler(executor.getBlockTimeoutMillis());
+        threadPoolExecutor.setRejectedExecutionHandler((runnable, pool) -> {
+            rejected.increment();
+            handler.rejectedExecution(runnable, pool);
+        });
+        threadPoolExecutor.setWaitForTasksToCompleteOnShutdown(true);
+        threadPoolExecutor.setAwaitTerminationSeconds(executor.getAwaitTerminationSeconds());
+        threadPoolExecutor.setThreadNamePrefix(name + "-");
+        threadPoolExecutor.initialize();
+
+        ThreadPoolExecutor pool = threadPoolExecutor.getThreadPoolExecutor();
+        Gauge.builder("executor.active", pool, ThreadPoolExecutor::getActiveCount)
+                .description("Threads running tasks")
+                .tags(tags)
+                .register(registry);
+        Gauge.builder("executor.queued", pool, p -> p.getQueue().size())
+                .description("Tasks waiting in the queue")
+                .tags(tags)
+                .register(registry);
+        Gauge.builder("executor.pool.size", pool, ThreadPoolExecutor::getPoolSize)
+                .description("Threads in the pool")
+                .tags(tags)
+                .register(registry);
+        return threadPoolExecutor;
+    }
+
+    /**
+     * 复制请求上下文，并记录任务的排队时间和执行时间
+     */
+    private static class MeteredTaskDecorator implements TaskDecorator {
+
+        private final TaskDecorator contextCopyingDecorator = new ContextCopyingDecorator();
+        private final Timer queuedTime;
+        private final Timer execution;
+
+        private MeteredTaskDecorator(Timer queuedTime, Timer execution) {
+            this.queuedTime = queuedTime;
+            this.execution = execution;
+        }
+
+        @Override
+        public Runnable decorate(Runnable runnable) {
+            long submitted = nanoTime();
+            Runnable task = contextCopyingDecorator.decorate(runnable);
+            return () -> {
+                long started = nanoTime();
+                queuedTime.record(started - submitted, NANOSECONDS);
+                try {
+                    task.run();
+                } finally {
+                    execution.record(nanoTime() - started, NANOSECONDS);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package xyz.staffjoy.common.async;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ *
+ * 异步线程池配置
+ * staffjoy.async.executors.<线程池bean名称>.*，没有配置的线程池使用默认值
+ * 调用外部服务（Feign、阿里云、Intercom）等I/O密集的线程池可以开启virtual-threads
+ *
+ */
+@ConfigurationProperties(prefix = "staffjoy.async")
+@Data
+public class AsyncExecutorProperties {
+
+    // <线程池bean名称,ExecutorProperties>
+    private Map<String, ExecutorProperties> executors = new HashMap<>();
+
+    @Data
+    public static class ExecutorProperties {
+        private int corePoolSize = 3;
+        private int maxPoolSize = 5;
+        private int queueCapacity = 100;
+        private RejectionPolicy rejectionPolicy = RejectionPolicy.CALLER_RUNS;
+        // BLOCK策略等待队列空出位置的最长时间
+        private long blockTimeoutMillis = 1000;
+        // 关闭时等待已提交任务完成的最长时间
+        private int awaitTerminationSeconds = 30;
+        // 每个任务一个虚拟线程（需要JDK 21+，否则使用普通线程池），最多同时执行maxPoolSize + queueCapacity个任务
+        private boolean virtualThreads;
+    }
+}
@@ -3,6 +3,7 @@ package xyz.staffjoy.common.async;
 import org.springframework.core.task.TaskDecorator;
 import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
+import xyz.staffjoy.common.auth.AuthContext;
 
 /*
  *
@@ -16,14 +17,26 @@ import org.springframework.web.context.request.RequestContextHolder;
 public class ContextCopyingDecorator implements TaskDecorator {
     @Override
         public Runnable decorate(Runnable runnable) {
-        //复制请求上下文 传给新的线程
-        RequestAttributes context = RequestContextHolder.currentRequestAttributes();
+        //复制请求上下文 传给新的线程（不在请求中提交的任务没有请求上下文）
+        RequestAttributes context = RequestContextHolder.getRequestAttributes();
+        if (context != null) {
+            // 先解析认证信息，保证副本中包含提交时的认证信息
+            AuthContext.getPrincipal();
+            context = new SubmittedRequestAttributes(context);
+        }
+        RequestAttributes taskContext = context;
         return () -> {
+            // 线程池饱和时任务可能由提交任务的线程执行，执行完后恢复该线程原来的请求上下文
+            RequestAttributes previous = RequestContextHolder.getRequestAttributes();
             try {
-                RequestContextHolder.setRequestAttributes(context);
+                RequestContextHolder.setRequestAttributes(taskContext);
                 runnable.run();
             } finally {
-                RequestContextHolder.resetRequestAttributes();
+                if (previous != null) {
+                    RequestContextHolder.setRequestAttributes(previous);
+                } else {
+                    RequestContextHolder.resetRequestAttributes();
+                }
             }
         };
     }
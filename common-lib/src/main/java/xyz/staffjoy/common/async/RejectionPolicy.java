@@ -0,0 +1,52 @@
+package xyz.staffjoy.common.async;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/*
+ *
+ * 线程池饱和（线程数和队列都已满）时的处理策略
+ *
+ */
+public enum RejectionPolicy {
+
+    // 抛出RejectedExecutionException，任务丢失
+    ABORT,
+    // 由提交任务的线程执行，减慢提交速度
+    CALLER_RUNS,
+    // 直接丢弃新任务
+    DISCARD,
+    // 丢弃队列中最早的任务，再提交新任务
+    DISCARD_OLDEST,
+    // 等待队列空出位置，超时后抛出RejectedExecutionException
+    BLOCK;
+
+    public RejectedExecutionHandler toHandler(long blockTimeoutMillis) {
+        switch (this) {
+            case CALLER_RUNS:
+                return new ThreadPoolExecutor.CallerRunsPolicy();
+            case DISCARD:
+                return new ThreadPoolExecutor.DiscardPolicy();
+            case DISCARD_OLDEST:
+                return new ThreadPoolExecutor.DiscardOldestPolicy();
+            case BLOCK:
+                return (runnable, executor) -> {
+                    if (executor.isShutdown()) {
+                        throw new RejectedExecutionException("Executor has been shut down");
+                    }
+                    try {
+                        if (!executor.getQueue().offer(runnable, blockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                            throw new RejectedExecutionException("Timed out waiting for executor queue space");
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException("Interrupted waiting for executor queue space", e);
+                    }
+                };
+            default:
+                return new ThreadPoolExecutor.AbortPolicy();
+        }
+    }
+}
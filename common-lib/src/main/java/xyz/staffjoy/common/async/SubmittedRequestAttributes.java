@@ -0,0 +1,88 @@
+package xyz.staffjoy.common.async;
+
+import org.springframework.web.context.request.RequestAttributes;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ *
+ * 异步任务使用的请求上下文
+ * 请求结束后容器可能重用请求对象，请求属性使用提交任务时的副本，其他操作交给原来的请求上下文
+ *
+ */
+class SubmittedRequestAttributes implements RequestAttributes {
+
+    private final RequestAttributes delegate;
+
+    private final Map<String, Object> attributes = new HashMap<>();
+
+    SubmittedRequestAttributes(RequestAttributes delegate) {
+        this.delegate = delegate;
+        for (String name : delegate.getAttributeNames(SCOPE_REQUEST)) {
+            attributes.put(name, delegate.getAttribute(name, SCOPE_REQUEST));
+        }
+    }
+
+    @Override
+    public Object getAttribute(String name, int scope) {
+        if (scope == SCOPE_REQUEST) {
+            synchronized (attributes) {
+                return attributes.get(name);
+            }
+        }
+        return delegate.getAttribute(name, scope);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value, int scope) {
+        if (scope == SCOPE_REQUEST) {
+            synchronized (attributes) {
+                attributes.put(name, value);
+            }
+        } else {
+            delegate.setAttribute(name, value, scope);
+        }
+    }
+
+    @Override
+    public void removeAttribute(String name, int scope) {
+        if (scope == SCOPE_REQUEST) {
+            synchronized (attributes) {
+                attributes.remove(name);
+            }
+        } else {
+            delegate.removeAttribute(name, scope);
+        }
+    }
+
+    @Override
+    public String[] getAttributeNames(int scope) {
+        if (scope == SCOPE_REQUEST) {
+            synchronized (attributes) {
+                return attributes.keySet().toArray(new String[0]);
+            }
+        }
+        return delegate.getAttributeNames(scope);
+    }
+
+    @Override
+    public void registerDestructionCallback(String name, Runnable callback, int scope) {
+        delegate.registerDestructionCallback(name, callback, scope);
+    }
+
+    @Override
+    public Object resolveReference(String key) {
+        return delegate.resolveReference(key);
+    }
+
+    @Override
+    public String getSessionId() {
+        return delegate.getSessionId();
+    }
+
+    @Override
+    public Object getSessionMutex() {
+        return delegate.getSessionMutex();
+    }
+}
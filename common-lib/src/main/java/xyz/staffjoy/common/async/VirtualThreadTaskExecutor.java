@@ -0,0 +1,158 @@
+package xyz.staffjoy.common.async;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/*
+ *
+ * 每个任务一个虚拟线程的执行器
+ * 虚拟线程没有数量限制，用信号量限制同时执行的任务数，超过时按拒绝策略处理
+ * 通过反射创建虚拟线程执行器，编译和运行都不依赖JDK 21
+ *
+ */
+public class VirtualThreadTaskExecutor extends TaskExecutorAdapter implements DisposableBean {
+
+    private final ExecutorService executorService;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final int awaitTerminationSeconds;
+
+    private VirtualThreadTaskExecutor(BoundedExecutor executor, int awaitTerminationSeconds) {
+        super(executor);
+        this.executorService = executor.delegate;
+        this.permits = executor.permits;
+        this.maxConcurrency = executor.maxConcurrency;
+        this.awaitTerminationSeconds = awaitTerminationSeconds;
+    }
+
+    /**
+     * 创建虚拟线程执行器
+     *
+     * @param maxConcurrency
+     * @param rejectionPolicy
+     * @param blockTimeoutMillis
+     * @param awaitTerminationSeconds
+     * @param onRejected              同时执行的任务数已达上限时调用（用于统计）
+     * @return 当前JDK不支持虚拟线程时返回null
+     */
+    public static VirtualThreadTaskExecutor create(int maxConcurrency, RejectionPolicy rejectionPolicy,
+                                                   long blockTimeoutMillis, int awaitTerminationSeconds,
+                                                   Runnable onRejected) {
+        ExecutorService executorService = newVirtualThreadPerTaskExecutor();
+        if (executorService == null) {
+            return null;
+        }
+        return new VirtualThreadTaskExecutor(
+                new BoundedExecutor(executorService, maxConcurrency, rejectionPolicy, blockTimeoutMillis, onRejected),
+                awaitTerminationSeconds);
+    }
+
+    public static boolean isSupported() {
+        return getFactoryMethod() != null;
+    }
+
+    /**
+     * @return 正在执行的任务数
+     */
+    public int getActiveCount() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executorService.shutdown();
+        executorService.awaitTermination(awaitTerminationSeconds, TimeUnit.SECONDS);
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        Method method = getFactoryMethod();
+        if (method == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static Method getFactoryMethod() {
+        try {
+            return java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static class BoundedExecutor implements Executor {
+
+        private final ExecutorService delegate;
+        private final Semaphore permits;
+        private final int maxConcurrency;
+        private final RejectionPolicy rejectionPolicy;
+        private final long blockTimeoutMillis;
+        private final Runnable onRejected;
+
+        private BoundedExecutor(ExecutorService delegate, int maxConcurrency, RejectionPolicy rejectionPolicy,
+                                long blockTimeoutMillis, Runnable onRejected) {
+            this.delegate = delegate;
+            this.permits = new Semaphore(maxConcurrency);
+            this.maxConcurrency = maxConcurrency;
+            this.rejectionPolicy = rejectionPolicy;
+            this.blockTimeoutMillis = blockTimeoutMillis;
+            this.onRejected = onRejected;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (!acquire()) {
+                switch (rejectionPolicy) {
+                    case CALLER_RUNS:
+                        task.run();
+                        return;
+                    case DISCARD:
+                    case DISCARD_OLDEST:
+                        // 没有排队的任务，只能丢弃新任务
+                        return;
+                    default:
+                        throw new RejectedExecutionException("Too many concurrent virtual thread tasks");
+                }
+            }
+            try {
+                delegate.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        private boolean acquire() {
+            if (permits.tryAcquire()) {
+                return true;
+            }
+            onRejected.run();
+            if (rejectionPolicy != RejectionPolicy.BLOCK) {
+                return false;
+            }
+            try {
+                return permits.tryAcquire(blockTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package xyz.staffjoy.common.auditlog;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ *
+ * 审计日志的字段级差异
+ * 在请求线程上只比较字段并保存变化的字段值，格式化（toString）推迟到写日志的线程
+ * 格式：{"字段":[原值,新值],...}
+ *
+ */
+public final class AuditDiff {
+
+    // <类,该类及父类的实例字段>
+    private static final Map<Class<?>, Field[]> FIELDS = new ConcurrentHashMap<>();
+
+    // 依次为字段名、原值、新值
+    private final Object[] changes;
+    private final int size;
+    private volatile String formatted;
+
+    private AuditDiff(Object[] changes, int size) {
+        this.changes = changes;
+        this.size = size;
+    }
+
+    /**
+     * 比较同一类型的两个对象
+     *
+     * @param original 修改前
+     * @param updated  修改后
+     * @return
+     */
+    public static AuditDiff of(Object original, Object updated) {
+        if (original.getClass() != updated.getClass()) {
+            throw new IllegalArgumentException("Cannot diff " + original.getClass().getName()
+                    + " with " + updated.getClass().getName());
+        }
+        Field[] fields = FIELDS.computeIfAbsent(original.getClass(), AuditDiff::fieldsOf);
+        Object[] changes = null;
+        int size = 0;
+        for (Field field : fields) {
+            Object originalValue = get(field, original);
+            Object updatedValue = get(field, updated);
+            if (Objects.deepEquals(originalValue, updatedValue)) {
+                continue;
+            }
+            if (changes == null) {
+                changes = new Object[fields.length * 3];
+            }
+            changes[size * 3] = field.getName();
+            changes[size * 3 + 1] = snapshot(originalValue);
+            changes[size * 3 + 2] = snapshot(updatedValue);
+            size++;
+        }
+        return new AuditDiff(changes, size);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index
+     * @return 第index个变化的字段名
+     */
+    public String getField(int index) {
+        return (String) changes[checkIndex(index) * 3];
+    }
+
+    public Object getOriginalValue(int index) {
+        return changes[checkIndex(index) * 3 + 1];
+    }
+
+    public Object getUpdatedValue(int index) {
+        return changes[checkIndex(index) * 3 + 2];
+    }
+
+    @Override
+    public String toString() {
+        String result = formatted;
+        if (result == null) {
+            StringBuilder sb = new StringBuilder(size * 48 + 2).append('{');
+            for (int i = 0; i < size; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                appendString(sb, (String) changes[i * 3]);
+                sb.append(":[");
+                appendValue(sb, changes[i * 3 + 1]);
+                sb.append(',');
+                appendValue(sb, changes[i * 3 + 2]);
+                sb.append(']');
+            }
+            result = sb.append('}').toString();
+            formatted = result;
+        }
+        return result;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return index;
+    }
+
+    private static Field[] fieldsOf(Class<?> clazz) {
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+                    continue;
+                }
+                field.setAccessible(true);
+                fields.add(field);
+            }
+        }
+        return fields.toArray(new Field[0]);
+    }
+
+    private static Object get(Field field, Object target) {
+        try {
+            return field.get(target);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot read field " + field.getName(), e);
+        }
+    }
+
+    /**
+     * 不可变的值直接保存，其他值（集合、数组等）在请求线程上转换成字符串，避免之后被修改
+     */
+    private static Object snapshot(Object value) {
+        if (value == null || value instanceof String || value instanceof Boolean || value instanceof Character
+                || value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte
+                || value instanceof Double || value instanceof Float || value instanceof BigDecimal
+                || value instanceof BigInteger || value instanceof Enum || value instanceof UUID
+                || value.getClass().getName().startsWith("java.time.")) {
+            return value;
+        }
+        if (value instanceof Object[]) {
+            return Arrays.deepToString((Object[]) value);
+        }
+        return String.valueOf(value);
+    }
+
+    private static void appendValue(StringBuilder sb, Object value) {
+        if (value == null || value instanceof Boolean || value instanceof Number) {
+            sb.append(value);
+        } else {
+            appendString(sb, value.toString());
+        }
+    }
+
+    private static void appendString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,35 @@
+package xyz.staffjoy.common.auditlog;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/*
+ *
+ * 审计日志配置
+ *
+ */
+@ConfigurationProperties(prefix = "staffjoy.audit-log")
+@Data
+public class AuditLogProperties {
+
+    // 等待写出的审计日志最大数量
+    private int queueCapacity = 8192;
+    // 队列中积累到该数量时唤醒写日志的线程
+    private int batchSize = 128;
+    // 队列中的日志最长等待时间
+    private long flushIntervalMillis = 200;
+    // 关闭时等待队列写完的最长时间
+    private long shutdownTimeoutMillis = 5000;
+    // 默认队列满时直接写，审计日志不会丢失；需要优先保证请求延迟时再配置为DROP
+    private OverflowPolicy overflowPolicy = OverflowPolicy.WRITE_THROUGH;
+
+    /**
+     * 队列满时的处理方式，都不会让请求线程等待队列
+     */
+    public enum OverflowPolicy {
+        // 丢弃并计数，写日志的线程定期输出丢弃的数量
+        DROP,
+        // 在请求线程上直接写日志
+        WRITE_THROUGH
+    }
+}
@@ -0,0 +1,158 @@
+package xyz.staffjoy.common.auditlog;
+
+import com.github.structlog4j.ILogger;
+import com.github.structlog4j.SLoggerFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ *
+ * 异步批量写审计日志
+ * 请求线程只把日志放入有界的无锁队列，由一个后台线程批量格式化和输出
+ * 队列满时按OverflowPolicy丢弃或直接写，请求线程不会等待
+ *
+ */
+public class AuditLogger implements DisposableBean {
+
+    private static final ILogger log = SLoggerFactory.getLogger(AuditLogger.class);
+
+    private final int queueCapacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long shutdownTimeoutMillis;
+    private final AuditLogProperties.OverflowPolicy overflowPolicy;
+
+    // ConcurrentLinkedQueue无界，用queued限制数量
+    private final ConcurrentLinkedQueue<Record> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    // 上次输出之后丢弃的数量
+    private final AtomicLong dropped = new AtomicLong();
+    private final Counter droppedCounter;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public AuditLogger(AuditLogProperties properties, Optional<MeterRegistry> meterRegistry) {
+        this.queueCapacity = properties.getQueueCapacity();
+        this.batchSize = Math.max(1, properties.getBatchSize());
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(properties.getFlushIntervalMillis());
+        this.shutdownTimeoutMillis = properties.getShutdownTimeoutMillis();
+        this.overflowPolicy = properties.getOverflowPolicy();
+
+        MeterRegistry registry = meterRegistry.orElseGet(CompositeMeterRegistry::new);
+        this.droppedCounter = Counter.builder("audit.log.dropped")
+                .description("Audit log entries dropped because the queue was full")
+                .register(registry);
+        Gauge.builder("audit.log.queued", queued, AtomicInteger::get)
+                .description("Audit log entries waiting to be written")
+                .register(registry);
+
+        writer = new Thread(this::run, "audit-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * 写审计日志，日志内容在后台线程上格式化
+     *
+     * @param logger  业务类的logger
+     * @param message
+     * @param entry
+     */
+    public void log(ILogger logger, String message, LogEntry entry) {
+        if (!running) {
+            write(logger, message, entry);
+            return;
+        }
+        int size = queued.incrementAndGet();
+        if (size > queueCapacity) {
+            queued.decrementAndGet();
+            if (overflowPolicy == AuditLogProperties.OverflowPolicy.WRITE_THROUGH) {
+                write(logger, message, entry);
+            } else {
+                dropped.incrementAndGet();
+                droppedCounter.increment();
+            }
+            return;
+        }
+        queue.offer(new Record(logger, message, entry));
+        if (size == batchSize) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * @return 等待写出的日志数量
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(shutdownTimeoutMillis);
+        // 停止前刚放入队列的日志
+        drain(Integer.MAX_VALUE);
+    }
+
+    private void run() {
+        while (running) {
+            int written = drain(batchSize);
+            reportDropped();
+            if (written < batchSize) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+        }
+        drain(Integer.MAX_VALUE);
+        reportDropped();
+    }
+
+    private int drain(int max) {
+        int written = 0;
+        Record record;
+        while (written < max && (record = queue.poll()) != null) {
+            queued.decrementAndGet();
+            write(record.logger, record.message, record.entry);
+            written++;
+        }
+        return written;
+    }
+
+    private void reportDropped() {
+        long count = dropped.getAndSet(0);
+        if (count > 0) {
+            log.warn("Audit log queue full, entries dropped", "count", count);
+        }
+    }
+
+    private static void write(ILogger logger, String message, LogEntry entry) {
+        try {
+            logger.info(message, entry);
+        } catch (RuntimeException ex) {
+            log.error("Failed to write audit log", ex);
+        }
+    }
+
+    private static final class Record {
+        private final ILogger logger;
+        private final String message;
+        private final LogEntry entry;
+
+        private Record(ILogger logger, String message, LogEntry entry) {
+            this.logger = logger;
+            this.message = message;
+            this.entry = entry;
+        }
+    }
+}
@@ -16,6 +16,8 @@ public class LogEntry implements IToLog {
     private String targetId;
     private String originalContents;
     private String updatedContents;
+    // 修改操作的字段级差异，代替originalContents和updatedContents
+    private AuditDiff changes;
 
     @Override
     public Object[] toLog() {
@@ -28,7 +30,8 @@ public class LogEntry implements IToLog {
                 "targetType", targetType,
                 "targetId", targetId,
                 "originalContents", originalContents,
-                "updatedContents", updatedContents
+                "updatedContents", updatedContents,
+                "changes", changes
         };
     }
 }
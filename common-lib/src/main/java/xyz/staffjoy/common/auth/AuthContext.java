@@ -1,6 +1,5 @@
 package xyz.staffjoy.common.auth;
 
-import org.springframework.util.StringUtils;
 import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
@@ -10,6 +9,8 @@ import javax.servlet.http.HttpServletRequest;
 /*
  *
  * 认证上下文助手类
+ * AuthContextFilter每个请求解析一次认证信息并保存在请求属性中，异步任务读取提交时的请求属性副本
+ * 没有经过AuthContextFilter时（例如单元测试）从当前请求解析，同样缓存在请求属性中
  *
  * @Author:Zh1Cheung 945503088@qq.com
  * @Date: 20:23 2019/12/28
@@ -17,24 +18,53 @@ import javax.servlet.http.HttpServletRequest;
  */
 public class AuthContext {
 
+    static final String PRINCIPAL_ATTRIBUTE = AuthContext.class.getName() + ".PRINCIPAL";
 
-    private static String getRequetHeader(String headerName) {
+    public static String getUserId() {
+        return getPrincipal().getUserId();
+    }
+
+    public static String getAuthz() {
+        return getPrincipal().getAuthz();
+    }
+
+    /**
+     * 当前请求的认证信息
+     *
+     * @return 不在请求中时返回AuthPrincipal.NONE
+     */
+    public static AuthPrincipal getPrincipal() {
         //获取上下文请求相关信息
         RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes == null) {
+            return AuthPrincipal.NONE;
+        }
+        Object principal = requestAttributes.getAttribute(PRINCIPAL_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (principal instanceof AuthPrincipal) {
+            return (AuthPrincipal) principal;
+        }
         if (requestAttributes instanceof ServletRequestAttributes) {
-            HttpServletRequest request = ((ServletRequestAttributes)requestAttributes).getRequest();
-            // 返回指定名字的请求头数据
-            return request.getHeader(headerName);
+            return resolve(((ServletRequestAttributes) requestAttributes).getRequest());
         }
-        return null;
-    }
-
-    public static String getUserId() {
-        return getRequetHeader(AuthConstant.CURRENT_USER_HEADER);
+        return AuthPrincipal.NONE;
     }
 
-    public static String getAuthz() {
-        return getRequetHeader(AuthConstant.AUTHORIZATION_HEADER);
+    /**
+     * 解析请求的认证信息，每个请求只读取一次请求头
+     *
+     * @param request
+     * @return
+     */
+    public static AuthPrincipal resolve(HttpServletRequest request) {
+        Object cached = request.getAttribute(PRINCIPAL_ATTRIBUTE);
+        if (cached instanceof AuthPrincipal) {
+            return (AuthPrincipal) cached;
+        }
+        // 返回指定名字的请求头数据
+        String userId = request.getHeader(AuthConstant.CURRENT_USER_HEADER);
+        String authz = request.getHeader(AuthConstant.AUTHORIZATION_HEADER);
+        AuthPrincipal principal = userId == null && authz == null ? AuthPrincipal.NONE : new AuthPrincipal(userId, authz);
+        request.setAttribute(PRINCIPAL_ATTRIBUTE, principal);
+        return principal;
     }
-
 }
@@ -0,0 +1,24 @@
+package xyz.staffjoy.common.auth;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/*
+ *
+ * 请求开始时解析认证信息并保存在请求属性中，请求结束时随请求一起释放
+ *
+ */
+public class AuthContextFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        AuthContext.resolve(request);
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,49 @@
+package xyz.staffjoy.common.auth;
+
+/*
+ *
+ * 请求的认证信息（不可变）
+ * 每个请求只从请求头解析一次，异步任务使用提交任务时的副本，不再读取请求头
+ *
+ */
+public final class AuthPrincipal {
+
+    // 没有认证信息（不在请求中，或者请求没有认证头）
+    public static final AuthPrincipal NONE = new AuthPrincipal(null, null);
+
+    private final String userId;
+    private final String authz;
+    private final int roleBit;
+
+    public AuthPrincipal(String userId, String authz) {
+        this.userId = userId;
+        this.authz = authz;
+        this.roleBit = AuthRoles.bitOf(authz);
+    }
+
+    /**
+     * @return faraday-current-user-id请求头
+     */
+    public String getUserId() {
+        return userId;
+    }
+
+    /**
+     * @return Authorization请求头
+     */
+    public String getAuthz() {
+        return authz;
+    }
+
+    /**
+     * @return 授权头对应的位，未知的授权头为0
+     */
+    int getRoleBit() {
+        return roleBit;
+    }
+
+    @Override
+    public String toString() {
+        return "AuthPrincipal(userId=" + userId + ", authz=" + authz + ")";
+    }
+}
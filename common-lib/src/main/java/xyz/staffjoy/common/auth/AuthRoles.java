@@ -0,0 +1,51 @@
+package xyz.staffjoy.common.auth;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ *
+ * 授权头的位掩码，每个已知的授权头（AuthConstant.AUTHORIZATION_*）占一位
+ *
+ */
+final class AuthRoles {
+
+    private static final Map<String, Integer> BITS = new HashMap<>();
+
+    static {
+        String[] roles = {
+                AuthConstant.AUTHORIZATION_ANONYMOUS_WEB,
+                AuthConstant.AUTHORIZATION_COMPANY_SERVICE,
+                AuthConstant.AUTHORIZATION_BOT_SERVICE,
+                AuthConstant.AUTHORIZATION_ACCOUNT_SERVICE,
+                AuthConstant.AUTHORIZATION_SUPPORT_USER,
+                AuthConstant.AUTHORIZATION_SUPERPOWERS_SERVICE,
+                AuthConstant.AUTHORIZATION_WWW_SERVICE,
+                AuthConstant.AUTHORIZATION_WHOAMI_SERVICE,
+                AuthConstant.AUTHORIZATION_AUTHENTICATED_USER,
+                AuthConstant.AUTHORIZATION_ICAL_SERVICE
+        };
+        for (int i = 0; i < roles.length; i++) {
+            BITS.put(roles[i], 1 << i);
+        }
+    }
+
+    private AuthRoles() {
+    }
+
+    /**
+     * @param authz 授权头
+     * @return 未知的授权头为0
+     */
+    static int bitOf(String authz) {
+        if (authz == null) {
+            return 0;
+        }
+        Integer bit = BITS.get(authz);
+        return bit == null ? 0 : bit;
+    }
+
+    static boolean isKnown(String authz) {
+        return bitOf(authz) != 0;
+    }
+}
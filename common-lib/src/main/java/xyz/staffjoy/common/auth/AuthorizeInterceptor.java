@@ -1,12 +1,19 @@
 package xyz.staffjoy.common.auth;
 
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.util.StringUtils;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.util.Arrays;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /*
  *
@@ -27,30 +34,104 @@ import java.util.Arrays;
 
 
  */
-public class AuthorizeInterceptor extends HandlerInterceptorAdapter {
+public class AuthorizeInterceptor extends HandlerInterceptorAdapter implements ApplicationListener<ContextRefreshedEvent> {
+
+    // <处理方法,允许的授权头>，启动时为所有请求映射预先计算
+    private final Map<Method, AuthorizeRule> rules = new ConcurrentHashMap<>();
+
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
         if (!(handler instanceof HandlerMethod)) {
             return true;
         }
 
-        HandlerMethod handlerMethod = (HandlerMethod) handler;
-        Authorize authorize = handlerMethod.getMethod().getAnnotation(Authorize.class);
-        if (authorize == null) {
+        AuthorizeRule rule = getRule(((HandlerMethod) handler).getMethod());
+        if (rule == AuthorizeRule.NONE) {
             return true; // no need to authorize
         }
 
-        String[] allowedHeaders = authorize.value();
-        String authzHeader = request.getHeader(AuthConstant.AUTHORIZATION_HEADER);
-
-        if (StringUtils.isEmpty(authzHeader)) {
+        AuthPrincipal principal = AuthContext.resolve(request);
+        if (StringUtils.isEmpty(principal.getAuthz())) {
             throw new PermissionDeniedException(AuthConstant.ERROR_MSG_MISSING_AUTH_HEADER);
         }
 
-        if (!Arrays.asList(allowedHeaders).contains(authzHeader)) {
+        if (!rule.allows(principal)) {
             throw new PermissionDeniedException(AuthConstant.ERROR_MSG_DO_NOT_HAVE_ACCESS);
         }
 
         return true;
     }
+
+    /**
+     * 请求映射注册完后预先计算所有处理方法的授权规则
+     */
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        for (RequestMappingHandlerMapping mapping : event.getApplicationContext()
+                .getBeansOfType(RequestMappingHandlerMapping.class).values()) {
+            for (HandlerMethod handlerMethod : mapping.getHandlerMethods().values()) {
+                getRule(handlerMethod.getMethod());
+            }
+        }
+    }
+
+    AuthorizeRule getRule(Method method) {
+        // 命中时不加锁
+        AuthorizeRule rule = rules.get(method);
+        if (rule == null) {
+            rule = rules.computeIfAbsent(method, AuthorizeRule::of);
+        }
+        return rule;
+    }
+
+    int size() {
+        return rules.size();
+    }
+
+    /**
+     * @Authorize允许的授权头，已知的授权头用位掩码检查
+     */
+    static final class AuthorizeRule {
+
+        // 没有@Authorize，不需要授权
+        static final AuthorizeRule NONE = new AuthorizeRule(0, new String[0]);
+
+        private final int mask;
+        // 不在AuthConstant中的授权头
+        private final String[] others;
+
+        private AuthorizeRule(int mask, String[] others) {
+            this.mask = mask;
+            this.others = others;
+        }
+
+        static AuthorizeRule of(Method method) {
+            Authorize authorize = method.getAnnotation(Authorize.class);
+            if (authorize == null) {
+                return NONE;
+            }
+            int mask = 0;
+            List<String> others = new ArrayList<>();
+            for (String authz : authorize.value()) {
+                if (AuthRoles.isKnown(authz)) {
+                    mask |= AuthRoles.bitOf(authz);
+                } else {
+                    others.add(authz);
+                }
+            }
+            return new AuthorizeRule(mask, others.toArray(new String[0]));
+        }
+
+        boolean allows(AuthPrincipal principal) {
+            if ((principal.getRoleBit() & mask) != 0) {
+                return true;
+            }
+            for (String authz : others) {
+                if (authz.equals(principal.getAuthz())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
 }
@@ -30,6 +30,10 @@ public class FeignRequestHeaderInterceptor implements RequestInterceptor {
 
     @Override
     public void apply(RequestTemplate requestTemplate) {
+        // 调用方已经显式传入当前用户时直接使用，不再读取请求上下文
+        if (requestTemplate.headers().containsKey(AuthConstant.CURRENT_USER_HEADER)) {
+            return;
+        }
         String userId = AuthContext.getUserId();
         if (!StringUtils.isEmpty(userId)) {
             //将header继续往后传（也就是userid）
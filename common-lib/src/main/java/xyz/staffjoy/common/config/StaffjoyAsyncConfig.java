@@ -0,0 +1,28 @@
+package xyz.staffjoy.common.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import xyz.staffjoy.common.async.AsyncExecutorFactory;
+import xyz.staffjoy.common.async.AsyncExecutorProperties;
+
+import java.util.Optional;
+
+/*
+ *
+ * 异步线程池公共配置
+ *
+ */
+@Configuration
+@EnableAsync
+@EnableConfigurationProperties(AsyncExecutorProperties.class)
+public class StaffjoyAsyncConfig {
+
+    @Bean
+    public AsyncExecutorFactory asyncExecutorFactory(AsyncExecutorProperties asyncExecutorProperties,
+                                                     Optional<MeterRegistry> meterRegistry) {
+        return new AsyncExecutorFactory(asyncExecutorProperties, meterRegistry);
+    }
+}
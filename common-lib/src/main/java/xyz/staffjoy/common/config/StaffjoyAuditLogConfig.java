@@ -0,0 +1,25 @@
+package xyz.staffjoy.common.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import xyz.staffjoy.common.auditlog.AuditLogProperties;
+import xyz.staffjoy.common.auditlog.AuditLogger;
+
+import java.util.Optional;
+
+/*
+ *
+ * 审计日志公共配置
+ *
+ */
+@Configuration
+@EnableConfigurationProperties(AuditLogProperties.class)
+public class StaffjoyAuditLogConfig {
+
+    @Bean
+    public AuditLogger auditLogger(AuditLogProperties auditLogProperties, Optional<MeterRegistry> meterRegistry) {
+        return new AuditLogger(auditLogProperties, meterRegistry);
+    }
+}
@@ -6,13 +6,15 @@ import feign.RequestInterceptor;
 import io.sentry.Sentry;
 import io.sentry.SentryClient;
 import org.modelmapper.ModelMapper;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import xyz.staffjoy.common.auth.AuthContextFilter;
 import xyz.staffjoy.common.auth.AuthorizeInterceptor;
 import xyz.staffjoy.common.auth.FeignRequestHeaderInterceptor;
 import xyz.staffjoy.common.env.EnvConfig;
@@ -30,9 +32,11 @@ public class StaffjoyConfig implements WebMvcConfigurer {
     @Value("${spring.application.name:NA}")
     private String appName;
 
+    private final StaffjoyProps staffjoyProps;
 
-    StaffjoyProps staffjoyProps;
-
+    public StaffjoyConfig(StaffjoyProps staffjoyProps) {
+        this.staffjoyProps = staffjoyProps;
+    }
 
     @Bean
     public ModelMapper modelMapper() {
@@ -55,9 +59,22 @@ public class StaffjoyConfig implements WebMvcConfigurer {
         return sentryClient;
     }
 
+    @Bean
+    public AuthorizeInterceptor authorizeInterceptor() {
+        return new AuthorizeInterceptor();
+    }
+
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
-        registry.addInterceptor(new AuthorizeInterceptor());
+        registry.addInterceptor(authorizeInterceptor());
+    }
+
+    @Bean
+    public FilterRegistrationBean<AuthContextFilter> authContextFilter() {
+        // 在其他过滤器之前解析认证信息
+        FilterRegistrationBean<AuthContextFilter> registration = new FilterRegistrationBean<>(new AuthContextFilter());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
     }
 
     @Bean
@@ -0,0 +1,96 @@
+package xyz.staffjoy.common.config;
+
+import feign.Client;
+import feign.Feign;
+import feign.Request;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.boot.web.server.ConfigurableWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Scope;
+import org.springframework.core.Ordered;
+import org.springframework.util.unit.DataSize;
+import xyz.staffjoy.common.feign.FeignProperties;
+import xyz.staffjoy.common.feign.GzipRequestFilter;
+import xyz.staffjoy.common.feign.MeteredInvocationHandlerFactory;
+import xyz.staffjoy.common.feign.OkHttpFeignClient;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/*
+ *
+ * 服务间调用公共配置
+ * 调用方：共享连接池的OkHttp客户端、默认超时、每个Feign方法的计时
+ * 服务方：解压gzip请求体、压缩JSON响应
+ *
+ */
+@Configuration
+@EnableConfigurationProperties(FeignProperties.class)
+public class StaffjoyFeignConfig {
+
+    private static final String[] JSON_MIME_TYPES = {"application/json", "application/problem+json", "application/x-jackson-smile", "text/plain"};
+
+    @Bean
+    public Client okHttpFeignClient(FeignProperties feignProperties) {
+        OkHttpClient okHttpClient = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(feignProperties.getMaxIdleConnections(),
+                        feignProperties.getKeepAliveSeconds(), TimeUnit.SECONDS))
+                .retryOnConnectionFailure(true)
+                .build();
+        return new OkHttpFeignClient(okHttpClient, feignProperties.getCompression());
+    }
+
+    /**
+     * 默认超时，feign.client.config.{name}中的配置优先
+     */
+    @Bean
+    public Request.Options feignRequestOptions(FeignProperties feignProperties) {
+        return new Request.Options(feignProperties.getConnectTimeoutMillis(), feignProperties.getReadTimeoutMillis());
+    }
+
+    @Bean
+    @Scope("prototype")
+    public Feign.Builder feignBuilder(Optional<MeterRegistry> meterRegistry) {
+        // 重试、编解码等仍由FeignClientFactoryBean按客户端配置
+        return Feign.builder()
+                .invocationHandlerFactory(new MeteredInvocationHandlerFactory(meterRegistry.orElseGet(CompositeMeterRegistry::new)));
+    }
+
+    @Bean
+    public FilterRegistrationBean<GzipRequestFilter> gzipRequestFilter(FeignProperties feignProperties) {
+        FilterRegistrationBean<GzipRequestFilter> registration = new FilterRegistrationBean<>(
+                new GzipRequestFilter(feignProperties.getCompression().getMaxInflatedRequestSize()));
+        // 在读取请求体的过滤器之前
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    /**
+     * 没有显式配置server.compression时压缩JSON响应
+     */
+    @Bean
+    public WebServerFactoryCustomizer<ConfigurableWebServerFactory> feignResponseCompressionCustomizer(
+            FeignProperties feignProperties, Optional<ServerProperties> serverProperties) {
+        return factory -> {
+            FeignProperties.Compression compression = feignProperties.getCompression();
+            boolean configured = serverProperties.map(p -> p.getCompression().getEnabled()).orElse(false);
+            if (!compression.isResponseEnabled() || configured) {
+                return;
+            }
+            Compression responseCompression = new Compression();
+            responseCompression.setEnabled(true);
+            responseCompression.setMimeTypes(JSON_MIME_TYPES);
+            responseCompression.setMinResponseSize(DataSize.ofBytes(compression.getMinResponseSize()));
+            factory.setCompression(responseCompression);
+        };
+    }
+}
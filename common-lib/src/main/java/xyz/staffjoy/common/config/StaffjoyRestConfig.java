@@ -13,6 +13,6 @@ import xyz.staffjoy.common.aop.*;
  *
  */
 @Configuration
-@Import(value = {StaffjoyConfig.class, SentryClientAspect.class, GlobalExceptionTranslator.class})
+@Import(value = {StaffjoyConfig.class, StaffjoyAsyncConfig.class, StaffjoyAuditLogConfig.class, StaffjoyFeignConfig.class, StaffjoySmileConfig.class, SentryClientAspect.class, GlobalExceptionTranslator.class})
 public class StaffjoyRestConfig  {
 }
@@ -0,0 +1,53 @@
+package xyz.staffjoy.common.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import feign.RequestInterceptor;
+import feign.codec.Encoder;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.openfeign.support.SpringEncoder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import xyz.staffjoy.common.feign.FeignProperties;
+import xyz.staffjoy.common.feign.SmileAcceptInterceptor;
+import xyz.staffjoy.common.feign.SmileEncoder;
+
+/*
+ *
+ * 服务间调用的Smile（二进制JSON）编码
+ * 服务端：按Accept/Content-Type支持Smile，JSON转换器排在前面，外部调用方仍使用JSON
+ * 调用方：Feign请求优先接受Smile响应，请求体按配置使用Smile
+ *
+ */
+@Configuration
+@EnableConfigurationProperties(FeignProperties.class)
+public class StaffjoySmileConfig {
+
+    /**
+     * 与JSON使用相同的spring.jackson配置，排在Spring MVC默认的Smile转换器前面（仍在JSON之后）
+     * Jackson2ObjectMapperBuilder是单例，不能修改它的factory，只把配置应用到新的ObjectMapper上
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder) {
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+        jackson2ObjectMapperBuilder.configure(smileMapper);
+        return new MappingJackson2SmileHttpMessageConverter(smileMapper);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "staffjoy.feign.smile", name = "enabled", matchIfMissing = true)
+    public RequestInterceptor smileAcceptInterceptor() {
+        return new SmileAcceptInterceptor();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "staffjoy.feign.smile", name = "request-enabled")
+    public Encoder feignEncoder(ObjectFactory<HttpMessageConverters> messageConverters) {
+        return new SmileEncoder(new SpringEncoder(messageConverters));
+    }
+}
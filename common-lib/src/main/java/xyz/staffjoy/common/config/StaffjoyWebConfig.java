@@ -13,6 +13,6 @@ import xyz.staffjoy.common.aop.SentryClientAspect;
  *
  */
 @Configuration
-@Import(value = {StaffjoyConfig.class, SentryClientAspect.class,})
+@Import(value = {StaffjoyConfig.class, StaffjoyAsyncConfig.class, StaffjoySmileConfig.class, SentryClientAspect.class,})
 public class StaffjoyWebConfig {
 }
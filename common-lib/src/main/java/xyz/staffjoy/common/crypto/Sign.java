@@ -3,13 +3,17 @@ package xyz.staffjoy.common.crypto;
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import org.springframework.util.StringUtils;
 import xyz.staffjoy.common.error.ServiceException;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 public class Sign {
@@ -18,9 +22,13 @@ public class Sign {
     public static final String CLAIM_USER_ID = "userId";
     public static final String CLAIM_SUPPORT = "support";
 
-    // <signingToken, verifier>  通过verifier返回一个Token
-    private static final Map<String, JWTVerifier> verifierMap = new HashMap<>();
-    private static final Map<String, Algorithm> algorithmMap = new HashMap<>();
+    // 轮换密钥时同时配置新旧密钥，用逗号分隔，新密钥在前：用新密钥签名，新旧密钥都可以验证
+    public static final String SECRET_SEPARATOR = ",";
+    // 缓存的密钥组数量上限，超过后不再缓存，每次重新创建
+    static final int MAX_CACHED_KEYS = 64;
+
+    // <signingToken, SigningKeys>  读取不加锁
+    private static final ConcurrentMap<String, SigningKeys> keysMap = new ConcurrentHashMap<>();
 
     public static DecodedJWT verifyEmailConfirmationToken(String tokenString, String signingToken) {
         return verifyToken(tokenString, signingToken);
@@ -39,42 +47,48 @@ public class Sign {
      * @return
      */
     private static DecodedJWT verifyToken(String tokenString, String signingToken) {
-        JWTVerifier verifier = verifierMap.get(signingToken);
-        if (verifier == null) {
-            synchronized (verifierMap) {
-                verifier = verifierMap.get(signingToken);
-                if (verifier == null) {
-                    Algorithm algorithm = Algorithm.HMAC512(signingToken);
-                    // 选择验证算法
-                    verifier = JWT.require(algorithm).build();
-                    verifierMap.put(signingToken, verifier);
-                }
+        List<JWTVerifier> verifiers = getKeys(signingToken).verifiers;
+        // 依次用各个密钥验证签名，签名正确但已过期等错误直接抛出
+        for (int i = 0; i < verifiers.size() - 1; i++) {
+            try {
+                return verifiers.get(i).verify(tokenString);
+            } catch (SignatureVerificationException e) {
+                // 可能是其它密钥签名的，继续验证
             }
         }
-        // 公钥验证 token
-        DecodedJWT jwt = verifier.verify(tokenString);
-        return jwt;
+        return verifiers.get(verifiers.size() - 1).verify(tokenString);
     }
 
     /**
-     * 生成Token的算法
+     * 生成Token的算法（第一个密钥）
      *
      * @param signingToken
      * @return
      */
     private static Algorithm getAlgorithm(String signingToken) {
-        Algorithm algorithm = algorithmMap.get(signingToken);
-        if (algorithm == null) {
-            synchronized (algorithmMap) {
-                algorithm = algorithmMap.get(signingToken);
-                if (algorithm == null) {
-                    // 签名算法
-                    algorithm = Algorithm.HMAC512(signingToken);
-                    algorithmMap.put(signingToken, algorithm);
-                }
+        return getKeys(signingToken).algorithm;
+    }
+
+    static SigningKeys getKeys(String signingToken) {
+        if (signingToken == null) {
+            throw new ServiceException("No signing token present");
+        }
+        SigningKeys keys = keysMap.get(signingToken);
+        if (keys != null) {
+            return keys;
+        }
+        keys = new SigningKeys(signingToken);
+        if (keysMap.size() < MAX_CACHED_KEYS) {
+            SigningKeys existing = keysMap.putIfAbsent(signingToken, keys);
+            if (existing != null) {
+                return existing;
             }
         }
-        return algorithm;
+        return keys;
+    }
+
+    static int cachedKeys() {
+        return keysMap.size();
     }
 
     /**
@@ -119,4 +133,33 @@ public class Sign {
                 .sign(algorithm);
     }
 
+    /**
+     * 一组签名密钥（不可变），第一个密钥用来签名
+     */
+    static final class SigningKeys {
+
+        final Algorithm algorithm;
+        final List<JWTVerifier> verifiers;
+
+        SigningKeys(String signingToken) {
+            List<JWTVerifier> verifiers = new ArrayList<>();
+            Algorithm first = null;
+            for (String secret : signingToken.split(SECRET_SEPARATOR)) {
+                secret = secret.trim();
+                if (secret.isEmpty()) {
+                    continue;
+                }
+                Algorithm algorithm = Algorithm.HMAC512(secret);
+                if (first == null) {
+                    first = algorithm;
+                }
+                verifiers.add(JWT.require(algorithm).build());
+            }
+            if (first == null) {
+                throw new ServiceException("No signing token present");
+            }
+            this.algorithm = first;
+            this.verifiers = Collections.unmodifiableList(verifiers);
+        }
+    }
 }
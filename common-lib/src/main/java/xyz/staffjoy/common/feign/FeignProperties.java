@@ -0,0 +1,45 @@
+package xyz.staffjoy.common.feign;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/*
+ *
+ * 服务间调用（Feign）配置
+ * 单个客户端的超时用Spring Cloud的配置覆盖，例如
+ * feign.client.config.bot-service.read-timeout: 30000
+ *
+ */
+@ConfigurationProperties(prefix = "staffjoy.feign")
+@Data
+public class FeignProperties {
+
+    // 所有客户端共用的连接池
+    private int maxIdleConnections = 20;
+    private long keepAliveSeconds = 300;
+    // 默认超时
+    private int connectTimeoutMillis = 2000;
+    private int readTimeoutMillis = 10000;
+    private Compression compression = new Compression();
+    private Smile smile = new Smile();
+
+    @Data
+    public static class Compression {
+        // 压缩请求体（服务端由GzipRequestFilter解压），所有服务都部署了GzipRequestFilter后再打开，否则旧版本服务无法读取请求体
+        private boolean requestEnabled = false;
+        private int minRequestSize = 2048;
+        // 解压后请求体的上限
+        private long maxInflatedRequestSize = 10 * 1024 * 1024;
+        // 服务端压缩响应（OkHttp自动解压）
+        private boolean responseEnabled = true;
+        private int minResponseSize = 2048;
+    }
+
+    @Data
+    public static class Smile {
+        // 响应协商：Accept优先Smile，服务端不支持时仍返回JSON
+        private boolean enabled = true;
+        // 请求体也用Smile编码，所有服务都支持Smile后再打开，否则旧版本服务返回415
+        private boolean requestEnabled = false;
+    }
+}
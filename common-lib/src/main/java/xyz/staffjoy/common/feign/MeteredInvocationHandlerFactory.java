@@ -0,0 +1,75 @@
+package xyz.staffjoy.common.feign;
+
+import feign.Feign;
+import feign.InvocationHandlerFactory;
+import feign.Target;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+ *
+ * 记录每个Feign方法的调用时间（包括重试和解码）
+ * 指标：feign.client.requests，标签client、method、outcome（SUCCESS/ERROR），创建客户端时预先注册
+ *
+ */
+public class MeteredInvocationHandlerFactory implements InvocationHandlerFactory {
+
+    static final String METRIC_NAME = "feign.client.requests";
+
+    private final InvocationHandlerFactory delegate = new InvocationHandlerFactory.Default();
+    private final MeterRegistry registry;
+
+    public MeteredInvocationHandlerFactory(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public InvocationHandler create(Target target, Map<Method, MethodHandler> dispatch) {
+        Map<Method, MethodHandler> metered = new HashMap<>(dispatch.size() * 2);
+        for (Map.Entry<Method, MethodHandler> entry : dispatch.entrySet()) {
+            String method = Feign.configKey(target.type(), entry.getKey());
+            metered.put(entry.getKey(), new MeteredMethodHandler(entry.getValue(),
+                    timer(target.name(), method, "SUCCESS"), timer(target.name(), method, "ERROR")));
+        }
+        return delegate.create(target, metered);
+    }
+
+    private Timer timer(String client, String method, String outcome) {
+        return Timer.builder(METRIC_NAME)
+                .description("Feign client method latency")
+                .tags("client", client, "method", method, "outcome", outcome)
+                .register(registry);
+    }
+
+    private static final class MeteredMethodHandler implements MethodHandler {
+
+        private final MethodHandler delegate;
+        private final Timer success;
+        private final Timer error;
+
+        private MeteredMethodHandler(MethodHandler delegate, Timer success, Timer error) {
+            this.delegate = delegate;
+            this.success = success;
+            this.error = error;
+        }
+
+        @Override
+        public Object invoke(Object[] argv) throws Throwable {
+            long start = System.nanoTime();
+            Timer timer = error;
+            try {
+                Object result = delegate.invoke(argv);
+                timer = success;
+                return result;
+            } finally {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
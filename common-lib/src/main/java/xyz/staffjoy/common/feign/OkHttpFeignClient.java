@@ -0,0 +1,135 @@
+package xyz.staffjoy.common.feign;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ *
+ * 基于OkHttp的Feign客户端
+ * 所有Feign客户端共用连接池，每个请求使用Request.Options中的超时（不同超时的OkHttpClient共享连接池）
+ * 响应由OkHttp透明解压，较大的请求体使用gzip压缩
+ *
+ */
+public class OkHttpFeignClient implements Client {
+
+    private static final String GZIP = "gzip";
+
+    private final OkHttpClient delegate;
+    private final FeignProperties.Compression compression;
+    // <超时和重定向配置,OkHttpClient>
+    private final Map<String, OkHttpClient> clients = new ConcurrentHashMap<>();
+
+    public OkHttpFeignClient(OkHttpClient delegate, FeignProperties.Compression compression) {
+        this.delegate = delegate;
+        this.compression = compression;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        okhttp3.Request okRequest = toOkHttpRequest(request);
+        okhttp3.Response okResponse = clientFor(options).newCall(okRequest).execute();
+        return toFeignResponse(okResponse, request);
+    }
+
+    OkHttpClient clientFor(Request.Options options) {
+        String key = options.connectTimeoutMillis() + ":" + options.readTimeoutMillis() + ":" + options.isFollowRedirects();
+        OkHttpClient client = clients.get(key);
+        if (client == null) {
+            client = clients.computeIfAbsent(key, k -> delegate.newBuilder()
+                    .connectTimeout(options.connectTimeoutMillis(), TimeUnit.MILLISECONDS)
+                    .readTimeout(options.readTimeoutMillis(), TimeUnit.MILLISECONDS)
+                    .writeTimeout(options.readTimeoutMillis(), TimeUnit.MILLISECONDS)
+                    .followRedirects(options.isFollowRedirects())
+                    .build());
+        }
+        return client;
+    }
+
+    private okhttp3.Request toOkHttpRequest(Request request) throws IOException {
+        okhttp3.Request.Builder builder = new okhttp3.Request.Builder().url(request.url());
+        String contentType = null;
+        boolean encoded = false;
+        for (Map.Entry<String, Collection<String>> header : request.headers().entrySet()) {
+            String name = header.getKey();
+            // Content-Length由OkHttp计算，Accept-Encoding由OkHttp添加（这样才会自动解压）
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name) || HttpHeaders.ACCEPT_ENCODING.equalsIgnoreCase(name)) {
+                continue;
+            }
+            for (String value : header.getValue()) {
+                if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+                    contentType = value;
+                }
+                if (HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)) {
+                    encoded = true;
+                }
+                builder.addHeader(name, value);
+            }
+        }
+
+        Request.Body requestBody = request.requestBody();
+        byte[] body = requestBody == null ? null : requestBody.asBytes();
+        RequestBody okHttpBody = null;
+        if (body != null) {
+            if (!encoded && compression.isRequestEnabled() && body.length >= compression.getMinRequestSize()) {
+                body = gzip(body);
+                builder.header(HttpHeaders.CONTENT_ENCODING, GZIP);
+            }
+            okHttpBody = RequestBody.create(contentType == null ? null : MediaType.parse(contentType), body);
+        } else if (requiresBody(request.httpMethod())) {
+            okHttpBody = RequestBody.create(null, new byte[0]);
+        }
+        return builder.method(request.httpMethod().name(), okHttpBody).build();
+    }
+
+    private static Response toFeignResponse(okhttp3.Response response, Request request) throws IOException {
+        ResponseBody body = response.body();
+        Response.Builder builder = Response.builder()
+                .status(response.code())
+                .reason(response.message())
+                .request(request)
+                .headers(toMap(response.headers()));
+        if (body != null) {
+            long length = body.contentLength();
+            builder.body(body.byteStream(), length >= 0 && length <= Integer.MAX_VALUE ? (int) length : null);
+        }
+        return builder.build();
+    }
+
+    private static Map<String, Collection<String>> toMap(Headers headers) {
+        Map<String, Collection<String>> map = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < headers.size(); i++) {
+            map.computeIfAbsent(headers.name(i), k -> new ArrayList<>(1)).add(headers.value(i));
+        }
+        return map;
+    }
+
+    private static boolean requiresBody(Request.HttpMethod method) {
+        return method == Request.HttpMethod.POST || method == Request.HttpMethod.PUT || method == Request.HttpMethod.PATCH;
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,24 @@
+package xyz.staffjoy.common.feign;
+
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import org.springframework.http.HttpHeaders;
+
+/*
+ *
+ * 服务间调用优先使用Smile（二进制JSON）响应
+ * 服务端按Accept协商，不支持Smile的服务返回JSON，外部调用方不受影响
+ *
+ */
+public class SmileAcceptInterceptor implements RequestInterceptor {
+
+    static final String ACCEPT = SmileEncoder.SMILE_VALUE + ", application/json;q=0.9";
+
+    @Override
+    public void apply(RequestTemplate requestTemplate) {
+        // 接口方法通过produces指定了Accept时不修改
+        if (!requestTemplate.headers().containsKey(HttpHeaders.ACCEPT)) {
+            requestTemplate.header(HttpHeaders.ACCEPT, ACCEPT);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package xyz.staffjoy.common.feign;
+
+import feign.RequestTemplate;
+import feign.codec.EncodeException;
+import feign.codec.Encoder;
+import org.springframework.http.HttpHeaders;
+
+import java.lang.reflect.Type;
+
+/*
+ *
+ * 用Smile编码请求体（例如ShiftListRequest、DirectoryEntryRequest），未指定Content-Type时生效
+ * 字符串和字节数组仍由原来的Encoder处理
+ *
+ */
+public class SmileEncoder implements Encoder {
+
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+    private final Encoder delegate;
+
+    public SmileEncoder(Encoder delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void encode(Object object, Type bodyType, RequestTemplate template) throws EncodeException {
+        if (object != null && !(object instanceof CharSequence) && !(object instanceof byte[])
+                && !template.headers().containsKey(HttpHeaders.CONTENT_TYPE)) {
+            template.header(HttpHeaders.CONTENT_TYPE, SMILE_VALUE);
+        }
+        delegate.encode(object, bodyType, template);
+    }
+}
@@ -18,8 +18,10 @@ import java.util.TreeMap;
  */
 public class ServiceDirectory {
 
-    // <服务名,该服务的详细内容>
-    private static Map<String, Service> serviceMap;
+    // 内置的服务  <服务名,该服务的详细内容>
+    private static final Map<String, Service> DEFAULT_SERVICES;
+    // <服务名,该服务的详细内容>，更新时整体替换
+    private static volatile Map<String, Service> serviceMap;
 
     static {
 
@@ -91,10 +93,25 @@ public class ServiceDirectory {
                 .build();
         map.put("www", service);
 
-        serviceMap = Collections.unmodifiableMap(map);
+        DEFAULT_SERVICES = Collections.unmodifiableMap(map);
+        serviceMap = DEFAULT_SERVICES;
     }
 
     public static Map<String, Service> getMapping() {
         return serviceMap;
     }
+
+    /**
+     * 用外部配置的服务覆盖或补充内置的服务，例如修改后端域名或添加新服务，不需要重新部署
+     * 已经取得的服务表不受影响
+     *
+     * @param services <服务名,该服务的详细内容>，为空时恢复内置的服务
+     */
+    public static void update(Map<String, Service> services) {
+        Map<String, Service> map = new TreeMap<>(DEFAULT_SERVICES);
+        if (services != null) {
+            services.forEach((name, service) -> map.put(name.toLowerCase(), service));
+        }
+        serviceMap = Collections.unmodifiableMap(map);
+    }
 }
@@ -0,0 +1,136 @@
+package xyz.staffjoy.common.async;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.core.task.AsyncListenableTaskExecutor;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class AsyncExecutorFactoryTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AsyncExecutorProperties properties = new AsyncExecutorProperties();
+    private final AsyncExecutorFactory factory = new AsyncExecutorFactory(properties, Optional.of(registry));
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void testCallerRunsWhenSaturated() throws Exception {
+        AsyncListenableTaskExecutor executor = factory.create("callerRuns", saturatedPool(RejectionPolicy.CALLER_RUNS));
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            await(release);
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        executor.execute(() -> await(release));
+
+        // 线程和队列都满了，由当前线程执行，执行后当前线程的请求上下文不变
+        RequestAttributes context = new ServletRequestAttributes(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(context);
+        AtomicReference<Thread> thread = new AtomicReference<>();
+        executor.execute(() -> thread.set(Thread.currentThread()));
+
+        assertThat(thread.get()).isSameAs(Thread.currentThread());
+        assertThat(RequestContextHolder.getRequestAttributes()).isSameAs(context);
+        assertThat(registry.get("executor.rejected").tag("name", "callerRuns").counter().count()).isEqualTo(1);
+        assertThat(registry.get("executor.active").tag("name", "callerRuns").gauge().value()).isEqualTo(1);
+        assertThat(registry.get("executor.queued").tag("name", "callerRuns").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    public void testAbortWhenSaturated() {
+        AsyncListenableTaskExecutor executor = factory.create("abort", saturatedPool(RejectionPolicy.ABORT));
+        executor.execute(() -> await(release));
+        executor.execute(() -> await(release));
+        try {
+            executor.execute(() -> {
+            });
+            fail("Task should be rejected");
+        } catch (RejectedExecutionException e) {
+            assertThat(registry.get("executor.rejected").tag("name", "abort").counter().count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void testRequestContextAndTaskLatency() throws Exception {
+        AsyncExecutorProperties.ExecutorProperties pool = new AsyncExecutorProperties.ExecutorProperties();
+        properties.getExecutors().put("configured", pool);
+        AsyncListenableTaskExecutor executor = factory.create("configured");
+        assertThat(executor).isInstanceOf(ThreadPoolTaskExecutor.class);
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute("requestId", "request-1");
+        RequestAttributes context = new ServletRequestAttributes(request);
+        RequestContextHolder.setRequestAttributes(context);
+        AtomicReference<RequestAttributes> taskContext = new AtomicReference<>();
+        executor.submit(() -> taskContext.set(RequestContextHolder.getRequestAttributes())).get(5, TimeUnit.SECONDS);
+
+        assertThat(taskContext.get().getAttribute("requestId", RequestAttributes.SCOPE_REQUEST)).isEqualTo("request-1");
+        // 执行时间在任务返回结果之后才记录
+        awaitCount(() -> registry.get("executor.execution").tag("name", "configured").timer().count(), 1);
+        assertThat(registry.get("executor.execution").tag("name", "configured").timer().count()).isEqualTo(1);
+        assertThat(registry.get("executor.queued.time").tag("name", "configured").timer().count()).isEqualTo(1);
+
+        // 不在请求中提交的任务没有请求上下文
+        RequestContextHolder.resetRequestAttributes();
+        executor.submit(() -> taskContext.set(RequestContextHolder.getRequestAttributes())).get(5, TimeUnit.SECONDS);
+        assertThat(taskContext.get()).isNull();
+    }
+
+    @Test
+    public void testVirtualThreads() throws Exception {
+        AsyncExecutorProperties.ExecutorProperties pool = new AsyncExecutorProperties.ExecutorProperties();
+        pool.setVirtualThreads(true);
+        AsyncListenableTaskExecutor executor = factory.create("virtual", pool);
+
+        // JDK 21之前使用普通线程池
+        assertThat(executor).isInstanceOf(VirtualThreadTaskExecutor.isSupported()
+                ? VirtualThreadTaskExecutor.class : ThreadPoolTaskExecutor.class);
+        assertThat(executor.submit(() -> "done").get(5, TimeUnit.SECONDS)).isEqualTo("done");
+    }
+
+    private static AsyncExecutorProperties.ExecutorProperties saturatedPool(RejectionPolicy rejectionPolicy) {
+        AsyncExecutorProperties.ExecutorProperties pool = new AsyncExecutorProperties.ExecutorProperties();
+        pool.setCorePoolSize(1);
+        pool.setMaxPoolSize(1);
+        pool.setQueueCapacity(1);
+        pool.setRejectionPolicy(rejectionPolicy);
+        pool.setAwaitTerminationSeconds(0);
+        return pool;
+    }
+
+    private static void awaitCount(LongSupplier count, long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (count.getAsLong() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
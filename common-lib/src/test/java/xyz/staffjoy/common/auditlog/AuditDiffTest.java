@@ -0,0 +1,60 @@
+package xyz.staffjoy.common.auditlog;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AuditDiffTest {
+
+    @Test
+    public void testChangedFieldsOnly() {
+        Instant start = Instant.parse("2019-12-30T09:00:00Z");
+        Entry orig = new Entry("shift-1", start, null, false, new ArrayList<>());
+        Entry updated = new Entry("shift-1", start.plusSeconds(3600), "user \"1\"", true, new ArrayList<>());
+
+        AuditDiff diff = AuditDiff.of(orig, updated);
+
+        assertThat(diff.size()).isEqualTo(3);
+        assertThat(diff.getField(0)).isEqualTo("start");
+        assertThat(diff.getUpdatedValue(0)).isEqualTo(start.plusSeconds(3600));
+        assertThat(diff.toString()).isEqualTo("{\"start\":[\"2019-12-30T09:00:00Z\",\"2019-12-30T10:00:00Z\"],"
+                + "\"userId\":[null,\"user \\\"1\\\"\"],\"published\":[false,true]}");
+        assertThat(AuditDiff.of(orig, orig).isEmpty()).isTrue();
+        assertThat(AuditDiff.of(orig, orig).toString()).isEqualTo("{}");
+    }
+
+    @Test
+    public void testMutableValuesAreCopied() {
+        List<String> tags = new ArrayList<>();
+        Entry orig = new Entry("shift-1", null, null, false, new ArrayList<>());
+        Entry updated = new Entry("shift-1", null, null, false, tags);
+        tags.add("night");
+
+        AuditDiff diff = AuditDiff.of(orig, updated);
+        tags.add("weekend");
+
+        // 日志在其他线程上格式化，之后的修改不能影响审计日志
+        assertThat(diff.toString()).isEqualTo("{\"tags\":[\"[]\",\"[night]\"]}");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDifferentTypes() {
+        AuditDiff.of(new Entry("shift-1", null, null, false, null), "shift-1");
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class Entry {
+        private String id;
+        private Instant start;
+        private String userId;
+        private boolean published;
+        private List<String> tags;
+    }
+}
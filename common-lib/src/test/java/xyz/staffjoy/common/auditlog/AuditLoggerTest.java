@@ -0,0 +1,133 @@
+package xyz.staffjoy.common.auditlog;
+
+import com.github.structlog4j.ILogger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class AuditLoggerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ILogger logger = mock(ILogger.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private AuditLogger auditLogger;
+
+    @After
+    public void tearDown() throws Exception {
+        release.countDown();
+        auditLogger.destroy();
+    }
+
+    @Test
+    public void testWrittenOnWriterThread() throws Exception {
+        auditLogger = new AuditLogger(new AuditLogProperties(), Optional.of(registry));
+        LogEntry entry = LogEntry.builder().targetType("shift").targetId("shift-1").build();
+        Thread[] writerThread = new Thread[1];
+        doAnswer(invocation -> writerThread[0] = Thread.currentThread()).when(logger).info(any(), any());
+
+        auditLogger.log(logger, "updated shift", entry);
+
+        verify(logger, timeout(5000)).info("updated shift", entry);
+        assertThat(writerThread[0].getName()).isEqualTo("audit-log-writer");
+    }
+
+    @Test
+    public void testDropWhenFull() throws Exception {
+        auditLogger = new AuditLogger(properties(AuditLogProperties.OverflowPolicy.DROP), Optional.of(registry));
+        CountDownLatch writing = blockWriter();
+
+        // 写日志的线程阻塞在第一条日志上，第二条在队列中，第三条被丢弃
+        auditLogger.log(logger, "first", LogEntry.builder().build());
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        auditLogger.log(logger, "second", LogEntry.builder().build());
+        auditLogger.log(logger, "third", LogEntry.builder().build());
+
+        assertThat(registry.get("audit.log.dropped").counter().count()).isEqualTo(1);
+        assertThat(registry.get("audit.log.queued").gauge().value()).isEqualTo(1);
+        release.countDown();
+        verify(logger, timeout(5000)).info(eq("second"), any());
+        verify(logger, times(0)).info(eq("third"), any());
+    }
+
+    @Test
+    public void testWriteThroughWhenFull() throws Exception {
+        auditLogger = new AuditLogger(properties(AuditLogProperties.OverflowPolicy.WRITE_THROUGH), Optional.of(registry));
+        CountDownLatch writing = blockWriter();
+
+        auditLogger.log(logger, "first", LogEntry.builder().build());
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        auditLogger.log(logger, "second", LogEntry.builder().build());
+        auditLogger.log(logger, "third", LogEntry.builder().build());
+
+        // 队列满时在当前线程上写
+        verify(logger).info(eq("third"), any());
+        assertThat(registry.get("audit.log.dropped").counter().count()).isEqualTo(0);
+    }
+
+    @Test
+    public void testWriteThroughByDefault() throws Exception {
+        AuditLogProperties properties = new AuditLogProperties();
+        properties.setQueueCapacity(1);
+        properties.setBatchSize(1);
+        auditLogger = new AuditLogger(properties, Optional.of(registry));
+        CountDownLatch writing = blockWriter();
+
+        auditLogger.log(logger, "first", LogEntry.builder().build());
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        auditLogger.log(logger, "second", LogEntry.builder().build());
+        auditLogger.log(logger, "third", LogEntry.builder().build());
+
+        // 默认不丢弃审计日志
+        verify(logger).info(eq("third"), any());
+        assertThat(registry.get("audit.log.dropped").counter().count()).isEqualTo(0);
+    }
+
+    @Test
+    public void testFlushOnDestroy() throws Exception {
+        AuditLogProperties properties = new AuditLogProperties();
+        properties.setFlushIntervalMillis(TimeUnit.MINUTES.toMillis(1));
+        auditLogger = new AuditLogger(properties, Optional.of(registry));
+
+        for (int i = 0; i < 10; i++) {
+            auditLogger.log(logger, "updated shift", LogEntry.builder().build());
+        }
+        auditLogger.destroy();
+
+        verify(logger, times(10)).info(eq("updated shift"), any());
+        assertThat(auditLogger.getQueued()).isEqualTo(0);
+    }
+
+    private static AuditLogProperties properties(AuditLogProperties.OverflowPolicy overflowPolicy) {
+        AuditLogProperties properties = new AuditLogProperties();
+        properties.setQueueCapacity(1);
+        properties.setBatchSize(1);
+        properties.setOverflowPolicy(overflowPolicy);
+        return properties;
+    }
+
+    /**
+     * 写"first"时阻塞写日志的线程
+     */
+    private CountDownLatch blockWriter() {
+        CountDownLatch writing = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(logger).info(eq("first"), any());
+        return writing;
+    }
+}
@@ -0,0 +1,112 @@
+package xyz.staffjoy.common.auth;
+
+import feign.RequestTemplate;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import xyz.staffjoy.common.async.ContextCopyingDecorator;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AuthContextTest {
+
+    @After
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void testNotInRequest() {
+        assertThat(AuthContext.getPrincipal()).isSameAs(AuthPrincipal.NONE);
+        assertThat(AuthContext.getUserId()).isNull();
+        assertThat(AuthContext.getAuthz()).isNull();
+    }
+
+    @Test
+    public void testResolvedOncePerRequest() {
+        MockHttpServletRequest request = request("user-1", AuthConstant.AUTHORIZATION_AUTHENTICATED_USER);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        AuthPrincipal principal = AuthContext.getPrincipal();
+        request.removeHeader(AuthConstant.CURRENT_USER_HEADER);
+
+        assertThat(AuthContext.getPrincipal()).isSameAs(principal);
+        assertThat(AuthContext.getUserId()).isEqualTo("user-1");
+        assertThat(AuthContext.getAuthz()).isEqualTo(AuthConstant.AUTHORIZATION_AUTHENTICATED_USER);
+    }
+
+    @Test
+    public void testFilterStoresPrincipalInRequest() throws Exception {
+        AtomicReference<AuthPrincipal> inRequest = new AtomicReference<>();
+        MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                // 与DispatcherServlet一样暴露请求上下文
+                RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(req));
+                try {
+                    inRequest.set(AuthContext.getPrincipal());
+                } finally {
+                    RequestContextHolder.resetRequestAttributes();
+                }
+            }
+        });
+        MockHttpServletRequest request = request("user-1", AuthConstant.AUTHORIZATION_SUPPORT_USER);
+
+        new AuthContextFilter().doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(inRequest.get()).isSameAs(request.getAttribute(AuthContext.PRINCIPAL_ATTRIBUTE));
+        assertThat(inRequest.get().getUserId()).isEqualTo("user-1");
+        assertThat(inRequest.get().getAuthz()).isEqualTo(AuthConstant.AUTHORIZATION_SUPPORT_USER);
+        // 认证信息不绑定到线程，请求结束后当前线程没有认证信息
+        assertThat(AuthContext.getPrincipal()).isSameAs(AuthPrincipal.NONE);
+    }
+
+    @Test
+    public void testAsyncTaskUsesSubmittedPrincipal() throws Exception {
+        MockHttpServletRequest request = request("user-1", AuthConstant.AUTHORIZATION_AUTHENTICATED_USER);
+        ServletRequestAttributes attributes = new ServletRequestAttributes(request);
+        RequestContextHolder.setRequestAttributes(attributes);
+        AtomicReference<String> userId = new AtomicReference<>();
+        Runnable task = new ContextCopyingDecorator().decorate(() -> userId.set(AuthContext.getUserId()));
+
+        // 请求结束后请求对象可能被容器重用
+        attributes.requestCompleted();
+        request.removeHeader(AuthConstant.CURRENT_USER_HEADER);
+        request.setAttribute(AuthContext.PRINCIPAL_ATTRIBUTE, null);
+        Thread thread = new Thread(task);
+        thread.start();
+        thread.join();
+
+        assertThat(userId.get()).isEqualTo("user-1");
+    }
+
+    @Test
+    public void testFeignInterceptorKeepsExplicitUser() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request("user-1", AuthConstant.AUTHORIZATION_AUTHENTICATED_USER)));
+        FeignRequestHeaderInterceptor interceptor = new FeignRequestHeaderInterceptor();
+
+        RequestTemplate explicit = new RequestTemplate().header(AuthConstant.CURRENT_USER_HEADER, "user-2");
+        interceptor.apply(explicit);
+        RequestTemplate fromContext = new RequestTemplate();
+        interceptor.apply(fromContext);
+
+        assertThat(explicit.headers().get(AuthConstant.CURRENT_USER_HEADER)).containsExactly("user-2");
+        assertThat(fromContext.headers().get(AuthConstant.CURRENT_USER_HEADER)).containsExactly("user-1");
+    }
+
+    private static MockHttpServletRequest request(String userId, String authz) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(AuthConstant.CURRENT_USER_HEADER, userId);
+        request.addHeader(AuthConstant.AUTHORIZATION_HEADER, authz);
+        return request;
+    }
+}
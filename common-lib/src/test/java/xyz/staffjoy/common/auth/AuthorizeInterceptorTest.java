@@ -0,0 +1,72 @@
+package xyz.staffjoy.common.auth;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AuthorizeInterceptorTest {
+
+    private final AuthorizeInterceptor interceptor = new AuthorizeInterceptor();
+    private final TestController controller = new TestController();
+
+    @Test
+    public void testNoAuthorizeAnnotation() throws Exception {
+        assertThat(preHandle("open", null)).isTrue();
+        assertThat(interceptor.getRule(TestController.class.getMethod("open"))).isSameAs(AuthorizeInterceptor.AuthorizeRule.NONE);
+    }
+
+    @Test
+    public void testAllowedRoles() throws Exception {
+        assertThat(preHandle("restricted", AuthConstant.AUTHORIZATION_SUPPORT_USER)).isTrue();
+        assertThat(preHandle("restricted", AuthConstant.AUTHORIZATION_COMPANY_SERVICE)).isTrue();
+        assertThat(preHandle("custom", "custom-service")).isTrue();
+
+        assertThatThrownBy(() -> preHandle("restricted", AuthConstant.AUTHORIZATION_AUTHENTICATED_USER))
+                .isInstanceOf(PermissionDeniedException.class)
+                .hasMessage(AuthConstant.ERROR_MSG_DO_NOT_HAVE_ACCESS);
+        assertThatThrownBy(() -> preHandle("restricted", "custom-service"))
+                .isInstanceOf(PermissionDeniedException.class)
+                .hasMessage(AuthConstant.ERROR_MSG_DO_NOT_HAVE_ACCESS);
+        assertThatThrownBy(() -> preHandle("restricted", null))
+                .isInstanceOf(PermissionDeniedException.class)
+                .hasMessage(AuthConstant.ERROR_MSG_MISSING_AUTH_HEADER);
+    }
+
+    @Test
+    public void testRulesCachedPerMethod() throws Exception {
+        preHandle("restricted", AuthConstant.AUTHORIZATION_SUPPORT_USER);
+        preHandle("restricted", AuthConstant.AUTHORIZATION_COMPANY_SERVICE);
+        preHandle("open", null);
+
+        assertThat(interceptor.size()).isEqualTo(2);
+        assertThat(interceptor.getRule(TestController.class.getMethod("restricted")))
+                .isSameAs(interceptor.getRule(TestController.class.getMethod("restricted")));
+    }
+
+    private boolean preHandle(String methodName, String authz) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (authz != null) {
+            request.addHeader(AuthConstant.AUTHORIZATION_HEADER, authz);
+        }
+        HandlerMethod handlerMethod = new HandlerMethod(controller, methodName);
+        return interceptor.preHandle(request, new MockHttpServletResponse(), handlerMethod);
+    }
+
+    public static class TestController {
+
+        public void open() {
+        }
+
+        @Authorize({AuthConstant.AUTHORIZATION_SUPPORT_USER, AuthConstant.AUTHORIZATION_COMPANY_SERVICE})
+        public void restricted() {
+        }
+
+        @Authorize({"custom-service"})
+        public void custom() {
+        }
+    }
+}
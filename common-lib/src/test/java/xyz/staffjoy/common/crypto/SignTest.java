@@ -6,7 +6,14 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 
@@ -42,4 +49,57 @@ public class SignTest {
 
         jwt = Sign.verifyEmailConfirmationToken(emailToken, "wrong_signing_token");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testKeyRotation() {
+        String userId = UUID.randomUUID().toString();
+        String oldToken = Sign.generateSessionToken(userId, "old_signing_token", false, TimeUnit.HOURS.toMillis(1));
+
+        // 新旧密钥都可以验证，用新密钥签名
+        String rotatingSecrets = "new_signing_token, old_signing_token";
+        assertThat(Sign.verifySessionToken(oldToken, rotatingSecrets).getClaim(Sign.CLAIM_USER_ID).asString()).isEqualTo(userId);
+        String newToken = Sign.generateSessionToken(userId, rotatingSecrets, false, TimeUnit.HOURS.toMillis(1));
+        assertThat(Sign.verifySessionToken(newToken, "new_signing_token").getClaim(Sign.CLAIM_USER_ID).asString()).isEqualTo(userId);
+
+        // 旧密钥移除后，旧密钥签名的Token失效
+        expectedException.expect(SignatureVerificationException.class);
+        Sign.verifySessionToken(oldToken, "new_signing_token");
+    }
+
+    @Test
+    public void testConcurrentSignAndVerify() throws Exception {
+        int threads = 16;
+        int iterations = 200;
+        // 密钥组数量超过缓存上限，同时覆盖缓存和不缓存的路径
+        int secrets = Sign.MAX_CACHED_KEYS + 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int verified = 0;
+                    for (int i = 0; i < iterations; i++) {
+                        String secret = "stress_signing_token_" + ((thread * iterations + i) % secrets);
+                        String userId = thread + "-" + i;
+                        String token = Sign.generateSessionToken(userId, secret, false, TimeUnit.HOURS.toMillis(1));
+                        DecodedJWT jwt = Sign.verifySessionToken(token, "rotated_" + secret + "," + secret);
+                        if (userId.equals(jwt.getClaim(Sign.CLAIM_USER_ID).asString())) {
+                            verified++;
+                        }
+                    }
+                    return verified;
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> result : results) {
+                assertThat(result.get(1, TimeUnit.MINUTES)).isEqualTo(iterations);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(Sign.cachedKeys()).isLessThanOrEqualTo(Sign.MAX_CACHED_KEYS);
+    }
+}
@@ -0,0 +1,195 @@
+package xyz.staffjoy.common.feign;
+
+import feign.Feign;
+import feign.Request;
+import feign.RequestLine;
+import feign.RetryableException;
+import feign.Retryer;
+import feign.Target;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class OkHttpFeignClientTest {
+
+    interface EchoClient {
+        @RequestLine("POST /echo")
+        String echo(String body);
+    }
+
+    private final MockWebServer server = new MockWebServer();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final FeignProperties properties = new FeignProperties();
+    private OkHttpFeignClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server.start();
+        client = new OkHttpFeignClient(new OkHttpClient(), properties.getCompression());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void testRequestCompressionDisabledByDefault() throws Exception {
+        server.enqueue(new MockResponse().setBody("ok"));
+        String large = repeat("staffjoy", 1024);
+        echoClient(new Request.Options(1000, 1000)).echo(large);
+
+        RecordedRequest request = server.takeRequest();
+        assertThat(request.getHeader("Content-Encoding")).isNull();
+        assertThat(request.getBody().readUtf8()).isEqualTo(large);
+    }
+
+    @Test
+    public void testCompressLargeRequestBody() throws Exception {
+        properties.getCompression().setRequestEnabled(true);
+        server.enqueue(new MockResponse().setBody("ok"));
+        server.enqueue(new MockResponse().setBody("ok"));
+        EchoClient echoClient = echoClient(new Request.Options(1000, 1000));
+
+        String large = repeat("staffjoy", 1024);
+        echoClient.echo("small");
+        echoClient.echo(large);
+
+        RecordedRequest small = server.takeRequest();
+        assertThat(small.getHeader("Content-Encoding")).isNull();
+        assertThat(small.getBody().readUtf8()).isEqualTo("small");
+
+        RecordedRequest compressed = server.takeRequest();
+        assertThat(compressed.getHeader("Content-Encoding")).isEqualTo("gzip");
+        assertThat(compressed.getBodySize()).isLessThan(large.length());
+        assertThat(gunzip(compressed.getBody().readByteArray())).isEqualTo(large);
+    }
+
+    @Test
+    public void testDecompressResponseTransparently() throws Exception {
+        String large = repeat("shift", 2048);
+        Buffer gzipped = new Buffer();
+        try (BufferedSink sink = Okio.buffer(new GzipSink(gzipped))) {
+            sink.writeUtf8(large);
+        }
+        server.enqueue(new MockResponse().setHeader("Content-Encoding", "gzip").setBody(gzipped));
+
+        assertThat(echoClient(new Request.Options(1000, 1000)).echo("hi")).isEqualTo(large);
+        assertThat(server.takeRequest().getHeader("Accept-Encoding")).isEqualTo("gzip");
+    }
+
+    @Test
+    public void testReadTimeoutPerOptions() {
+        server.enqueue(new MockResponse().setBody("late").setHeadersDelay(500, TimeUnit.MILLISECONDS));
+        try {
+            echoClient(new Request.Options(1000, 100)).echo("hi");
+            fail("expected read timeout");
+        } catch (RetryableException expected) {
+            // 超时
+        }
+        // 不同的超时使用不同的OkHttpClient，但共享连接池
+        Request.Options slow = new Request.Options(1000, 5000);
+        assertThat(client.clientFor(slow)).isSameAs(client.clientFor(new Request.Options(1000, 5000)));
+        assertThat(client.clientFor(slow).connectionPool()).isSameAs(client.clientFor(new Request.Options(1000, 100)).connectionPool());
+        assertThat(client.clientFor(slow).readTimeoutMillis()).isEqualTo(5000);
+
+        assertThat(registry.get(MeteredInvocationHandlerFactory.METRIC_NAME)
+                .tags("client", "echo", "method", "EchoClient#echo(String)", "outcome", "ERROR").timer().count()).isEqualTo(1);
+        assertThat(registry.get(MeteredInvocationHandlerFactory.METRIC_NAME)
+                .tags("outcome", "SUCCESS").timer().count()).isEqualTo(0);
+    }
+
+    @Test
+    public void testGzipRequestFilter() throws Exception {
+        String body = repeat("{\"name\":\"staffjoy\"}", 100);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/echo");
+        request.addHeader("Content-Encoding", "gzip");
+        request.setContent(gzip(body));
+        AtomicReference<String> received = new AtomicReference<>();
+        AtomicReference<String> encoding = new AtomicReference<>();
+        MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                encoding.set(req.getHeader("Content-Encoding"));
+                received.set(StreamUtils.copyToString(req.getInputStream(), StandardCharsets.UTF_8));
+            }
+        });
+
+        new GzipRequestFilter(1024 * 1024).doFilter(request, new MockHttpServletResponse(), chain);
+        assertThat(received.get()).isEqualTo(body);
+        assertThat(encoding.get()).isNull();
+
+        // 解压后超过上限
+        request = new MockHttpServletRequest("POST", "/echo");
+        request.addHeader("Content-Encoding", "gzip");
+        request.setContent(gzip(body));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        chain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                StreamUtils.copyToString(req.getInputStream(), StandardCharsets.UTF_8);
+            }
+        });
+        new GzipRequestFilter(100).doFilter(request, response, chain);
+        assertThat(response.getStatus()).isEqualTo(413);
+    }
+
+    private EchoClient echoClient(Request.Options options) {
+        return Feign.builder()
+                .client(client)
+                .options(options)
+                .retryer(Retryer.NEVER_RETRY)
+                .invocationHandlerFactory(new MeteredInvocationHandlerFactory(registry))
+                .target(new Target.HardCodedTarget<>(EchoClient.class, "echo", server.url("/").toString()));
+    }
+
+    private static String repeat(String s, int times) {
+        StringBuilder sb = new StringBuilder(s.length() * times);
+        for (int i = 0; i < times; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+
+    private static byte[] gzip(String content) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    private static String gunzip(byte[] content) throws Exception {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            return StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package xyz.staffjoy.common.feign;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.Feign;
+import feign.RequestLine;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.ResponseEntityDecoder;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.cloud.openfeign.support.SpringEncoder;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import xyz.staffjoy.common.api.BaseResponse;
+import xyz.staffjoy.common.api.ResultCode;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SmileContentNegotiationTest {
+
+    interface EchoClient {
+        @RequestLine("POST /echo")
+        BaseResponse echo(BaseResponse request);
+    }
+
+    private final ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+    private final MappingJackson2SmileHttpMessageConverter smileConverter = new MappingJackson2SmileHttpMessageConverter(smileMapper);
+    private final HttpMessageConverters messageConverters = new HttpMessageConverters(smileConverter);
+    private final MockWebServer server = new MockWebServer();
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void testJsonStaysDefault() {
+        // Accept: */* 时按转换器顺序选择，JSON要排在Smile前面
+        List<HttpMessageConverter<?>> converters = messageConverters.getConverters();
+        int json = -1;
+        int smile = -1;
+        for (int i = 0; i < converters.size(); i++) {
+            if (converters.get(i) instanceof MappingJackson2HttpMessageConverter && json < 0) {
+                json = i;
+            } else if (converters.get(i) instanceof MappingJackson2SmileHttpMessageConverter && smile < 0) {
+                // 配置的转换器排在默认的Smile转换器前面
+                assertThat(converters.get(i)).isSameAs(smileConverter);
+                smile = i;
+            }
+        }
+        assertThat(json).isGreaterThanOrEqualTo(0);
+        assertThat(smile).isGreaterThan(json);
+    }
+
+    @Test
+    public void testSmileRoundTrip() throws Exception {
+        BaseResponse response = BaseResponse.builder().message("smile").code(ResultCode.SUCCESS).build();
+        server.enqueue(new MockResponse()
+                .setHeader("Content-Type", SmileEncoder.SMILE_VALUE)
+                .setBody(new Buffer().write(smileMapper.writeValueAsBytes(response))));
+        server.start();
+
+        ObjectFactory<HttpMessageConverters> factory = () -> messageConverters;
+        EchoClient client = Feign.builder()
+                .encoder(new SmileEncoder(new SpringEncoder(factory)))
+                .decoder(new ResponseEntityDecoder(new SpringDecoder(factory)))
+                .requestInterceptor(new SmileAcceptInterceptor())
+                .target(EchoClient.class, server.url("/").toString());
+
+        BaseResponse request = BaseResponse.builder().message("request").code(ResultCode.PARAM_VALID_ERROR).build();
+        assertThat(client.echo(request)).isEqualTo(response);
+
+        RecordedRequest recorded = server.takeRequest();
+        assertThat(recorded.getHeader("Accept")).isEqualTo(SmileAcceptInterceptor.ACCEPT);
+        assertThat(recorded.getHeader("Content-Type")).startsWith(SmileEncoder.SMILE_VALUE);
+        assertThat(smileMapper.readValue(recorded.getBody().readByteArray(), BaseResponse.class)).isEqualTo(request);
+    }
+}
@@ -5,6 +5,7 @@ import com.github.structlog4j.SLoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import xyz.staffjoy.common.api.ResultCode;
+import xyz.staffjoy.common.auditlog.AuditLogger;
 import xyz.staffjoy.common.auditlog.LogEntry;
 import xyz.staffjoy.common.auth.AuthContext;
 import xyz.staffjoy.common.error.ServiceException;
@@ -34,6 +35,9 @@ public class AdminService {
     @Autowired
     ServiceHelper serviceHelper;
 
+    @Autowired
+    AuditLogger auditLogger;
+
     public AdminEntries listAdmins(String companyId) {
         // validate and will throw exception if not found
         companyService.getCompany(companyId);
@@ -84,9 +88,9 @@ public class AdminService {
                 .teamId("")
                 .build();
 
-        logger.info("removed admin", auditLog);
+        auditLogger.log(logger, "removed admin", auditLog);
 
-        serviceHelper.trackEventAsync("admin_deleted");
+        serviceHelper.trackEventAsync(AuthContext.getUserId(), "admin_deleted");
     }
 
     public DirectoryEntryDto createAdmin(String companyId, String userId) {
@@ -117,9 +121,9 @@ public class AdminService {
                 .teamId("")
                 .build();
 
-        logger.info("added admin", auditLog);
+        auditLogger.log(logger, "added admin", auditLog);
 
-        serviceHelper.trackEventAsync("admin_created");
+        serviceHelper.trackEventAsync(AuthContext.getUserId(), "admin_created");
 
         return directoryEntryDto;
     }
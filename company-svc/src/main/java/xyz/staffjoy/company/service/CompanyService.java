@@ -9,6 +9,8 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import xyz.staffjoy.common.api.ResultCode;
+import xyz.staffjoy.common.auditlog.AuditDiff;
+import xyz.staffjoy.common.auditlog.AuditLogger;
 import xyz.staffjoy.common.auditlog.LogEntry;
 import xyz.staffjoy.common.auth.AuthContext;
 import xyz.staffjoy.common.error.ServiceException;
@@ -38,6 +40,9 @@ public class CompanyService {
     @Autowired
     private ModelMapper modelMapper;
 
+    @Autowired
+    private AuditLogger auditLogger;
+
     @PersistenceContext
     private EntityManager entityManager;
 
@@ -62,9 +67,9 @@ public class CompanyService {
                 .updatedContents(company.toString())
                 .build();
 
-        logger.info("created company", auditLog);
+        auditLogger.log(logger, "created company", auditLog);
 
-        serviceHelper.trackEventAsync("company_created");
+        serviceHelper.trackEventAsync(AuthContext.getUserId(), "company_created");
 
         return this.convertToDto(savedCompany);
     }
@@ -126,13 +131,12 @@ public class CompanyService {
                 .targetId(companyToUpdate.getId())
                 .companyId(companyToUpdate.getId())
                 .teamId("")
-                .originalContents(existingCompany.toString())
-                .updatedContents(updatedCompany.toString())
+                .changes(AuditDiff.of(existingCompany, updatedCompany))
                 .build();
 
-        logger.info("updated company", auditLog);
+        auditLogger.log(logger, "updated company", auditLog);
 
-        serviceHelper.trackEventAsync("company_updated");
+        serviceHelper.trackEventAsync(AuthContext.getUserId(), "company_updated");
 
         return this.convertToDto(updatedCompany);
     }
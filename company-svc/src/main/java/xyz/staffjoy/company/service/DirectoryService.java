@@ -12,6 +12,8 @@ import xyz.staffjoy.account.dto.GenericAccountResponse;
 import xyz.staffjoy.account.dto.GetOrCreateRequest;
 import xyz.staffjoy.bot.dto.OnboardWorkerRequest;
 import xyz.staffjoy.common.api.ResultCode;
+import xyz.staffjoy.common.auditlog.AuditDiff;
+import xyz.staffjoy.common.auditlog.AuditLogger;
 import xyz.staffjoy.common.auditlog.LogEntry;
 import xyz.staffjoy.common.auth.AuthConstant;
 import xyz.staffjoy.common.auth.AuthContext;
@@ -45,6 +47,9 @@ public class DirectoryService {
     @Autowired
     private AdminService adminService;
 
+    @Autowired
+    private AuditLogger auditLogger;
+
     public DirectoryEntryDto createDirectory(NewDirectoryEntry req) {
         boolean companyExists = companyRepo.existsById(req.getCompanyId());
         if (!companyExists) {
@@ -99,7 +104,7 @@ public class DirectoryService {
                 .updatedContents(directoryEntryDto.toString())
                 .build();
 
-        logger.info("updated directory", auditLog);
+        auditLogger.log(logger, "updated directory", auditLog);
 
         OnboardWorkerRequest onboardWorkerRequest = OnboardWorkerRequest.builder()
                 .companyId(req.getCompanyId())
@@ -107,7 +112,7 @@ public class DirectoryService {
                 .build();
         serviceHelper.onboardWorkerAsync(onboardWorkerRequest);
 
-        serviceHelper.trackEventAsync("directoryentry_created");
+        serviceHelper.trackEventAsync(AuthContext.getUserId(), "directoryentry_created");
 
         return directoryEntryDto;
     }
@@ -235,11 +240,10 @@ public class DirectoryService {
                 .targetId(account.getId())
                 .companyId(request.getCompanyId())
                 .teamId("")
-                .originalContents(orig.toString())
-                .updatedContents(request.toString())
+                .changes(AuditDiff.of(orig, request))
                 .build();
 
-        logger.info("updated directory entry for account", auditLog);
+        auditLogger.log(logger, "updated directory entry for account", auditLog);
 
         if (!request.isConfirmedAndActive() &&
                 (!orig.getPhoneNumber().equals(request.getPhoneNumber()) || ("".equals(request.getPhoneNumber()) && !orig.getEmail().equals(request.getEmail())))) {
@@ -250,7 +254,7 @@ public class DirectoryService {
             serviceHelper.onboardWorkerAsync(onboardWorkerRequest);
         }
 
-        serviceHelper.trackEventAsync("directoryentry_updated");
+        serviceHelper.trackEventAsync(AuthContext.getUserId(), "directoryentry_updated");
 
         return request;
     }
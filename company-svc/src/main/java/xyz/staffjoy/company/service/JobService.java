@@ -6,6 +6,8 @@ import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import xyz.staffjoy.common.api.ResultCode;
+import xyz.staffjoy.common.auditlog.AuditDiff;
+import xyz.staffjoy.common.auditlog.AuditLogger;
 import xyz.staffjoy.common.auditlog.LogEntry;
 import xyz.staffjoy.common.auth.AuthContext;
 import xyz.staffjoy.common.error.ServiceException;
@@ -34,6 +36,9 @@ public class JobService {
     @Autowired
     ServiceHelper serviceHelper;
 
+    @Autowired
+    AuditLogger auditLogger;
+
     public JobDto createJob(CreateJobRequest request) {
         // validate and will throw exception if not exist
         teamService.getTeamWithCompanyIdValidation(request.getCompanyId(), request.getTeamId());
@@ -61,9 +66,9 @@ public class JobService {
                 .updatedContents(job.toString())
                 .build();
 
-        logger.info("created job", auditLog);
+        auditLogger.log(logger, "created job", auditLog);
 
-        serviceHelper.trackEventAsync("job_created");
+        serviceHelper.trackEventAsync(AuthContext.getUserId(), "job_created");
 
         JobDto jobDto = this.convertToDto(job);
         jobDto.setCompanyId(request.getCompanyId());
@@ -122,13 +127,12 @@ public class JobService {
                 .targetId(jobDtoToUpdate.getId())
                 .companyId(jobDtoToUpdate.getCompanyId())
                 .teamId(jobDtoToUpdate.getTeamId())
-                .originalContents(orig.toString())
-                .updatedContents(jobDtoToUpdate.toString())
+                .changes(AuditDiff.of(orig, jobDtoToUpdate))
                 .build();
 
-        logger.info("updated job", auditLog);
+        auditLogger.log(logger, "updated job", auditLog);
 
-        serviceHelper.trackEventAsync("job_updated");
+        serviceHelper.trackEventAsync(AuthContext.getUserId(), "job_updated");
 
         return jobDtoToUpdate;
     }
@@ -8,6 +8,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import xyz.staffjoy.bot.dto.AlertNewShiftRequest;
 import xyz.staffjoy.bot.dto.AlertRemovedShiftRequest;
+import xyz.staffjoy.common.auditlog.AuditLogger;
 import xyz.staffjoy.common.auditlog.LogEntry;
 import xyz.staffjoy.common.auth.AuthContext;
 import xyz.staffjoy.company.dto.*;
@@ -45,6 +46,9 @@ public class ShiftService {
     @Autowired
     ModelMapper modelMapper;
 
+    @Autowired
+    AuditLogger auditLogger;
+
     public ShiftDto createShift(CreateShiftRequest req) {
         // validate and will throw exception if not exist
         teamService.getTeamWithCompanyIdValidation(req.getCompanyId(), req.getTeamId());
@@ -84,7 +88,7 @@ public class ShiftService {
                 .updatedContents(shift.toString())
                 .build();
 
-        logger.info("created shift", auditLog);
+        auditLogger.log(logger, "created shift", auditLog);
 
         ShiftDto shiftDto = shiftHelper.convertToDto(shift);
         shiftDto.setCompanyId(req.getCompanyId());
@@ -97,9 +101,9 @@ public class ShiftService {
             serviceHelper.alertNewShiftAsync(alertNewShiftRequest);
         }
 
-        serviceHelper.trackEventAsync("shift_created");
+        serviceHelper.trackEventAsync(AuthContext.getUserId(), "shift_created");
         if (req.isPublished()) {
-            serviceHelper.trackEventAsync("shift_published");
+            serviceHelper.trackEventAsync(AuthContext.getUserId(), "shift_published");
         }
 
         return shiftDto;
@@ -245,7 +249,7 @@ public class ShiftService {
                 .originalContents(orig.toString())
                 .build();
 
-        logger.info("deleted shift", auditLog);
+        auditLogger.log(logger, "deleted shift", auditLog);
 
         if (!StringUtils.isEmpty(orig.getUserId()) && orig.isPublished() && orig.getStart().isAfter(Instant.now())) {
             AlertRemovedShiftRequest alertRemovedShiftRequest = AlertRemovedShiftRequest.builder()
@@ -255,7 +259,7 @@ public class ShiftService {
             serviceHelper.alertRemovedShiftAsync(alertRemovedShiftRequest);
         }
 
-        serviceHelper.trackEventAsync("shift_deleted");
+        serviceHelper.trackEventAsync(AuthContext.getUserId(), "shift_deleted");
     }
 
 }
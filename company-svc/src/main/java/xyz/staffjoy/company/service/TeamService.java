@@ -7,6 +7,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import xyz.staffjoy.common.api.ResultCode;
+import xyz.staffjoy.common.auditlog.AuditDiff;
+import xyz.staffjoy.common.auditlog.AuditLogger;
 import xyz.staffjoy.common.auditlog.LogEntry;
 import xyz.staffjoy.common.auth.AuthContext;
 import xyz.staffjoy.common.error.ServiceException;
@@ -41,6 +43,9 @@ public class TeamService {
     @Autowired
     ServiceHelper serviceHelper;
 
+    @Autowired
+    AuditLogger auditLogger;
+
     public TeamDto createTeam(CreateTeamRequest request) {
         Company company = companyRepo.findCompanyById(request.getCompanyId());
         if (company == null) {
@@ -80,9 +85,9 @@ public class TeamService {
                 .updatedContents(team.toString())
                 .build();
 
-        logger.info("created team", auditLog);
+        auditLogger.log(logger, "created team", auditLog);
 
-        serviceHelper.trackEventAsync("team_created");
+        serviceHelper.trackEventAsync(AuthContext.getUserId(), "team_created");
 
         return convertToDto(team);
     }
@@ -139,13 +144,12 @@ public class TeamService {
                 .targetId(orig.getId())
                 .companyId(teamToUpdate.getCompanyId())
                 .teamId(orig.getId())
-                .originalContents(orig.toString())
-                .updatedContents(teamToUpdate.toString())
+                .changes(AuditDiff.of(orig, teamToUpdate))
                 .build();
 
-        logger.info("updated team", auditLog);
+        auditLogger.log(logger, "updated team", auditLog);
 
-        serviceHelper.trackEventAsync("team_updated");
+        serviceHelper.trackEventAsync(AuthContext.getUserId(), "team_updated");
 
         return teamToUpdate;
     }
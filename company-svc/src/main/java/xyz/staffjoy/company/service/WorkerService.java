@@ -5,6 +5,7 @@ import com.github.structlog4j.SLoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import xyz.staffjoy.common.api.ResultCode;
+import xyz.staffjoy.common.auditlog.AuditLogger;
 import xyz.staffjoy.common.auditlog.LogEntry;
 import xyz.staffjoy.common.auth.AuthContext;
 import xyz.staffjoy.common.error.ServiceException;
@@ -32,6 +33,9 @@ public class WorkerService {
     @Autowired
     ServiceHelper serviceHelper;
 
+    @Autowired
+    AuditLogger auditLogger;
+
     public WorkerEntries listWorkers(String companyId, String teamId) {
         // validate and will throw exception if not exist
         teamService.getTeamWithCompanyIdValidation(companyId, teamId);
@@ -81,9 +85,9 @@ public class WorkerService {
                 .teamId(teamId)
                 .build();
 
-        logger.info("removed worker", auditLog);
+        auditLogger.log(logger, "removed worker", auditLog);
 
-        serviceHelper.trackEventAsync("worker_deleted");
+        serviceHelper.trackEventAsync(AuthContext.getUserId(), "worker_deleted");
     }
 
     public WorkerOfList getWorkerOf(String userId) {
@@ -126,9 +130,9 @@ public class WorkerService {
                 .teamId(workerDto.getTeamId())
                 .build();
 
-        logger.info("added worker", auditLog);
+        auditLogger.log(logger, "added worker", auditLog);
 
-        serviceHelper.trackEventAsync("worker_created");
+        serviceHelper.trackEventAsync(AuthContext.getUserId(), "worker_created");
 
         return directoryEntryDto;
     }
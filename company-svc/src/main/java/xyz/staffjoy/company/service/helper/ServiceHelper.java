@@ -12,7 +12,6 @@ import xyz.staffjoy.account.dto.TrackEventRequest;
 import xyz.staffjoy.bot.client.BotClient;
 import xyz.staffjoy.bot.dto.*;
 import xyz.staffjoy.common.api.BaseResponse;
-import xyz.staffjoy.common.auth.AuthContext;
 import xyz.staffjoy.common.env.EnvConfig;
 import xyz.staffjoy.common.error.ServiceException;
 import xyz.staffjoy.company.config.AppConfig;
@@ -51,13 +50,13 @@ public class ServiceHelper {
 
     /**
      * 账户异步事件
+     * 当前用户由调用方在请求线程上传入，异步线程不读取请求上下文
      *
+     * @param userId
      * @param event
      */
     @Async(AppConfig.ASYNC_EXECUTOR_NAME)
-    public void trackEventAsync(String event) {
-
-        String userId = AuthContext.getUserId();
+    public void trackEventAsync(String userId, String event) {
         if (StringUtils.isEmpty(userId)) {
             // Not an action performed by a normal user
             // (noop - not an view)
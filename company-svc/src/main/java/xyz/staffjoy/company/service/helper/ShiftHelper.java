@@ -7,6 +7,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import xyz.staffjoy.common.api.ResultCode;
+import xyz.staffjoy.common.auditlog.AuditDiff;
+import xyz.staffjoy.common.auditlog.AuditLogger;
 import xyz.staffjoy.common.auditlog.LogEntry;
 import xyz.staffjoy.common.auth.AuthContext;
 import xyz.staffjoy.common.error.ServiceException;
@@ -46,6 +48,9 @@ public class ShiftHelper {
     @Autowired
     ModelMapper modelMapper;
 
+    @Autowired
+    AuditLogger auditLogger;
+
 //    @Async("asyncExecutor")
 //    public void updateShiftAsync(ShiftDto shiftDto) {
 //        updateShift(shiftDto, true);
@@ -92,15 +97,14 @@ public class ShiftHelper {
                 .targetId(shiftDtoToUpdate.getId())
                 .companyId(shiftDtoToUpdate.getCompanyId())
                 .teamId(shiftDtoToUpdate.getTeamId())
-                .originalContents(orig.toString())
-                .updatedContents(shiftDtoToUpdate.toString())
+                .changes(AuditDiff.of(orig, shiftDtoToUpdate))
                 .build();
 
-        logger.info("updated shift", auditLog);
+        auditLogger.log(logger, "updated shift", auditLog);
 
-        serviceHelper.trackEventAsync("shift_updated");
+        serviceHelper.trackEventAsync(AuthContext.getUserId(), "shift_updated");
         if (!orig.isPublished() && shiftDtoToUpdate.isPublished()) {
-            serviceHelper.trackEventAsync("shift_published");
+            serviceHelper.trackEventAsync(AuthContext.getUserId(), "shift_published");
         }
 
         if (!suppressNotification) {
@@ -169,7 +169,7 @@ public class ShiftControllerTest {
 
         // capture and verify removed shifts alert
         ArgumentCaptor<AlertRemovedShiftsRequest> argument1 = ArgumentCaptor.forClass(AlertRemovedShiftsRequest.class);
-        verify(botClient, times(1)).alertRemovedShifts(argument1.capture());
+        verify(botClient, timeout(5000).times(1)).alertRemovedShifts(argument1.capture());
         AlertRemovedShiftsRequest alertRemovedShiftsRequest = argument1.getValue();
         assertThat(alertRemovedShiftsRequest.getUserId()).isEqualTo(shiftDto1.getUserId());
         assertThat(alertRemovedShiftsRequest.getOldShifts()).containsExactly(shiftDto1, shiftDto2);
@@ -197,7 +197,7 @@ public class ShiftControllerTest {
 
         // capture and verify new shifts alert
         ArgumentCaptor<AlertNewShiftsRequest> argument2 = ArgumentCaptor.forClass(AlertNewShiftsRequest.class);
-        verify(botClient, times(1)).alertNewShifts(argument2.capture());
+        verify(botClient, timeout(5000).times(1)).alertNewShifts(argument2.capture());
         AlertNewShiftsRequest alertNewShiftsRequest = argument2.getValue();
         assertThat(alertNewShiftsRequest.getUserId()).isEqualTo(shiftDto1.getUserId());
         assertThat(alertNewShiftsRequest.getNewShifts()).containsExactly(shiftDto1Clone, shiftDto2Clone);
@@ -218,7 +218,7 @@ public class ShiftControllerTest {
 
         // capture and verify removed shift alert
         ArgumentCaptor<AlertRemovedShiftRequest> argument1 = ArgumentCaptor.forClass(AlertRemovedShiftRequest.class);
-        verify(botClient, times(1)).alertRemovedShift(argument1.capture());
+        verify(botClient, timeout(5000).times(1)).alertRemovedShift(argument1.capture());
         AlertRemovedShiftRequest alertRemovedShiftRequest = argument1.getValue();
         assertThat(alertRemovedShiftRequest.getUserId()).isEqualTo(directoryEntryDto1.getUserId());
         assertThat(alertRemovedShiftRequest.getOldShift()).isEqualTo(shiftDto1);
@@ -268,7 +268,7 @@ public class ShiftControllerTest {
 
         // capture and verify removed shift alert
         ArgumentCaptor<AlertRemovedShiftRequest> argument1 = ArgumentCaptor.forClass(AlertRemovedShiftRequest.class);
-        verify(botClient, times(1)).alertRemovedShift(argument1.capture());
+        verify(botClient, timeout(5000).times(1)).alertRemovedShift(argument1.capture());
         AlertRemovedShiftRequest alertRemovedShiftRequest = argument1.getValue();
         assertThat(alertRemovedShiftRequest.getUserId()).isEqualTo(directoryEntryDto1.getUserId());
         assertThat(alertRemovedShiftRequest.getOldShift()).isEqualTo(shiftDto1);
@@ -292,7 +292,7 @@ public class ShiftControllerTest {
         // capture and verify new shift alert
         ArgumentCaptor<AlertNewShiftRequest> argument2 = ArgumentCaptor.forClass(AlertNewShiftRequest.class);
         // 3 times, 2 for create new shifts, 1 for republish
-        verify(botClient, times(3)).alertNewShift(argument2.capture());
+        verify(botClient, timeout(5000).times(3)).alertNewShift(argument2.capture());
         AlertNewShiftRequest alertNewShiftRequest = argument2.getAllValues().get(2);
         assertThat(alertNewShiftRequest.getUserId()).isEqualTo(shiftDto1Clone3.getUserId());
         assertThat(alertNewShiftRequest.getNewShift()).isEqualTo(shiftDto1Clone3);
@@ -310,7 +310,7 @@ public class ShiftControllerTest {
         // capture and verify change shift alert
         ArgumentCaptor<AlertChangedShiftRequest> argument3 = ArgumentCaptor.forClass(AlertChangedShiftRequest.class);
         // 3 times, 2 for create new shifts, 1 for republish
-        verify(botClient, times(1)).alertChangedShift(argument3.capture());
+        verify(botClient, timeout(5000).times(1)).alertChangedShift(argument3.capture());
         AlertChangedShiftRequest alertChangedShiftRequest = argument3.getValue();
         assertThat(alertChangedShiftRequest.getUserId()).isEqualTo(directoryEntryDto1.getUserId());
         assertThat(alertChangedShiftRequest.getOldShift()).isEqualTo(shiftDto1Clone3);
@@ -331,7 +331,7 @@ public class ShiftControllerTest {
         // capture and verify new shift alert
         ArgumentCaptor<AlertNewShiftRequest> argument4 = ArgumentCaptor.forClass(AlertNewShiftRequest.class);
         // 4 times, 2 for create new shifts, 1 for republish, 1 for update userId
-        verify(botClient, times(4)).alertNewShift(argument4.capture());
+        verify(botClient, timeout(5000).times(4)).alertNewShift(argument4.capture());
         AlertNewShiftRequest alertNewShiftRequest2 = argument4.getAllValues().get(3);
         assertThat(alertNewShiftRequest2.getUserId()).isEqualTo(shiftDto1Clone5.getUserId());
         assertThat(alertNewShiftRequest2.getNewShift()).isEqualTo(shiftDto1Clone5);
@@ -339,7 +339,7 @@ public class ShiftControllerTest {
         // capture and verify removed shift alert
         ArgumentCaptor<AlertRemovedShiftRequest> argument5 = ArgumentCaptor.forClass(AlertRemovedShiftRequest.class);
         // 2 times, 1 for unpublish, 1 for update userId
-        verify(botClient, times(2)).alertRemovedShift(argument5.capture());
+        verify(botClient, timeout(5000).times(2)).alertRemovedShift(argument5.capture());
         AlertRemovedShiftRequest alertRemovedShiftRequest2 = argument5.getAllValues().get(1);
         assertThat(alertRemovedShiftRequest2.getUserId()).isEqualTo(shiftDto1Clone4.getUserId());
         assertThat(alertRemovedShiftRequest2.getOldShift()).isEqualTo(shiftDto1Clone4);
@@ -466,7 +466,7 @@ public class ShiftControllerTest {
 
         // capture and verify new shift alert
         ArgumentCaptor<AlertNewShiftRequest> argument = ArgumentCaptor.forClass(AlertNewShiftRequest.class);
-        verify(botClient, times(1)).alertNewShift(argument.capture());
+        verify(botClient, timeout(5000).times(1)).alertNewShift(argument.capture());
         AlertNewShiftRequest alertNewShiftRequest = argument.getValue();
         assertThat(alertNewShiftRequest.getUserId()).isEqualTo(directoryEntryDto1.getUserId());
         assertThat(alertNewShiftRequest.getNewShift()).isEqualTo(shiftDto1);
@@ -0,0 +1,24 @@
+package xyz.staffjoy.faraday.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AsyncProperties {
+    /**
+     * 用于启用和禁用异步转发的标志
+     * 启用后使用Servlet 3.1异步请求和非阻塞HTTP客户端转发，等待上游响应期间不再占用容器工作线程
+     */
+    private boolean enabled;
+    /**
+     * 每个映射的非阻塞HTTP客户端使用的I/O线程数
+     */
+    private int ioThreadCount = 2;
+    /**
+     * 异步请求的超时时间（毫秒），作为映射读超时之外的兜底
+     */
+    private long timeout = 60000;
+}
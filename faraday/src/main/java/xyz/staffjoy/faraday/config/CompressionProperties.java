@@ -0,0 +1,38 @@
+package xyz.staffjoy.faraday.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CompressionProperties {
+    /**
+     * 用于启用和禁用响应压缩的标志
+     * 启用后按客户端的Accept-Encoding压缩上游未压缩的响应，上游已压缩（带Content-Encoding）的响应原样转发
+     */
+    private boolean enabled;
+    /**
+     * 服务端优先使用的内容编码，客户端给出相同权重时靠前的优先；只有已注册ContentEncoder的编码才会使用
+     */
+    private List<String> encodings = new ArrayList<>(Arrays.asList("br", "gzip"));
+    /**
+     * 需要压缩的响应Content-Type
+     */
+    private List<String> mimeTypes = new ArrayList<>(Arrays.asList(
+            "text/html", "text/plain", "text/css", "text/calendar", "text/xml",
+            "application/json", "application/javascript", "application/xml", "image/svg+xml"));
+    /**
+     * 响应体小于该大小（字节）时不压缩；没有Content-Length的响应总是压缩
+     */
+    private int minResponseSize = 1024;
+    /**
+     * gzip压缩级别（1到9）
+     */
+    private int gzipLevel = 6;
+}
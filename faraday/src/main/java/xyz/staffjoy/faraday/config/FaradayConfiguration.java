@@ -2,6 +2,7 @@ package xyz.staffjoy.faraday.config;
 
 import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.web.ServerProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
@@ -9,20 +10,32 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.core.Ordered;
+import xyz.staffjoy.common.asset.StaticAssets;
 import xyz.staffjoy.common.config.StaffjoyWebConfig;
 import xyz.staffjoy.common.env.EnvConfig;
 import xyz.staffjoy.faraday.core.filter.FaviconFilter;
 import xyz.staffjoy.faraday.core.filter.HealthCheckFilter;
+import xyz.staffjoy.faraday.core.filter.LoadSheddingFilter;
 import xyz.staffjoy.faraday.core.filter.NakedDomainFilter;
 import xyz.staffjoy.faraday.core.filter.SecurityFilter;
 import xyz.staffjoy.faraday.core.interceptor.*;
 import xyz.staffjoy.faraday.core.balancer.LoadBalancer;
-import xyz.staffjoy.faraday.core.balancer.RandomLoadBalancer;
+import xyz.staffjoy.faraday.core.balancer.MappingLoadBalancer;
+import xyz.staffjoy.faraday.core.breaker.CircuitBreakerProvider;
+import xyz.staffjoy.faraday.core.cache.ResponseCache;
+import xyz.staffjoy.faraday.core.compression.ContentEncoder;
+import xyz.staffjoy.faraday.core.compression.GzipContentEncoder;
+import xyz.staffjoy.faraday.core.compression.ResponseCompressor;
 import xyz.staffjoy.faraday.core.http.*;
+import xyz.staffjoy.faraday.core.limiter.RateLimiter;
 import xyz.staffjoy.faraday.core.mappings.ConfigurationMappingsProvider;
+import xyz.staffjoy.faraday.core.mappings.MappingsFileWatcher;
 import xyz.staffjoy.faraday.core.mappings.MappingsProvider;
 import xyz.staffjoy.faraday.core.mappings.MappingsValidator;
+import xyz.staffjoy.faraday.core.metrics.RouteMetricsProvider;
+import xyz.staffjoy.faraday.core.retry.RetryProvider;
 import xyz.staffjoy.faraday.core.mappings.ProgrammaticMappingsProvider;
+import xyz.staffjoy.faraday.core.trace.AsyncTraceInterceptor;
 import xyz.staffjoy.faraday.core.trace.LoggingTraceInterceptor;
 import xyz.staffjoy.faraday.core.trace.ProxyingTraceInterceptor;
 import xyz.staffjoy.faraday.core.trace.TraceInterceptor;
@@ -60,7 +73,7 @@ public class FaradayConfiguration {
         this.assetLoader = assetLoader;
     }
 
-    // 注册五个FilterBean ： FilterRegistrationBean<XXXFilter> registrationBean
+    // 注册六个FilterBean ： FilterRegistrationBean<XXXFilter> registrationBean
     @Bean
     public FilterRegistrationBean<ReverseProxyFilter> faradayReverseProxyFilterRegistrationBean(
             ReverseProxyFilter proxyFilter) {
@@ -77,6 +90,17 @@ public class FaradayConfiguration {
         return registrationBean;
     }
 
+    @Bean
+    @ConditionalOnProperty(prefix = "faraday.load-shedding", name = "enabled", havingValue = "true")
+    public FilterRegistrationBean<LoadSheddingFilter> loadSheddingFilterRegistrationBean(MappingsProvider mappingsProvider,
+                                                                                       RequestDataExtractor extractor,
+                                                                                       Optional<MeterRegistry> meterRegistry) {
+        FilterRegistrationBean<LoadSheddingFilter> registrationBean =
+                new FilterRegistrationBean<>(new LoadSheddingFilter(faradayProperties, mappingsProvider, extractor, meterRegistry));
+        registrationBean.setOrder(Ordered.HIGHEST_PRECEDENCE + 95); // before ReverseProxyFilter
+        return registrationBean;
+    }
+
     @Bean
     public FilterRegistrationBean<SecurityFilter> securityFilterRegistrationBean(EnvConfig envConfig) {
         FilterRegistrationBean<SecurityFilter> registrationBean =
@@ -88,7 +112,7 @@ public class FaradayConfiguration {
     @Bean
     public FilterRegistrationBean<FaviconFilter> faviconFilterRegistrationBean() {
         FilterRegistrationBean<FaviconFilter> registrationBean =
-                new FilterRegistrationBean<>(new FaviconFilter(assetLoader.getFaviconFile()));
+                new FilterRegistrationBean<>(new FaviconFilter(StaticAssets.of("/favicon.ico", assetLoader.getFaviconFile())));
         registrationBean.setOrder(Ordered.HIGHEST_PRECEDENCE + 75); // before securityFilter
         return registrationBean;
     }
@@ -111,16 +135,42 @@ public class FaradayConfiguration {
             MappingsProvider mappingsProvider,
             RequestForwarder requestForwarder,
             ProxyingTraceInterceptor traceInterceptor,
-            PreForwardRequestInterceptor requestInterceptor
+            PreForwardRequestInterceptor requestInterceptor,
+            ResponseCompressor responseCompressor,
+            RouteMetricsProvider routeMetricsProvider
     ) {
         return new ReverseProxyFilter(faradayProperties, extractor, mappingsProvider,
-                requestForwarder, traceInterceptor, requestInterceptor);
+                requestForwarder, traceInterceptor, requestInterceptor, responseCompressor, routeMetricsProvider);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public GzipContentEncoder faradayGzipContentEncoder() {
+        return new GzipContentEncoder(faradayProperties.getCompression().getGzipLevel());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ResponseCompressor faradayResponseCompressor(List<ContentEncoder> contentEncoders) {
+        // 其它ContentEncoder bean（例如br）按faraday.compression.encodings的顺序参与协商
+        return new ResponseCompressor(faradayProperties.getCompression(), contentEncoders);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public HttpClientProvider faradayHttpClientProvider(Optional<MeterRegistry> meterRegistry,
+                                                        RouteMetricsProvider routeMetricsProvider) {
+        // 异步转发需要额外的非阻塞HTTP客户端
+        if (faradayProperties.getAsync().isEnabled()) {
+            return new HttpAsyncClientProvider(faradayProperties, meterRegistry, routeMetricsProvider);
+        }
+        return new HttpClientProvider(faradayProperties, meterRegistry, routeMetricsProvider);
     }
 
     @Bean
     @ConditionalOnMissingBean
-    public HttpClientProvider faradayHttpClientProvider() {
-        return new HttpClientProvider();
+    public RouteMetricsProvider faradayRouteMetricsProvider(Optional<MeterRegistry> meterRegistry) {
+        return new RouteMetricsProvider(faradayProperties, meterRegistry);
     }
 
     @Bean
@@ -135,32 +185,67 @@ public class FaradayConfiguration {
      * @param envConfig
      * @param mappingsValidator
      * @param httpClientProvider
+     * @param loadBalancer
+     * @param circuitBreakerProvider
+     * @param routeMetricsProvider
+     * @param retryProvider
      * @return
      */
     @Bean
     @ConditionalOnMissingBean
     public MappingsProvider faradayConfigurationMappingsProvider(EnvConfig envConfig,
                                                     MappingsValidator mappingsValidator,
-                                                    HttpClientProvider httpClientProvider) {
+                                                    HttpClientProvider httpClientProvider,
+                                                    LoadBalancer loadBalancer,
+                                                    CircuitBreakerProvider circuitBreakerProvider,
+                                                    RouteMetricsProvider routeMetricsProvider,
+                                                    RetryProvider retryProvider) {
+        MappingsProvider mappingsProvider;
         // 程序化路由映射表
         if (faradayProperties.isEnableProgrammaticMapping()) {
-            return new ProgrammaticMappingsProvider(
+            mappingsProvider = new ProgrammaticMappingsProvider(
                     envConfig, serverProperties,
                     faradayProperties, mappingsValidator,
                     httpClientProvider);
         } else {
             // 路由映射表配置
-            return new ConfigurationMappingsProvider(
+            mappingsProvider = new ConfigurationMappingsProvider(
                     serverProperties,
                     faradayProperties, mappingsValidator,
                     httpClientProvider);
         }
+        // 映射更新后清理已删除映射的负载均衡统计、熔断器、重试预算和指标，并为新映射预先注册指标
+        mappingsProvider.addListener(loadBalancer::onMappingsUpdated);
+        mappingsProvider.addListener(circuitBreakerProvider::onMappingsUpdated);
+        mappingsProvider.addListener(retryProvider::onMappingsUpdated);
+        mappingsProvider.addListener(routeMetricsProvider::onMappingsUpdated);
+        return mappingsProvider;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "faraday.mappings-file", name = "enabled", havingValue = "true")
+    public MappingsFileWatcher faradayMappingsFileWatcher(MappingsProvider mappingsProvider) {
+        return new MappingsFileWatcher(faradayProperties, mappingsProvider);
     }
 
     @Bean
     @ConditionalOnMissingBean
     public LoadBalancer faradayLoadBalancer() {
-        return new RandomLoadBalancer();
+        return new MappingLoadBalancer();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public CircuitBreakerProvider faradayCircuitBreakerProvider(Optional<MeterRegistry> meterRegistry,
+                                                                ProxyingTraceInterceptor traceInterceptor) {
+        return new CircuitBreakerProvider(faradayProperties, meterRegistry, traceInterceptor);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RetryProvider faradayRetryProvider(RouteMetricsProvider routeMetricsProvider) {
+        return new RetryProvider(routeMetricsProvider);
     }
 
     @Bean
@@ -175,19 +260,40 @@ public class FaradayConfiguration {
             HttpClientProvider httpClientProvider,
             MappingsProvider mappingsProvider,
             LoadBalancer loadBalancer,
+            CircuitBreakerProvider circuitBreakerProvider,
             Optional<MeterRegistry> meterRegistry,
             ProxyingTraceInterceptor traceInterceptor,
-            PostForwardResponseInterceptor responseInterceptor
+            PostForwardResponseInterceptor responseInterceptor,
+            ResponseCompressor responseCompressor,
+            RequestCoalescer requestCoalescer,
+            RouteMetricsProvider routeMetricsProvider,
+            RetryProvider retryProvider
     ) {
+        if (faradayProperties.getAsync().isEnabled() && httpClientProvider instanceof HttpAsyncClientProvider) {
+            return new AsyncRequestForwarder(
+                    serverProperties, faradayProperties, (HttpAsyncClientProvider) httpClientProvider,
+                    mappingsProvider, loadBalancer, circuitBreakerProvider, meterRegistry,
+                    traceInterceptor, responseInterceptor, responseCompressor, requestCoalescer, routeMetricsProvider, retryProvider);
+        }
         return new RequestForwarder(
                 serverProperties, faradayProperties, httpClientProvider,
-                mappingsProvider, loadBalancer, meterRegistry,
-                traceInterceptor, responseInterceptor);
+                mappingsProvider, loadBalancer, circuitBreakerProvider, meterRegistry,
+                traceInterceptor, responseInterceptor, responseCompressor, requestCoalescer, routeMetricsProvider, retryProvider);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RequestCoalescer faradayRequestCoalescer(Optional<MeterRegistry> meterRegistry) {
+        return new RequestCoalescer(faradayProperties, meterRegistry);
     }
 
     @Bean
     @ConditionalOnMissingBean
     public TraceInterceptor faradayTraceInterceptor() {
+        // 开启追踪时由后台线程批量输出追踪日志，请求线程上只有一次入队
+        if (faradayProperties.getTracing().isEnabled()) {
+            return new AsyncTraceInterceptor(faradayProperties.getTracing(), new LoggingTraceInterceptor());
+        }
         return new LoggingTraceInterceptor();
     }
 
@@ -199,15 +305,39 @@ public class FaradayConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    public PreForwardRequestInterceptor faradayPreForwardRequestInterceptor(EnvConfig envConfig) {
+    public ResponseCache faradayResponseCache() {
+        return new ResponseCache(faradayProperties);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ResponseCacheInterceptor faradayResponseCacheInterceptor(ResponseCache responseCache,
+                                                                    Optional<MeterRegistry> meterRegistry) {
+        return new ResponseCacheInterceptor(faradayProperties, responseCache, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public PreForwardRequestInterceptor faradayPreForwardRequestInterceptor(EnvConfig envConfig,
+                                                                            ResponseCacheInterceptor responseCacheInterceptor,
+                                                                            Optional<MeterRegistry> meterRegistry) {
         //return new NoOpPreForwardRequestInterceptor();
-        return new AuthRequestInterceptor(staffjoyPropreties.getSigningSecret(), envConfig);
+        // 授权检查必须在查找响应缓存之前，限流按授权后的当前用户计数
+        return new CompositePreForwardRequestInterceptor(Arrays.asList(
+                new AuthRequestInterceptor(staffjoyPropreties.getSigningSecret(), envConfig,
+                        faradayProperties.getSessionCache().isEnabled() ? faradayProperties.getSessionCache().getMaxEntries() : 0),
+                new RateLimitInterceptor(faradayProperties,
+                        new RateLimiter(faradayProperties.getRateLimiter().getMaxKeys()), meterRegistry),
+                responseCacheInterceptor));
     }
 
     @Bean
     @ConditionalOnMissingBean
-    public PostForwardResponseInterceptor faradayPostForwardResponseInterceptor() {
+    public PostForwardResponseInterceptor faradayPostForwardResponseInterceptor(ResponseCacheInterceptor responseCacheInterceptor) {
         //return new NoOpPostForwardResponseInterceptor();
-        return new CacheResponseInterceptor();
+        // 缓存的是加上no-cache之后发给客户端的响应头
+        return new CompositePostForwardResponseInterceptor(Arrays.asList(
+                new CacheResponseInterceptor(),
+                responseCacheInterceptor));
     }
 }
@@ -40,6 +40,46 @@ public class FaradayProperties {
      */
     @NestedConfigurationProperty
     private TracingProperties tracing = new TracingProperties();
+    /**
+     * 负责流式转发HTTP请求和响应体的属性。
+     */
+    @NestedConfigurationProperty
+    private StreamingProperties streaming = new StreamingProperties();
+    /**
+     * 负责异步转发HTTP请求的属性。
+     */
+    @NestedConfigurationProperty
+    private AsyncProperties async = new AsyncProperties();
+    /**
+     * 负责在网关缓存上游响应的属性。
+     */
+    @NestedConfigurationProperty
+    private ResponseCacheProperties cache = new ResponseCacheProperties();
+    /**
+     * 负责缓存已校验会话的属性。
+     */
+    @NestedConfigurationProperty
+    private SessionCacheProperties sessionCache = new SessionCacheProperties();
+    /**
+     * 负责按用户和映射限流的属性（每个映射的速率在映射属性中配置）。
+     */
+    @NestedConfigurationProperty
+    private RateLimiterProperties rateLimiter = new RateLimiterProperties();
+    /**
+     * 负责全局负载削减的属性。
+     */
+    @NestedConfigurationProperty
+    private LoadSheddingProperties loadShedding = new LoadSheddingProperties();
+    /**
+     * 负责响应压缩的属性。
+     */
+    @NestedConfigurationProperty
+    private CompressionProperties compression = new CompressionProperties();
+    /**
+     * 负责从外部文件热加载路由映射的属性。
+     */
+    @NestedConfigurationProperty
+    private MappingsFileProperties mappingsFile = new MappingsFileProperties();
     /**
      * 代理映射列表。
      */
@@ -70,6 +110,70 @@ public class FaradayProperties {
         this.tracing = tracing;
     }
 
+    public StreamingProperties getStreaming() {
+        return streaming;
+    }
+
+    public void setStreaming(StreamingProperties streaming) {
+        this.streaming = streaming;
+    }
+
+    public AsyncProperties getAsync() {
+        return async;
+    }
+
+    public void setAsync(AsyncProperties async) {
+        this.async = async;
+    }
+
+    public ResponseCacheProperties getCache() {
+        return cache;
+    }
+
+    public void setCache(ResponseCacheProperties cache) {
+        this.cache = cache;
+    }
+
+    public SessionCacheProperties getSessionCache() {
+        return sessionCache;
+    }
+
+    public void setSessionCache(SessionCacheProperties sessionCache) {
+        this.sessionCache = sessionCache;
+    }
+
+    public RateLimiterProperties getRateLimiter() {
+        return rateLimiter;
+    }
+
+    public void setRateLimiter(RateLimiterProperties rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    public LoadSheddingProperties getLoadShedding() {
+        return loadShedding;
+    }
+
+    public void setLoadShedding(LoadSheddingProperties loadShedding) {
+        this.loadShedding = loadShedding;
+    }
+
+    public CompressionProperties getCompression() {
+        return compression;
+    }
+
+    public void setCompression(CompressionProperties compression) {
+        this.compression = compression;
+    }
+
+    public MappingsFileProperties getMappingsFile() {
+        return mappingsFile;
+    }
+
+    public void setMappingsFile(MappingsFileProperties mappingsFile) {
+        this.mappingsFile = mappingsFile;
+    }
+
     public List<MappingProperties> getMappings() {
         return mappings;
     }
@@ -0,0 +1,28 @@
+package xyz.staffjoy.faraday.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LoadSheddingProperties {
+    /**
+     * 用于启用和禁用全局负载削减的标志
+     * 启用后同时处理中的请求数达到上限时，新请求不排队，直接返回503
+     */
+    private boolean enabled;
+    /**
+     * 所有映射同时处理中的请求数上限
+     */
+    private int maxConcurrentRequests = 200;
+    /**
+     * 单个映射同时处理中的请求数上限，一个映射的后端变慢时其他映射仍有可用许可；0表示不按映射限制
+     */
+    private int maxConcurrentRequestsPerRoute = 100;
+    /**
+     * 负载削减响应的Retry-After（秒）
+     */
+    private int retryAfter = 1;
+}
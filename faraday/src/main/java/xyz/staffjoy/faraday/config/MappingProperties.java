@@ -1,5 +1,7 @@
 package xyz.staffjoy.faraday.config;
 
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 
 import java.util.ArrayList;
@@ -34,6 +36,46 @@ public class MappingProperties {
      * 转发HTTP请求时超时的属性。
      */
     private TimeoutProperties timeout = new TimeoutProperties();
+    /**
+     * 转发HTTP请求时连接池的属性。
+     */
+    private PoolProperties pool = new PoolProperties();
+    /**
+     * 在目标主机之间做负载均衡的属性。
+     */
+    private LoadBalancingProperties loadBalancing = new LoadBalancingProperties();
+    /**
+     * 转发HTTP请求时熔断器的属性。
+     */
+    private CircuitBreakerProperties circuitBreaker = new CircuitBreakerProperties();
+    /**
+     * 限制转发中HTTP请求数量（舱壁隔离）的属性。
+     */
+    private BulkheadProperties bulkhead = new BulkheadProperties();
+    /**
+     * 在网关缓存上游响应的属性。
+     */
+    private CacheProperties cache = new CacheProperties();
+    /**
+     * 合并并发的相同GET请求的属性。
+     */
+    private CoalescingProperties coalescing = new CoalescingProperties();
+    /**
+     * 使用HTTP/2转发HTTP请求的属性。
+     */
+    private Http2Properties http2 = new Http2Properties();
+    /**
+     * 按用户限流的属性。
+     */
+    private RateLimitProperties rateLimit = new RateLimitProperties();
+    /**
+     * 幂等请求重试的属性。
+     */
+    private RetryProperties retry = new RetryProperties();
+    /**
+     * 对冲请求的属性。
+     */
+    private HedgingProperties hedging = new HedgingProperties();
     /**
      * 自定义属性占位符。
      */
@@ -71,6 +113,86 @@ public class MappingProperties {
         this.timeout = timeout;
     }
 
+    public PoolProperties getPool() {
+        return pool;
+    }
+
+    public void setPool(PoolProperties pool) {
+        this.pool = pool;
+    }
+
+    public LoadBalancingProperties getLoadBalancing() {
+        return loadBalancing;
+    }
+
+    public void setLoadBalancing(LoadBalancingProperties loadBalancing) {
+        this.loadBalancing = loadBalancing;
+    }
+
+    public CircuitBreakerProperties getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public void setCircuitBreaker(CircuitBreakerProperties circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public BulkheadProperties getBulkhead() {
+        return bulkhead;
+    }
+
+    public void setBulkhead(BulkheadProperties bulkhead) {
+        this.bulkhead = bulkhead;
+    }
+
+    public CacheProperties getCache() {
+        return cache;
+    }
+
+    public void setCache(CacheProperties cache) {
+        this.cache = cache;
+    }
+
+    public CoalescingProperties getCoalescing() {
+        return coalescing;
+    }
+
+    public void setCoalescing(CoalescingProperties coalescing) {
+        this.coalescing = coalescing;
+    }
+
+    public Http2Properties getHttp2() {
+        return http2;
+    }
+
+    public void setHttp2(Http2Properties http2) {
+        this.http2 = http2;
+    }
+
+    public RateLimitProperties getRateLimit() {
+        return rateLimit;
+    }
+
+    public void setRateLimit(RateLimitProperties rateLimit) {
+        this.rateLimit = rateLimit;
+    }
+
+    public RetryProperties getRetry() {
+        return retry;
+    }
+
+    public void setRetry(RetryProperties retry) {
+        this.retry = retry;
+    }
+
+    public HedgingProperties getHedging() {
+        return hedging;
+    }
+
+    public void setHedging(HedgingProperties hedging) {
+        this.hedging = hedging;
+    }
+
     public Map<String, Object> getCustomConfiguration() {
         return customConfiguration;
     }
@@ -85,10 +207,72 @@ public class MappingProperties {
         clone.setHost(host);
         clone.setDestinations(destinations == null ? null : new ArrayList<>(destinations));
         clone.setTimeout(timeout);
+        clone.setPool(pool);
+        clone.setLoadBalancing(loadBalancing);
+        clone.setCircuitBreaker(circuitBreaker);
+        clone.setBulkhead(bulkhead);
+        clone.setCache(cache);
+        clone.setCoalescing(coalescing);
+        clone.setHttp2(http2);
+        clone.setRateLimit(rateLimit);
+        clone.setRetry(retry);
+        clone.setHedging(hedging);
         clone.setCustomConfiguration(customConfiguration == null ? null : new HashMap<>(customConfiguration));
         return clone;
     }
 
+    /**
+     * 映射更新时属性相同的映射沿用原来的实例，保留其HTTP客户端、熔断器和负载均衡统计
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        MappingProperties that = (MappingProperties) o;
+        return new EqualsBuilder()
+                .append(name, that.name)
+                .append(host, that.host)
+                .append(destinations, that.destinations)
+                .append(timeout, that.timeout)
+                .append(pool, that.pool)
+                .append(loadBalancing, that.loadBalancing)
+                .append(circuitBreaker, that.circuitBreaker)
+                .append(bulkhead, that.bulkhead)
+                .append(cache, that.cache)
+                .append(coalescing, that.coalescing)
+                .append(http2, that.http2)
+                .append(rateLimit, that.rateLimit)
+                .append(retry, that.retry)
+                .append(hedging, that.hedging)
+                .append(customConfiguration, that.customConfiguration)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(name)
+                .append(host)
+                .append(destinations)
+                .append(timeout)
+                .append(pool)
+                .append(loadBalancing)
+                .append(circuitBreaker)
+                .append(bulkhead)
+                .append(cache)
+                .append(coalescing)
+                .append(http2)
+                .append(rateLimit)
+                .append(retry)
+                .append(hedging)
+                .append(customConfiguration)
+                .toHashCode();
+    }
+
     @Override
     public String toString() {
         return new ToStringBuilder(this, NO_CLASS_NAME_STYLE)
@@ -96,6 +280,16 @@ public class MappingProperties {
                 .append("host", host)
                 .append("destinations", destinations)
                 .append("timeout", timeout)
+                .append("pool", pool)
+                .append("loadBalancing", loadBalancing)
+                .append("circuitBreaker", circuitBreaker)
+                .append("bulkhead", bulkhead)
+                .append("cache", cache)
+                .append("coalescing", coalescing)
+                .append("http2", http2)
+                .append("rateLimit", rateLimit)
+                .append("retry", retry)
+                .append("hedging", hedging)
                 .append("customConfiguration", customConfiguration)
                 .toString();
     }
@@ -128,6 +322,29 @@ public class MappingProperties {
             this.read = read;
         }
 
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            TimeoutProperties that = (TimeoutProperties) o;
+            return new EqualsBuilder()
+                    .append(connect, that.connect)
+                    .append(read, that.read)
+                    .isEquals();
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder()
+                    .append(connect)
+                    .append(read)
+                    .toHashCode();
+        }
+
         @Override
         public String toString() {
             return new ToStringBuilder(this, NO_CLASS_NAME_STYLE)
@@ -136,4 +353,791 @@ public class MappingProperties {
                     .toString();
         }
     }
+
+    public static class PoolProperties {
+
+        /**
+         * Max number of pooled connections to all destinations of the mapping.
+         */
+        private int maxTotal = 200;
+        /**
+         * Max number of pooled connections to a single destination of the mapping.
+         */
+        private int maxPerRoute = 100;
+        /**
+         * Time after which idle pooled connections are evicted, in milliseconds.
+         */
+        private long idleEvictionTimeout = 30000;
+        /**
+         * Period of inactivity after which a pooled connection is validated before being reused, in milliseconds.
+         */
+        private int validateAfterInactivity = 2000;
+        /**
+         * Max lifetime of a pooled connection, in milliseconds. Non-positive value means no limit.
+         */
+        private long timeToLive = -1;
+
+        public int getMaxTotal() {
+            return maxTotal;
+        }
+
+        public void setMaxTotal(int maxTotal) {
+            this.maxTotal = maxTotal;
+        }
+
+        public int getMaxPerRoute() {
+            return maxPerRoute;
+        }
+
+        public void setMaxPerRoute(int maxPerRoute) {
+            this.maxPerRoute = maxPerRoute;
+        }
+
+        public long getIdleEvictionTimeout() {
+            return idleEvictionTimeout;
+        }
+
+        public void setIdleEvictionTimeout(long idleEvictionTimeout) {
+            this.idleEvictionTimeout = idleEvictionTimeout;
+        }
+
+        public int getValidateAfterInactivity() {
+            return validateAfterInactivity;
+        }
+
+        public void setValidateAfterInactivity(int validateAfterInactivity) {
+            this.validateAfterInactivity = validateAfterInactivity;
+        }
+
+        public long getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(long timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PoolProperties that = (PoolProperties) o;
+            return new EqualsBuilder()
+                    .append(maxTotal, that.maxTotal)
+                    .append(maxPerRoute, that.maxPerRoute)
+                    .append(idleEvictionTimeout, that.idleEvictionTimeout)
+                    .append(validateAfterInactivity, that.validateAfterInactivity)
+                    .append(timeToLive, that.timeToLive)
+                    .isEquals();
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder()
+                    .append(maxTotal)
+                    .append(maxPerRoute)
+                    .append(idleEvictionTimeout)
+                    .append(validateAfterInactivity)
+                    .append(timeToLive)
+                    .toHashCode();
+        }
+
+        @Override
+        public String toString() {
+            return new ToStringBuilder(this, NO_CLASS_NAME_STYLE)
+                    .append("maxTotal", maxTotal)
+                    .append("maxPerRoute", maxPerRoute)
+                    .append("idleEvictionTimeout", idleEvictionTimeout)
+                    .append("validateAfterInactivity", validateAfterInactivity)
+                    .append("timeToLive", timeToLive)
+                    .toString();
+        }
+    }
+
+    public static class LoadBalancingProperties {
+
+        /**
+         * Strategy used to choose destination of HTTP requests forwarding.
+         */
+        private Strategy strategy = Strategy.RANDOM;
+        /**
+         * Number of consecutive failed requests after which a destination is ejected.
+         */
+        private int consecutiveFailures = 5;
+        /**
+         * Base time for which a destination is ejected, in milliseconds. Grows with each subsequent ejection.
+         */
+        private long ejectionTime = 10000;
+        /**
+         * Max percentage of destinations of the mapping that can be ejected at the same time.
+         */
+        private int maxEjectionPercent = 50;
+        /**
+         * Decay time of the peak EWMA latency, in milliseconds.
+         */
+        private long decayTime = 10000;
+
+        public Strategy getStrategy() {
+            return strategy;
+        }
+
+        public void setStrategy(Strategy strategy) {
+            this.strategy = strategy;
+        }
+
+        public int getConsecutiveFailures() {
+            return consecutiveFailures;
+        }
+
+        public void setConsecutiveFailures(int consecutiveFailures) {
+            this.consecutiveFailures = consecutiveFailures;
+        }
+
+        public long getEjectionTime() {
+            return ejectionTime;
+        }
+
+        public void setEjectionTime(long ejectionTime) {
+            this.ejectionTime = ejectionTime;
+        }
+
+        public int getMaxEjectionPercent() {
+            return maxEjectionPercent;
+        }
+
+        public void setMaxEjectionPercent(int maxEjectionPercent) {
+            this.maxEjectionPercent = maxEjectionPercent;
+        }
+
+        public long getDecayTime() {
+            return decayTime;
+        }
+
+        public void setDecayTime(long decayTime) {
+            this.decayTime = decayTime;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            LoadBalancingProperties that = (LoadBalancingProperties) o;
+            return new EqualsBuilder()
+                    .append(strategy, that.strategy)
+                    .append(consecutiveFailures, that.consecutiveFailures)
+                    .append(ejectionTime, that.ejectionTime)
+                    .append(maxEjectionPercent, that.maxEjectionPercent)
+                    .append(decayTime, that.decayTime)
+                    .isEquals();
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder()
+                    .append(strategy)
+                    .append(consecutiveFailures)
+                    .append(ejectionTime)
+                    .append(maxEjectionPercent)
+                    .append(decayTime)
+                    .toHashCode();
+        }
+
+        @Override
+        public String toString() {
+            return new ToStringBuilder(this, NO_CLASS_NAME_STYLE)
+                    .append("strategy", strategy)
+                    .append("consecutiveFailures", consecutiveFailures)
+                    .append("ejectionTime", ejectionTime)
+                    .append("maxEjectionPercent", maxEjectionPercent)
+                    .append("decayTime", decayTime)
+                    .toString();
+        }
+
+        public enum Strategy {
+            RANDOM,
+            ROUND_ROBIN,
+            LEAST_OUTSTANDING,
+            PEAK_EWMA
+        }
+    }
+
+    public static class CircuitBreakerProperties {
+
+        /**
+         * Flag for enabling and disabling circuit breaker of the mapping.
+         */
+        private boolean enabled;
+        /**
+         * Percentage of failed requests at which the circuit breaker opens.
+         */
+        private int failureRateThreshold = 50;
+        /**
+         * Percentage of slow requests at which the circuit breaker opens.
+         */
+        private int slowCallRateThreshold = 100;
+        /**
+         * Duration above which a request is considered slow, in milliseconds.
+         */
+        private long slowCallDuration = 10000;
+        /**
+         * Number of latest requests used to calculate failure and slow request rates.
+         */
+        private int slidingWindowSize = 20;
+        /**
+         * Min number of requests in the sliding window before the rates are calculated.
+         */
+        private int minimumNumberOfCalls = 10;
+        /**
+         * Time for which the circuit breaker stays open before probing the destinations, in milliseconds.
+         */
+        private long waitDurationInOpenState = 10000;
+        /**
+         * Number of probing requests permitted when the circuit breaker is half-open.
+         */
+        private int permittedCallsInHalfOpenState = 3;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(int failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public int getSlowCallRateThreshold() {
+            return slowCallRateThreshold;
+        }
+
+        public void setSlowCallRateThreshold(int slowCallRateThreshold) {
+            this.slowCallRateThreshold = slowCallRateThreshold;
+        }
+
+        public long getSlowCallDuration() {
+            return slowCallDuration;
+        }
+
+        public void setSlowCallDuration(long slowCallDuration) {
+            this.slowCallDuration = slowCallDuration;
+        }
+
+        public int getSlidingWindowSize() {
+            return slidingWindowSize;
+        }
+
+        public void setSlidingWindowSize(int slidingWindowSize) {
+            this.slidingWindowSize = slidingWindowSize;
+        }
+
+        public int getMinimumNumberOfCalls() {
+            return minimumNumberOfCalls;
+        }
+
+        public void setMinimumNumberOfCalls(int minimumNumberOfCalls) {
+            this.minimumNumberOfCalls = minimumNumberOfCalls;
+        }
+
+        public long getWaitDurationInOpenState() {
+            return waitDurationInOpenState;
+        }
+
+        public void setWaitDurationInOpenState(long waitDurationInOpenState) {
+            this.waitDurationInOpenState = waitDurationInOpenState;
+        }
+
+        public int getPermittedCallsInHalfOpenState() {
+            return permittedCallsInHalfOpenState;
+        }
+
+        public void setPermittedCallsInHalfOpenState(int permittedCallsInHalfOpenState) {
+            this.permittedCallsInHalfOpenState = permittedCallsInHalfOpenState;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            CircuitBreakerProperties that = (CircuitBreakerProperties) o;
+            return new EqualsBuilder()
+                    .append(enabled, that.enabled)
+                    .append(failureRateThreshold, that.failureRateThreshold)
+                    .append(slowCallRateThreshold, that.slowCallRateThreshold)
+                    .append(slowCallDuration, that.slowCallDuration)
+                    .append(slidingWindowSize, that.slidingWindowSize)
+                    .append(minimumNumberOfCalls, that.minimumNumberOfCalls)
+                    .append(waitDurationInOpenState, that.waitDurationInOpenState)
+                    .append(permittedCallsInHalfOpenState, that.permittedCallsInHalfOpenState)
+                    .isEquals();
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder()
+                    .append(enabled)
+                    .append(failureRateThreshold)
+                    .append(slowCallRateThreshold)
+                    .append(slowCallDuration)
+                    .append(slidingWindowSize)
+                    .append(minimumNumberOfCalls)
+                    .append(waitDurationInOpenState)
+                    .append(permittedCallsInHalfOpenState)
+                    .toHashCode();
+        }
+
+        @Override
+        public String toString() {
+            return new ToStringBuilder(this, NO_CLASS_NAME_STYLE)
+                    .append("enabled", enabled)
+                    .append("failureRateThreshold", failureRateThreshold)
+                    .append("slowCallRateThreshold", slowCallRateThreshold)
+                    .append("slowCallDuration", slowCallDuration)
+                    .append("slidingWindowSize", slidingWindowSize)
+                    .append("minimumNumberOfCalls", minimumNumberOfCalls)
+                    .append("waitDurationInOpenState", waitDurationInOpenState)
+                    .append("permittedCallsInHalfOpenState", permittedCallsInHalfOpenState)
+                    .toString();
+        }
+    }
+
+    public static class BulkheadProperties {
+
+        /**
+         * Max number of HTTP requests of the mapping being forwarded at the same time. Non-positive value means no limit.
+         */
+        private int maxConcurrentRequests;
+
+        public int getMaxConcurrentRequests() {
+            return maxConcurrentRequests;
+        }
+
+        public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+            this.maxConcurrentRequests = maxConcurrentRequests;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            BulkheadProperties that = (BulkheadProperties) o;
+            return new EqualsBuilder()
+                    .append(maxConcurrentRequests, that.maxConcurrentRequests)
+                    .isEquals();
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder()
+                    .append(maxConcurrentRequests)
+                    .toHashCode();
+        }
+
+        @Override
+        public String toString() {
+            return new ToStringBuilder(this, NO_CLASS_NAME_STYLE)
+                    .append("maxConcurrentRequests", maxConcurrentRequests)
+                    .toString();
+        }
+    }
+
+    public static class CacheProperties {
+
+        /**
+         * Flag for enabling and disabling caching of cacheable GET responses of the mapping.
+         * Only responses allowed by upstream Cache-Control (max-age or s-maxage) are cached.
+         */
+        private boolean enabled;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            CacheProperties that = (CacheProperties) o;
+            return new EqualsBuilder()
+                    .append(enabled, that.enabled)
+                    .isEquals();
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder()
+                    .append(enabled)
+                    .toHashCode();
+        }
+
+        @Override
+        public String toString() {
+            return new ToStringBuilder(this, NO_CLASS_NAME_STYLE)
+                    .append("enabled", enabled)
+                    .toString();
+        }
+    }
+
+    public static class CoalescingProperties {
+
+        /**
+         * Flag for enabling and disabling coalescing of concurrent identical GET requests of the mapping.
+         * Requests with the same URI, user and content negotiation headers share one upstream exchange and its response.
+         * Conditional, range, no-cache requests and requests with a body are never coalesced.
+         */
+        private boolean enabled;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            CoalescingProperties that = (CoalescingProperties) o;
+            return new EqualsBuilder()
+                    .append(enabled, that.enabled)
+                    .isEquals();
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder()
+                    .append(enabled)
+                    .toHashCode();
+        }
+
+        @Override
+        public String toString() {
+            return new ToStringBuilder(this, NO_CLASS_NAME_STYLE)
+                    .append("enabled", enabled)
+                    .toString();
+        }
+    }
+
+    public static class Http2Properties {
+
+        /**
+         * Flag for enabling and disabling forwarding of HTTP requests over cleartext HTTP/2 (h2c with prior knowledge).
+         * Concurrent requests to a destination are multiplexed over a few connections. All destinations must accept h2c.
+         * The :authority of forwarded requests is the destination, the original host is sent in X-Forwarded-Host header.
+         */
+        private boolean enabled;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Http2Properties that = (Http2Properties) o;
+            return new EqualsBuilder()
+                    .append(enabled, that.enabled)
+                    .isEquals();
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder()
+                    .append(enabled)
+                    .toHashCode();
+        }
+
+        @Override
+        public String toString() {
+            return new ToStringBuilder(this, NO_CLASS_NAME_STYLE)
+                    .append("enabled", enabled)
+                    .toString();
+        }
+    }
+
+    public static class RateLimitProperties {
+
+        /**
+         * Flag for enabling and disabling rate limiting of HTTP requests of the mapping.
+         * Requests are limited per user (per remote address for anonymous requests) with a token bucket.
+         */
+        private boolean enabled;
+        /**
+         * Number of requests per second a single user is allowed to send to the mapping in the long run.
+         */
+        private double permitsPerSecond = 10;
+        /**
+         * Max number of requests a single user is allowed to send to the mapping at once.
+         */
+        private int burst = 20;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getPermitsPerSecond() {
+            return permitsPerSecond;
+        }
+
+        public void setPermitsPerSecond(double permitsPerSecond) {
+            this.permitsPerSecond = permitsPerSecond;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            RateLimitProperties that = (RateLimitProperties) o;
+            return new EqualsBuilder()
+                    .append(enabled, that.enabled)
+                    .append(permitsPerSecond, that.permitsPerSecond)
+                    .append(burst, that.burst)
+                    .isEquals();
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder()
+                    .append(enabled)
+                    .append(permitsPerSecond)
+                    .append(burst)
+                    .toHashCode();
+        }
+
+        @Override
+        public String toString() {
+            return new ToStringBuilder(this, NO_CLASS_NAME_STYLE)
+                    .append("enabled", enabled)
+                    .append("permitsPerSecond", permitsPerSecond)
+                    .append("burst", burst)
+                    .toString();
+        }
+    }
+
+    public static class RetryProperties {
+
+        /**
+         * Flag for enabling and disabling retries of idempotent HTTP requests of the mapping.
+         * Requests are retried on another destination after connect failures and 503 responses.
+         */
+        private boolean enabled;
+        /**
+         * Max number of attempts of a single request, including the first one.
+         */
+        private int maxAttempts = 2;
+        /**
+         * Ratio of retries to requests of the mapping allowed within a 10 seconds window.
+         */
+        private double budgetRatio = 0.2;
+        /**
+         * Number of retries per second allowed regardless of the ratio, so that retries of low traffic mappings are not starved.
+         */
+        private double minRetriesPerSecond = 3;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public double getBudgetRatio() {
+            return budgetRatio;
+        }
+
+        public void setBudgetRatio(double budgetRatio) {
+            this.budgetRatio = budgetRatio;
+        }
+
+        public double getMinRetriesPerSecond() {
+            return minRetriesPerSecond;
+        }
+
+        public void setMinRetriesPerSecond(double minRetriesPerSecond) {
+            this.minRetriesPerSecond = minRetriesPerSecond;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            RetryProperties that = (RetryProperties) o;
+            return new EqualsBuilder()
+                    .append(enabled, that.enabled)
+                    .append(maxAttempts, that.maxAttempts)
+                    .append(budgetRatio, that.budgetRatio)
+                    .append(minRetriesPerSecond, that.minRetriesPerSecond)
+                    .isEquals();
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder()
+                    .append(enabled)
+                    .append(maxAttempts)
+                    .append(budgetRatio)
+                    .append(minRetriesPerSecond)
+                    .toHashCode();
+        }
+
+        @Override
+        public String toString() {
+            return new ToStringBuilder(this, NO_CLASS_NAME_STYLE)
+                    .append("enabled", enabled)
+                    .append("maxAttempts", maxAttempts)
+                    .append("budgetRatio", budgetRatio)
+                    .append("minRetriesPerSecond", minRetriesPerSecond)
+                    .toString();
+        }
+    }
+
+    public static class HedgingProperties {
+
+        /**
+         * Flag for enabling and disabling hedged requests of the mapping.
+         * When the response of an idempotent request is slower than the given percentile of recent latencies,
+         * a second attempt is sent to another destination and the first response wins.
+         * Hedged attempts are taken from the retry budget. Only used by the asynchronous forwarder.
+         */
+        private boolean enabled;
+        /**
+         * Percentile of recent upstream latencies of the mapping after which the hedged attempt is sent.
+         */
+        private double percentile = 95;
+        /**
+         * Min delay in milliseconds before the hedged attempt is sent.
+         */
+        private long minDelay = 10;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public void setPercentile(double percentile) {
+            this.percentile = percentile;
+        }
+
+        public long getMinDelay() {
+            return minDelay;
+        }
+
+        public void setMinDelay(long minDelay) {
+            this.minDelay = minDelay;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            HedgingProperties that = (HedgingProperties) o;
+            return new EqualsBuilder()
+                    .append(enabled, that.enabled)
+                    .append(percentile, that.percentile)
+                    .append(minDelay, that.minDelay)
+                    .isEquals();
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder()
+                    .append(enabled)
+                    .append(percentile)
+                    .append(minDelay)
+                    .toHashCode();
+        }
+
+        @Override
+        public String toString() {
+            return new ToStringBuilder(this, NO_CLASS_NAME_STYLE)
+                    .append("enabled", enabled)
+                    .append("percentile", percentile)
+                    .append("minDelay", minDelay)
+                    .toString();
+        }
+    }
 }
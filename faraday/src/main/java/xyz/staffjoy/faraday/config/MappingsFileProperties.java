@@ -0,0 +1,24 @@
+package xyz.staffjoy.faraday.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MappingsFileProperties {
+    /**
+     * 用于启用和禁用从外部文件热加载路由映射的标志
+     * 文件格式与application.yml相同，可以包含faraday.mappings（覆盖配置的映射）和staffjoy.services（覆盖或补充内置的服务）
+     */
+    private boolean enabled;
+    /**
+     * 外部YAML文件的路径，例如挂载ConfigMap的路径
+     */
+    private String path;
+    /**
+     * 文件变化后等待多久没有新的变化再重新加载（毫秒）
+     */
+    private int debounce = 500;
+}
@@ -4,6 +4,12 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -12,4 +18,11 @@ public class MetricsProperties {
      * 全局度量名称前缀
      */
     private String namesPrefix = "faraday";
+    /**
+     * 每个映射的转发延迟直方图的SLO桶边界
+     */
+    private List<Duration> slo = new ArrayList<>(asList(
+            Duration.ofMillis(25), Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250),
+            Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofMillis(2500), Duration.ofSeconds(5),
+            Duration.ofSeconds(10)));
 }
@@ -0,0 +1,32 @@
+package xyz.staffjoy.faraday.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RateLimiterProperties {
+    /**
+     * 限流器最多跟踪的限流键（映射+用户）数量，超出时先清理令牌桶已满的键
+     * 被清理的键相当于令牌桶重新装满
+     */
+    private int maxKeys = 100000;
+    /**
+     * 可信代理地址的正则表达式（与Tomcat RemoteIpValve的internalProxies默认值相同）
+     * 匿名请求从右向左跳过X-Forwarded-For中的可信代理，第一个不可信的地址作为客户端地址
+     */
+    private String trustedProxies = "10\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}|"
+            + "192\\.168\\.\\d{1,3}\\.\\d{1,3}|"
+            + "169\\.254\\.\\d{1,3}\\.\\d{1,3}|"
+            + "127\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}|"
+            + "172\\.1[6-9]\\.\\d{1,3}\\.\\d{1,3}|"
+            + "172\\.2[0-9]\\.\\d{1,3}\\.\\d{1,3}|"
+            + "172\\.3[0-1]\\.\\d{1,3}\\.\\d{1,3}|"
+            + "0:0:0:0:0:0:0:1|::1";
+    /**
+     * 程序化路由映射使用的限流配置，程序化映射没有单独的映射配置
+     */
+    private MappingProperties.RateLimitProperties defaults = new MappingProperties.RateLimitProperties();
+}
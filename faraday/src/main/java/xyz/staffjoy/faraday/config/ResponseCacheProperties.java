@@ -0,0 +1,23 @@
+package xyz.staffjoy.faraday.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ResponseCacheProperties {
+    /**
+     * 响应缓存中最多保存的缓存键数量（所有映射共享，每个缓存键下最多保存16个Vary变体）
+     */
+    private int maxEntries = 10000;
+    /**
+     * 响应缓存中所有响应体的总大小上限（字节）
+     */
+    private long maxSize = 64 * 1024 * 1024;
+    /**
+     * 单个可缓存响应体的大小上限（字节），更大的响应不会被缓存
+     */
+    private int maxEntrySize = 1024 * 1024;
+}
@@ -0,0 +1,20 @@
+package xyz.staffjoy.faraday.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SessionCacheProperties {
+    /**
+     * 用于启用和禁用已校验会话缓存的标志
+     * 启用后同一会话令牌在过期（JWT exp）之前只做一次签名校验和声明解码
+     */
+    private boolean enabled = true;
+    /**
+     * 最多缓存的会话数量
+     */
+    private int maxEntries = 10000;
+}
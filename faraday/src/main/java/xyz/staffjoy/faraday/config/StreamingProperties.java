@@ -0,0 +1,20 @@
+package xyz.staffjoy.faraday.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StreamingProperties {
+    /**
+     * 用于启用和禁用流式转发的标志
+     * 启用后请求体和响应体不再整体缓冲在堆上，而是直接在servlet流和上游连接之间传输
+     */
+    private boolean enabled;
+    /**
+     * 流式转发时每个线程复用的缓冲区大小（字节）
+     */
+    private int bufferSize = 8192;
+}
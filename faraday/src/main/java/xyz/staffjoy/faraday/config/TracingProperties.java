@@ -12,4 +12,24 @@ public class TracingProperties {
      * 用于启用和禁用跟踪HTTP请求代理进程的标志
      */
     private boolean enabled;
+    /**
+     * 采样率（0到1），在收到请求时决定是否追踪该请求，未被采样的请求不产生任何追踪事件
+     */
+    private double sampleRate = 1.0;
+    /**
+     * 追踪事件中保留的请求体和响应体的最大长度（字节），超出部分被截断
+     */
+    private int maxBodySize = 1024;
+    /**
+     * 追踪事件环形缓冲区的容量（向上取整为2的幂），缓冲区已满时丢弃新的追踪事件
+     */
+    private int bufferSize = 8192;
+    /**
+     * 后台导出线程每批最多导出的追踪事件数量
+     */
+    private int batchSize = 256;
+    /**
+     * 缓冲区为空时后台导出线程的等待时间（毫秒）
+     */
+    private long flushInterval = 100;
 }
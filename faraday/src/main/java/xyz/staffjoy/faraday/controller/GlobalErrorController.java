@@ -12,11 +12,13 @@ import org.springframework.web.client.ResourceAccessException;
 import xyz.staffjoy.common.config.StaffjoyProps;
 import xyz.staffjoy.common.env.EnvConfig;
 import xyz.staffjoy.faraday.exceptions.ForbiddenException;
+import xyz.staffjoy.faraday.exceptions.ServiceUnavailableException;
 import xyz.staffjoy.faraday.view.ErrorPage;
 import xyz.staffjoy.faraday.view.ErrorPageFactory;
 
 import javax.servlet.RequestDispatcher;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.net.SocketTimeoutException;
 import java.util.UUID;
 
@@ -39,7 +41,7 @@ public class GlobalErrorController implements ErrorController {
     EnvConfig envConfig;
 
     @RequestMapping("/error")
-    public String handleError(HttpServletRequest request, Model model) {
+    public String handleError(HttpServletRequest request, HttpServletResponse response, Model model) {
 
         Object statusCode = request.getAttribute(RequestDispatcher.ERROR_STATUS_CODE);
         Object exception = request.getAttribute(RequestDispatcher.ERROR_EXCEPTION);
@@ -47,6 +49,12 @@ public class GlobalErrorController implements ErrorController {
         ErrorPage errorPage = null;
         if (exception instanceof ForbiddenException) {
             errorPage = errorPageFactory.buildForbiddenErrorPage();
+        } else if (exception instanceof ServiceUnavailableException) {
+            // 熔断或舱壁快速失败，不是程序错误，不上报sentry
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            logger.warn("Service unavailable", "error", ((Exception) exception).getMessage());
+            model.addAttribute("page", errorPageFactory.buildServiceUnavailableErrorPage());
+            return "error";
         } else if (exception instanceof ResourceAccessException) {
             ResourceAccessException resourceAccessException =
                     (ResourceAccessException)exception;
@@ -0,0 +1,75 @@
+package xyz.staffjoy.faraday.core.balancer;
+
+import xyz.staffjoy.faraday.config.MappingProperties.LoadBalancingProperties;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/*
+ *
+ * 同一组目标主机的统计，负责被动剔除异常主机
+ *
+ */
+public class DestinationGroup {
+
+    private final DestinationStats[] destinations;
+    private final Map<String, DestinationStats> destinationsByName;
+    // 轮询计数器
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    public DestinationGroup(List<String> destinations) {
+        this.destinations = new DestinationStats[destinations.size()];
+        this.destinationsByName = new HashMap<>();
+        for (int i = 0; i < destinations.size(); i++) {
+            this.destinations[i] = new DestinationStats(destinations.get(i));
+            this.destinationsByName.put(destinations.get(i), this.destinations[i]);
+        }
+    }
+
+    public DestinationStats[] getDestinations() {
+        return destinations;
+    }
+
+    public DestinationStats getDestination(String destination) {
+        return destinationsByName.get(destination);
+    }
+
+    int nextSequence() {
+        return sequence.getAndIncrement() & Integer.MAX_VALUE;
+    }
+
+    void onCompleted(DestinationStats destination, long latencyNanos, boolean failed, LoadBalancingProperties properties) {
+        long now = System.nanoTime();
+        destination.onCompleted();
+        destination.observeLatency(latencyNanos, now, MILLISECONDS.toNanos(properties.getDecayTime()));
+        if (!failed) {
+            destination.onSuccess();
+            return;
+        }
+        if (destination.onFailure() >= properties.getConsecutiveFailures()
+                && !destination.isEjected(now) && canEject(now, properties)) {
+            destination.eject(now, MILLISECONDS.toNanos(properties.getEjectionTime()));
+        }
+    }
+
+    /**
+     * 同时被剔除的主机不能超过最大剔除比例，避免异常扩散时把所有流量压到少数主机上
+     *
+     * @param now
+     * @param properties
+     * @return
+     */
+    private boolean canEject(long now, LoadBalancingProperties properties) {
+        int ejected = 1;
+        for (DestinationStats destination : destinations) {
+            if (destination.isEjected(now)) {
+                ejected++;
+            }
+        }
+        return ejected * 100 <= properties.getMaxEjectionPercent() * destinations.length;
+    }
+}
@@ -0,0 +1,85 @@
+package xyz.staffjoy.faraday.core.balancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ *
+ * 目标主机的运行时统计（进行中的请求数、峰值EWMA延迟、连续失败次数和剔除状态）
+ *
+ */
+public class DestinationStats {
+
+    private final String destination;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicInteger ejections = new AtomicInteger();
+    private volatile long ejectedUntil;
+    private volatile double ewmaLatency;
+    private long ewmaTimestamp;
+
+    public DestinationStats(String destination) {
+        this.destination = destination;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    public double getEwmaLatency() {
+        return ewmaLatency;
+    }
+
+    public boolean isEjected(long now) {
+        return now - ejectedUntil < 0;
+    }
+
+    void onStarted() {
+        outstanding.incrementAndGet();
+    }
+
+    void onCompleted() {
+        outstanding.decrementAndGet();
+    }
+
+    /**
+     * 峰值EWMA：延迟升高时立即取峰值，降低时按距上次采样的时间指数衰减
+     *
+     * @param latencyNanos
+     * @param now
+     * @param decayNanos
+     */
+    synchronized void observeLatency(long latencyNanos, long now, long decayNanos) {
+        if (ewmaTimestamp == 0 || latencyNanos > ewmaLatency) {
+            ewmaLatency = latencyNanos;
+        } else {
+            double weight = Math.exp(-Math.max(now - ewmaTimestamp, 0) / (double) decayNanos);
+            ewmaLatency = ewmaLatency * weight + latencyNanos * (1 - weight);
+        }
+        ewmaTimestamp = now;
+    }
+
+    void onSuccess() {
+        consecutiveFailures.set(0);
+        ejections.set(0);
+    }
+
+    int onFailure() {
+        return consecutiveFailures.incrementAndGet();
+    }
+
+    /**
+     * 剔除该目标主机，连续剔除时剔除时间递增（最多10倍）
+     *
+     * @param now
+     * @param ejectionTimeNanos
+     */
+    void eject(long now, long ejectionTimeNanos) {
+        int times = Math.min(ejections.incrementAndGet(), 10);
+        ejectedUntil = now + ejectionTimeNanos * times;
+        consecutiveFailures.set(0);
+    }
+}
@@ -0,0 +1,119 @@
+package xyz.staffjoy.faraday.core.balancer;
+
+import xyz.staffjoy.faraday.config.MappingProperties;
+import xyz.staffjoy.faraday.config.MappingProperties.LoadBalancingProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.concurrent.ThreadLocalRandom.current;
+import static java.util.stream.Collectors.toSet;
+
+/*
+ *
+ * 感知目标主机健康状况的负载均衡
+ * 根据请求结果统计每个目标主机，连续失败的主机会被暂时剔除；所有主机都被剔除时退化为在全部主机中选择
+ *
+ */
+public abstract class HealthAwareLoadBalancer implements LoadBalancer {
+
+    private static final LoadBalancingProperties DEFAULT_PROPERTIES = new LoadBalancingProperties();
+
+    // 目标主机统计  <目标主机列表,DestinationGroup>，目标主机相同的映射共享统计
+    protected final ConcurrentMap<List<String>, DestinationGroup> groups = new ConcurrentHashMap<>();
+
+    @Override
+    public String chooseDestination(List<String> destnations) {
+        return choose(getGroup(destnations)).getDestination();
+    }
+
+    @Override
+    public String chooseDestination(MappingProperties mapping) {
+        return chooseDestination(mapping.getDestinations());
+    }
+
+    @Override
+    public void onRequestStarted(MappingProperties mapping, String destination) {
+        DestinationStats stats = getGroup(mapping.getDestinations()).getDestination(destination);
+        if (stats != null) {
+            stats.onStarted();
+        }
+    }
+
+    @Override
+    public void onRequestCompleted(MappingProperties mapping, String destination, long latencyNanos, boolean failed) {
+        DestinationGroup group = getGroup(mapping.getDestinations());
+        DestinationStats stats = group.getDestination(destination);
+        if (stats != null) {
+            LoadBalancingProperties properties = mapping.getLoadBalancing() == null ? DEFAULT_PROPERTIES : mapping.getLoadBalancing();
+            group.onCompleted(stats, latencyNanos, failed, properties);
+        }
+    }
+
+    /**
+     * 目标主机列表没有变化的映射保留统计，其余的统计移除
+     *
+     * @param mappings
+     */
+    @Override
+    public void onMappingsUpdated(List<MappingProperties> mappings) {
+        Set<List<String>> destinations = mappings.stream()
+                .map(MappingProperties::getDestinations)
+                .collect(toSet());
+        groups.keySet().retainAll(destinations);
+    }
+
+    public DestinationGroup getGroup(List<String> destinations) {
+        DestinationGroup group = groups.get(destinations);
+        if (group == null) {
+            List<String> key = unmodifiableList(new ArrayList<>(destinations));
+            DestinationGroup newGroup = new DestinationGroup(key);
+            group = groups.putIfAbsent(key, newGroup);
+            if (group == null) {
+                group = newGroup;
+            }
+        }
+        return group;
+    }
+
+    /**
+     * 从未被剔除的主机中选择代价最小的主机，从随机位置开始比较以打散代价相同的主机
+     *
+     * @param group
+     * @return
+     */
+    protected DestinationStats choose(DestinationGroup group) {
+        DestinationStats[] destinations = group.getDestinations();
+        if (destinations.length == 1) {
+            return destinations[0];
+        }
+        long now = System.nanoTime();
+        int start = current().nextInt(destinations.length);
+        DestinationStats chosen = null;
+        double chosenCost = 0;
+        for (int i = 0; i < destinations.length; i++) {
+            DestinationStats destination = destinations[(start + i) % destinations.length];
+            if (destination.isEjected(now)) {
+                continue;
+            }
+            double cost = cost(destination);
+            if (chosen == null || cost < chosenCost) {
+                chosen = destination;
+                chosenCost = cost;
+            }
+        }
+        return chosen == null ? destinations[start] : chosen;
+    }
+
+    /**
+     * 目标主机的代价，越小越优先
+     *
+     * @param destination
+     * @return
+     */
+    protected abstract double cost(DestinationStats destination);
+}
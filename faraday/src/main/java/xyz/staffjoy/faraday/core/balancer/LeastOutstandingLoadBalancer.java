@@ -0,0 +1,14 @@
+package xyz.staffjoy.faraday.core.balancer;
+
+/*
+ *
+ * 最少进行中请求负载均衡
+ *
+ */
+public class LeastOutstandingLoadBalancer extends HealthAwareLoadBalancer {
+
+    @Override
+    protected double cost(DestinationStats destination) {
+        return destination.getOutstanding();
+    }
+}
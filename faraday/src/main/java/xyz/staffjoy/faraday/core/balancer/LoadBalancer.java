@@ -1,5 +1,7 @@
 package xyz.staffjoy.faraday.core.balancer;
 
+import xyz.staffjoy.faraday.config.MappingProperties;
+
 import java.util.List;
 /*
  *
@@ -17,4 +19,42 @@ public interface LoadBalancer {
      * @return
      */
     String chooseDestination(List<String> destnations);
+
+    /**
+     * 按映射的负载均衡属性选择将转发HTTP请求的目标主机
+     *
+     * @param mapping
+     * @return
+     */
+    default String chooseDestination(MappingProperties mapping) {
+        return chooseDestination(mapping.getDestinations());
+    }
+
+    /**
+     * 请求开始发往目标主机
+     *
+     * @param mapping
+     * @param destination
+     */
+    default void onRequestStarted(MappingProperties mapping, String destination) {
+    }
+
+    /**
+     * 目标主机的请求结束（收到响应或失败），用于统计延迟和被动剔除异常主机
+     *
+     * @param mapping
+     * @param destination
+     * @param latencyNanos
+     * @param failed      连接失败、超时或5xx响应
+     */
+    default void onRequestCompleted(MappingProperties mapping, String destination, long latencyNanos, boolean failed) {
+    }
+
+    /**
+     * 路由映射表已更新，清理已删除映射的统计
+     *
+     * @param mappings 当前的全部映射
+     */
+    default void onMappingsUpdated(List<MappingProperties> mappings) {
+    }
 }
@@ -0,0 +1,55 @@
+package xyz.staffjoy.faraday.core.balancer;
+
+import xyz.staffjoy.faraday.config.MappingProperties;
+import xyz.staffjoy.faraday.config.MappingProperties.LoadBalancingProperties.Strategy;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ *
+ * 按映射选择负载均衡策略（faraday.mappings[].load-balancing.strategy），默认随机
+ *
+ */
+public class MappingLoadBalancer implements LoadBalancer {
+
+    protected final Map<Strategy, LoadBalancer> loadBalancers = new EnumMap<>(Strategy.class);
+
+    public MappingLoadBalancer() {
+        loadBalancers.put(Strategy.RANDOM, new RandomLoadBalancer());
+        loadBalancers.put(Strategy.ROUND_ROBIN, new RoundRobinLoadBalancer());
+        loadBalancers.put(Strategy.LEAST_OUTSTANDING, new LeastOutstandingLoadBalancer());
+        loadBalancers.put(Strategy.PEAK_EWMA, new PeakEwmaLoadBalancer());
+    }
+
+    @Override
+    public String chooseDestination(List<String> destnations) {
+        return loadBalancers.get(Strategy.RANDOM).chooseDestination(destnations);
+    }
+
+    @Override
+    public String chooseDestination(MappingProperties mapping) {
+        return getLoadBalancer(mapping).chooseDestination(mapping);
+    }
+
+    @Override
+    public void onRequestStarted(MappingProperties mapping, String destination) {
+        getLoadBalancer(mapping).onRequestStarted(mapping, destination);
+    }
+
+    @Override
+    public void onRequestCompleted(MappingProperties mapping, String destination, long latencyNanos, boolean failed) {
+        getLoadBalancer(mapping).onRequestCompleted(mapping, destination, latencyNanos, failed);
+    }
+
+    @Override
+    public void onMappingsUpdated(List<MappingProperties> mappings) {
+        loadBalancers.values().forEach(loadBalancer -> loadBalancer.onMappingsUpdated(mappings));
+    }
+
+    protected LoadBalancer getLoadBalancer(MappingProperties mapping) {
+        Strategy strategy = mapping.getLoadBalancing() == null ? null : mapping.getLoadBalancing().getStrategy();
+        return loadBalancers.get(strategy == null ? Strategy.RANDOM : strategy);
+    }
+}
@@ -0,0 +1,15 @@
+package xyz.staffjoy.faraday.core.balancer;
+
+/*
+ *
+ * 峰值EWMA延迟负载均衡
+ * 代价为峰值EWMA延迟乘以（进行中请求数+1），延迟升高的主机会立即少分流量，恢复后再逐渐分回流量
+ *
+ */
+public class PeakEwmaLoadBalancer extends HealthAwareLoadBalancer {
+
+    @Override
+    protected double cost(DestinationStats destination) {
+        return destination.getEwmaLatency() * (destination.getOutstanding() + 1);
+    }
+}
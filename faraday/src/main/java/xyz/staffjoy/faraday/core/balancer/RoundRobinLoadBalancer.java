@@ -0,0 +1,31 @@
+package xyz.staffjoy.faraday.core.balancer;
+
+/*
+ *
+ * 无锁轮询负载均衡，跳过被剔除的主机
+ *
+ */
+public class RoundRobinLoadBalancer extends HealthAwareLoadBalancer {
+
+    @Override
+    protected DestinationStats choose(DestinationGroup group) {
+        DestinationStats[] destinations = group.getDestinations();
+        int start = group.nextSequence();
+        if (destinations.length == 1) {
+            return destinations[0];
+        }
+        long now = System.nanoTime();
+        for (int i = 0; i < destinations.length; i++) {
+            DestinationStats destination = destinations[(start + i) % destinations.length];
+            if (!destination.isEjected(now)) {
+                return destination;
+            }
+        }
+        return destinations[start % destinations.length];
+    }
+
+    @Override
+    protected double cost(DestinationStats destination) {
+        return 0;
+    }
+}
@@ -0,0 +1,38 @@
+package xyz.staffjoy.faraday.core.breaker;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ *
+ * 舱壁隔离：限制同一映射同时转发中的请求数，避免一个慢服务占满容器线程
+ *
+ */
+public class Bulkhead {
+
+    private final int maxConcurrentRequests;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public Bulkhead(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    public boolean tryAcquire() {
+        if (inFlight.incrementAndGet() > maxConcurrentRequests) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+}
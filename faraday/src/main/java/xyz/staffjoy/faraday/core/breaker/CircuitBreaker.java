@@ -0,0 +1,168 @@
+package xyz.staffjoy.faraday.core.breaker;
+
+import xyz.staffjoy.faraday.config.MappingProperties.CircuitBreakerProperties;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/*
+ *
+ * 熔断器
+ * 关闭状态下按最近N次请求的失败率和慢请求率判断是否打开；打开一段时间后进入半开状态，
+ * 放行少量探测请求，探测请求正常则关闭，否则重新打开
+ *
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    public interface StateListener {
+        void onStateChanged(CircuitBreaker circuitBreaker, State from, State to);
+    }
+
+    private static final byte FAILURE = 1;
+    private static final byte SLOW = 2;
+
+    private final String name;
+    private final CircuitBreakerProperties properties;
+    private final StateListener listener;
+    private final long slowCallDurationNanos;
+    private final long waitDurationInOpenStateNanos;
+
+    private volatile State state = State.CLOSED;
+    // 关闭状态下最近N次请求的结果（环形缓冲区）
+    private final byte[] outcomes;
+    private int position;
+    private int recordedCalls;
+    private int failedCalls;
+    private int slowCalls;
+    // 打开状态
+    private long openedAt;
+    // 半开状态
+    private int halfOpenPermittedCalls;
+    private int halfOpenCompletedCalls;
+    private int halfOpenFailedCalls;
+    private int halfOpenSlowCalls;
+
+    public CircuitBreaker(String name, CircuitBreakerProperties properties, StateListener listener) {
+        this.name = name;
+        this.properties = properties;
+        this.listener = listener;
+        this.slowCallDurationNanos = MILLISECONDS.toNanos(properties.getSlowCallDuration());
+        this.waitDurationInOpenStateNanos = MILLISECONDS.toNanos(properties.getWaitDurationInOpenState());
+        this.outcomes = new byte[properties.getSlidingWindowSize()];
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * 申请转发许可，关闭状态下不加锁
+     *
+     * @return 熔断器打开或半开状态下探测请求已满时返回false
+     */
+    public boolean tryAcquirePermission() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        State from = null;
+        boolean permitted;
+        synchronized (this) {
+            if (state == State.OPEN && nanoTime() - openedAt >= waitDurationInOpenStateNanos) {
+                from = transitionTo(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN) {
+                permitted = halfOpenPermittedCalls < properties.getPermittedCallsInHalfOpenState();
+                if (permitted) {
+                    halfOpenPermittedCalls++;
+                }
+            } else {
+                permitted = state == State.CLOSED;
+            }
+        }
+        notifyListener(from, State.HALF_OPEN);
+        return permitted;
+    }
+
+    /**
+     * 记录请求结果
+     *
+     * @param durationNanos
+     * @param failed
+     */
+    public void onResult(long durationNanos, boolean failed) {
+        byte outcome = (byte) ((failed ? FAILURE : 0) | (durationNanos > slowCallDurationNanos ? SLOW : 0));
+        State from = null;
+        State to = null;
+        synchronized (this) {
+            if (state == State.CLOSED) {
+                record(outcome);
+                if (recordedCalls >= properties.getMinimumNumberOfCalls() && exceedsThresholds(recordedCalls, failedCalls, slowCalls)) {
+                    to = State.OPEN;
+                }
+            } else if (state == State.HALF_OPEN) {
+                halfOpenCompletedCalls++;
+                halfOpenFailedCalls += outcome & FAILURE;
+                halfOpenSlowCalls += (outcome & SLOW) >> 1;
+                if (halfOpenCompletedCalls >= properties.getPermittedCallsInHalfOpenState()) {
+                    to = exceedsThresholds(halfOpenCompletedCalls, halfOpenFailedCalls, halfOpenSlowCalls) ? State.OPEN : State.CLOSED;
+                }
+            }
+            if (to != null) {
+                from = transitionTo(to);
+            }
+        }
+        notifyListener(from, to);
+    }
+
+    private void record(byte outcome) {
+        if (recordedCalls == outcomes.length) {
+            byte evicted = outcomes[position];
+            failedCalls -= evicted & FAILURE;
+            slowCalls -= (evicted & SLOW) >> 1;
+        } else {
+            recordedCalls++;
+        }
+        outcomes[position] = outcome;
+        failedCalls += outcome & FAILURE;
+        slowCalls += (outcome & SLOW) >> 1;
+        position = (position + 1) % outcomes.length;
+    }
+
+    private boolean exceedsThresholds(int calls, int failed, int slow) {
+        return failed * 100 >= properties.getFailureRateThreshold() * calls
+                || slow * 100 >= properties.getSlowCallRateThreshold() * calls;
+    }
+
+    private State transitionTo(State to) {
+        State from = state;
+        state = to;
+        position = 0;
+        recordedCalls = 0;
+        failedCalls = 0;
+        slowCalls = 0;
+        halfOpenPermittedCalls = 0;
+        halfOpenCompletedCalls = 0;
+        halfOpenFailedCalls = 0;
+        halfOpenSlowCalls = 0;
+        if (to == State.OPEN) {
+            openedAt = nanoTime();
+        }
+        return from;
+    }
+
+    private void notifyListener(State from, State to) {
+        if (from != null && listener != null) {
+            listener.onStateChanged(this, from, to);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package xyz.staffjoy.faraday.core.breaker;
+
+import com.github.structlog4j.ILogger;
+import com.github.structlog4j.SLoggerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import xyz.staffjoy.faraday.config.FaradayProperties;
+import xyz.staffjoy.faraday.config.MappingProperties;
+import xyz.staffjoy.faraday.core.trace.ProxyingTraceInterceptor;
+import xyz.staffjoy.faraday.exceptions.ServiceUnavailableException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/*
+ *
+ * 每个映射的熔断器和舱壁
+ * 映射更新后（映射属性不再是同一个对象）重新创建，旧映射上仍在进行中的请求结束时不再计入
+ *
+ */
+public class CircuitBreakerProvider {
+
+    private static final ILogger log = SLoggerFactory.getLogger(CircuitBreakerProvider.class);
+
+    protected final FaradayProperties faradayProperties;
+    protected final Optional<MeterRegistry> meterRegistry;
+    protected final ProxyingTraceInterceptor traceInterceptor;
+    // <mappingname,MappingGuard>
+    protected final ConcurrentMap<String, MappingGuard> guards = new ConcurrentHashMap<>();
+
+    public CircuitBreakerProvider(FaradayProperties faradayProperties,
+                                  Optional<MeterRegistry> meterRegistry,
+                                  ProxyingTraceInterceptor traceInterceptor) {
+        this.faradayProperties = faradayProperties;
+        this.meterRegistry = meterRegistry;
+        this.traceInterceptor = traceInterceptor;
+    }
+
+    /**
+     * 申请转发许可，每次成功申请都必须以onRequestCompleted结束
+     *
+     * @param mapping
+     * @throws ServiceUnavailableException 舱壁已满或熔断器打开
+     */
+    public void acquirePermission(MappingProperties mapping) {
+        MappingGuard guard = getGuard(mapping);
+        if (guard.bulkhead != null && !guard.bulkhead.tryAcquire()) {
+            meterRegistry.ifPresent(registry -> registry.counter(resolveMetricsName(mapping) + ".bulkhead.rejected").increment());
+            throw new ServiceUnavailableException("Too many concurrent requests for mapping " + mapping.getName());
+        }
+        if (guard.circuitBreaker != null && !guard.circuitBreaker.tryAcquirePermission()) {
+            if (guard.bulkhead != null) {
+                guard.bulkhead.release();
+            }
+            meterRegistry.ifPresent(registry -> registry.counter(resolveMetricsName(mapping) + ".circuit_breaker.rejected").increment());
+            throw new ServiceUnavailableException("Circuit breaker is open for mapping " + mapping.getName());
+        }
+    }
+
+    /**
+     * 转发结束（收到响应或失败）
+     *
+     * @param mapping
+     * @param latencyNanos
+     * @param failed
+     */
+    public void onRequestCompleted(MappingProperties mapping, long latencyNanos, boolean failed) {
+        MappingGuard guard = guards.get(mapping.getName());
+        if (guard == null || guard.mapping != mapping) {
+            return;
+        }
+        if (guard.bulkhead != null) {
+            guard.bulkhead.release();
+        }
+        if (guard.circuitBreaker != null) {
+            guard.circuitBreaker.onResult(latencyNanos, failed);
+        }
+    }
+
+    /**
+     * 路由映射表已更新，移除已删除或已变化映射的熔断器、舱壁和指标
+     *
+     * @param mappings
+     */
+    public void onMappingsUpdated(List<MappingProperties> mappings) {
+        Set<MappingProperties> current = Collections.newSetFromMap(new IdentityHashMap<>());
+        current.addAll(mappings);
+        guards.values().removeIf(guard -> {
+            if (current.contains(guard.mapping)) {
+                return false;
+            }
+            meterRegistry.ifPresent(registry -> guard.meters.forEach(registry::remove));
+            return true;
+        });
+    }
+
+    public CircuitBreaker getCircuitBreaker(String mappingName) {
+        MappingGuard guard = guards.get(mappingName);
+        return guard == null ? null : guard.circuitBreaker;
+    }
+
+    protected MappingGuard getGuard(MappingProperties mapping) {
+        MappingGuard guard = guards.get(mapping.getName());
+        if (guard != null && guard.mapping == mapping) {
+            return guard;
+        }
+        return guards.compute(mapping.getName(), (name, current) -> {
+            if (current != null && current.mapping == mapping) {
+                return current;
+            }
+            if (current != null) {
+                meterRegistry.ifPresent(registry -> current.meters.forEach(registry::remove));
+            }
+            return createGuard(mapping);
+        });
+    }
+
+    protected MappingGuard createGuard(MappingProperties mapping) {
+        CircuitBreaker circuitBreaker = mapping.getCircuitBreaker().isEnabled()
+                ? new CircuitBreaker(mapping.getName(), mapping.getCircuitBreaker(), this::onStateChanged)
+                : null;
+        Bulkhead bulkhead = mapping.getBulkhead().getMaxConcurrentRequests() > 0
+                ? new Bulkhead(mapping.getBulkhead().getMaxConcurrentRequests())
+                : null;
+        MappingGuard guard = new MappingGuard(mapping, circuitBreaker, bulkhead);
+        meterRegistry.ifPresent(registry -> {
+            String metricsName = resolveMetricsName(mapping);
+            if (circuitBreaker != null) {
+                guard.meters.add(Gauge.builder(metricsName + ".circuit_breaker.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                        .description("0 - closed, 1 - open, 2 - half-open")
+                        .register(registry));
+            }
+            if (bulkhead != null) {
+                guard.meters.add(Gauge.builder(metricsName + ".bulkhead.in_flight", bulkhead, Bulkhead::getInFlight)
+                        .register(registry));
+            }
+        });
+        return guard;
+    }
+
+    protected void onStateChanged(CircuitBreaker circuitBreaker, CircuitBreaker.State from, CircuitBreaker.State to) {
+        log.warn("Circuit breaker state changed", "mapping", circuitBreaker.getName(), "from", from, "to", to);
+        meterRegistry.ifPresent(registry -> registry.counter(
+                faradayProperties.getMetrics().getNamesPrefix() + "." + circuitBreaker.getName() + ".circuit_breaker.transitions",
+                "state", to.name()).increment());
+        traceInterceptor.onCircuitBreakerStateChanged(circuitBreaker.getName(), from, to);
+    }
+
+    protected String resolveMetricsName(MappingProperties mapping) {
+        return faradayProperties.getMetrics().getNamesPrefix() + "." + mapping.getName();
+    }
+
+    protected static class MappingGuard {
+        protected final MappingProperties mapping;
+        protected final CircuitBreaker circuitBreaker;
+        protected final Bulkhead bulkhead;
+        protected final List<Meter> meters = new ArrayList<>();
+
+        protected MappingGuard(MappingProperties mapping, CircuitBreaker circuitBreaker, Bulkhead bulkhead) {
+            this.mapping = mapping;
+            this.circuitBreaker = circuitBreaker;
+            this.bulkhead = bulkhead;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package xyz.staffjoy.faraday.core.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+/*
+ *
+ * 缓存的上游响应（不可变）
+ *
+ */
+public class CachedResponse {
+
+    private final HttpStatus status;
+    private final HttpHeaders headers;
+    private final byte[] body;
+    private final String etag;
+    // 保存时上游响应已有的年龄（秒）
+    private final long initialAge;
+    private final long storedAt;
+    private final long expiresAt;
+
+    public CachedResponse(HttpStatus status, HttpHeaders headers, byte[] body, long initialAge, long storedAt, long expiresAt) {
+        this.status = status;
+        this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+        this.body = body;
+        this.etag = headers.getETag();
+        this.initialAge = initialAge;
+        this.storedAt = storedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public int getSize() {
+        return body == null ? 0 : body.length;
+    }
+
+    public boolean isFresh(long now) {
+        return now < expiresAt;
+    }
+
+    /**
+     * 响应年龄（秒），用于Age响应头
+     *
+     * @param now
+     * @return
+     */
+    public long getAge(long now) {
+        return initialAge + Math.max(0, now - storedAt) / 1000;
+    }
+}
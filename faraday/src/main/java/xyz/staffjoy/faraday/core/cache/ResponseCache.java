@@ -0,0 +1,159 @@
+package xyz.staffjoy.faraday.core.cache;
+
+import org.springframework.http.HttpHeaders;
+import xyz.staffjoy.faraday.config.FaradayProperties;
+import xyz.staffjoy.faraday.config.ResponseCacheProperties;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.lang.System.currentTimeMillis;
+
+/*
+ *
+ * 内存响应缓存
+ * 按条目数和响应体总大小限制的LRU缓存，同一个缓存键下按上游Vary响应头列出的请求头保存多个变体
+ *
+ */
+public class ResponseCache {
+
+    // 每个缓存键最多保存的变体数量
+    static final int MAX_VARIANTS = 16;
+
+    protected final FaradayProperties faradayProperties;
+    // <缓存键,Variants>，按访问顺序排列，最久未访问的在最前面
+    private final LinkedHashMap<String, Variants> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // 所有缓存响应体的总大小
+    private long size;
+
+    public ResponseCache(FaradayProperties faradayProperties) {
+        this.faradayProperties = faradayProperties;
+    }
+
+    /**
+     * 查找未过期的缓存响应，过期的响应直接删除
+     *
+     * @param key
+     * @param requestHeaders
+     * @return 没有可用的缓存响应时返回null
+     */
+    public synchronized CachedResponse get(String key, HttpHeaders requestHeaders) {
+        Variants variants = entries.get(key);
+        if (variants == null) {
+            return null;
+        }
+        String variantKey = variants.variantKey(requestHeaders);
+        CachedResponse response = variants.responses.get(variantKey);
+        if (response == null) {
+            return null;
+        }
+        if (!response.isFresh(currentTimeMillis())) {
+            variants.responses.remove(variantKey);
+            size -= response.getSize();
+            if (variants.responses.isEmpty()) {
+                entries.remove(key);
+            }
+            return null;
+        }
+        return response;
+    }
+
+    /**
+     * 保存响应，超过单个响应大小上限的响应不保存
+     *
+     * @param key
+     * @param varyHeaders    上游Vary响应头列出的请求头名称（小写）
+     * @param requestHeaders
+     * @param response
+     */
+    public synchronized void put(String key, List<String> varyHeaders, HttpHeaders requestHeaders, CachedResponse response) {
+        ResponseCacheProperties properties = faradayProperties.getCache();
+        if (response.getSize() > properties.getMaxEntrySize()) {
+            return;
+        }
+        Variants variants = entries.get(key);
+        if (variants == null || !variants.varyHeaders.equals(varyHeaders)) {
+            // Vary改变后旧变体无法再被匹配
+            if (variants != null) {
+                size -= variants.size();
+            }
+            variants = new Variants(varyHeaders);
+            entries.put(key, variants);
+        }
+        CachedResponse previous = variants.responses.put(variants.variantKey(requestHeaders), response);
+        size += response.getSize() - (previous == null ? 0 : previous.getSize());
+        if (variants.responses.size() > MAX_VARIANTS) {
+            Iterator<CachedResponse> oldest = variants.responses.values().iterator();
+            size -= oldest.next().getSize();
+            oldest.remove();
+        }
+        evict(properties);
+    }
+
+    /**
+     * 删除缓存键下的所有变体（例如同一URI上的非安全请求）
+     *
+     * @param key
+     */
+    public synchronized void invalidate(String key) {
+        Variants variants = entries.remove(key);
+        if (variants != null) {
+            size -= variants.size();
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * @return 缓存响应数量
+     */
+    public synchronized int count() {
+        return entries.values().stream().mapToInt(variants -> variants.responses.size()).sum();
+    }
+
+    /**
+     * @return 缓存响应体总大小（字节）
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    private void evict(ResponseCacheProperties properties) {
+        Iterator<Variants> eldest = entries.values().iterator();
+        while (eldest.hasNext() && (entries.size() > properties.getMaxEntries() || size > properties.getMaxSize())) {
+            size -= eldest.next().size();
+            eldest.remove();
+        }
+    }
+
+    private static class Variants {
+        private final List<String> varyHeaders;
+        // <请求头取值组成的变体键,CachedResponse>，按保存顺序排列
+        private final Map<String, CachedResponse> responses = new LinkedHashMap<>();
+
+        private Variants(List<String> varyHeaders) {
+            this.varyHeaders = varyHeaders;
+        }
+
+        private String variantKey(HttpHeaders requestHeaders) {
+            if (varyHeaders.isEmpty()) {
+                return "";
+            }
+            StringBuilder key = new StringBuilder();
+            for (String name : varyHeaders) {
+                List<String> values = requestHeaders.get(name);
+                key.append(values == null ? "" : String.join(",", values)).append('\n');
+            }
+            return key.toString();
+        }
+
+        private long size() {
+            return responses.values().stream().mapToLong(CachedResponse::getSize).sum();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package xyz.staffjoy.faraday.core.compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/*
+ *
+ * 响应内容编码
+ * 注册为bean的编码器都会参与Accept-Encoding协商，例如基于brotli4j实现的br编码器
+ *
+ */
+public interface ContentEncoder {
+
+    /**
+     * Content-Encoding中的编码名称，例如gzip
+     *
+     * @return
+     */
+    String getEncoding();
+
+    /**
+     * 创建压缩输出流，写完响应体后必须关闭以写出剩余的压缩数据
+     * flush时应当把已写入的数据压缩后写出，流式响应才不会被延迟
+     *
+     * @param out
+     * @return
+     * @throws IOException
+     */
+    OutputStream encode(OutputStream out) throws IOException;
+}
@@ -0,0 +1,36 @@
+package xyz.staffjoy.faraday.core.compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ *
+ * gzip内容编码
+ *
+ */
+public class GzipContentEncoder implements ContentEncoder {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final int level;
+
+    public GzipContentEncoder(int level) {
+        this.level = level;
+    }
+
+    @Override
+    public String getEncoding() {
+        return "gzip";
+    }
+
+    @Override
+    public OutputStream encode(OutputStream out) throws IOException {
+        // syncFlush：flush时写出已压缩的数据
+        return new GZIPOutputStream(out, BUFFER_SIZE, true) {
+            {
+                def.setLevel(level);
+            }
+        };
+    }
+}
@@ -0,0 +1,183 @@
+package xyz.staffjoy.faraday.core.compression;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import xyz.staffjoy.faraday.config.CompressionProperties;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static org.springframework.http.HttpHeaders.ACCEPT_ENCODING;
+import static org.springframework.http.HttpHeaders.CONTENT_ENCODING;
+import static org.springframework.http.HttpHeaders.CONTENT_LENGTH;
+import static org.springframework.http.HttpHeaders.ETAG;
+import static org.springframework.http.HttpHeaders.VARY;
+
+/*
+ *
+ * 响应压缩
+ * 按客户端的Accept-Encoding、响应的Content-Type和大小决定是否压缩以及使用哪种编码
+ * 只决定编码并写出响应头，响应体由调用方写入编码器的输出流，压缩是流式进行的
+ *
+ */
+public class ResponseCompressor {
+
+    private final CompressionProperties compression;
+    // 按服务端优先顺序排列的编码器
+    private final List<ContentEncoder> encoders;
+    private final List<MediaType> mimeTypes;
+
+    public ResponseCompressor(CompressionProperties compression, Collection<ContentEncoder> encoders) {
+        this.compression = compression;
+        Map<String, ContentEncoder> encodersByName = encoders.stream()
+                .collect(toMap(encoder -> encoder.getEncoding().toLowerCase(), Function.identity(), (first, second) -> first));
+        this.encoders = new ArrayList<>();
+        for (String encoding : compression.getEncodings()) {
+            ContentEncoder encoder = encodersByName.get(encoding.toLowerCase());
+            if (encoder != null) {
+                this.encoders.add(encoder);
+            }
+        }
+        this.mimeTypes = compression.getMimeTypes().stream()
+                .map(MediaType::parseMediaType)
+                .collect(toList());
+    }
+
+    /**
+     * 选择响应使用的编码
+     *
+     * @param request
+     * @param status
+     * @param headers       上游响应头
+     * @param contentLength 响应体大小，未知时为-1
+     * @return 不需要压缩时返回null
+     */
+    public ContentEncoder negotiate(HttpServletRequest request, HttpStatus status, HttpHeaders headers, long contentLength) {
+        if (!compression.isEnabled() || encoders.isEmpty()) {
+            return null;
+        }
+        if (status.is1xxInformational() || status == HttpStatus.NO_CONTENT || status == HttpStatus.NOT_MODIFIED
+                || "HEAD".equals(request.getMethod())) {
+            return null;
+        }
+        if (contentLength >= 0 && contentLength < compression.getMinResponseSize()) {
+            return null;
+        }
+        // 上游已经压缩（或声明了其它编码）的响应不再压缩
+        if (headers.containsKey(CONTENT_ENCODING) || !isCompressible(headers)) {
+            return null;
+        }
+        return selectEncoder(request.getHeaders(ACCEPT_ENCODING));
+    }
+
+    /**
+     * 写出响应头，压缩时去掉Content-Length并加上Content-Encoding和Vary
+     * 压缩后的响应体与上游的字节不同，上游的强ETag改为弱ETag，条件请求仍按弱比较匹配
+     *
+     * @param response
+     * @param headers
+     * @param encoder  negotiate选择的编码，不压缩时为null
+     */
+    public void writeHeaders(HttpServletResponse response, HttpHeaders headers, ContentEncoder encoder) {
+        headers.forEach((name, values) -> {
+            if (encoder == null) {
+                values.forEach(value -> response.addHeader(name, value));
+            } else if (ETAG.equalsIgnoreCase(name)) {
+                values.forEach(value -> response.addHeader(name, value.startsWith("W/") ? value : "W/" + value));
+            } else if (!CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                values.forEach(value -> response.addHeader(name, value));
+            }
+        });
+        if (encoder == null) {
+            return;
+        }
+        response.setHeader(CONTENT_ENCODING, encoder.getEncoding());
+        if (headers.getVary().stream().noneMatch(vary -> ACCEPT_ENCODING.equalsIgnoreCase(vary) || "*".equals(vary))) {
+            response.addHeader(VARY, ACCEPT_ENCODING);
+        }
+    }
+
+    private boolean isCompressible(HttpHeaders headers) {
+        MediaType contentType;
+        try {
+            contentType = headers.getContentType();
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        if (contentType == null) {
+            return false;
+        }
+        for (MediaType mimeType : mimeTypes) {
+            if (mimeType.includes(contentType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 选择客户端权重（q值）最高的编码，权重相同时按服务端优先顺序
+     *
+     * @param acceptEncodings
+     * @return
+     */
+    private ContentEncoder selectEncoder(Enumeration<String> acceptEncodings) {
+        if (acceptEncodings == null || !acceptEncodings.hasMoreElements()) {
+            return null;
+        }
+        // 客户端没有列出的编码为null，q=0表示不接受
+        Double[] weights = new Double[encoders.size()];
+        Double wildcard = null;
+        while (acceptEncodings.hasMoreElements()) {
+            for (String element : acceptEncodings.nextElement().split(",")) {
+                int separator = element.indexOf(';');
+                String coding = (separator < 0 ? element : element.substring(0, separator)).trim();
+                double weight = separator < 0 ? 1 : parseWeight(element.substring(separator + 1));
+                if ("*".equals(coding)) {
+                    wildcard = weight;
+                    continue;
+                }
+                for (int i = 0; i < encoders.size(); i++) {
+                    if (encoders.get(i).getEncoding().equalsIgnoreCase(coding)) {
+                        weights[i] = weight;
+                    }
+                }
+            }
+        }
+        ContentEncoder selected = null;
+        double selectedWeight = 0;
+        for (int i = 0; i < encoders.size(); i++) {
+            // 没有列出的编码按*的权重
+            Double weight = weights[i] != null ? weights[i] : wildcard;
+            if (weight != null && weight > selectedWeight) {
+                selected = encoders.get(i);
+                selectedWeight = weight;
+            }
+        }
+        return selected;
+    }
+
+    private double parseWeight(String parameters) {
+        for (String parameter : parameters.split(";")) {
+            String trimmed = parameter.trim();
+            if (trimmed.startsWith("q=") || trimmed.startsWith("Q=")) {
+                try {
+                    return Double.parseDouble(trimmed.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
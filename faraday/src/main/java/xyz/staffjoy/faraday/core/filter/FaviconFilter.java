@@ -1,6 +1,8 @@
 package xyz.staffjoy.faraday.core.filter;
 
 import org.springframework.web.filter.OncePerRequestFilter;
+import xyz.staffjoy.common.asset.StaticAsset;
+import xyz.staffjoy.common.asset.StaticAssetWriter;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -10,6 +12,7 @@ import java.io.IOException;
 
 /*
  * 图标过滤器
+ * 启动时预先压缩并计算ETag，浏览器缓存一天，之后用If-None-Match重新验证
  *
  * @Author:Zh1Cheung 945503088@qq.com
  * @Date: 0:07 2019/12/30
@@ -18,18 +21,19 @@ import java.io.IOException;
 public class FaviconFilter extends OncePerRequestFilter {
 
     private static final String FAVICON_PATH = "/favicon.ico";
+    private static final String CACHE_CONTROL = "public, max-age=86400";
 
-    private final byte[] faviconFile;
+    private final StaticAsset favicon;
+    private final StaticAssetWriter writer = new StaticAssetWriter();
 
-    public FaviconFilter(byte[] faviconFile) {
-        this.faviconFile = faviconFile;
+    public FaviconFilter(StaticAsset favicon) {
+        this.favicon = favicon;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         if (FAVICON_PATH.equals(request.getRequestURI())) {
-            response.setStatus(HttpServletResponse.SC_OK);
-            response.getOutputStream().write(faviconFile);
+            writer.write(request, response, favicon, CACHE_CONTROL);
         } else {
             filterChain.doFilter(request, response);
         }
@@ -0,0 +1,201 @@
+package xyz.staffjoy.faraday.core.filter;
+
+import com.github.structlog4j.ILogger;
+import com.github.structlog4j.SLoggerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.filter.OncePerRequestFilter;
+import xyz.staffjoy.faraday.config.FaradayProperties;
+import xyz.staffjoy.faraday.config.LoadSheddingProperties;
+import xyz.staffjoy.faraday.config.MappingProperties;
+import xyz.staffjoy.faraday.core.http.RequestDataExtractor;
+import xyz.staffjoy.faraday.core.mappings.MappingsProvider;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.springframework.http.HttpHeaders.RETRY_AFTER;
+
+/*
+ *
+ * 负载削减过滤器
+ * 分别限制单个映射和所有映射同时处理中的请求数，任一达到上限时新请求不排队，直接返回503
+ * 一个映射的后端变慢时只会用完该映射的许可，其他映射的请求仍能被接收；拿不到许可的请求不占用容器线程等待
+ * 异步转发的请求在异步处理结束时才释放许可
+ *
+ */
+public class LoadSheddingFilter extends OncePerRequestFilter {
+
+    private static final ILogger log = SLoggerFactory.getLogger(LoadSheddingFilter.class);
+
+    private final LoadSheddingProperties loadShedding;
+    private final MappingsProvider mappingsProvider;
+    private final RequestDataExtractor extractor;
+    private final Semaphore permits;
+    private final ConcurrentMap<String, Semaphore> routePermits = new ConcurrentHashMap<>();
+    private final Optional<MeterRegistry> meterRegistry;
+    private final String metricsNamesPrefix;
+
+    public LoadSheddingFilter(FaradayProperties faradayProperties,
+                              MappingsProvider mappingsProvider,
+                              RequestDataExtractor extractor,
+                              Optional<MeterRegistry> meterRegistry) {
+        this.loadShedding = faradayProperties.getLoadShedding();
+        this.mappingsProvider = mappingsProvider;
+        this.extractor = extractor;
+        this.permits = new Semaphore(loadShedding.getMaxConcurrentRequests());
+        this.meterRegistry = meterRegistry;
+        this.metricsNamesPrefix = faradayProperties.getMetrics().getNamesPrefix();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String mappingName = resolveMappingName(request);
+        Semaphore routePermit = mappingName == null ? null : getRoutePermits(mappingName);
+        // 先申请映射的许可，映射过载时不占用全局许可
+        if (routePermit != null && !routePermit.tryAcquire()) {
+            shed(response, mappingName);
+            return;
+        }
+        if (!permits.tryAcquire()) {
+            if (routePermit != null) {
+                routePermit.release();
+            }
+            shed(response, null);
+            return;
+        }
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingListener(routePermit));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                release(routePermit);
+            }
+        }
+    }
+
+    /**
+     * 异步分派（例如异步转发失败后分派到错误页面）不再申请许可
+     *
+     * @return
+     */
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return true;
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * 映射的可用许可数，映射还没有请求或不按映射限制时返回-1
+     *
+     * @param mappingName
+     * @return
+     */
+    public int getAvailablePermits(String mappingName) {
+        Semaphore semaphore = routePermits.get(mappingName);
+        return semaphore == null ? -1 : semaphore.availablePermits();
+    }
+
+    /**
+     * 按请求的host解析映射名称，不按映射限制或找不到映射时返回null
+     *
+     * @param request
+     * @return
+     */
+    private String resolveMappingName(HttpServletRequest request) {
+        if (loadShedding.getMaxConcurrentRequestsPerRoute() <= 0) {
+            return null;
+        }
+        MappingProperties mapping = mappingsProvider.resolveMapping(extractor.extractHost(request), request);
+        return mapping == null ? null : mapping.getName();
+    }
+
+    /**
+     * 映射的许可按名称保存，映射配置更新后名称不变的映射继续使用原来的许可
+     *
+     * @param mappingName
+     * @return
+     */
+    private Semaphore getRoutePermits(String mappingName) {
+        return routePermits.computeIfAbsent(mappingName,
+                name -> new Semaphore(loadShedding.getMaxConcurrentRequestsPerRoute()));
+    }
+
+    private void release(Semaphore routePermit) {
+        permits.release();
+        if (routePermit != null) {
+            routePermit.release();
+        }
+    }
+
+    private void shed(HttpServletResponse response, String mappingName) throws IOException {
+        String metricName = mappingName == null
+                ? metricsNamesPrefix + ".load-shed"
+                : metricsNamesPrefix + "." + mappingName + ".load-shed";
+        meterRegistry.ifPresent(registry -> registry.counter(metricName).increment());
+        if (log.isDebugEnabled()) {
+            log.debug("Request shed", "mapping", mappingName,
+                    "maxConcurrentRequests", loadShedding.getMaxConcurrentRequests(),
+                    "maxConcurrentRequestsPerRoute", loadShedding.getMaxConcurrentRequestsPerRoute());
+        }
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(RETRY_AFTER, String.valueOf(loadShedding.getRetryAfter()));
+        response.setContentType("text/plain");
+        response.getWriter().print("Service overloaded");
+    }
+
+    /**
+     * 异步处理结束（完成、超时或出错）时释放许可，只释放一次
+     */
+    private class ReleasingListener implements AsyncListener {
+
+        private final Semaphore routePermit;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        ReleasingListener(Semaphore routePermit) {
+            this.routePermit = routePermit;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                LoadSheddingFilter.this.release(routePermit);
+            }
+        }
+    }
+}
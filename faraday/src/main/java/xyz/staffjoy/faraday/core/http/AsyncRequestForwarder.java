@@ -0,0 +1,566 @@
+package xyz.staffjoy.faraday.core.http;
+
+import com.github.structlog4j.ILogger;
+import com.github.structlog4j.SLoggerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.util.EntityUtils;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.ResourceAccessException;
+import xyz.staffjoy.faraday.config.FaradayProperties;
+import xyz.staffjoy.faraday.config.MappingProperties;
+import xyz.staffjoy.faraday.core.balancer.LoadBalancer;
+import xyz.staffjoy.faraday.core.breaker.CircuitBreakerProvider;
+import xyz.staffjoy.faraday.core.compression.ResponseCompressor;
+import xyz.staffjoy.faraday.core.interceptor.PostForwardResponseInterceptor;
+import xyz.staffjoy.faraday.core.mappings.MappingsProvider;
+import xyz.staffjoy.faraday.core.metrics.RouteMetrics;
+import xyz.staffjoy.faraday.core.metrics.RouteMetricsProvider;
+import xyz.staffjoy.faraday.core.retry.RetryProvider;
+import xyz.staffjoy.faraday.core.trace.ProxyingTraceInterceptor;
+import xyz.staffjoy.faraday.exceptions.ServiceUnavailableException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+
+import static java.lang.System.nanoTime;
+import static xyz.staffjoy.faraday.core.metrics.RouteMetrics.CANCELLED;
+import static xyz.staffjoy.faraday.core.metrics.RouteMetrics.NO_RESPONSE;
+import static org.springframework.http.HttpHeaders.*;
+import static org.springframework.http.ResponseEntity.status;
+
+/*
+ *
+ * 异步请求转发器
+ * 使用非阻塞HTTP客户端转发，上游响应在客户端I/O线程上完成，调用线程不会等待上游响应
+ *
+ */
+public class AsyncRequestForwarder extends RequestForwarder {
+
+    private static final ILogger log = SLoggerFactory.getLogger(AsyncRequestForwarder.class);
+
+    protected final HttpAsyncClientProvider httpAsyncClientProvider;
+
+    public AsyncRequestForwarder(
+            ServerProperties serverProperties,
+            FaradayProperties faradayProperties,
+            HttpAsyncClientProvider httpAsyncClientProvider,
+            MappingsProvider mappingsProvider,
+            LoadBalancer loadBalancer,
+            CircuitBreakerProvider circuitBreakerProvider,
+            Optional<MeterRegistry> meterRegistry,
+            ProxyingTraceInterceptor traceInterceptor,
+            PostForwardResponseInterceptor postForwardResponseInterceptor,
+            ResponseCompressor responseCompressor,
+            RequestCoalescer requestCoalescer,
+            RouteMetricsProvider routeMetricsProvider,
+            RetryProvider retryProvider
+    ) {
+        super(serverProperties, faradayProperties, httpAsyncClientProvider, mappingsProvider, loadBalancer,
+                circuitBreakerProvider, meterRegistry, traceInterceptor, postForwardResponseInterceptor, responseCompressor,
+                requestCoalescer, routeMetricsProvider, retryProvider);
+        this.httpAsyncClientProvider = httpAsyncClientProvider;
+    }
+
+    /**
+     * 异步转发HTTP请求
+     * 响应截获器在上游响应完成时于客户端I/O线程上执行，因此不能在其中做阻塞操作
+     *
+     * @param data
+     * @param traceId
+     * @param mapping
+     * @return 上游响应完成（或失败）时完成的future，取消该future会同时取消上游请求（合并的请求除外）
+     */
+    @Override
+    public CompletableFuture<ResponseEntity<byte[]>> forwardHttpRequestAsync(RequestData data, String traceId, MappingProperties mapping) {
+        // 请求头视图直接读取servlet请求，上游请求在I/O线程和对冲调度线程上创建（异步超时后请求可能已被容器回收），先复制出来
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(data.getHeaders());
+        data.setHeaders(headers);
+        if (requestCoalescer.isCoalescable(data, mapping)) {
+            return requestCoalescer.coalesce(data, mapping, () -> sendHttpRequestAsync(data, traceId, mapping));
+        }
+        return sendHttpRequestAsync(data, traceId, mapping);
+    }
+
+    /**
+     * 向上游异步发送HTTP请求（不合并）
+     * 幂等请求连接失败或上游返回503时换一个目的主机重试
+     * 开启对冲请求时，上游响应慢于最近延迟的百分位数则向另一个目的主机再发一次，先到的响应胜出，其余尝试被取消
+     *
+     * @param data
+     * @param traceId
+     * @param mapping
+     * @return
+     */
+    protected CompletableFuture<ResponseEntity<byte[]>> sendHttpRequestAsync(RequestData data, String traceId, MappingProperties mapping) {
+        ForwardDestination destination = resolveForwardDestination(data.getUri(), mapping);
+        prepareForwardedRequestHeaders(data, destination);
+        traceInterceptor.onForwardStart(traceId, destination.getMappingName(),
+                data.getMethod(), data.getHost(), destination.getUri().toString(),
+                data.getBody(), data.getHeaders());
+
+        Exchange exchange = new Exchange(data, traceId, mapping);
+        exchange.send(destination);
+        exchange.scheduleHedge();
+        return exchange.result;
+    }
+
+    /**
+     * 通过HTTP/1.1非阻塞客户端发送一次尝试
+     *
+     * @param exchange
+     * @param attempt
+     */
+    protected void sendAttempt(Exchange exchange, Attempt attempt) {
+        MappingProperties mapping = exchange.mapping;
+        ForwardDestination destination = attempt.destination;
+        try {
+            Future<HttpResponse> upstream = httpAsyncClientProvider.getHttpAsyncClient(mapping.getName())
+                    .execute(createRequest(exchange.data, destination), new FutureCallback<HttpResponse>() {
+                        @Override
+                        public void completed(HttpResponse response) {
+                            // 非标准状态码（例如499、599）也原样转发
+                            int status = response.getStatusLine().getStatusCode();
+                            recordResult(mapping, destination, attempt.startingTime, status);
+                            // 异常不能抛到I/O反应器线程上，否则该映射的非阻塞客户端停止工作，尝试也不会结束
+                            try {
+                                HttpHeaders headers = new HttpHeaders();
+                                for (Header header : response.getAllHeaders()) {
+                                    headers.add(header.getName(), header.getValue());
+                                }
+                                // 非阻塞客户端已把响应体完整读入内存，这里不会阻塞I/O线程
+                                byte[] body = response.getEntity() == null ? null : EntityUtils.toByteArray(response.getEntity());
+                                exchange.onResponse(attempt, status, headers, body);
+                            } catch (Exception e) {
+                                exchange.onFailure(attempt, e);
+                            }
+                        }
+
+                        @Override
+                        public void failed(Exception e) {
+                            recordResult(mapping, destination, attempt.startingTime, NO_RESPONSE);
+                            exchange.onFailure(attempt, e);
+                        }
+
+                        @Override
+                        public void cancelled() {
+                            recordResult(mapping, destination, attempt.startingTime, CANCELLED);
+                            exchange.onCancelled(attempt);
+                        }
+                    });
+            attempt.setCancellation(() -> upstream.cancel(true));
+        } catch (Exception e) {
+            recordResult(mapping, destination, attempt.startingTime, NO_RESPONSE);
+            exchange.onFailure(attempt, e);
+        }
+    }
+
+    /**
+     * 通过HTTP/2客户端发送一次尝试
+     * 上游响应在OkHttp的调度线程上完成，响应体在该线程上读取
+     *
+     * @param http2Client
+     * @param exchange
+     * @param attempt
+     */
+    protected void sendHttp2Attempt(OkHttpClient http2Client, Exchange exchange, Attempt attempt) {
+        MappingProperties mapping = exchange.mapping;
+        ForwardDestination destination = attempt.destination;
+        Call upstream;
+        try {
+            upstream = http2Client.newCall(createHttp2Request(exchange.data, destination));
+        } catch (Exception e) {
+            recordResult(mapping, destination, attempt.startingTime, NO_RESPONSE);
+            exchange.onFailure(attempt, e);
+            return;
+        }
+        upstream.enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                byte[] body;
+                try (ResponseBody responseBody = response.body()) {
+                    body = responseBody == null ? null : responseBody.bytes();
+                } catch (IOException e) {
+                    onFailure(call, e);
+                    return;
+                }
+                // 非标准状态码（例如499、599）也原样转发
+                int status = response.code();
+                recordResult(mapping, destination, attempt.startingTime, status);
+                // 异常不能抛到OkHttp调度线程上，否则尝试不会结束
+                try {
+                    HttpHeaders headers = new HttpHeaders();
+                    response.headers().toMultimap().forEach(headers::put);
+                    exchange.onResponse(attempt, status, headers, body);
+                } catch (Exception e) {
+                    exchange.onFailure(attempt, e);
+                }
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                if (call.isCanceled()) {
+                    recordResult(mapping, destination, attempt.startingTime, CANCELLED);
+                    exchange.onCancelled(attempt);
+                    return;
+                }
+                recordResult(mapping, destination, attempt.startingTime, NO_RESPONSE);
+                exchange.onFailure(attempt, e);
+            }
+        });
+        attempt.setCancellation(upstream::cancel);
+    }
+
+    /**
+     * 创建HTTP/2上游请求，请求头处理与createRequest一致
+     *
+     * @param data
+     * @param destination
+     * @return
+     */
+    protected Request createHttp2Request(RequestData data, ForwardDestination destination) throws IOException {
+        Request.Builder builder = new Request.Builder().url(destination.getUri().toURL());
+        data.getHeaders().forEach((name, values) -> {
+            if (COOKIE.equalsIgnoreCase(name)) {
+                builder.addHeader(name, StringUtils.collectionToDelimitedString(values, "; "));
+            } else if (!CONTENT_LENGTH.equalsIgnoreCase(name) && !TRANSFER_ENCODING.equalsIgnoreCase(name)) {
+                values.forEach(value -> builder.addHeader(name, value));
+            }
+        });
+        RequestBody body = null;
+        if (hasEntity(data.getMethod())) {
+            body = RequestBody.create(null, data.getBody() == null ? new byte[0] : data.getBody());
+        }
+        return builder.method(data.getMethod().name(), body).build();
+    }
+
+    /**
+     * 创建上游请求
+     * 与HttpComponentsClientHttpRequest保持一致：消息体长度由客户端重新计算，多个Cookie合并为一个头
+     *
+     * @param data
+     * @param destination
+     * @return
+     */
+    protected HttpUriRequest createRequest(RequestData data, ForwardDestination destination) {
+        RequestBuilder builder = RequestBuilder.create(data.getMethod().name()).setUri(destination.getUri());
+        data.getHeaders().forEach((name, values) -> {
+            if (COOKIE.equalsIgnoreCase(name)) {
+                builder.addHeader(name, StringUtils.collectionToDelimitedString(values, "; "));
+            } else if (!CONTENT_LENGTH.equalsIgnoreCase(name) && !TRANSFER_ENCODING.equalsIgnoreCase(name)) {
+                values.forEach(value -> builder.addHeader(name, value));
+            }
+        });
+        if (hasEntity(data.getMethod())) {
+            builder.setEntity(new ByteArrayEntity(data.getBody() == null ? new byte[0] : data.getBody()));
+        }
+        return builder.build();
+    }
+
+    protected boolean hasEntity(HttpMethod method) {
+        return method == HttpMethod.POST || method == HttpMethod.PUT || method == HttpMethod.PATCH || method == HttpMethod.DELETE;
+    }
+
+    /**
+     * 处理上游响应（追踪、响应截获器、删除不转发的响应头）
+     *
+     * @param traceId
+     * @param data
+     * @param mapping
+     * @param destination
+     * @param status
+     * @param headers
+     * @param body
+     * @return
+     */
+    protected ResponseEntity<byte[]> processResponse(String traceId, RequestData data, MappingProperties mapping,
+                                                     ForwardDestination destination, int status,
+                                                     HttpHeaders headers, byte[] body) {
+        if (body != null && body.length == 0) {
+            body = null;
+        }
+        routeMetricsProvider.getMetrics(mapping).recordResponseBytes(body == null ? 0 : body.length);
+        ResponseData responseData = new ResponseData(status, headers, body, data);
+
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Forwarded: %s %s %s -> %s %d", data.getMethod(), data.getHost(), data.getUri(), destination.getUri(), responseData.getRawStatus()));
+        }
+
+        traceInterceptor.onForwardComplete(traceId, responseData.getStatus(), responseData.getBody(), responseData.getHeaders());
+        postForwardResponseInterceptor.intercept(responseData, mapping);
+        prepareForwardedResponseHeaders(responseData);
+
+        return status(responseData.getRawStatus())
+                .headers(responseData.getHeaders())
+                .body(responseData.getBody());
+    }
+
+    /**
+     * 一次转发的全部尝试（首次请求、重试和对冲请求）
+     * 尝试结束的顺序不确定：以哪个结果结束、是否重试在锁内决定，完成future和取消其余尝试在锁外进行
+     */
+    protected class Exchange {
+
+        protected final RequestData data;
+        protected final String traceId;
+        protected final MappingProperties mapping;
+        protected final boolean retryable;
+        protected final boolean hedgeable;
+        protected final CompletableFuture<ResponseEntity<byte[]>> result = new CompletableFuture<>();
+        protected final List<Attempt> inFlight = new ArrayList<>(2);
+        protected ForwardDestination lastDestination;
+        protected int attempts;
+        protected boolean settled;
+
+        protected Exchange(RequestData data, String traceId, MappingProperties mapping) {
+            this.data = data;
+            this.traceId = traceId;
+            this.mapping = mapping;
+            this.retryable = retryProvider.isRetryable(data, mapping);
+            this.hedgeable = retryProvider.isHedgeable(data, mapping);
+            if (retryable || hedgeable) {
+                retryProvider.onRequest(mapping);
+            }
+            // 调用方取消（例如异步请求超时）时同时取消上游请求，释放连接或HTTP/2流，之后不再重试或对冲
+            result.whenComplete((response, e) -> {
+                if (result.isCancelled()) {
+                    synchronized (this) {
+                        settled = true;
+                    }
+                    cancelAttempts();
+                }
+            });
+        }
+
+        /**
+         * 申请熔断器和舱壁许可后发送首次请求或重试（与同步转发一致），被拒绝时以ServiceUnavailableException结束
+         * 被拒绝的尝试没有占用许可，不记录结果
+         *
+         * @param destination
+         */
+        protected void send(ForwardDestination destination) {
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                onRequestStarted(traceId, mapping, destination);
+            } catch (ServiceUnavailableException e) {
+                onRejected(e);
+                return;
+            }
+            start(destination);
+        }
+
+        /**
+         * 发送一次已经取得许可的尝试，结束时由回调调用recordResult
+         *
+         * @param destination
+         */
+        protected void start(ForwardDestination destination) {
+            Attempt attempt = new Attempt(destination, nanoTime());
+            boolean done;
+            synchronized (this) {
+                done = result.isDone();
+                if (!done) {
+                    attempts++;
+                    inFlight.add(attempt);
+                    lastDestination = destination;
+                }
+            }
+            // 申请许可期间已经结束（例如调用方取消）时不创建上游请求，释放已取得的许可
+            if (done) {
+                recordResult(mapping, destination, attempt.startingTime, CANCELLED);
+                return;
+            }
+            RouteMetrics metrics = routeMetricsProvider.getMetrics(mapping);
+            metrics.recordRequestBytes(data.getBody() == null ? 0 : data.getBody().length);
+            OkHttpClient http2Client = httpAsyncClientProvider.getHttp2Client(mapping.getName());
+            if (http2Client != null) {
+                sendHttp2Attempt(http2Client, this, attempt);
+            } else {
+                sendAttempt(this, attempt);
+            }
+            if (result.isDone()) {
+                attempt.cancel();
+            }
+        }
+
+        /**
+         * 上游响应慢于最近延迟的百分位数时发送对冲请求
+         */
+        protected void scheduleHedge() {
+            if (!hedgeable || result.isDone()) {
+                return;
+            }
+            long delay = retryProvider.getHedgeDelay(mapping);
+            if (delay < 0) {
+                return;
+            }
+            ScheduledFuture<?> hedge = retryProvider.schedule(this::hedge, delay);
+            result.whenComplete((response, e) -> hedge.cancel(false));
+        }
+
+        protected void hedge() {
+            ForwardDestination destination;
+            synchronized (this) {
+                if (settled || result.isDone() || inFlight.size() != 1 || !retryProvider.tryAcquireHedge(mapping)) {
+                    return;
+                }
+                destination = resolveRetryDestination(data.getUri(), mapping, lastDestination);
+            }
+            try {
+                onRequestStarted(traceId, mapping, destination);
+            } catch (ServiceUnavailableException e) {
+                // 熔断器打开或舱壁已满时不发送对冲请求，继续等待原来的尝试
+                return;
+            }
+            start(destination);
+        }
+
+        protected void onResponse(Attempt attempt, int status, HttpHeaders headers, byte[] body) {
+            boolean retryableStatus = retryProvider.isRetryableStatus(status);
+            Decision decision = decide(attempt, retryableStatus, retryableStatus);
+            if (decision == Decision.RETRY) {
+                send(resolveRetryDestination(data.getUri(), mapping, attempt.destination));
+                return;
+            }
+            if (decision == Decision.DISCARD) {
+                return;
+            }
+            try {
+                result.complete(processResponse(traceId, data, mapping, attempt.destination, status, headers, body));
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+            cancelAttempts();
+        }
+
+        protected void onFailure(Attempt attempt, Exception e) {
+            Decision decision = decide(attempt, true, retryProvider.isRetryableFailure(e));
+            if (decision == Decision.RETRY) {
+                send(resolveRetryDestination(data.getUri(), mapping, attempt.destination));
+                return;
+            }
+            if (decision == Decision.DISCARD) {
+                return;
+            }
+            traceInterceptor.onForwardFailed(traceId, e);
+            result.completeExceptionally(e instanceof IOException
+                    ? new ResourceAccessException("I/O error on " + data.getMethod() + " request for \"" + attempt.destination.getUri() + "\": " + e.getMessage(), (IOException) e)
+                    : e);
+            cancelAttempts();
+        }
+
+        protected void onRejected(ServiceUnavailableException e) {
+            synchronized (this) {
+                if (settled) {
+                    return;
+                }
+                settled = true;
+            }
+            result.completeExceptionally(e);
+            cancelAttempts();
+        }
+
+        protected void onCancelled(Attempt attempt) {
+            synchronized (this) {
+                inFlight.remove(attempt);
+                if (settled || !inFlight.isEmpty()) {
+                    return;
+                }
+                settled = true;
+            }
+            result.cancel(false);
+        }
+
+        /**
+         * 一次尝试结束，决定以它的结果结束、重试还是丢弃它的结果
+         *
+         * @param attempt
+         * @param failed    没有响应或响应可以重试
+         * @param retryable 可以换一个目的主机重试
+         * @return
+         */
+        protected synchronized Decision decide(Attempt attempt, boolean failed, boolean retryable) {
+            inFlight.remove(attempt);
+            if (settled || result.isDone()) {
+                return Decision.DISCARD;
+            }
+            // 对冲的另一个尝试仍在进行，等待它的结果
+            if (failed && !inFlight.isEmpty()) {
+                return Decision.DISCARD;
+            }
+            if (retryable && this.retryable && attempts < mapping.getRetry().getMaxAttempts()
+                    && retryProvider.tryAcquireRetry(mapping)) {
+                return Decision.RETRY;
+            }
+            settled = true;
+            return Decision.SETTLE;
+        }
+
+        protected void cancelAttempts() {
+            List<Attempt> attempts;
+            synchronized (this) {
+                attempts = new ArrayList<>(inFlight);
+            }
+            attempts.forEach(Attempt::cancel);
+        }
+    }
+
+    protected enum Decision {
+        SETTLE, RETRY, DISCARD
+    }
+
+    /**
+     * 发往一个目的主机的一次尝试
+     */
+    protected static class Attempt {
+
+        protected final ForwardDestination destination;
+        protected final long startingTime;
+        private volatile Runnable cancellation;
+        private volatile boolean cancelled;
+
+        protected Attempt(ForwardDestination destination, long startingTime) {
+            this.destination = destination;
+            this.startingTime = startingTime;
+        }
+
+        protected void setCancellation(Runnable cancellation) {
+            this.cancellation = cancellation;
+            if (cancelled) {
+                cancellation.run();
+            }
+        }
+
+        protected void cancel() {
+            cancelled = true;
+            Runnable cancellation = this.cancellation;
+            if (cancellation != null) {
+                cancellation.run();
+            }
+        }
+    }
+}
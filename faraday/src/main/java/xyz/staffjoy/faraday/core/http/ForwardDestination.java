@@ -15,11 +15,18 @@ public class ForwardDestination {
     protected final URI uri;
     protected final String mappingName;
     protected final String mappingMetricsName;
+    // 负载均衡选中的目标主机
+    protected final String host;
 
     public ForwardDestination(URI uri, String mappingName, String mappingMetricsName) {
+        this(uri, mappingName, mappingMetricsName, null);
+    }
+
+    public ForwardDestination(URI uri, String mappingName, String mappingMetricsName, String host) {
         this.uri = uri;
         this.mappingName = mappingName;
         this.mappingMetricsName = mappingMetricsName;
+        this.host = host;
     }
 
     public URI getUri() { return uri; }
@@ -27,4 +34,6 @@ public class ForwardDestination {
     public String getMappingName() { return mappingName; }
 
     public String getMappingMetricsName() { return mappingMetricsName; }
+
+    public String getHost() { return host; }
 }
@@ -0,0 +1,147 @@
+package xyz.staffjoy.faraday.core.http;
+
+import com.github.structlog4j.ILogger;
+import com.github.structlog4j.SLoggerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOReactorException;
+import xyz.staffjoy.faraday.config.FaradayProperties;
+import xyz.staffjoy.faraday.config.MappingProperties;
+import xyz.staffjoy.faraday.core.metrics.RouteMetricsProvider;
+import xyz.staffjoy.faraday.exceptions.FaradayException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apache.http.impl.nio.client.HttpAsyncClients.custom;
+
+/*
+ *
+ * 非阻塞httpClient映射表
+ * 在同步httpClient映射表之外为每个映射维护一个非阻塞HTTP客户端，供异步转发使用
+ *
+ */
+public class HttpAsyncClientProvider extends HttpClientProvider implements Closeable {
+
+    private static final ILogger log = SLoggerFactory.getLogger(HttpAsyncClientProvider.class);
+
+    // 非阻塞httpClient映射表  <mappingname,CloseableHttpAsyncClient>
+    protected volatile Map<String, CloseableHttpAsyncClient> httpAsyncClients = new HashMap<>();
+
+    public HttpAsyncClientProvider(FaradayProperties faradayProperties, Optional<MeterRegistry> meterRegistry,
+                                   RouteMetricsProvider routeMetricsProvider) {
+        super(faradayProperties, meterRegistry, routeMetricsProvider);
+    }
+
+    @Override
+    public synchronized void updateHttpClients(List<MappingProperties> mappings) {
+        Map<String, MappingProperties> oldClientMappings = clientMappings;
+        super.updateHttpClients(mappings);
+        Map<String, CloseableHttpAsyncClient> newHttpAsyncClients = new HashMap<>(httpAsyncClients);
+        for (MappingProperties mapping : mappings) {
+            MappingProperties oldMapping = oldClientMappings.get(mapping.getName());
+            if (oldMapping == mapping) {
+                continue;
+            }
+            CloseableHttpAsyncClient client = createHttpAsyncClient(mapping).build();
+            client.start();
+            CloseableHttpAsyncClient oldClient = newHttpAsyncClients.put(mapping.getName(), client);
+            // 旧客户端持有I/O线程，替换后必须关闭
+            if (oldClient != null) {
+                retire(oldClient, oldMapping == null ? mapping : oldMapping);
+            }
+        }
+        httpAsyncClients = newHttpAsyncClients;
+    }
+
+    /**
+     * 获取该映射名字对应的非阻塞HTTP客户端
+     * @param mappingName
+     * @return
+     */
+    public CloseableHttpAsyncClient getHttpAsyncClient(String mappingName) {
+        return httpAsyncClients.get(mappingName);
+    }
+
+    @Override
+    public synchronized void close() {
+        super.close();
+        closeHttpAsyncClients(httpAsyncClients);
+        httpAsyncClients = new HashMap<>();
+    }
+
+    @Override
+    protected synchronized void retireRemoved(String mappingName) {
+        super.retireRemoved(mappingName);
+        if (clientMappings.containsKey(mappingName) || !httpAsyncClients.containsKey(mappingName)) {
+            return;
+        }
+        Map<String, CloseableHttpAsyncClient> newHttpAsyncClients = new HashMap<>(httpAsyncClients);
+        CloseableHttpAsyncClient client = newHttpAsyncClients.remove(mappingName);
+        httpAsyncClients = newHttpAsyncClients;
+        closeQuietly(client);
+    }
+
+    protected HttpAsyncClientBuilder createHttpAsyncClient(MappingProperties mapping) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(mapping.getTimeout().getConnect())
+                .setSocketTimeout(mapping.getTimeout().getRead())
+                .setRedirectsEnabled(false)
+                .build();
+        return custom()
+                .useSystemProperties()
+                .setConnectionManager(createAsyncConnectionManager(mapping))
+                .addInterceptorLast(markRequestStarted())
+                .addInterceptorFirst(recordFirstByte(routeMetricsProvider.getMetrics(mapping)))
+                .setDefaultRequestConfig(requestConfig)
+                .disableCookieManagement();
+    }
+
+    protected PoolingNHttpClientConnectionManager createAsyncConnectionManager(MappingProperties mapping) {
+        MappingProperties.PoolProperties pool = mapping.getPool();
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(faradayProperties.getAsync().getIoThreadCount())
+                .setConnectTimeout(mapping.getTimeout().getConnect())
+                .setSoTimeout(mapping.getTimeout().getRead())
+                .build();
+        Registry<SchemeIOSessionStrategy> sessionStrategyRegistry = RegistryBuilder.<SchemeIOSessionStrategy>create()
+                .register("http", NoopIOSessionStrategy.INSTANCE)
+                .register("https", SSLIOSessionStrategy.getSystemDefaultStrategy())
+                .build();
+        try {
+            PoolingNHttpClientConnectionManager connectionManager = new PoolingNHttpClientConnectionManager(
+                    new DefaultConnectingIOReactor(ioReactorConfig), null, sessionStrategyRegistry,
+                    null, null, pool.getTimeToLive(), MILLISECONDS);
+            connectionManager.setMaxTotal(pool.getMaxTotal());
+            connectionManager.setDefaultMaxPerRoute(pool.getMaxPerRoute());
+            return connectionManager;
+        } catch (IOReactorException e) {
+            throw new FaradayException("Error creating I/O reactor for mapping " + mapping.getName(), e);
+        }
+    }
+
+    private void closeHttpAsyncClients(Map<String, CloseableHttpAsyncClient> clients) {
+        clients.forEach((mappingName, client) -> {
+            try {
+                client.close();
+            } catch (IOException e) {
+                log.warn("Error closing async HTTP client", "mapping", mappingName, "error", e);
+            }
+        });
+    }
+}
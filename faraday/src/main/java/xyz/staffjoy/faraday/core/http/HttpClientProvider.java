@@ -1,16 +1,53 @@
 package xyz.staffjoy.faraday.core.http;
 
+import com.github.structlog4j.ILogger;
+import com.github.structlog4j.SLoggerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.OkHttp3ClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
+import xyz.staffjoy.faraday.config.FaradayProperties;
 import xyz.staffjoy.faraday.config.MappingProperties;
+import xyz.staffjoy.faraday.core.metrics.RouteMetrics;
+import xyz.staffjoy.faraday.core.metrics.RouteMetricsProvider;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.ToDoubleFunction;
 
-import static java.util.stream.Collectors.toMap;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.apache.http.impl.client.HttpClientBuilder.create;
 
 /*
@@ -21,13 +58,89 @@ import static org.apache.http.impl.client.HttpClientBuilder.create;
  * @Date: 17:04 2019/12/29
  *
  */
-public class HttpClientProvider {
+public class HttpClientProvider implements Closeable {
+
+    private static final ILogger log = SLoggerFactory.getLogger(HttpClientProvider.class);
+    // 请求开始发送的时间，收到响应头时计算首字节时间
+    protected static final String REQUEST_STARTED_ATTRIBUTE = "faraday.request.started";
+
+    protected final FaradayProperties faradayProperties;
+    protected final Optional<MeterRegistry> meterRegistry;
+    protected final RouteMetricsProvider routeMetricsProvider;
     // httpClient映射表  <mappingname,RestTemplate>
     // RestTemplate是Spring提供的用于访问Rest服务的客户端，RestTemplate提供了多种便捷访问远程Http服务的方法,能够大大提高客户端的编写效率。
-    protected Map<String, RestTemplate> httpClients = new HashMap<>();
+    protected volatile Map<String, RestTemplate> httpClients = new HashMap<>();
+    // 每个映射独享的长连接池  <mappingname,PoolingHttpClientConnectionManager>
+    protected volatile Map<String, PoolingHttpClientConnectionManager> connectionManagers = new HashMap<>();
+    // 启用HTTP/2的映射使用的OkHttp客户端，多个并发请求复用同一个连接  <mappingname,OkHttpClient>
+    protected volatile Map<String, OkHttpClient> http2Clients = new HashMap<>();
+    // 创建客户端时使用的映射属性  <mappingname,MappingProperties>
+    protected volatile Map<String, MappingProperties> clientMappings = new HashMap<>();
+    // 每个映射的客户端持有的连接池和后台线程，替换或删除映射后需要关闭  <mappingname,Closeable>
+    protected volatile Map<String, Closeable> clientResources = new HashMap<>();
+    // 已注册的连接池指标，映射更新时需要移除，否则仍然指向旧的连接池
+    protected final List<Meter> poolMeters = new ArrayList<>();
+    // 延迟关闭被替换的客户端
+    private volatile ScheduledExecutorService retirer;
+    // 等待延迟关闭的客户端，关闭映射表时一起关闭
+    private final Set<Closeable> retiring = ConcurrentHashMap.newKeySet();
 
-    public void updateHttpClients(List<MappingProperties> mappings) {
-        httpClients = mappings.stream().collect(toMap(MappingProperties::getName, this::createRestTemplate));
+    public HttpClientProvider(FaradayProperties faradayProperties, Optional<MeterRegistry> meterRegistry,
+                              RouteMetricsProvider routeMetricsProvider) {
+        this.faradayProperties = faradayProperties;
+        this.meterRegistry = meterRegistry;
+        this.routeMetricsProvider = routeMetricsProvider;
+    }
+
+    /**
+     * 更新httpClient映射表
+     * 只为新增和属性变化的映射创建客户端，未变化的映射（同一个实例）沿用原来的客户端和连接池
+     * 被替换的客户端延迟关闭，已删除映射的客户端在延迟关闭前仍可获取，正在使用旧路由的请求不受影响
+     *
+     * @param mappings
+     */
+    public synchronized void updateHttpClients(List<MappingProperties> mappings) {
+        Map<String, MappingProperties> newClientMappings = new HashMap<>();
+        Map<String, RestTemplate> newHttpClients = new HashMap<>(httpClients);
+        Map<String, PoolingHttpClientConnectionManager> newConnectionManagers = new HashMap<>(connectionManagers);
+        Map<String, OkHttpClient> newHttp2Clients = new HashMap<>(http2Clients);
+        Map<String, Closeable> newClientResources = new HashMap<>(clientResources);
+        for (MappingProperties mapping : mappings) {
+            newClientMappings.put(mapping.getName(), mapping);
+            MappingProperties oldMapping = clientMappings.get(mapping.getName());
+            if (oldMapping == mapping) {
+                continue;
+            }
+            newConnectionManagers.remove(mapping.getName());
+            newHttp2Clients.remove(mapping.getName());
+            Closeable oldResource;
+            if (mapping.getHttp2().isEnabled()) {
+                OkHttpClient client = createHttp2Client(mapping).build();
+                newHttp2Clients.put(mapping.getName(), client);
+                newHttpClients.put(mapping.getName(), createRestTemplate(client));
+                oldResource = newClientResources.put(mapping.getName(), () -> closeHttp2Client(client));
+            } else {
+                PoolingHttpClientConnectionManager connectionManager = createConnectionManager(mapping);
+                CloseableHttpClient client = createHttpClient(mapping, connectionManager).build();
+                newConnectionManagers.put(mapping.getName(), connectionManager);
+                newHttpClients.put(mapping.getName(), createRestTemplate(mapping, client));
+                oldResource = newClientResources.put(mapping.getName(), client);
+            }
+            if (oldResource != null) {
+                // 已删除但尚未关闭的映射被重新添加时没有原来的映射属性
+                retire(oldResource, oldMapping == null ? mapping : oldMapping);
+            }
+        }
+        Map<String, MappingProperties> oldClientMappings = clientMappings;
+        clientMappings = newClientMappings;
+        httpClients = newHttpClients;
+        connectionManagers = newConnectionManagers;
+        http2Clients = newHttp2Clients;
+        clientResources = newClientResources;
+        meterRegistry.ifPresent(this::registerPoolMetrics);
+        oldClientMappings.values().stream()
+                .filter(oldMapping -> !newClientMappings.containsKey(oldMapping.getName()))
+                .forEach(this::retire);
     }
 
     /**
@@ -39,15 +152,273 @@ public class HttpClientProvider {
         return httpClients.get(mappingName);
     }
 
-    protected RestTemplate createRestTemplate(MappingProperties mapping) {
-        CloseableHttpClient client = createHttpClient(mapping).build();
+    /**
+     * 获取该映射名字对应的连接池
+     * @param mappingName
+     * @return
+     */
+    public PoolingHttpClientConnectionManager getConnectionManager(String mappingName) {
+        return connectionManagers.get(mappingName);
+    }
+
+    /**
+     * 获取该映射名字对应的HTTP/2客户端
+     * @param mappingName
+     * @return 映射未启用HTTP/2时返回null
+     */
+    public OkHttpClient getHttp2Client(String mappingName) {
+        return http2Clients.get(mappingName);
+    }
+
+    protected RestTemplate createRestTemplate(MappingProperties mapping, CloseableHttpClient client) {
         HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(client);
         requestFactory.setConnectTimeout(mapping.getTimeout().getConnect());
         requestFactory.setReadTimeout(mapping.getTimeout().getRead());
+        // 流式转发时请求体直接写入上游连接，不能先缓冲在内存中
+        requestFactory.setBufferRequestBody(!faradayProperties.getStreaming().isEnabled());
         return new RestTemplate(requestFactory);
     }
 
-    protected HttpClientBuilder createHttpClient(MappingProperties mapping) {
-        return create().useSystemProperties().disableRedirectHandling().disableCookieManagement();
+    protected RestTemplate createRestTemplate(OkHttpClient client) {
+        // OkHttp请求总是先缓冲请求体，超时已在客户端上设置
+        return new RestTemplate(new OkHttp3ClientHttpRequestFactory(client));
+    }
+
+    protected HttpClientBuilder createHttpClient(MappingProperties mapping, PoolingHttpClientConnectionManager connectionManager) {
+        return create()
+                .useSystemProperties()
+                .setConnectionManager(connectionManager)
+                .addInterceptorLast(markRequestStarted())
+                .addInterceptorFirst(recordFirstByte(routeMetricsProvider.getMetrics(mapping)))
+                // 后台线程定期关闭过期和空闲过久的连接，避免复用已被上游关闭的连接
+                .evictExpiredConnections()
+                .evictIdleConnections(mapping.getPool().getIdleEvictionTimeout(), MILLISECONDS)
+                .disableRedirectHandling()
+                .disableCookieManagement()
+                // 不自动添加Accept-Encoding也不自动解压，上游的编码响应原样转发给客户端
+                .disableContentCompression();
+    }
+
+    /**
+     * 创建h2c客户端（HTTP/2 prior knowledge，不经过HTTP/1.1升级）
+     * 每个目的主机通常只需要一个连接，超过服务端允许的并发流数量时OkHttp才会建立新连接
+     *
+     * @param mapping
+     * @return
+     */
+    protected OkHttpClient.Builder createHttp2Client(MappingProperties mapping) {
+        MappingProperties.PoolProperties pool = mapping.getPool();
+        // 异步转发通过Dispatcher执行，默认每个主机最多5个并发请求
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(pool.getMaxTotal());
+        dispatcher.setMaxRequestsPerHost(pool.getMaxPerRoute());
+        RouteMetrics metrics = routeMetricsProvider.getMetrics(mapping);
+        return new OkHttpClient.Builder()
+                .eventListenerFactory(call -> new Http2TimingListener(metrics))
+                .protocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE))
+                .connectTimeout(mapping.getTimeout().getConnect(), MILLISECONDS)
+                .readTimeout(mapping.getTimeout().getRead(), MILLISECONDS)
+                .writeTimeout(mapping.getTimeout().getRead(), MILLISECONDS)
+                .connectionPool(new ConnectionPool(pool.getMaxPerRoute(), pool.getIdleEvictionTimeout(), MILLISECONDS))
+                .dispatcher(dispatcher)
+                .followRedirects(false)
+                .followSslRedirects(false);
+    }
+
+    protected PoolingHttpClientConnectionManager createConnectionManager(MappingProperties mapping) {
+        MappingProperties.PoolProperties pool = mapping.getPool();
+        // 显式设置连接池后HttpClientBuilder不会再根据系统属性创建SSL工厂，这里需要手动保持一致
+        // 记录新建连接的耗时
+        RouteMetrics metrics = routeMetricsProvider.getMetrics(mapping);
+        Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", new TimedConnectionSocketFactory(PlainConnectionSocketFactory.getSocketFactory(), metrics))
+                .register("https", new TimedConnectionSocketFactory(SSLConnectionSocketFactory.getSystemSocketFactory(), metrics))
+                .build();
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+                socketFactoryRegistry, null, null, null, pool.getTimeToLive(), MILLISECONDS);
+        connectionManager.setMaxTotal(pool.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(pool.getMaxPerRoute());
+        connectionManager.setValidateAfterInactivity(pool.getValidateAfterInactivity());
+        return connectionManager;
+    }
+
+    /**
+     * 请求拦截器在租用连接之前执行，首字节时间包括等待连接池和建立连接的时间
+     *
+     * @return
+     */
+    protected HttpRequestInterceptor markRequestStarted() {
+        return (request, context) -> context.setAttribute(REQUEST_STARTED_ATTRIBUTE, nanoTime());
+    }
+
+    /**
+     * 收到上游响应头时记录首字节时间（响应体尚未读取）
+     *
+     * @param metrics
+     * @return
+     */
+    protected HttpResponseInterceptor recordFirstByte(RouteMetrics metrics) {
+        return (response, context) -> {
+            Object startingTime = context.getAttribute(REQUEST_STARTED_ATTRIBUTE);
+            if (startingTime instanceof Long) {
+                metrics.recordFirstByte(nanoTime() - (Long) startingTime);
+            }
+        };
+    }
+
+    /**
+     * 关闭所有客户端
+     */
+    @Override
+    public synchronized void close() {
+        if (retirer != null) {
+            retirer.shutdownNow();
+            retirer = null;
+        }
+        clientResources.values().forEach(this::closeQuietly);
+        retiring.forEach(this::closeQuietly);
+        retiring.clear();
+        clientMappings = new HashMap<>();
+        httpClients = new HashMap<>();
+        connectionManagers = new HashMap<>();
+        http2Clients = new HashMap<>();
+        clientResources = new HashMap<>();
+    }
+
+    /**
+     * 被替换的客户端等待一个连接超时加读取超时之后再关闭，仍在使用它的请求在此之前都会结束或超时
+     *
+     * @param resource
+     * @param oldMapping 创建该客户端时使用的映射属性
+     */
+    protected void retire(Closeable resource, MappingProperties oldMapping) {
+        retiring.add(resource);
+        getRetirer().schedule(() -> {
+            if (retiring.remove(resource)) {
+                closeQuietly(resource);
+            }
+        }, getRetireDelay(oldMapping), MILLISECONDS);
+    }
+
+    /**
+     * 已删除的映射延迟移出映射表并关闭客户端；期间同名映射被重新添加时不再移除
+     *
+     * @param oldMapping
+     */
+    protected void retire(MappingProperties oldMapping) {
+        getRetirer().schedule(() -> retireRemoved(oldMapping.getName()), getRetireDelay(oldMapping), MILLISECONDS);
+    }
+
+    protected long getRetireDelay(MappingProperties oldMapping) {
+        return (long) oldMapping.getTimeout().getConnect() + oldMapping.getTimeout().getRead();
+    }
+
+    protected synchronized void retireRemoved(String mappingName) {
+        if (clientMappings.containsKey(mappingName) || !clientResources.containsKey(mappingName)) {
+            return;
+        }
+        Map<String, RestTemplate> newHttpClients = new HashMap<>(httpClients);
+        Map<String, PoolingHttpClientConnectionManager> newConnectionManagers = new HashMap<>(connectionManagers);
+        Map<String, OkHttpClient> newHttp2Clients = new HashMap<>(http2Clients);
+        Map<String, Closeable> newClientResources = new HashMap<>(clientResources);
+        newHttpClients.remove(mappingName);
+        newConnectionManagers.remove(mappingName);
+        newHttp2Clients.remove(mappingName);
+        Closeable resource = newClientResources.remove(mappingName);
+        httpClients = newHttpClients;
+        connectionManagers = newConnectionManagers;
+        http2Clients = newHttp2Clients;
+        clientResources = newClientResources;
+        meterRegistry.ifPresent(this::registerPoolMetrics);
+        closeQuietly(resource);
+    }
+
+    protected void closeHttp2Client(OkHttpClient client) {
+        client.dispatcher().executorService().shutdown();
+        client.connectionPool().evictAll();
+    }
+
+    protected void closeQuietly(Closeable resource) {
+        try {
+            resource.close();
+        } catch (IOException e) {
+            log.warn("Error closing HTTP client", "error", e);
+        }
+    }
+
+    private ScheduledExecutorService getRetirer() {
+        if (retirer == null) {
+            synchronized (this) {
+                if (retirer == null) {
+                    retirer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "faraday-client-retirer");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return retirer;
+    }
+
+    /**
+     * 为每个映射的连接池注册租用、空闲、等待和上限连接数指标
+     * @param registry
+     */
+    protected void registerPoolMetrics(MeterRegistry registry) {
+        poolMeters.forEach(registry::remove);
+        poolMeters.clear();
+        connectionManagers.forEach((mappingName, connectionManager) -> {
+            String metricsName = faradayProperties.getMetrics().getNamesPrefix() + "." + mappingName + ".pool";
+            poolMeters.add(registerPoolGauge(registry, metricsName + ".leased", connectionManager, PoolStats::getLeased));
+            poolMeters.add(registerPoolGauge(registry, metricsName + ".available", connectionManager, PoolStats::getAvailable));
+            poolMeters.add(registerPoolGauge(registry, metricsName + ".pending", connectionManager, PoolStats::getPending));
+            poolMeters.add(registerPoolGauge(registry, metricsName + ".max", connectionManager, PoolStats::getMax));
+        });
+        // HTTP/2连接被多个请求同时使用，只统计连接数
+        http2Clients.forEach((mappingName, client) -> {
+            String metricsName = faradayProperties.getMetrics().getNamesPrefix() + "." + mappingName + ".pool";
+            ConnectionPool connectionPool = client.connectionPool();
+            poolMeters.add(Gauge.builder(metricsName + ".connections", connectionPool, ConnectionPool::connectionCount).register(registry));
+            poolMeters.add(Gauge.builder(metricsName + ".available", connectionPool, ConnectionPool::idleConnectionCount).register(registry));
+        });
+    }
+
+    private Gauge registerPoolGauge(MeterRegistry registry, String name, PoolingHttpClientConnectionManager connectionManager, ToDoubleFunction<PoolStats> stat) {
+        return Gauge.builder(name, connectionManager, manager -> stat.applyAsDouble(manager.getTotalStats()))
+                .register(registry);
+    }
+
+    /**
+     * 记录HTTP/2调用的建连时间和首字节时间，每个调用一个实例
+     */
+    protected static class Http2TimingListener extends EventListener {
+        private final RouteMetrics metrics;
+        private long callStarted;
+        private long connectStarted;
+
+        protected Http2TimingListener(RouteMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void callStart(Call call) {
+            callStarted = nanoTime();
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            connectStarted = nanoTime();
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+            metrics.recordConnect(nanoTime() - connectStarted);
+        }
+
+        @Override
+        public void responseHeadersStart(Call call) {
+            metrics.recordFirstByte(nanoTime() - callStarted);
+        }
     }
 }
@@ -0,0 +1,147 @@
+package xyz.staffjoy.faraday.core.http;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import xyz.staffjoy.common.auth.AuthConstant;
+import xyz.staffjoy.faraday.config.FaradayProperties;
+import xyz.staffjoy.faraday.config.MappingProperties;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import static java.util.function.Function.identity;
+import static org.springframework.http.HttpHeaders.*;
+
+/*
+ *
+ * 请求合并（single-flight）
+ * 同一映射上并发的相同GET请求只向上游转发第一个，其余请求等待并共享它的响应
+ * 合并键包括映射、URI、授权级别、当前用户ID和内容协商请求头，因此不同用户之间不会共享响应
+ * 只合并正在转发中的请求，上游响应完成后新的请求重新转发（需要复用响应时使用响应缓存）
+ *
+ */
+public class RequestCoalescer {
+
+    // 条件请求和范围请求的响应取决于客户端已有的内容，不合并
+    private static final String[] UNCOALESCED_REQUEST_HEADERS = {
+            IF_NONE_MATCH, IF_MODIFIED_SINCE, IF_MATCH, IF_UNMODIFIED_SINCE, IF_RANGE, RANGE};
+
+    protected final FaradayProperties faradayProperties;
+    protected final Optional<MeterRegistry> meterRegistry;
+    // <合并键,转发中的请求>
+    private final ConcurrentMap<String, CompletableFuture<ResponseEntity<byte[]>>> inFlight = new ConcurrentHashMap<>();
+
+    public RequestCoalescer(FaradayProperties faradayProperties, Optional<MeterRegistry> meterRegistry) {
+        this.faradayProperties = faradayProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 请求是否可以与其它请求合并
+     *
+     * @param data
+     * @param mapping
+     * @return
+     */
+    public boolean isCoalescable(RequestData data, MappingProperties mapping) {
+        if (!mapping.getCoalescing().isEnabled() || data.getMethod() != HttpMethod.GET) {
+            return false;
+        }
+        HttpHeaders headers = data.getHeaders();
+        if (headers.getContentLength() > 0 || headers.containsKey(TRANSFER_ENCODING)) {
+            return false;
+        }
+        for (String name : UNCOALESCED_REQUEST_HEADERS) {
+            if (headers.containsKey(name)) {
+                return false;
+            }
+        }
+        // 要求重新验证的请求不能拿到在它之前开始的转发的响应
+        List<String> cacheControl = headers.get(CACHE_CONTROL);
+        if (cacheControl != null) {
+            for (String value : cacheControl) {
+                if (value.contains("no-cache") || value.contains("no-store")) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 合并请求
+     * 没有相同的请求在转发中时调用forwarder转发，否则等待正在转发的请求的响应
+     * 返回给每个调用方的都是独立的future，调用方取消（例如异步请求超时）不影响其它等待的请求，也不会取消上游请求
+     *
+     * @param data
+     * @param mapping
+     * @param forwarder 转发请求
+     * @return 上游响应完成（或失败）时完成的future
+     */
+    public CompletableFuture<ResponseEntity<byte[]>> coalesce(RequestData data, MappingProperties mapping,
+                                                              Supplier<CompletableFuture<ResponseEntity<byte[]>>> forwarder) {
+        // 合并键必须在转发修改请求头之前计算
+        String key = resolveKey(data, mapping);
+        CompletableFuture<ResponseEntity<byte[]>> shared = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<byte[]>> existing = inFlight.putIfAbsent(key, shared);
+        if (existing != null) {
+            recordCoalesced(mapping);
+            return existing.thenApply(identity());
+        }
+        CompletableFuture<ResponseEntity<byte[]>> forwarded;
+        try {
+            forwarded = forwarder.get();
+        } catch (RuntimeException e) {
+            inFlight.remove(key, shared);
+            shared.completeExceptionally(e);
+            throw e;
+        }
+        forwarded.whenComplete((response, e) -> {
+            // 先删除再完成，等待的请求完成后发起的相同请求会重新转发
+            inFlight.remove(key, shared);
+            if (e != null) {
+                shared.completeExceptionally(e);
+            } else {
+                shared.complete(response);
+            }
+        });
+        return shared.thenApply(identity());
+    }
+
+    /**
+     * 正在转发中的合并键数量
+     *
+     * @return
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * 合并键：映射名称、URI、授权级别、当前用户ID和内容协商请求头
+     *
+     * @param data
+     * @param mapping
+     * @return
+     */
+    protected String resolveKey(UnmodifiableRequestData data, MappingProperties mapping) {
+        HttpHeaders headers = data.getHeaders();
+        return mapping.getName() + ' ' + data.getUri()
+                + ' ' + headers.getFirst(AuthConstant.AUTHORIZATION_HEADER)
+                + ' ' + headers.getFirst(AuthConstant.CURRENT_USER_HEADER)
+                + ' ' + headers.get(ACCEPT)
+                + ' ' + headers.get(ACCEPT_ENCODING)
+                + ' ' + headers.get(ACCEPT_LANGUAGE);
+    }
+
+    private void recordCoalesced(MappingProperties mapping) {
+        meterRegistry.ifPresent(registry -> registry.counter(faradayProperties.getMetrics().getNamesPrefix() + "."
+                + mapping.getName() + ".coalesced").increment());
+    }
+}
@@ -2,6 +2,7 @@ package xyz.staffjoy.faraday.core.http;
 
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -18,6 +19,7 @@ import static xyz.staffjoy.faraday.core.utils.BodyConverter.convertStringToBody;
 public class RequestData extends UnmodifiableRequestData {
     private boolean needRedirect;
     private String redirectUrl;
+    private ResponseEntity<byte[]> response;
 
     public RequestData(HttpMethod method,
                        String host,
@@ -63,4 +65,17 @@ public class RequestData extends UnmodifiableRequestData {
     public String getRedirectUrl() {
         return this.redirectUrl;
     }
+
+    /**
+     * 请求截获器直接给出响应（例如命中响应缓存）时，请求不再转发到上游
+     *
+     * @param response
+     */
+    public void setResponse(ResponseEntity<byte[]> response) {
+        this.response = response;
+    }
+
+    public ResponseEntity<byte[]> getResponse() {
+        return this.response;
+    }
 }
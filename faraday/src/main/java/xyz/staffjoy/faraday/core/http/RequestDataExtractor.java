@@ -6,10 +6,7 @@ import xyz.staffjoy.faraday.exceptions.FaradayException;
 
 import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
-import java.util.Enumeration;
-import java.util.List;
 
-import static java.util.Collections.list;
 import static org.apache.commons.io.IOUtils.toByteArray;
 import static org.apache.commons.lang3.StringUtils.EMPTY;
 
@@ -31,15 +28,14 @@ public class RequestDataExtractor {
         }
     }
 
+    /**
+     * 请求头视图，不复制servlet请求头（异步转发离开容器线程前由AsyncRequestForwarder复制）
+     *
+     * @param request
+     * @return
+     */
     public HttpHeaders extractHttpHeaders(HttpServletRequest request) {
-        HttpHeaders headers = new HttpHeaders();
-        Enumeration<String> headerNames = request.getHeaderNames();
-        while(headerNames.hasMoreElements()) {
-            String name = headerNames.nextElement();
-            List<String> value = list(request.getHeaders(name));
-            headers.put(name, value);
-        }
-        return headers;
+        return new HttpHeaders(new ServletRequestHeaders(request));
     }
 
     public HttpMethod extractHttpMethod(HttpServletRequest request) {
@@ -5,25 +5,49 @@ import com.github.structlog4j.SLoggerFactory;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.boot.autoconfigure.web.ServerProperties;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.RequestEntity;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import xyz.staffjoy.faraday.config.FaradayProperties;
 import xyz.staffjoy.faraday.config.MappingProperties;
 import xyz.staffjoy.faraday.core.balancer.LoadBalancer;
+import xyz.staffjoy.faraday.core.breaker.CircuitBreakerProvider;
+import xyz.staffjoy.faraday.core.compression.ContentEncoder;
+import xyz.staffjoy.faraday.core.compression.ResponseCompressor;
 import xyz.staffjoy.faraday.core.interceptor.PostForwardResponseInterceptor;
 import xyz.staffjoy.faraday.core.mappings.MappingsProvider;
+import xyz.staffjoy.faraday.core.metrics.RouteMetrics;
+import xyz.staffjoy.faraday.core.metrics.RouteMetricsProvider;
+import xyz.staffjoy.faraday.core.retry.RetryProvider;
 import xyz.staffjoy.faraday.core.trace.ProxyingTraceInterceptor;
 import xyz.staffjoy.faraday.exceptions.FaradayException;
+import xyz.staffjoy.faraday.exceptions.ServiceUnavailableException;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static java.lang.System.nanoTime;
-import static java.time.Duration.ofNanos;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.CompletableFuture.completedFuture;
 import static org.springframework.http.HttpHeaders.*;
 import static org.springframework.http.ResponseEntity.status;
+import static xyz.staffjoy.faraday.core.metrics.RouteMetrics.CANCELLED;
+import static xyz.staffjoy.faraday.core.metrics.RouteMetrics.NO_RESPONSE;
+import static xyz.staffjoy.faraday.core.utils.StreamCopier.copy;
 
 /*
  *
@@ -35,6 +59,14 @@ import static org.springframework.http.ResponseEntity.status;
  */
 public class RequestForwarder {
 
+    // 不转发给客户端的上游响应头（响应缓存保存响应时同样删除）
+    public static final List<String> UNFORWARDED_RESPONSE_HEADERS = asList(
+            TRANSFER_ENCODING, CONNECTION, "Public-Key-Pins", SERVER, "Strict-Transport-Security");
+
+    // 不转发给上游的逐跳请求头
+    protected static final String[] HOP_BY_HOP_REQUEST_HEADERS = {
+            CONNECTION, "Keep-Alive", "Proxy-Connection", PROXY_AUTHORIZATION, TE, "Trailer", TRANSFER_ENCODING, UPGRADE};
+
     private static final ILogger log = SLoggerFactory.getLogger(RequestForwarder.class);
 
     protected final ServerProperties serverProperties;
@@ -42,9 +74,14 @@ public class RequestForwarder {
     protected final HttpClientProvider httpClientProvider;
     protected final MappingsProvider mappingsProvider;
     protected final LoadBalancer loadBalancer;
+    protected final CircuitBreakerProvider circuitBreakerProvider;
     protected final Optional<MeterRegistry> meterRegistry;
     protected final ProxyingTraceInterceptor traceInterceptor;
     protected final PostForwardResponseInterceptor postForwardResponseInterceptor;
+    protected final ResponseCompressor responseCompressor;
+    protected final RequestCoalescer requestCoalescer;
+    protected final RouteMetricsProvider routeMetricsProvider;
+    protected final RetryProvider retryProvider;
 
     public RequestForwarder(
             ServerProperties serverProperties,
@@ -52,18 +89,28 @@ public class RequestForwarder {
             HttpClientProvider httpClientProvider,
             MappingsProvider mappingsProvider,
             LoadBalancer loadBalancer,
+            CircuitBreakerProvider circuitBreakerProvider,
             Optional<MeterRegistry> meterRegistry,
             ProxyingTraceInterceptor traceInterceptor,
-            PostForwardResponseInterceptor postForwardResponseInterceptor
+            PostForwardResponseInterceptor postForwardResponseInterceptor,
+            ResponseCompressor responseCompressor,
+            RequestCoalescer requestCoalescer,
+            RouteMetricsProvider routeMetricsProvider,
+            RetryProvider retryProvider
     ) {
         this.serverProperties = serverProperties;
         this.faradayProperties = faradayProperties;
         this.httpClientProvider = httpClientProvider;
         this.mappingsProvider = mappingsProvider;
         this.loadBalancer = loadBalancer;
+        this.circuitBreakerProvider = circuitBreakerProvider;
         this.meterRegistry = meterRegistry;
         this.traceInterceptor = traceInterceptor;
         this.postForwardResponseInterceptor = postForwardResponseInterceptor;
+        this.responseCompressor = responseCompressor;
+        this.requestCoalescer = requestCoalescer;
+        this.routeMetricsProvider = routeMetricsProvider;
+        this.retryProvider = retryProvider;
     }
 
     /**
@@ -75,6 +122,30 @@ public class RequestForwarder {
      * @return
      */
     public ResponseEntity<byte[]> forwardHttpRequest(RequestData data, String traceId, MappingProperties mapping) {
+        if (!requestCoalescer.isCoalescable(data, mapping)) {
+            return sendHttpRequest(data, traceId, mapping);
+        }
+        // 相同的请求正在转发时在当前线程上等待它的响应
+        try {
+            return requestCoalescer.coalesce(data, mapping,
+                    () -> completedFuture(sendHttpRequest(data, traceId, mapping))).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 向上游发送HTTP请求（不合并）
+     *
+     * @param data
+     * @param traceId
+     * @param mapping
+     * @return
+     */
+    protected ResponseEntity<byte[]> sendHttpRequest(RequestData data, String traceId, MappingProperties mapping) {
         // 目的主机
         ForwardDestination destination = resolveForwardDestination(data.getUri(), mapping);
         // 从客户端请求中删除
@@ -83,12 +154,12 @@ public class RequestForwarder {
         traceInterceptor.onForwardStart(traceId, destination.getMappingName(),
                 data.getMethod(), data.getHost(), destination.getUri().toString(),
                 data.getBody(), data.getHeaders());
-        // 请求实体
-        RequestEntity<byte[]> request = new RequestEntity<>(data.getBody(), data.getHeaders(), data.getMethod(), destination.getUri());
-        // 发送请求 返回响应数据
-        ResponseData response = sendRequest(traceId, request, mapping, destination.getMappingMetricsName(), data);
+        // 发送请求（幂等请求失败时换一个目的主机重试） 返回响应数据
+        ResponseData response = sendRequestWithRetries(traceId, mapping, destination, data);
 
-        log.debug(String.format("Forwarded: %s %s %s -> %s %d", data.getMethod(), data.getHost(), data.getUri(), destination.getUri(), response.getStatus().value()));
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Forwarded: %s %s %s -> %s %d", data.getMethod(), data.getHost(), data.getUri(), destination.getUri(), response.getStatus().value()));
+        }
 
         // 截获器（追踪转发完成）
         traceInterceptor.onForwardComplete(traceId, response.getStatus(), response.getBody(), response.getHeaders());
@@ -103,6 +174,201 @@ public class RequestForwarder {
 
     }
 
+    /**
+     * 异步转发HTTP请求
+     * 默认实现仍在调用线程上阻塞转发，由AsyncRequestForwarder提供真正的非阻塞实现
+     *
+     * @param data
+     * @param traceId
+     * @param mapping
+     * @return 上游响应完成（或失败）时完成的future
+     */
+    public CompletableFuture<ResponseEntity<byte[]>> forwardHttpRequestAsync(RequestData data, String traceId, MappingProperties mapping) {
+        CompletableFuture<ResponseEntity<byte[]>> result = new CompletableFuture<>();
+        try {
+            result.complete(forwardHttpRequest(data, traceId, mapping));
+        } catch (Exception e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * 响应截获器是否需要读取响应体（需要时不能使用流式转发）
+     *
+     * @param data
+     * @param mapping
+     * @return
+     */
+    public boolean requiresResponseBody(RequestData data, MappingProperties mapping) {
+        // 合并的请求共享缓冲的响应体
+        return postForwardResponseInterceptor.requiresResponseBody(data, mapping) || requestCoalescer.isCoalescable(data, mapping);
+    }
+
+    /**
+     * 以流的方式转发HTTP请求
+     * 请求体从servlet输入流直接写入上游连接，上游响应体直接写入servlet输出流，整个过程不在堆上缓冲消息体
+     *
+     * @param data
+     * @param traceId
+     * @param mapping
+     * @param response
+     */
+    public void forwardHttpRequest(RequestData data, String traceId, MappingProperties mapping, HttpServletResponse response) {
+        ForwardDestination destination = resolveForwardDestination(data.getUri(), mapping);
+        prepareForwardedRequestHeaders(data, destination);
+        traceInterceptor.onForwardStart(traceId, destination.getMappingName(),
+                data.getMethod(), data.getHost(), destination.getUri().toString(),
+                data.getBody(), data.getHeaders());
+
+        try (ClientHttpResponse clientResponse = sendStreamingRequestWithRetries(traceId, mapping, destination, data)) {
+            // 非标准状态码（例如499、599）也原样转发，getStatusCode会抛出IllegalArgumentException
+            ResponseData responseData = new ResponseData(clientResponse.getRawStatusCode(), clientResponse.getHeaders(), null, data);
+
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Forwarded: %s %s %s -> %s %d", data.getMethod(), data.getHost(), data.getUri(), destination.getUri(), responseData.getRawStatus()));
+            }
+
+            traceInterceptor.onForwardComplete(traceId, responseData.getStatus(), null, responseData.getHeaders());
+            postForwardResponseInterceptor.intercept(responseData, mapping);
+            prepareForwardedResponseHeaders(responseData);
+
+            // 按客户端的Accept-Encoding边读边压缩上游响应体，非标准状态码不压缩
+            ContentEncoder encoder = responseData.getStatus() == null ? null : responseCompressor.negotiate(data.getOriginRequest(),
+                    responseData.getStatus(), responseData.getHeaders(), responseData.getHeaders().getContentLength());
+            response.setStatus(responseData.getRawStatus());
+            responseCompressor.writeHeaders(response, responseData.getHeaders(), encoder);
+            copyResponseBody(clientResponse, response, encoder, routeMetricsProvider.getMetrics(mapping));
+        } catch (IOException e) {
+            // 读取上游响应头失败（连接已建立但响应不可用）
+            traceInterceptor.onForwardFailed(traceId, e);
+            throw new ResourceAccessException("I/O error on " + data.getMethod() + " request for \"" + destination.getUri() + "\": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 发送流式请求，幂等请求连接失败或上游返回503时换一个目的主机重试
+     * 只有请求体已经缓冲（或者没有请求体）时才能重试，servlet输入流只能读取一次
+     *
+     * @param traceId
+     * @param mapping
+     * @param destination
+     * @param data
+     * @return
+     */
+    protected ClientHttpResponse sendStreamingRequestWithRetries(String traceId, MappingProperties mapping, ForwardDestination destination, RequestData data) {
+        boolean retryable = retryProvider.isRetryable(data, mapping) && (data.getBody() != null || !hasBody(data.getOriginRequest()));
+        if (retryable) {
+            retryProvider.onRequest(mapping);
+        }
+        for (int attempt = 1; ; attempt++) {
+            boolean canRetry = retryable && attempt < mapping.getRetry().getMaxAttempts();
+            ClientHttpResponse response;
+            try {
+                response = sendStreamingRequest(traceId, mapping, destination, data);
+            } catch (ResourceAccessException e) {
+                if (canRetry && retryProvider.isRetryableFailure(e) && retryProvider.tryAcquireRetry(mapping)) {
+                    destination = resolveRetryDestination(data.getUri(), mapping, destination);
+                    continue;
+                }
+                throw e;
+            }
+            if (canRetry && isRetryableResponse(response) && retryProvider.tryAcquireRetry(mapping)) {
+                response.close();
+                destination = resolveRetryDestination(data.getUri(), mapping, destination);
+                continue;
+            }
+            return response;
+        }
+    }
+
+    private boolean isRetryableResponse(ClientHttpResponse response) {
+        try {
+            return retryProvider.isRetryableStatus(response.getRawStatusCode());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 发送流式请求
+     * 请求体从servlet输入流直接写入上游连接（如果前置截获器已经读取了请求体，则直接写入该请求体）
+     *
+     * @param traceId
+     * @param mapping
+     * @param destination
+     * @param data
+     * @return 上游响应，响应头已就绪，响应体尚未读取；关闭时记录本次转发的结果
+     */
+    protected ClientHttpResponse sendStreamingRequest(String traceId, MappingProperties mapping, ForwardDestination destination, RequestData data) {
+        RouteMetrics metrics = routeMetricsProvider.getMetrics(mapping);
+        long startingTime = nanoTime();
+        onRequestStarted(traceId, mapping, destination);
+        try {
+            ClientHttpRequest request = httpClientProvider.getHttpClient(mapping.getName()).getRequestFactory()
+                    .createRequest(destination.getUri(), data.getMethod());
+            request.getHeaders().putAll(data.getHeaders());
+            if (data.getBody() != null || hasBody(data.getOriginRequest())) {
+                if (request instanceof StreamingHttpOutputMessage) {
+                    ((StreamingHttpOutputMessage) request).setBody(outputStream -> writeRequestBody(data, outputStream, metrics));
+                } else {
+                    writeRequestBody(data, request.getBody(), metrics);
+                }
+            }
+            ClientHttpResponse response = request.execute();
+            // 响应体写完（或写入失败）关闭响应时才记录结果，释放舱壁许可，长时间的流式下载也计入并发数
+            return new CompletionRecordingResponse(response,
+                    () -> recordResult(mapping, destination, startingTime, statusCode(response)));
+        } catch (IOException e) {
+            recordResult(mapping, destination, startingTime, NO_RESPONSE);
+            traceInterceptor.onForwardFailed(traceId, e);
+            throw new ResourceAccessException("I/O error on " + data.getMethod() + " request for \"" + destination.getUri() + "\": " + e.getMessage(), e);
+        } catch (Exception e) {
+            recordResult(mapping, destination, startingTime, NO_RESPONSE);
+            traceInterceptor.onForwardFailed(traceId, e);
+            throw e;
+        }
+    }
+
+    private static int statusCode(ClientHttpResponse response) {
+        try {
+            return response.getRawStatusCode();
+        } catch (IOException e) {
+            return NO_RESPONSE;
+        }
+    }
+
+    protected void writeRequestBody(RequestData data, OutputStream outputStream, RouteMetrics metrics) throws IOException {
+        if (data.getBody() != null) {
+            outputStream.write(data.getBody());
+            metrics.recordRequestBytes(data.getBody().length);
+            return;
+        }
+        metrics.recordRequestBytes(copy(data.getOriginRequest().getInputStream(), outputStream, faradayProperties.getStreaming().getBufferSize()));
+    }
+
+    protected void copyResponseBody(ClientHttpResponse clientResponse, HttpServletResponse response, ContentEncoder encoder, RouteMetrics metrics) {
+        try {
+            InputStream body = clientResponse.getBody();
+            if (body == null) {
+                return;
+            }
+            if (encoder == null) {
+                metrics.recordResponseBytes(copy(body, response.getOutputStream(), faradayProperties.getStreaming().getBufferSize()));
+                return;
+            }
+            try (OutputStream out = encoder.encode(response.getOutputStream())) {
+                metrics.recordResponseBytes(copy(body, out, faradayProperties.getStreaming().getBufferSize()));
+            }
+        } catch (IOException e) {
+            throw new FaradayException("Error writing body of HTTP response", e);
+        }
+    }
+
+    protected boolean hasBody(HttpServletRequest request) {
+        return request.getContentLengthLong() > 0 || request.getHeader(TRANSFER_ENCODING) != null;
+    }
+
     /**
      * 从远程服务器的响应中删除
      * 不要应用于我们发送的新响应
@@ -110,12 +376,7 @@ public class RequestForwarder {
      * @param response
      */
     protected void prepareForwardedResponseHeaders(ResponseData response) {
-        HttpHeaders headers = response.getHeaders();
-        headers.remove(TRANSFER_ENCODING);
-        headers.remove(CONNECTION);
-        headers.remove("Public-Key-Pins");
-        headers.remove(SERVER);
-        headers.remove("Strict-Transport-Security");
+        UNFORWARDED_RESPONSE_HEADERS.forEach(response.getHeaders()::remove);
     }
 
     /**
@@ -128,7 +389,27 @@ public class RequestForwarder {
     protected void prepareForwardedRequestHeaders(RequestData request, ForwardDestination destination) {
         HttpHeaders headers = request.getHeaders();
         //headers.set(HOST, destination.getUri().getAuthority());
-        headers.remove(TE);
+        // 客户端的Accept-Encoding原样转发，上游已经压缩的响应不再由网关压缩
+        removeHopByHopHeaders(headers);
+    }
+
+    /**
+     * 删除逐跳请求头（RFC 7230 6.1），包括Connection中列出的请求头
+     * 只有请求中确实存在的请求头才会被删除，不存在时不产生额外对象
+     *
+     * @param headers
+     */
+    protected void removeHopByHopHeaders(HttpHeaders headers) {
+        if (headers.containsKey(CONNECTION)) {
+            for (String name : headers.getConnection()) {
+                headers.remove(name);
+            }
+        }
+        for (String name : HOP_BY_HOP_REQUEST_HEADERS) {
+            if (headers.containsKey(name)) {
+                headers.remove(name);
+            }
+        }
     }
 
     /**
@@ -139,18 +420,43 @@ public class RequestForwarder {
      * @return
      */
     protected ForwardDestination resolveForwardDestination(String originUri, MappingProperties mapping) {
-        return new ForwardDestination(createDestinationUrl(originUri, mapping), mapping.getName(), resolveMetricsName(mapping));
+        String host = loadBalancer.chooseDestination(mapping);
+        return new ForwardDestination(createDestinationUrl(host, originUri, mapping), mapping.getName(), resolveMetricsName(mapping), host);
+    }
+
+    /**
+     * 选择重试（或对冲请求）的目的主机，有多个目的主机时不再选择上一次的目的主机
+     *
+     * @param originUri
+     * @param mapping
+     * @param previous
+     * @return
+     */
+    protected ForwardDestination resolveRetryDestination(String originUri, MappingProperties mapping, ForwardDestination previous) {
+        List<String> destinations = mapping.getDestinations();
+        if (destinations.size() > 1) {
+            // 先按负载均衡策略选择，多次选中上一次的目的主机时直接换下一个
+            for (int i = 0; i < destinations.size(); i++) {
+                ForwardDestination destination = resolveForwardDestination(originUri, mapping);
+                if (!destination.getHost().equals(previous.getHost())) {
+                    return destination;
+                }
+            }
+            String host = destinations.get((destinations.indexOf(previous.getHost()) + 1) % destinations.size());
+            return new ForwardDestination(createDestinationUrl(host, originUri, mapping), mapping.getName(), resolveMetricsName(mapping), host);
+        }
+        return resolveForwardDestination(originUri, mapping);
     }
 
     /**
      * 创建目的主机URL
      *
+     * @param host
      * @param uri
      * @param mapping
      * @return
      */
-    protected URI createDestinationUrl(String uri, MappingProperties mapping) {
-        String host = loadBalancer.chooseDestination(mapping.getDestinations());
+    protected URI createDestinationUrl(String host, String uri, MappingProperties mapping) {
         try {
             return new URI(host + uri);
         } catch (URISyntaxException e) {
@@ -158,46 +464,181 @@ public class RequestForwarder {
         }
     }
 
+    /**
+     * 发送请求，幂等请求连接失败或上游返回503时换一个目的主机重试，重试次数受映射的重试预算限制
+     *
+     * @param traceId
+     * @param mapping
+     * @param destination
+     * @param data
+     * @return 最后一次尝试的响应
+     */
+    protected ResponseData sendRequestWithRetries(String traceId, MappingProperties mapping, ForwardDestination destination, RequestData data) {
+        boolean retryable = retryProvider.isRetryable(data, mapping);
+        if (retryable) {
+            retryProvider.onRequest(mapping);
+        }
+        for (int attempt = 1; ; attempt++) {
+            boolean canRetry = retryable && attempt < mapping.getRetry().getMaxAttempts();
+            // 请求实体
+            RequestEntity<byte[]> request = new RequestEntity<>(data.getBody(), data.getHeaders(), data.getMethod(), destination.getUri());
+            ResponseData response;
+            try {
+                response = sendRequest(traceId, request, mapping, destination, data);
+            } catch (ResourceAccessException e) {
+                if (canRetry && retryProvider.isRetryableFailure(e) && retryProvider.tryAcquireRetry(mapping)) {
+                    destination = resolveRetryDestination(data.getUri(), mapping, destination);
+                    continue;
+                }
+                throw e;
+            }
+            if (canRetry && retryProvider.isRetryableStatus(response.getStatus().value()) && retryProvider.tryAcquireRetry(mapping)) {
+                destination = resolveRetryDestination(data.getUri(), mapping, destination);
+                continue;
+            }
+            return response;
+        }
+    }
+
     /**
      * 发送请求
      *
      * @param traceId
      * @param request
      * @param mapping
-     * @param mappingMetricsName
+     * @param destination
      * @param requestData
      * @return
      */
-    protected ResponseData sendRequest(String traceId, RequestEntity<byte[]> request, MappingProperties mapping, String mappingMetricsName, RequestData requestData) {
+    protected ResponseData sendRequest(String traceId, RequestEntity<byte[]> request, MappingProperties mapping, ForwardDestination destination, RequestData requestData) {
         ResponseEntity<byte[]> response;
         long startingTime = nanoTime();
+        onRequestStarted(traceId, mapping, destination);
+        routeMetricsProvider.getMetrics(mapping).recordRequestBytes(request.getBody() == null ? 0 : request.getBody().length);
         try {
             // 根据httpClient映射表作转发（获取Rest客户端并进行请求）
             // 返回的是ResponseEntity<Byte[]>类型
             response = httpClientProvider.getHttpClient(mapping.getName()).exchange(request, byte[].class);
             // 埋点监控
-            recordLatency(mappingMetricsName, startingTime);
+            recordResult(mapping, destination, startingTime, response.getStatusCodeValue());
         } catch (HttpStatusCodeException e) {
-            recordLatency(mappingMetricsName, startingTime);
+            recordResult(mapping, destination, startingTime, e.getRawStatusCode());
             response = status(e.getStatusCode())
                     .headers(e.getResponseHeaders())
                     .body(e.getResponseBodyAsByteArray());
         } catch (Exception e) {
-            recordLatency(mappingMetricsName, startingTime);
+            recordResult(mapping, destination, startingTime, NO_RESPONSE);
             traceInterceptor.onForwardFailed(traceId, e);
             throw e;
         }
-        UnmodifiableRequestData data = new UnmodifiableRequestData(requestData);
+        routeMetricsProvider.getMetrics(mapping).recordResponseBytes(response.getBody() == null ? 0 : response.getBody().length);
         // 返回相应数据
-        return new ResponseData(response.getStatusCode(), response.getHeaders(), response.getBody(), data);
+        return new ResponseData(response.getStatusCode(), response.getHeaders(), response.getBody(), requestData);
     }
 
-    protected void recordLatency(String metricName, long startingTime) {
-        // Timer(计时器)适用于记录耗时比较短的事件的执行时间，通过时间分布展示事件的序列和发生频率
-        meterRegistry.ifPresent(meterRegistry -> meterRegistry.timer(metricName).record(ofNanos(nanoTime() - startingTime)));
+    /**
+     * 记录一次转发的结果：埋点监控延迟和状态码，并反馈给负载均衡
+     *
+     * @param mapping
+     * @param destination
+     * @param startingTime
+     * @param statusCode   上游响应状态码，没有响应时为RouteMetrics.NO_RESPONSE，取消时为RouteMetrics.CANCELLED
+     */
+    protected void recordResult(MappingProperties mapping, ForwardDestination destination, long startingTime, int statusCode) {
+        long latency = nanoTime() - startingTime;
+        routeMetricsProvider.getMetrics(mapping).onRequestCompleted(latency, statusCode);
+        if (statusCode > CANCELLED) {
+            retryProvider.recordLatency(mapping, latency);
+        }
+        boolean failed = statusCode == NO_RESPONSE || isFailure(statusCode);
+        loadBalancer.onRequestCompleted(mapping, destination.getHost(), latency, failed);
+        circuitBreakerProvider.onRequestCompleted(mapping, latency, failed);
+    }
+
+    /**
+     * 开始转发：申请熔断器和舱壁许可，并通知负载均衡
+     * 成功返回后必须以recordResult结束
+     *
+     * @param traceId
+     * @param mapping
+     * @param destination
+     * @throws ServiceUnavailableException 熔断器打开或舱壁已满，快速失败
+     */
+    protected void onRequestStarted(String traceId, MappingProperties mapping, ForwardDestination destination) {
+        try {
+            circuitBreakerProvider.acquirePermission(mapping);
+        } catch (ServiceUnavailableException e) {
+            traceInterceptor.onForwardFailed(traceId, e);
+            throw e;
+        }
+        loadBalancer.onRequestStarted(mapping, destination.getHost());
+        routeMetricsProvider.getMetrics(mapping).onRequestStarted();
+    }
+
+    /**
+     * 上游不可用（网关错误、服务不可用、网关超时）的响应计为失败
+     *
+     * @param statusCode
+     * @return
+     */
+    protected boolean isFailure(int statusCode) {
+        return statusCode == 502 || statusCode == 503 || statusCode == 504;
     }
 
     protected String resolveMetricsName(MappingProperties mapping) {
         return faradayProperties.getMetrics().getNamesPrefix() + "." + mapping.getName();
     }
+
+    /**
+     * 关闭时（只执行一次）记录转发结果的上游响应
+     */
+    protected static class CompletionRecordingResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse delegate;
+        private final Runnable onClose;
+        private boolean closed;
+
+        protected CompletionRecordingResponse(ClientHttpResponse delegate, Runnable onClose) {
+            this.delegate = delegate;
+            this.onClose = onClose;
+        }
+
+        @Override
+        public HttpStatus getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public int getRawStatusCode() throws IOException {
+            return delegate.getRawStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                delegate.close();
+            } finally {
+                onClose.run();
+            }
+        }
+    }
 }
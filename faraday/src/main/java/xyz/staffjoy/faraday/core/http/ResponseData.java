@@ -16,24 +16,53 @@ import static xyz.staffjoy.faraday.core.utils.BodyConverter.convertStringToBody;
  */
 public class ResponseData {
     protected HttpStatus status;
+    // 上游返回的状态码，可能不是标准状态码（例如499、599），此时status为null
+    protected int rawStatus;
     protected HttpHeaders headers;
     protected byte[] body;
     protected UnmodifiableRequestData requestData;
 
+    /**
+     * 响应头不再复制：只读响应头（例如RestTemplate返回的响应实体）包装成可写的视图，其余直接使用
+     * 请求数据直接使用转发的RequestData，响应截获器只能通过UnmodifiableRequestData读取
+     *
+     * @param status
+     * @param headers
+     * @param body
+     * @param requestData
+     */
     public ResponseData(HttpStatus status, HttpHeaders headers, byte[] body, UnmodifiableRequestData requestData) {
-        this.status = status;
-        this.headers = new HttpHeaders();
-        this.headers.putAll(headers);
+        this(status.value(), headers, body, requestData);
+    }
+
+    /**
+     * @param rawStatus   上游返回的状态码，非标准状态码原样转发
+     * @param headers
+     * @param body
+     * @param requestData
+     */
+    public ResponseData(int rawStatus, HttpHeaders headers, byte[] body, UnmodifiableRequestData requestData) {
+        this.status = HttpStatus.resolve(rawStatus);
+        this.rawStatus = rawStatus;
+        this.headers = HttpHeaders.writableHttpHeaders(headers);
         this.body = body;
         this.requestData = requestData;
     }
 
+    /**
+     * @return 非标准状态码时为null，使用getRawStatus
+     */
     public HttpStatus getStatus() {
         return status;
     }
 
     public void setStatus(HttpStatus status) {
         this.status = status;
+        this.rawStatus = status.value();
+    }
+
+    public int getRawStatus() {
+        return rawStatus;
     }
 
     public HttpHeaders getHeaders() {
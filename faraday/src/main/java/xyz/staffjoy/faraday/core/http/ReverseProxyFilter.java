@@ -4,26 +4,36 @@ import com.github.structlog4j.ILogger;
 import com.github.structlog4j.SLoggerFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.filter.OncePerRequestFilter;
 import xyz.staffjoy.faraday.config.FaradayProperties;
 import xyz.staffjoy.faraday.config.MappingProperties;
+import xyz.staffjoy.faraday.core.compression.ContentEncoder;
+import xyz.staffjoy.faraday.core.compression.ResponseCompressor;
 import xyz.staffjoy.faraday.core.interceptor.PreForwardRequestInterceptor;
 import xyz.staffjoy.faraday.core.mappings.MappingsProvider;
+import xyz.staffjoy.faraday.core.metrics.RouteMetricsProvider;
 import xyz.staffjoy.faraday.core.trace.ProxyingTraceInterceptor;
 import xyz.staffjoy.faraday.exceptions.FaradayException;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static java.lang.String.valueOf;
+import static javax.servlet.RequestDispatcher.ERROR_EXCEPTION;
+import static javax.servlet.RequestDispatcher.ERROR_STATUS_CODE;
 import static org.apache.commons.lang3.StringUtils.isBlank;
-import static org.springframework.util.CollectionUtils.isEmpty;
 
 
 
@@ -51,6 +61,8 @@ public class ReverseProxyFilter extends OncePerRequestFilter {
     protected final RequestForwarder requestForwarder;
     protected final ProxyingTraceInterceptor traceInterceptor;
     protected final PreForwardRequestInterceptor preForwardRequestInterceptor;
+    protected final ResponseCompressor responseCompressor;
+    protected final RouteMetricsProvider routeMetricsProvider;
 
     public ReverseProxyFilter(
             FaradayProperties faradayProperties,
@@ -58,7 +70,9 @@ public class ReverseProxyFilter extends OncePerRequestFilter {
             MappingsProvider mappingsProvider,
             RequestForwarder requestForwarder,
             ProxyingTraceInterceptor traceInterceptor,
-            PreForwardRequestInterceptor requestInterceptor
+            PreForwardRequestInterceptor requestInterceptor,
+            ResponseCompressor responseCompressor,
+            RouteMetricsProvider routeMetricsProvider
     ) {
         this.faradayProperties = faradayProperties;
         this.extractor = extractor;
@@ -66,6 +80,8 @@ public class ReverseProxyFilter extends OncePerRequestFilter {
         this.requestForwarder = requestForwarder;
         this.traceInterceptor = traceInterceptor;
         this.preForwardRequestInterceptor = requestInterceptor;
+        this.responseCompressor = responseCompressor;
+        this.routeMetricsProvider = routeMetricsProvider;
     }
 
     @Override
@@ -74,9 +90,11 @@ public class ReverseProxyFilter extends OncePerRequestFilter {
         String originUri = extractor.extractUri(request);
         String originHost = extractor.extractHost(request);
 
-        log.debug("Incoming request", "method", request.getMethod(),
-                "host", originHost,
-                "uri", originUri);
+        if (log.isDebugEnabled()) {
+            log.debug("Incoming request", "method", request.getMethod(),
+                    "host", originHost,
+                    "uri", originUri);
+        }
 
         HttpHeaders headers = extractor.extractHttpHeaders(request);
         HttpMethod method = extractor.extractHttpMethod(request);
@@ -92,18 +110,28 @@ public class ReverseProxyFilter extends OncePerRequestFilter {
         // 路由映射表为空
         if (mapping == null) {
             traceInterceptor.onNoMappingFound(traceId, method, originHost, originUri, headers);
+            routeMetricsProvider.onNoMappingFound();
 
-            log.debug(String.format("Forwarding: %s %s %s -> no mapping found", method, originHost, originUri));
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Forwarding: %s %s %s -> no mapping found", method, originHost, originUri));
+            }
 
             response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
             response.getWriter().println("Unsupported domain");
             return;
-        } else {
+        } else if (log.isDebugEnabled()) {
             // mapping.getDestinations（） ： 将要请求的目的主机
             log.debug(String.format("Forwarding: %s %s %s -> %s", method, originHost, originUri, mapping.getDestinations()));
         }
 
-        byte[] body = extractor.extractBody(request);
+        // 异步转发优先于流式转发（异步转发需要完整的请求体）
+        boolean async = faradayProperties.getAsync().isEnabled() && request.isAsyncSupported();
+        boolean streaming = !async && faradayProperties.getStreaming().isEnabled();
+        // 流式转发时只有截获器显式声明需要时才把请求体读入内存
+        byte[] body = null;
+        if (!streaming || requiresRequestBody(traceId, mapping)) {
+            body = extractor.extractBody(request);
+        }
         // 转发头
         addForwardHeaders(request, headers);
 
@@ -114,37 +142,144 @@ public class ReverseProxyFilter extends OncePerRequestFilter {
         // 需要重定向
         if (dataToForward.isNeedRedirect() && !isBlank(dataToForward.getRedirectUrl())) {
             log.debug(String.format("Redirecting to -> %s", dataToForward.getRedirectUrl()));
+            routeMetricsProvider.getMetrics(mapping).onRedirect();
             // 重定向
             response.sendRedirect(dataToForward.getRedirectUrl());
             return;
         }
+        // 请求截获器已给出响应（例如命中响应缓存），不再转发
+        if (dataToForward.getResponse() != null) {
+            log.debug(String.format("Forwarding: %s %s %s -> answered by interceptor %d", method, originHost, originUri,
+                    dataToForward.getResponse().getStatusCodeValue()));
+            this.processResponse(request, response, dataToForward.getResponse());
+            return;
+        }
+        if (async) {
+            // 异步转发，等待上游响应期间释放容器工作线程
+            forwardAsync(request, response, dataToForward, traceId, mapping);
+            return;
+        }
+        if (streaming && !requiresResponseBody(traceId, dataToForward, mapping)) {
+            // 流式转发，响应直接写入servlet输出流
+            requestForwarder.forwardHttpRequest(dataToForward, traceId, mapping, response);
+            return;
+        }
+        if (dataToForward.getBody() == null) {
+            dataToForward.setBody(extractor.extractBody(request));
+        }
         // 返回响应实体（在请求转发器中转发）
         ResponseEntity<byte[]> responseEntity =
                 requestForwarder.forwardHttpRequest(dataToForward, traceId, mapping);
-        this.processResponse(response, responseEntity);
+        this.processResponse(request, response, responseEntity);
     }
 
-    protected void addForwardHeaders(HttpServletRequest request, HttpHeaders headers) {
-        List<String> forwordedFor = headers.get(X_FORWARDED_FOR_HEADER);
-        if (isEmpty(forwordedFor)) {
-            forwordedFor = new ArrayList<>(1);
+    /**
+     * 异步转发
+     * 上游响应完成后切换回容器线程写出响应，失败时分派到错误页面
+     *
+     * @param request
+     * @param response
+     * @param dataToForward
+     * @param traceId
+     * @param mapping
+     */
+    protected void forwardAsync(HttpServletRequest request, HttpServletResponse response,
+                                RequestData dataToForward, String traceId, MappingProperties mapping) {
+        AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(faradayProperties.getAsync().getTimeout());
+        // 上游响应和异步请求超时只能有一个结束该异步请求
+        AtomicBoolean finished = new AtomicBoolean();
+        CompletableFuture<ResponseEntity<byte[]>> forwarded =
+                requestForwarder.forwardHttpRequestAsync(dataToForward, traceId, mapping);
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                if (finished.compareAndSet(false, true)) {
+                    forwarded.cancel(false);
+                    dispatchError(asyncContext, new FaradayException("Timeout forwarding HTTP request to mapping " + mapping.getName()));
+                }
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+        forwarded.whenComplete((responseEntity, e) -> {
+            if (finished.compareAndSet(false, true)) {
+                asyncContext.start(() -> completeAsync(asyncContext, responseEntity, e));
+            }
+        });
+    }
+
+    protected void completeAsync(AsyncContext asyncContext, ResponseEntity<byte[]> responseEntity, Throwable failure) {
+        if (failure != null) {
+            dispatchError(asyncContext, failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure);
+            return;
         }
-        forwordedFor.add(request.getRemoteAddr());
-        headers.put(X_FORWARDED_FOR_HEADER, forwordedFor);
+        try {
+            processResponse((HttpServletRequest) asyncContext.getRequest(), (HttpServletResponse) asyncContext.getResponse(), responseEntity);
+        } catch (Exception e) {
+            log.warn("Error completing async HTTP response", "error", e);
+        } finally {
+            asyncContext.complete();
+        }
+    }
+
+    /**
+     * 异步请求中抛出的异常无法传递到容器，这里按照容器处理异常的方式分派到错误页面
+     *
+     * @param asyncContext
+     * @param failure
+     */
+    protected void dispatchError(AsyncContext asyncContext, Throwable failure) {
+        asyncContext.getRequest().setAttribute(ERROR_EXCEPTION, failure);
+        asyncContext.getRequest().setAttribute(ERROR_STATUS_CODE, HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        ((HttpServletResponse) asyncContext.getResponse()).setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        asyncContext.dispatch("/error");
+    }
+
+    protected boolean requiresRequestBody(String traceId, MappingProperties mapping) {
+        return traceInterceptor.isSampled(traceId) || preForwardRequestInterceptor.requiresRequestBody(mapping);
+    }
+
+    protected boolean requiresResponseBody(String traceId, RequestData data, MappingProperties mapping) {
+        return traceInterceptor.isSampled(traceId) || requestForwarder.requiresResponseBody(data, mapping);
+    }
+
+    protected void addForwardHeaders(HttpServletRequest request, HttpHeaders headers) {
+        // 追加到已有的X-Forwarded-For之后（请求头视图返回的值列表不可修改）
+        headers.add(X_FORWARDED_FOR_HEADER, request.getRemoteAddr());
         headers.set(X_FORWARDED_PROTO_HEADER, request.getScheme());
         headers.set(X_FORWARDED_HOST_HEADER, request.getServerName());
         headers.set(X_FORWARDED_PORT_HEADER, valueOf(request.getServerPort()));
     }
 
 
-    protected void processResponse(HttpServletResponse response, ResponseEntity<byte[]> responseEntity) {
-        response.setStatus(responseEntity.getStatusCode().value());
-        responseEntity.getHeaders().forEach((name, values) ->
-                values.forEach(value -> response.addHeader(name, value))
-        );
-        if (responseEntity.getBody() != null) {
+    protected void processResponse(HttpServletRequest request, HttpServletResponse response, ResponseEntity<byte[]> responseEntity) {
+        byte[] body = responseEntity.getBody();
+        // 按客户端的Accept-Encoding压缩响应体，非标准状态码（getStatusCode会抛出异常）不压缩
+        HttpStatus status = HttpStatus.resolve(responseEntity.getStatusCodeValue());
+        ContentEncoder encoder = body == null || status == null ? null
+                : responseCompressor.negotiate(request, status, responseEntity.getHeaders(), body.length);
+        response.setStatus(responseEntity.getStatusCodeValue());
+        responseCompressor.writeHeaders(response, responseEntity.getHeaders(), encoder);
+        if (body != null) {
             try {
-                response.getOutputStream().write(responseEntity.getBody());
+                if (encoder == null) {
+                    response.getOutputStream().write(body);
+                } else {
+                    try (OutputStream out = encoder.encode(response.getOutputStream())) {
+                        out.write(body);
+                    }
+                }
             } catch (IOException e) {
                 throw new FaradayException("Error writing body of HTTP response", e);
             }
@@ -0,0 +1,203 @@
+package xyz.staffjoy.faraday.core.http;
+
+import org.springframework.util.LinkedCaseInsensitiveMap;
+import org.springframework.util.MultiValueMap;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/*
+ *
+ * servlet请求头视图
+ * 读取时直接访问servlet请求，不复制请求头；修改（添加、覆盖、删除）记录在按需创建的覆盖表中
+ * 通过new HttpHeaders(headers)包装后在转发流程中使用，请求头名称不区分大小写
+ * 返回的值列表不可修改，修改请求头必须通过add/set/put/remove
+ *
+ */
+public class ServletRequestHeaders extends AbstractMap<String, List<String>> implements MultiValueMap<String, String> {
+
+    // 覆盖表中表示请求头已被删除
+    private static final List<String> REMOVED = Collections.emptyList();
+
+    private final HttpServletRequest request;
+    // <请求头名称,修改后的值>，第一次修改时才创建
+    private Map<String, List<String>> changes;
+
+    public ServletRequestHeaders(HttpServletRequest request) {
+        this.request = request;
+    }
+
+    @Override
+    public String getFirst(String name) {
+        List<String> changed = getChanged(name);
+        if (changed != null) {
+            return changed == REMOVED || changed.isEmpty() ? null : changed.get(0);
+        }
+        return request.getHeader(name);
+    }
+
+    @Override
+    public List<String> get(Object name) {
+        if (!(name instanceof String)) {
+            return null;
+        }
+        List<String> changed = getChanged((String) name);
+        if (changed != null) {
+            return changed == REMOVED ? null : Collections.unmodifiableList(changed);
+        }
+        return getServletHeader((String) name);
+    }
+
+    @Override
+    public boolean containsKey(Object name) {
+        if (!(name instanceof String)) {
+            return false;
+        }
+        List<String> changed = getChanged((String) name);
+        if (changed != null) {
+            return changed != REMOVED;
+        }
+        return request.getHeader((String) name) != null;
+    }
+
+    @Override
+    public List<String> put(String name, List<String> values) {
+        List<String> previous = get(name);
+        changes().put(name, new ArrayList<>(values));
+        return previous;
+    }
+
+    @Override
+    public List<String> remove(Object name) {
+        if (!containsKey(name)) {
+            return null;
+        }
+        List<String> previous = get(name);
+        changes().put((String) name, REMOVED);
+        return previous;
+    }
+
+    @Override
+    public void add(String name, String value) {
+        List<String> current = get(name);
+        List<String> values = new ArrayList<>(current == null ? 1 : current.size() + 1);
+        if (current != null) {
+            values.addAll(current);
+        }
+        values.add(value);
+        changes().put(name, values);
+    }
+
+    @Override
+    public void addAll(String name, List<? extends String> values) {
+        List<String> current = get(name);
+        List<String> merged = new ArrayList<>(current == null ? values.size() : current.size() + values.size());
+        if (current != null) {
+            merged.addAll(current);
+        }
+        merged.addAll(values);
+        changes().put(name, merged);
+    }
+
+    @Override
+    public void addAll(MultiValueMap<String, String> values) {
+        values.forEach(this::addAll);
+    }
+
+    @Override
+    public void set(String name, String value) {
+        List<String> values = new ArrayList<>(1);
+        values.add(value);
+        changes().put(name, values);
+    }
+
+    @Override
+    public void setAll(Map<String, String> values) {
+        values.forEach(this::set);
+    }
+
+    @Override
+    public Map<String, String> toSingleValueMap() {
+        Map<String, String> singleValueMap = new LinkedCaseInsensitiveMap<>();
+        forEach((name, values) -> singleValueMap.put(name, values.isEmpty() ? null : values.get(0)));
+        return singleValueMap;
+    }
+
+    @Override
+    public void clear() {
+        Enumeration<String> names = request.getHeaderNames();
+        while (names.hasMoreElements()) {
+            changes().put(names.nextElement(), REMOVED);
+        }
+        changes.replaceAll((name, values) -> REMOVED);
+    }
+
+    /**
+     * 按servlet请求头的顺序遍历（新增的请求头在最后），不创建中间的Map
+     *
+     * @param action
+     */
+    @Override
+    public void forEach(BiConsumer<? super String, ? super List<String>> action) {
+        Enumeration<String> names = request.getHeaderNames();
+        while (names.hasMoreElements()) {
+            String name = names.nextElement();
+            List<String> changed = getChanged(name);
+            if (changed == null) {
+                action.accept(name, getServletHeader(name));
+            } else if (changed != REMOVED) {
+                action.accept(name, Collections.unmodifiableList(changed));
+            }
+        }
+        if (changes != null) {
+            changes.forEach((name, values) -> {
+                if (values != REMOVED && request.getHeader(name) == null) {
+                    action.accept(name, Collections.unmodifiableList(values));
+                }
+            });
+        }
+    }
+
+    @Override
+    public Set<Entry<String, List<String>>> entrySet() {
+        Map<String, List<String>> snapshot = new LinkedHashMap<>();
+        forEach(snapshot::put);
+        return Collections.unmodifiableMap(snapshot).entrySet();
+    }
+
+    private List<String> getChanged(String name) {
+        return changes == null ? null : changes.get(name);
+    }
+
+    private Map<String, List<String>> changes() {
+        if (changes == null) {
+            changes = new LinkedCaseInsensitiveMap<>(8);
+        }
+        return changes;
+    }
+
+    private List<String> getServletHeader(String name) {
+        Enumeration<String> values = request.getHeaders(name);
+        if (values == null || !values.hasMoreElements()) {
+            return null;
+        }
+        String first = values.nextElement();
+        if (!values.hasMoreElements()) {
+            return Collections.singletonList(first);
+        }
+        List<String> all = new ArrayList<>(2);
+        all.add(first);
+        while (values.hasMoreElements()) {
+            all.add(values.nextElement());
+        }
+        return Collections.unmodifiableList(all);
+    }
+}
@@ -0,0 +1,52 @@
+package xyz.staffjoy.faraday.core.http;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
+import org.apache.http.protocol.HttpContext;
+import xyz.staffjoy.faraday.core.metrics.RouteMetrics;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+import static java.lang.System.nanoTime;
+
+/*
+ *
+ * 记录建立上游连接耗时的套接字工厂（HTTPS包括TLS握手）
+ * 只有新建连接时才会调用，复用连接池中的连接不计入
+ *
+ */
+public class TimedConnectionSocketFactory implements LayeredConnectionSocketFactory {
+
+    protected final ConnectionSocketFactory delegate;
+    protected final RouteMetrics metrics;
+
+    public TimedConnectionSocketFactory(ConnectionSocketFactory delegate, RouteMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Socket createSocket(HttpContext context) throws IOException {
+        return delegate.createSocket(context);
+    }
+
+    @Override
+    public Socket connectSocket(int connectTimeout, Socket socket, HttpHost host, InetSocketAddress remoteAddress,
+                                InetSocketAddress localAddress, HttpContext context) throws IOException {
+        long startingTime = nanoTime();
+        Socket connected = delegate.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+        metrics.recordConnect(nanoTime() - startingTime);
+        return connected;
+    }
+
+    @Override
+    public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context) throws IOException {
+        if (!(delegate instanceof LayeredConnectionSocketFactory)) {
+            throw new UnsupportedOperationException("Layered sockets are not supported by " + delegate);
+        }
+        return ((LayeredConnectionSocketFactory) delegate).createLayeredSocket(socket, target, port, context);
+    }
+}
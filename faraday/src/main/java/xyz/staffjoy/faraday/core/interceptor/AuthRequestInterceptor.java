@@ -32,6 +32,8 @@ public class AuthRequestInterceptor implements PreForwardRequestInterceptor {
     // 签名密钥
     private final String signingSecret;
     private final EnvConfig envConfig;
+    // 已校验的会话，避免同一个cookie每次请求都重新校验签名和解码声明
+    private final SessionCache<Session> sessionCache;
 
     // 使用map进行固定时间查找。value不重要
     // 假设这些应该是普遍唯一的，所以我们不必受env的限制
@@ -40,8 +42,18 @@ public class AuthRequestInterceptor implements PreForwardRequestInterceptor {
     }};
 
     public AuthRequestInterceptor(String signingSecret, EnvConfig envConfig) {
+        this(signingSecret, envConfig, 0);
+    }
+
+    /**
+     * @param signingSecret
+     * @param envConfig
+     * @param sessionCacheSize 最多缓存的已校验会话数量，0表示不缓存
+     */
+    public AuthRequestInterceptor(String signingSecret, EnvConfig envConfig, int sessionCacheSize) {
         this.signingSecret = signingSecret;
         this.envConfig = envConfig;
+        this.sessionCache = new SessionCache<>(sessionCacheSize);
     }
 
     @Override
@@ -167,13 +179,19 @@ public class AuthRequestInterceptor implements PreForwardRequestInterceptor {
     private Session getSession(HttpServletRequest request) {
         String token = Sessions.getToken(request);
         if (token == null) return null;
+        Session session = sessionCache.get(token);
+        if (session != null) return session;
         try {
             // 解码后的JWT
             DecodedJWT decodedJWT = Sign.verifySessionToken(token, signingSecret);
             String userId = decodedJWT.getClaim(Sign.CLAIM_USER_ID).asString();
             boolean support = decodedJWT.getClaim(Sign.CLAIM_SUPPORT).asBoolean();
             // 创建Session
-            Session session = Session.builder().userId(userId).support(support).build();
+            session = Session.builder().userId(userId).support(support).build();
+            // 没有过期时间的令牌不缓存
+            if (decodedJWT.getExpiresAt() != null) {
+                sessionCache.put(token, session, decodedJWT.getExpiresAt().getTime());
+            }
             return session;
         } catch (Exception e) {
             log.error("fail to verify token", "token", token, e);
@@ -0,0 +1,34 @@
+package xyz.staffjoy.faraday.core.interceptor;
+
+import xyz.staffjoy.faraday.config.MappingProperties;
+import xyz.staffjoy.faraday.core.http.RequestData;
+import xyz.staffjoy.faraday.core.http.ResponseData;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ *
+ * 按顺序执行多个响应截获器
+ *
+ */
+public class CompositePostForwardResponseInterceptor implements PostForwardResponseInterceptor {
+
+    private final List<PostForwardResponseInterceptor> interceptors;
+
+    public CompositePostForwardResponseInterceptor(List<PostForwardResponseInterceptor> interceptors) {
+        this.interceptors = new ArrayList<>(interceptors);
+    }
+
+    @Override
+    public void intercept(ResponseData data, MappingProperties mapping) {
+        for (PostForwardResponseInterceptor interceptor : interceptors) {
+            interceptor.intercept(data, mapping);
+        }
+    }
+
+    @Override
+    public boolean requiresResponseBody(RequestData data, MappingProperties mapping) {
+        return interceptors.stream().anyMatch(interceptor -> interceptor.requiresResponseBody(data, mapping));
+    }
+}
@@ -0,0 +1,37 @@
+package xyz.staffjoy.faraday.core.interceptor;
+
+import xyz.staffjoy.faraday.config.MappingProperties;
+import xyz.staffjoy.faraday.core.http.RequestData;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ *
+ * 按顺序执行多个请求截获器
+ * 某个截获器要求重定向或已给出响应后，不再执行后面的截获器
+ *
+ */
+public class CompositePreForwardRequestInterceptor implements PreForwardRequestInterceptor {
+
+    private final List<PreForwardRequestInterceptor> interceptors;
+
+    public CompositePreForwardRequestInterceptor(List<PreForwardRequestInterceptor> interceptors) {
+        this.interceptors = new ArrayList<>(interceptors);
+    }
+
+    @Override
+    public void intercept(RequestData data, MappingProperties mapping) {
+        for (PreForwardRequestInterceptor interceptor : interceptors) {
+            interceptor.intercept(data, mapping);
+            if (data.isNeedRedirect() || data.getResponse() != null) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public boolean requiresRequestBody(MappingProperties mapping) {
+        return interceptors.stream().anyMatch(interceptor -> interceptor.requiresRequestBody(mapping));
+    }
+}
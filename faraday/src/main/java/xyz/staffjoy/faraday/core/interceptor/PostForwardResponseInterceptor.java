@@ -1,8 +1,20 @@
 package xyz.staffjoy.faraday.core.interceptor;
 
 import xyz.staffjoy.faraday.config.MappingProperties;
+import xyz.staffjoy.faraday.core.http.RequestData;
 import xyz.staffjoy.faraday.core.http.ResponseData;
 
 public interface PostForwardResponseInterceptor {
     void intercept(ResponseData data, MappingProperties mapping);
+
+    /**
+     * 流式转发时响应体不会被读入内存（ResponseData.getBody()为null），确实需要读取响应体的截获器必须显式声明
+     *
+     * @param data
+     * @param mapping
+     * @return
+     */
+    default boolean requiresResponseBody(RequestData data, MappingProperties mapping) {
+        return false;
+    }
 }
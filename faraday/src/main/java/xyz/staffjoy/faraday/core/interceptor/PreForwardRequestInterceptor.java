@@ -5,4 +5,14 @@ import xyz.staffjoy.faraday.core.http.RequestData;
 
 public interface PreForwardRequestInterceptor {
     void intercept(RequestData data, MappingProperties mapping);
+
+    /**
+     * 流式转发时请求体默认不会被读入内存，确实需要读取请求体的截获器必须显式声明
+     *
+     * @param mapping
+     * @return
+     */
+    default boolean requiresRequestBody(MappingProperties mapping) {
+        return false;
+    }
 }
@@ -0,0 +1,121 @@
+package xyz.staffjoy.faraday.core.interceptor;
+
+import com.github.structlog4j.ILogger;
+import com.github.structlog4j.SLoggerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import xyz.staffjoy.common.auth.AuthConstant;
+import xyz.staffjoy.faraday.config.FaradayProperties;
+import xyz.staffjoy.faraday.config.MappingProperties;
+import xyz.staffjoy.faraday.core.http.RequestData;
+import xyz.staffjoy.faraday.core.limiter.RateLimiter;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import static java.lang.System.nanoTime;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.springframework.http.HttpHeaders.RETRY_AFTER;
+
+/*
+ *
+ * 限流截获器
+ * 按映射和当前用户（匿名请求按客户端地址）限流，超出速率时直接返回429，不再转发
+ * 客户端地址取X-Forwarded-For中可信代理之前的地址，经过负载均衡器的匿名请求不会共用同一个令牌桶
+ * 必须在AuthRequestInterceptor之后执行，当前用户请求头由授权截获器设置
+ *
+ */
+public class RateLimitInterceptor implements PreForwardRequestInterceptor {
+
+    private static final ILogger log = SLoggerFactory.getLogger(RateLimitInterceptor.class);
+
+    private static final byte[] TOO_MANY_REQUESTS_BODY = "Too many requests".getBytes(UTF_8);
+    private static final String X_FORWARDED_FOR_HEADER = "X-Forwarded-For";
+
+    protected final FaradayProperties faradayProperties;
+    protected final RateLimiter rateLimiter;
+    protected final Optional<MeterRegistry> meterRegistry;
+    protected final Pattern trustedProxies;
+
+    public RateLimitInterceptor(FaradayProperties faradayProperties, RateLimiter rateLimiter, Optional<MeterRegistry> meterRegistry) {
+        this.faradayProperties = faradayProperties;
+        this.rateLimiter = rateLimiter;
+        this.meterRegistry = meterRegistry;
+        this.trustedProxies = Pattern.compile(faradayProperties.getRateLimiter().getTrustedProxies());
+    }
+
+    @Override
+    public void intercept(RequestData data, MappingProperties mapping) {
+        MappingProperties.RateLimitProperties rateLimit = mapping.getRateLimit();
+        if (!rateLimit.isEnabled() || data.isNeedRedirect()) {
+            return;
+        }
+        String key = resolveKey(data, mapping);
+        long waitTime = rateLimiter.tryAcquire(key, rateLimit.getPermitsPerSecond(), rateLimit.getBurst(), nanoTime());
+        if (waitTime == 0) {
+            return;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Rate limit exceeded", "mapping", mapping.getName(), "key", key);
+        }
+        meterRegistry.ifPresent(registry -> registry.counter(faradayProperties.getMetrics().getNamesPrefix() + "."
+                + mapping.getName() + ".rate-limited").increment());
+        data.setResponse(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(RETRY_AFTER, String.valueOf(Math.max(1, SECONDS.convert(waitTime + SECONDS.toNanos(1) - 1, NANOSECONDS))))
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(TOO_MANY_REQUESTS_BODY));
+    }
+
+    /**
+     * 限流键：映射名称和当前用户ID，匿名请求使用客户端地址
+     *
+     * @param data
+     * @param mapping
+     * @return
+     */
+    protected String resolveKey(RequestData data, MappingProperties mapping) {
+        String userId = data.getHeaders().getFirst(AuthConstant.CURRENT_USER_HEADER);
+        if (userId != null) {
+            return mapping.getName() + "|user|" + userId;
+        }
+        return mapping.getName() + "|addr|" + resolveClientAddress(data);
+    }
+
+    /**
+     * 客户端地址：直接连接的地址不可信时就是客户端地址，否则从右向左跳过X-Forwarded-For中的可信代理
+     * 第一个不可信的地址是客户端地址，更左边的地址可能是客户端伪造的；全部可信时取最左边的地址
+     *
+     * @param data
+     * @return
+     */
+    protected String resolveClientAddress(RequestData data) {
+        String client = data.getOriginRequest().getRemoteAddr();
+        if (client == null || !trustedProxies.matcher(client).matches()) {
+            return client;
+        }
+        List<String> forwardedFor = data.getHeaders().get(X_FORWARDED_FOR_HEADER);
+        if (forwardedFor == null) {
+            return client;
+        }
+        // ReverseProxyFilter已把直接连接的地址追加到末尾，它是可信代理，会被跳过
+        for (int i = forwardedFor.size() - 1; i >= 0; i--) {
+            String[] addresses = forwardedFor.get(i).split(",");
+            for (int j = addresses.length - 1; j >= 0; j--) {
+                String address = addresses[j].trim();
+                if (address.isEmpty()) {
+                    continue;
+                }
+                client = address;
+                if (!trustedProxies.matcher(address).matches()) {
+                    return client;
+                }
+            }
+        }
+        return client;
+    }
+}
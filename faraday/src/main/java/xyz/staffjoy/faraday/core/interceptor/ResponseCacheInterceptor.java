@@ -0,0 +1,243 @@
+package xyz.staffjoy.faraday.core.interceptor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import xyz.staffjoy.common.auth.AuthConstant;
+import xyz.staffjoy.faraday.config.FaradayProperties;
+import xyz.staffjoy.faraday.config.MappingProperties;
+import xyz.staffjoy.faraday.core.cache.CachedResponse;
+import xyz.staffjoy.faraday.core.cache.ResponseCache;
+import xyz.staffjoy.faraday.core.http.RequestData;
+import xyz.staffjoy.faraday.core.http.RequestForwarder;
+import xyz.staffjoy.faraday.core.http.ResponseData;
+import xyz.staffjoy.faraday.core.http.UnmodifiableRequestData;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+import static java.lang.System.currentTimeMillis;
+import static org.springframework.http.HttpHeaders.*;
+
+/*
+ *
+ * 响应缓存截获器
+ * 转发前查找缓存，命中时直接给出响应（If-None-Match匹配时返回304）；转发后按上游Cache-Control保存可缓存的GET响应
+ * 缓存键包括映射、URI、授权级别和当前用户ID，因此不同用户之间不会共享响应
+ * 必须在AuthRequestInterceptor之后执行，缓存只能跳过转发而不能跳过授权检查
+ *
+ */
+public class ResponseCacheInterceptor implements PreForwardRequestInterceptor, PostForwardResponseInterceptor {
+
+    protected final FaradayProperties faradayProperties;
+    protected final ResponseCache responseCache;
+    protected final Optional<MeterRegistry> meterRegistry;
+
+    public ResponseCacheInterceptor(FaradayProperties faradayProperties,
+                                    ResponseCache responseCache,
+                                    Optional<MeterRegistry> meterRegistry) {
+        this.faradayProperties = faradayProperties;
+        this.responseCache = responseCache;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void intercept(RequestData data, MappingProperties mapping) {
+        if (!mapping.getCache().isEnabled() || data.isNeedRedirect()) {
+            return;
+        }
+        HttpMethod method = data.getMethod();
+        if (method != HttpMethod.GET) {
+            // 非安全请求可能修改了资源，删除同一URI下的缓存响应
+            if (method != HttpMethod.HEAD && method != HttpMethod.OPTIONS && method != HttpMethod.TRACE) {
+                responseCache.invalidate(resolveKey(data, mapping));
+            }
+            return;
+        }
+        CacheControl requestCacheControl = CacheControl.parse(data.getHeaders());
+        if (requestCacheControl.noCache || requestCacheControl.noStore) {
+            return;
+        }
+        CachedResponse cached = responseCache.get(resolveKey(data, mapping), data.getHeaders());
+        recordLookup(mapping, cached != null);
+        if (cached != null) {
+            data.setResponse(createResponse(cached, data.getHeaders()));
+        }
+    }
+
+    @Override
+    public void intercept(ResponseData data, MappingProperties mapping) {
+        UnmodifiableRequestData request = data.getRequestData();
+        if (!mapping.getCache().isEnabled() || request.getMethod() != HttpMethod.GET || data.getStatus() != HttpStatus.OK) {
+            return;
+        }
+        HttpHeaders headers = data.getHeaders();
+        // 上游编码过的响应体取决于请求的Accept-Encoding，不缓存；未编码的响应由网关按客户端压缩
+        if (headers.containsKey(SET_COOKIE) || headers.containsKey(CONTENT_ENCODING)
+                || CacheControl.parse(request.getHeaders()).noStore) {
+            return;
+        }
+        CacheControl cacheControl = CacheControl.parse(headers);
+        long maxAge = cacheControl.sMaxAge >= 0 ? cacheControl.sMaxAge : cacheControl.maxAge;
+        // 私有响应只对已登录用户缓存（缓存键包含用户ID）
+        boolean anonymous = request.getHeaders().getFirst(AuthConstant.CURRENT_USER_HEADER) == null;
+        if (cacheControl.noStore || cacheControl.noCache || (cacheControl.isPrivate && anonymous) || maxAge <= 0) {
+            return;
+        }
+        List<String> varyHeaders = parseVary(headers);
+        if (varyHeaders.contains("*")) {
+            return;
+        }
+        long initialAge = parseAge(headers);
+        if (initialAge >= maxAge) {
+            return;
+        }
+        HttpHeaders cachedHeaders = new HttpHeaders();
+        cachedHeaders.putAll(headers);
+        RequestForwarder.UNFORWARDED_RESPONSE_HEADERS.forEach(cachedHeaders::remove);
+        cachedHeaders.remove(AGE);
+        long now = currentTimeMillis();
+        CachedResponse cached = new CachedResponse(data.getStatus(), cachedHeaders, data.getBody(),
+                initialAge, now, now + (maxAge - initialAge) * 1000);
+        responseCache.put(resolveKey(request, mapping), varyHeaders, request.getHeaders(), cached);
+    }
+
+    @Override
+    public boolean requiresResponseBody(RequestData data, MappingProperties mapping) {
+        return mapping.getCache().isEnabled() && data.getMethod() == HttpMethod.GET;
+    }
+
+    /**
+     * 缓存键：映射名称、URI、授权级别和当前用户ID
+     *
+     * @param data
+     * @param mapping
+     * @return
+     */
+    protected String resolveKey(UnmodifiableRequestData data, MappingProperties mapping) {
+        HttpHeaders headers = data.getHeaders();
+        return mapping.getName() + ' ' + data.getUri()
+                + ' ' + headers.getFirst(AuthConstant.AUTHORIZATION_HEADER)
+                + ' ' + headers.getFirst(AuthConstant.CURRENT_USER_HEADER);
+    }
+
+    protected ResponseEntity<byte[]> createResponse(CachedResponse cached, HttpHeaders requestHeaders) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(cached.getHeaders());
+        headers.set(AGE, String.valueOf(cached.getAge(currentTimeMillis())));
+        if (cached.getEtag() != null && matchesEtag(requestHeaders.getIfNoneMatch(), cached.getEtag())) {
+            headers.remove(CONTENT_LENGTH);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
+        return ResponseEntity.status(cached.getStatus()).headers(headers).body(cached.getBody());
+    }
+
+    /**
+     * If-None-Match使用弱比较
+     *
+     * @param ifNoneMatch
+     * @param etag
+     * @return
+     */
+    protected boolean matchesEtag(List<String> ifNoneMatch, String etag) {
+        String opaqueTag = stripWeakPrefix(etag);
+        for (String candidate : ifNoneMatch) {
+            if ("*".equals(candidate) || opaqueTag.equals(stripWeakPrefix(candidate))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeakPrefix(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static List<String> parseVary(HttpHeaders headers) {
+        List<String> vary = headers.getVary();
+        if (vary.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> names = new ArrayList<>(vary.size());
+        for (String name : vary) {
+            names.add(name.trim().toLowerCase(Locale.ROOT));
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    private static long parseAge(HttpHeaders headers) {
+        try {
+            String age = headers.getFirst(AGE);
+            return age == null ? 0 : Math.max(0, Long.parseLong(age.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private void recordLookup(MappingProperties mapping, boolean hit) {
+        meterRegistry.ifPresent(registry -> registry.counter(faradayProperties.getMetrics().getNamesPrefix() + "."
+                + mapping.getName() + (hit ? ".cache.hit" : ".cache.miss")).increment());
+    }
+
+    /**
+     * 与缓存有关的Cache-Control指令
+     */
+    private static class CacheControl {
+        private boolean noStore;
+        private boolean noCache;
+        private boolean isPrivate;
+        private long maxAge = -1;
+        private long sMaxAge = -1;
+
+        private static CacheControl parse(HttpHeaders headers) {
+            CacheControl cacheControl = new CacheControl();
+            List<String> values = headers.get(CACHE_CONTROL);
+            if (values == null) {
+                return cacheControl;
+            }
+            for (String value : values) {
+                for (String directive : value.split(",")) {
+                    String[] nameValue = directive.trim().split("=", 2);
+                    String name = nameValue[0].trim().toLowerCase(Locale.ROOT);
+                    switch (name) {
+                        case "no-store":
+                            cacheControl.noStore = true;
+                            break;
+                        case "no-cache":
+                            cacheControl.noCache = true;
+                            break;
+                        case "private":
+                            cacheControl.isPrivate = true;
+                            break;
+                        case "max-age":
+                            cacheControl.maxAge = parseSeconds(nameValue);
+                            break;
+                        case "s-maxage":
+                            cacheControl.sMaxAge = parseSeconds(nameValue);
+                            break;
+                        default:
+                            break;
+                    }
+                }
+            }
+            return cacheControl;
+        }
+
+        private static long parseSeconds(String[] nameValue) {
+            if (nameValue.length < 2) {
+                return -1;
+            }
+            try {
+                return Long.parseLong(nameValue[1].trim().replace("\"", ""));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+    }
+}
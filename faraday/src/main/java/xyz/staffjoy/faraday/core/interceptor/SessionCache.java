@@ -0,0 +1,104 @@
+package xyz.staffjoy.faraday.core.interceptor;
+
+import xyz.staffjoy.faraday.exceptions.FaradayException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.lang.System.currentTimeMillis;
+
+/*
+ *
+ * 已校验会话缓存
+ * 以令牌字符串的SHA-256摘要为键（不在内存中保存令牌本身），条目在令牌过期时间（JWT exp）失效
+ * 缓存满时先清理过期条目，仍然放不下时随机淘汰约十分之一的条目
+ *
+ */
+public class SessionCache<S> {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new FaradayException("SHA-256 message digest is not available", e);
+        }
+    });
+
+    private final int maxEntries;
+    // <令牌摘要,Entry>
+    private final Map<ByteBuffer, Entry<S>> entries = new ConcurrentHashMap<>();
+
+    public SessionCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @param token
+     * @return 没有缓存或已过期时返回null
+     */
+    public S get(String token) {
+        ByteBuffer key = digest(token);
+        Entry<S> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= currentTimeMillis()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.session;
+    }
+
+    /**
+     * @param token
+     * @param session
+     * @param expiresAt 令牌过期时间（毫秒）
+     */
+    public void put(String token, S session, long expiresAt) {
+        if (maxEntries <= 0 || expiresAt <= currentTimeMillis()) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            evict();
+        }
+        entries.put(digest(token), new Entry<>(session, expiresAt));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private void evict() {
+        long now = currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+        int excess = entries.size() - maxEntries + Math.max(1, maxEntries / 10);
+        for (Iterator<ByteBuffer> keys = entries.keySet().iterator(); excess > 0 && keys.hasNext(); excess--) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static ByteBuffer digest(String token) {
+        MessageDigest digest = SHA_256.get();
+        return ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static class Entry<S> {
+        private final S session;
+        private final long expiresAt;
+
+        private Entry(S session, long expiresAt) {
+            this.session = session;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package xyz.staffjoy.faraday.core.limiter;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ *
+ * 令牌桶限流器（GCRA，通用信元速率算法）
+ * 每个限流键只保存一个“理论到达时间”（TAT），请求到达时用CAS把TAT推后一个发放间隔，不需要加锁也不需要后台补充令牌
+ * 限流键分散在ConcurrentHashMap中，不同键之间没有竞争
+ * TAT早于当前时间的键令牌桶已满，与不存在等价，键数量超出上限时优先清理这些键
+ *
+ */
+public class RateLimiter {
+
+    private final int maxKeys;
+    // <限流键,理论到达时间（纳秒）>
+    private final Map<String, AtomicLong> arrivals = new ConcurrentHashMap<>();
+    // 同一时间只有一个线程清理
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    public RateLimiter(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * 申请一个许可
+     *
+     * @param key
+     * @param permitsPerSecond 长期允许的速率
+     * @param burst            一次最多允许的请求数
+     * @param now              当前时间（纳秒，System.nanoTime）
+     * @return 获得许可时返回0，否则返回需要等待的纳秒数
+     */
+    public long tryAcquire(String key, double permitsPerSecond, int burst, long now) {
+        long interval = (long) (1_000_000_000L / permitsPerSecond);
+        long tolerance = interval * Math.max(1, burst);
+        AtomicLong arrival = arrivals.get(key);
+        if (arrival == null) {
+            if (arrivals.size() >= maxKeys) {
+                evict(now);
+            }
+            arrival = arrivals.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        for (;;) {
+            long tat = arrival.get();
+            long newTat = Math.max(tat, now) + interval;
+            long waitTime = newTat - now - tolerance;
+            if (waitTime > 0) {
+                return waitTime;
+            }
+            if (arrival.compareAndSet(tat, newTat)) {
+                return 0;
+            }
+        }
+    }
+
+    public int size() {
+        return arrivals.size();
+    }
+
+    private void evict(long now) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            arrivals.values().removeIf(arrival -> arrival.get() <= now);
+            // 仍然超出时淘汰约十分之一的键（这些键的令牌桶重新装满）
+            int excess = arrivals.size() - maxKeys + Math.max(1, maxKeys / 10);
+            for (Iterator<String> keys = arrivals.keySet().iterator(); excess > 0 && keys.hasNext(); excess--) {
+                keys.next();
+                keys.remove();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package xyz.staffjoy.faraday.core.mappings;
+
+import com.github.structlog4j.ILogger;
+import com.github.structlog4j.SLoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.io.ByteArrayResource;
+import xyz.staffjoy.common.services.Service;
+import xyz.staffjoy.common.services.ServiceDirectory;
+import xyz.staffjoy.faraday.config.FaradayProperties;
+import xyz.staffjoy.faraday.config.MappingProperties;
+import xyz.staffjoy.faraday.config.MappingsFileProperties;
+import xyz.staffjoy.faraday.exceptions.FaradayException;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/*
+ *
+ * 路由映射文件监视器
+ * 监视外部YAML文件（例如挂载的ConfigMap），文件内容变化后重新绑定faraday.mappings和staffjoy.services并更新路由映射表
+ * 监视的是文件所在目录：ConfigMap更新时替换的是目录中的符号链接，文件本身不会产生修改事件；内容没有变化时不会更新
+ * 新的映射没有通过校验时保留当前的映射表
+ * 开启程序化映射时，文件中的faraday.mappings与按staffjoy.services生成的映射合并，见ProgrammaticMappingsProvider
+ *
+ */
+public class MappingsFileWatcher implements DisposableBean {
+
+    private static final ILogger log = SLoggerFactory.getLogger(MappingsFileWatcher.class);
+
+    protected final FaradayProperties faradayProperties;
+    protected final MappingsProvider mappingsProvider;
+    protected final Path path;
+    // 文件中没有faraday.mappings时使用的映射（application.yml中配置的映射）
+    protected final List<MappingProperties> configuredMappings;
+    protected final WatchService watchService;
+    protected final Thread watcher;
+    // 最近一次成功加载的文件内容
+    private byte[] content;
+    private volatile boolean running = true;
+
+    public MappingsFileWatcher(FaradayProperties faradayProperties, MappingsProvider mappingsProvider) {
+        this.faradayProperties = faradayProperties;
+        this.mappingsProvider = mappingsProvider;
+        MappingsFileProperties mappingsFile = faradayProperties.getMappingsFile();
+        if (mappingsFile.getPath() == null) {
+            throw new FaradayException("No path set for mappings file");
+        }
+        this.path = Paths.get(mappingsFile.getPath()).toAbsolutePath();
+        this.configuredMappings = faradayProperties.getMappings();
+        // 启动时文件无效直接失败
+        reload();
+        try {
+            this.watchService = path.getFileSystem().newWatchService();
+            path.getParent().register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        } catch (IOException e) {
+            throw new FaradayException("Error watching mappings file " + path, e);
+        }
+        this.watcher = new Thread(this::watch, "faraday-mappings-watcher");
+        this.watcher.setDaemon(true);
+        this.watcher.start();
+    }
+
+    /**
+     * 重新加载映射文件
+     *
+     * @return 文件内容变化并已更新路由映射表时返回true
+     */
+    protected synchronized boolean reload() {
+        byte[] newContent;
+        try {
+            newContent = Files.readAllBytes(path);
+        } catch (NoSuchFileException e) {
+            log.warn("Mappings file not found, keeping current mappings", "path", path);
+            return false;
+        } catch (IOException e) {
+            throw new FaradayException("Error reading mappings file " + path, e);
+        }
+        if (Arrays.equals(content, newContent)) {
+            return false;
+        }
+        Binder binder = createBinder(newContent);
+        List<MappingProperties> mappings = binder.bind("faraday.mappings", Bindable.listOf(MappingProperties.class))
+                .orElse(configuredMappings);
+        Map<String, Service> services = binder.bind("staffjoy.services", Bindable.mapOf(String.class, Service.class))
+                .orElse(null);
+
+        List<MappingProperties> oldMappings = faradayProperties.getMappings();
+        Map<String, Service> oldServices = ServiceDirectory.getMapping();
+        faradayProperties.setMappings(mappings);
+        ServiceDirectory.update(services);
+        try {
+            mappingsProvider.updateMappings();
+        } catch (RuntimeException e) {
+            faradayProperties.setMappings(oldMappings);
+            ServiceDirectory.update(oldServices);
+            throw e;
+        }
+        content = newContent;
+        log.info("Mappings file loaded", "path", path);
+        return true;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        running = false;
+        watchService.close();
+        watcher.interrupt();
+        watcher.join(SECONDS.toMillis(5));
+    }
+
+    protected Binder createBinder(byte[] content) {
+        try {
+            return new Binder(ConfigurationPropertySources.from(
+                    new YamlPropertySourceLoader().load(path.toString(), new ByteArrayResource(content))));
+        } catch (IOException | RuntimeException e) {
+            throw new FaradayException("Error parsing mappings file " + path, e);
+        }
+    }
+
+    private void watch() {
+        while (running) {
+            try {
+                WatchKey key = watchService.take();
+                // 合并短时间内的一串事件（编辑器保存、符号链接替换）
+                do {
+                    key.pollEvents();
+                    key.reset();
+                    key = watchService.poll(faradayProperties.getMappingsFile().getDebounce(), MILLISECONDS);
+                } while (key != null);
+                reload();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.error("Error reloading mappings file, keeping current mappings", "path", path, "error", e);
+            }
+        }
+    }
+}
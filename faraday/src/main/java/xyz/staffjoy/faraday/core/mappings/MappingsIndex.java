@@ -0,0 +1,79 @@
+package xyz.staffjoy.faraday.core.mappings;
+
+import xyz.staffjoy.faraday.config.MappingProperties;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/*
+ *
+ * 路由索引（不可变）
+ * 按小写host建立的映射索引，精确host优先，其次按最长后缀匹配通配host（例如 *.staffjoy.xyz）
+ *
+ */
+public final class MappingsIndex {
+
+    static final String WILDCARD_PREFIX = "*.";
+
+    private static final MappingsIndex EMPTY = new MappingsIndex(Collections.emptyMap(), Collections.emptyMap());
+
+    // 精确host索引  <小写host,MappingProperties>
+    private final Map<String, MappingProperties> exactHosts;
+    // 通配host索引  <小写后缀（包含开头的点，例如 .staffjoy.xyz）,MappingProperties>
+    private final Map<String, MappingProperties> wildcardSuffixes;
+
+    private MappingsIndex(Map<String, MappingProperties> exactHosts, Map<String, MappingProperties> wildcardSuffixes) {
+        this.exactHosts = exactHosts;
+        this.wildcardSuffixes = wildcardSuffixes;
+    }
+
+    public static MappingsIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 构建路由索引，host相同（忽略大小写）时保留列表中靠前的映射
+     *
+     * @param mappings
+     * @return
+     */
+    public static MappingsIndex build(List<MappingProperties> mappings) {
+        Map<String, MappingProperties> exactHosts = new HashMap<>();
+        Map<String, MappingProperties> wildcardSuffixes = new HashMap<>();
+        for (MappingProperties mapping : mappings) {
+            String host = mapping.getHost().toLowerCase(Locale.ROOT);
+            if (host.startsWith(WILDCARD_PREFIX)) {
+                wildcardSuffixes.putIfAbsent(host.substring(1), mapping);
+            } else {
+                exactHosts.putIfAbsent(host, mapping);
+            }
+        }
+        return new MappingsIndex(exactHosts, wildcardSuffixes);
+    }
+
+    /**
+     * 查找host对应的映射
+     * 精确匹配时不分配对象（host已是小写时toLowerCase直接返回原字符串）
+     *
+     * @param originHost
+     * @return 没有匹配的映射时返回null
+     */
+    public MappingProperties find(String originHost) {
+        String host = originHost.toLowerCase(Locale.ROOT);
+        MappingProperties mapping = exactHosts.get(host);
+        if (mapping != null || wildcardSuffixes.isEmpty()) {
+            return mapping;
+        }
+        // 从最左边的点开始，优先匹配最长的后缀
+        for (int dot = host.indexOf('.'); dot >= 0; dot = host.indexOf('.', dot + 1)) {
+            mapping = wildcardSuffixes.get(host.substring(dot));
+            if (mapping != null) {
+                return mapping;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,22 @@
+package xyz.staffjoy.faraday.core.mappings;
+
+import xyz.staffjoy.faraday.config.MappingProperties;
+
+import java.util.List;
+
+/*
+ *
+ * 路由映射表更新监听器
+ * 新的路由索引发布之后调用，用于清理已删除或已变化映射的状态
+ *
+ */
+@FunctionalInterface
+public interface MappingsListener {
+
+    /**
+     * 路由映射表已更新
+     *
+     * @param mappings 当前的全部映射，未变化的映射仍是原来的实例
+     */
+    void onMappingsUpdated(List<MappingProperties> mappings);
+}
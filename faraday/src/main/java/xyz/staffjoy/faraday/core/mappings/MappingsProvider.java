@@ -10,10 +10,12 @@ import xyz.staffjoy.faraday.core.http.HttpClientProvider;
 import javax.annotation.PostConstruct;
 import javax.servlet.http.HttpServletRequest;
 import java.util.List;
-import java.util.stream.Collectors;
-
-import static org.springframework.util.CollectionUtils.isEmpty;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 
 /*
  *
@@ -31,7 +33,10 @@ public abstract class MappingsProvider {
     protected final FaradayProperties faradayProperties;
     protected final MappingsValidator mappingsValidator;
     protected final HttpClientProvider httpClientProvider;
-    protected List<MappingProperties> mappings;
+    protected volatile List<MappingProperties> mappings;
+    // 按host建立的路由索引，映射更新时整体替换
+    protected volatile MappingsIndex mappingsIndex = MappingsIndex.empty();
+    protected final List<MappingsListener> listeners = new CopyOnWriteArrayList<>();
 
     public MappingsProvider(
             ServerProperties serverProperties,
@@ -56,15 +61,8 @@ public abstract class MappingsProvider {
         if (shouldUpdateMappings(request)) {
             updateMappings();
         }
-        List<MappingProperties> resolvedMappings = mappings.stream()
-                // 过滤出Host为originHost的路由映射属性集合
-                // mapping.host ： 映射传入HTTP请求uri的路径。
-                .filter(mapping -> originHost.toLowerCase().equals(mapping.getHost().toLowerCase()))
-                .collect(Collectors.toList());
-        if (isEmpty(resolvedMappings)) {
-            return null;
-        }
-        return resolvedMappings.get(0);
+        // 按host（忽略大小写）查找路由索引，精确host优先于通配host
+        return mappingsIndex.find(originHost);
     }
 
     /**
@@ -75,12 +73,45 @@ public abstract class MappingsProvider {
         // 新映射表
         List<MappingProperties> newMappings = retrieveMappings();
         mappingsValidator.validate(newMappings);
+        newMappings = reuseUnchangedMappings(newMappings);
+        MappingsIndex newMappingsIndex = MappingsIndex.build(newMappings);
         mappings = newMappings;
         // 更新httpClient映射表
         httpClientProvider.updateHttpClients(mappings);
+        // 客户端就绪后再发布新的路由索引
+        mappingsIndex = newMappingsIndex;
+        for (MappingsListener listener : listeners) {
+            listener.onMappingsUpdated(mappings);
+        }
         log.info("Destination mappings updated", mappings);
     }
 
+    /**
+     * 添加路由映射表更新监听器
+     *
+     * @param listener
+     */
+    public void addListener(MappingsListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 属性没有变化的映射沿用原来的实例，HTTP客户端、熔断器等按实例判断映射是否变化
+     *
+     * @param newMappings
+     * @return
+     */
+    protected List<MappingProperties> reuseUnchangedMappings(List<MappingProperties> newMappings) {
+        if (mappings == null) {
+            return newMappings;
+        }
+        Map<String, MappingProperties> oldMappings = mappings.stream()
+                .collect(toMap(MappingProperties::getName, identity()));
+        return newMappings.stream()
+                .map(mapping -> mapping.equals(oldMappings.get(mapping.getName())) ? oldMappings.get(mapping.getName()) : mapping)
+                .collect(toList());
+    }
+
     protected abstract boolean shouldUpdateMappings(HttpServletRequest request);
 
     protected abstract List<MappingProperties> retrieveMappings();
@@ -53,6 +53,12 @@ public class MappingsValidator {
         validateDestinations(mapping);
         validateHost(mapping);
         validateTimeout(mapping);
+        validatePool(mapping);
+        validateLoadBalancing(mapping);
+        validateCircuitBreaker(mapping);
+        validateHttp2(mapping);
+        validateRateLimit(mapping);
+        validateRetry(mapping);
     }
 
     protected void validateName(MappingProperties mapping) {
@@ -84,6 +90,12 @@ public class MappingsValidator {
         if (isBlank(mapping.getHost())) {
             throw new FaradayException("No source host for mapping " + mapping);
         }
+        // 通配host只支持 *.domain 形式
+        String host = mapping.getHost();
+        if (host.contains("*") && (!host.startsWith(MappingsIndex.WILDCARD_PREFIX)
+                || host.lastIndexOf('*') > 0 || host.length() == MappingsIndex.WILDCARD_PREFIX.length())) {
+            throw new FaradayException("Invalid wildcard source host for mapping " + mapping);
+        }
     }
 
     protected void validateTimeout(MappingProperties mapping) {
@@ -96,4 +108,110 @@ public class MappingsValidator {
             throw new FaradayException("Invalid read timeout value: " + readTimeout);
         }
     }
+
+    protected void validatePool(MappingProperties mapping) {
+        int maxTotal = mapping.getPool().getMaxTotal();
+        if (maxTotal <= 0) {
+            throw new FaradayException("Invalid max total connections value: " + maxTotal);
+        }
+        int maxPerRoute = mapping.getPool().getMaxPerRoute();
+        if (maxPerRoute <= 0) {
+            throw new FaradayException("Invalid max connections per route value: " + maxPerRoute);
+        }
+        long idleEvictionTimeout = mapping.getPool().getIdleEvictionTimeout();
+        if (idleEvictionTimeout <= 0) {
+            throw new FaradayException("Invalid idle connections eviction timeout value: " + idleEvictionTimeout);
+        }
+    }
+
+    protected void validateLoadBalancing(MappingProperties mapping) {
+        MappingProperties.LoadBalancingProperties loadBalancing = mapping.getLoadBalancing();
+        if (loadBalancing.getStrategy() == null) {
+            throw new FaradayException("No load balancing strategy for mapping " + mapping);
+        }
+        if (loadBalancing.getConsecutiveFailures() <= 0) {
+            throw new FaradayException("Invalid consecutive failures value: " + loadBalancing.getConsecutiveFailures());
+        }
+        if (loadBalancing.getEjectionTime() < 0) {
+            throw new FaradayException("Invalid ejection time value: " + loadBalancing.getEjectionTime());
+        }
+        if (loadBalancing.getMaxEjectionPercent() < 0 || loadBalancing.getMaxEjectionPercent() > 100) {
+            throw new FaradayException("Invalid max ejection percent value: " + loadBalancing.getMaxEjectionPercent());
+        }
+        if (loadBalancing.getDecayTime() <= 0) {
+            throw new FaradayException("Invalid EWMA decay time value: " + loadBalancing.getDecayTime());
+        }
+    }
+
+    protected void validateCircuitBreaker(MappingProperties mapping) {
+        MappingProperties.CircuitBreakerProperties circuitBreaker = mapping.getCircuitBreaker();
+        if (!circuitBreaker.isEnabled()) {
+            return;
+        }
+        if (circuitBreaker.getFailureRateThreshold() <= 0 || circuitBreaker.getFailureRateThreshold() > 100) {
+            throw new FaradayException("Invalid failure rate threshold value: " + circuitBreaker.getFailureRateThreshold());
+        }
+        if (circuitBreaker.getSlowCallRateThreshold() <= 0 || circuitBreaker.getSlowCallRateThreshold() > 100) {
+            throw new FaradayException("Invalid slow call rate threshold value: " + circuitBreaker.getSlowCallRateThreshold());
+        }
+        if (circuitBreaker.getSlidingWindowSize() <= 0) {
+            throw new FaradayException("Invalid sliding window size value: " + circuitBreaker.getSlidingWindowSize());
+        }
+        if (circuitBreaker.getMinimumNumberOfCalls() <= 0 || circuitBreaker.getMinimumNumberOfCalls() > circuitBreaker.getSlidingWindowSize()) {
+            throw new FaradayException("Invalid minimum number of calls value: " + circuitBreaker.getMinimumNumberOfCalls());
+        }
+        if (circuitBreaker.getPermittedCallsInHalfOpenState() <= 0) {
+            throw new FaradayException("Invalid permitted calls in half-open state value: " + circuitBreaker.getPermittedCallsInHalfOpenState());
+        }
+    }
+
+    protected void validateHttp2(MappingProperties mapping) {
+        if (!mapping.getHttp2().isEnabled()) {
+            return;
+        }
+        // h2c只能用于明文连接
+        mapping.getDestinations().forEach(destination -> {
+            if (!startsWithIgnoreCase(destination, "http://")) {
+                throw new FaradayException("Invalid h2c destination " + destination + " for mapping " + mapping);
+            }
+        });
+    }
+
+    protected void validateRateLimit(MappingProperties mapping) {
+        MappingProperties.RateLimitProperties rateLimit = mapping.getRateLimit();
+        if (!rateLimit.isEnabled()) {
+            return;
+        }
+        if (rateLimit.getPermitsPerSecond() <= 0) {
+            throw new FaradayException("Invalid permits per second value: " + rateLimit.getPermitsPerSecond());
+        }
+        if (rateLimit.getBurst() <= 0) {
+            throw new FaradayException("Invalid burst value: " + rateLimit.getBurst());
+        }
+    }
+
+    protected void validateRetry(MappingProperties mapping) {
+        MappingProperties.RetryProperties retry = mapping.getRetry();
+        if (retry.isEnabled() && retry.getMaxAttempts() <= 0) {
+            throw new FaradayException("Invalid max attempts value: " + retry.getMaxAttempts());
+        }
+        if (retry.isEnabled() || mapping.getHedging().isEnabled()) {
+            if (retry.getBudgetRatio() < 0) {
+                throw new FaradayException("Invalid retry budget ratio value: " + retry.getBudgetRatio());
+            }
+            if (retry.getMinRetriesPerSecond() < 0) {
+                throw new FaradayException("Invalid min retries per second value: " + retry.getMinRetriesPerSecond());
+            }
+        }
+        MappingProperties.HedgingProperties hedging = mapping.getHedging();
+        if (!hedging.isEnabled()) {
+            return;
+        }
+        if (hedging.getPercentile() <= 0 || hedging.getPercentile() > 100) {
+            throw new FaradayException("Invalid hedging percentile value: " + hedging.getPercentile());
+        }
+        if (hedging.getMinDelay() < 0) {
+            throw new FaradayException("Invalid hedging min delay value: " + hedging.getMinDelay());
+        }
+    }
 }
@@ -16,6 +16,7 @@ import java.util.Map;
 /*
  *
  * 程序化路由映射表
+ * faraday.mappings中配置的映射（包括映射文件重新加载的映射）覆盖名称或host相同的生成映射，其余的追加到映射表
  *
  * @Author:Zh1Cheung 945503088@qq.com
  * @Date: 20:16 2019/12/29
@@ -41,7 +42,7 @@ public class ProgrammaticMappingsProvider extends MappingsProvider {
     }
 
     /**
-     * 检索出所有staffjoy服务的映射表
+     * 检索出所有staffjoy服务的映射表，再合并faraday.mappings中配置的映射
      *
      * @return
      */
@@ -62,8 +63,15 @@ public class ProgrammaticMappingsProvider extends MappingsProvider {
             // 后端现在没有安全性
             String dest = "http://" + service.getBackendDomain();
             mapping.setDestinations(Arrays.asList(dest));
+            // 程序化映射没有单独的映射配置，使用全局的限流配置
+            mapping.setRateLimit(faradayProperties.getRateLimiter().getDefaults());
             mappings.add(mapping);
         }
+        for (MappingProperties configured : faradayProperties.getMappings()) {
+            mappings.removeIf(mapping -> mapping.getName().equals(configured.getName())
+                    || mapping.getHost().equalsIgnoreCase(configured.getHost()));
+            mappings.add(configured.copy());
+        }
         return mappings;
     }
 }
@@ -0,0 +1,167 @@
+package xyz.staffjoy.faraday.core.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import xyz.staffjoy.faraday.config.MetricsProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/*
+ *
+ * 一个映射的全部指标
+ * 创建时一次注册，转发路径上直接使用已注册的指标，不再按名称查找
+ *
+ */
+public class RouteMetrics {
+
+    // 没有收到上游响应（I/O错误、超时等）
+    public static final int NO_RESPONSE = -1;
+    // 请求在收到上游响应前被取消
+    public static final int CANCELLED = 0;
+
+    protected final String mappingName;
+    protected final List<Meter> meters = new ArrayList<>();
+    protected final AtomicInteger inFlight = new AtomicInteger();
+    protected final Timer latency;
+    // 按状态码类别（1xx-5xx）计数
+    protected final Counter[] responses = new Counter[5];
+    protected final Counter errors;
+    protected final Counter requestBytes;
+    protected final Counter responseBytes;
+    protected final Timer connect;
+    protected final Timer firstByte;
+    protected final Counter redirects;
+    protected final Counter retries;
+    protected final Counter retryBudgetExhausted;
+    protected final Counter hedges;
+
+    public RouteMetrics(String mappingName, MetricsProperties properties, MeterRegistry registry) {
+        this.mappingName = mappingName;
+        String metricsName = properties.getNamesPrefix() + "." + mappingName;
+        // 沿用原来的延迟指标名称
+        latency = register(Timer.builder(metricsName)
+                .description("Latency of forwarded requests until upstream response")
+                .sla(properties.getSlo().toArray(new Duration[0]))
+                .register(registry));
+        for (int i = 0; i < responses.length; i++) {
+            responses[i] = register(Counter.builder(metricsName + ".responses")
+                    .tag("status", (i + 1) + "xx")
+                    .register(registry));
+        }
+        errors = register(Counter.builder(metricsName + ".errors")
+                .description("Forwarded requests without upstream response")
+                .register(registry));
+        requestBytes = register(Counter.builder(metricsName + ".request.bytes")
+                .baseUnit("bytes")
+                .register(registry));
+        responseBytes = register(Counter.builder(metricsName + ".response.bytes")
+                .baseUnit("bytes")
+                .register(registry));
+        register(Gauge.builder(metricsName + ".in_flight", inFlight, AtomicInteger::get)
+                .register(registry));
+        connect = register(Timer.builder(metricsName + ".upstream.connect")
+                .description("Time to establish new upstream connections")
+                .register(registry));
+        firstByte = register(Timer.builder(metricsName + ".upstream.first_byte")
+                .description("Time from sending request to receiving upstream response headers")
+                .sla(properties.getSlo().toArray(new Duration[0]))
+                .register(registry));
+        redirects = register(Counter.builder(metricsName + ".redirects")
+                .register(registry));
+        retries = register(Counter.builder(metricsName + ".retries")
+                .description("Retried upstream requests")
+                .register(registry));
+        retryBudgetExhausted = register(Counter.builder(metricsName + ".retry_budget.exhausted")
+                .description("Retries and hedged requests not sent because the retry budget was exhausted")
+                .register(registry));
+        hedges = register(Counter.builder(metricsName + ".hedges")
+                .description("Hedged upstream requests")
+                .register(registry));
+    }
+
+    public String getMappingName() {
+        return mappingName;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public void onRequestStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * 转发结束
+     *
+     * @param latencyNanos
+     * @param statusCode   上游响应状态码，没有响应时为NO_RESPONSE，取消时为CANCELLED
+     */
+    public void onRequestCompleted(long latencyNanos, int statusCode) {
+        inFlight.decrementAndGet();
+        latency.record(latencyNanos, NANOSECONDS);
+        if (statusCode >= 100 && statusCode < 600) {
+            responses[statusCode / 100 - 1].increment();
+        } else if (statusCode == NO_RESPONSE) {
+            errors.increment();
+        }
+    }
+
+    public void recordRequestBytes(long bytes) {
+        if (bytes > 0) {
+            requestBytes.increment(bytes);
+        }
+    }
+
+    public void recordResponseBytes(long bytes) {
+        if (bytes > 0) {
+            responseBytes.increment(bytes);
+        }
+    }
+
+    public void recordConnect(long nanos) {
+        connect.record(nanos, NANOSECONDS);
+    }
+
+    public void recordFirstByte(long nanos) {
+        firstByte.record(nanos, NANOSECONDS);
+    }
+
+    public void onRedirect() {
+        redirects.increment();
+    }
+
+    public void onRetry() {
+        retries.increment();
+    }
+
+    public void onRetryBudgetExhausted() {
+        retryBudgetExhausted.increment();
+    }
+
+    public void onHedge() {
+        hedges.increment();
+    }
+
+    /**
+     * 从注册表中移除全部指标
+     *
+     * @param registry
+     */
+    public void remove(MeterRegistry registry) {
+        meters.forEach(registry::remove);
+    }
+
+    private <T extends Meter> T register(T meter) {
+        meters.add(meter);
+        return meter;
+    }
+}
@@ -0,0 +1,73 @@
+package xyz.staffjoy.faraday.core.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import xyz.staffjoy.faraday.config.FaradayProperties;
+import xyz.staffjoy.faraday.config.MappingProperties;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.util.stream.Collectors.toSet;
+
+/*
+ *
+ * 每个映射的指标
+ * 路由映射表更新时为新映射预先注册指标，移除已删除映射的指标
+ * 没有MeterRegistry时使用空的组合注册表，指标都是空操作，调用方不需要判断
+ *
+ */
+public class RouteMetricsProvider {
+
+    protected final FaradayProperties faradayProperties;
+    protected final MeterRegistry registry;
+    // <mappingname,RouteMetrics>
+    protected final ConcurrentMap<String, RouteMetrics> metrics = new ConcurrentHashMap<>();
+    protected final Counter noMapping;
+
+    public RouteMetricsProvider(FaradayProperties faradayProperties, Optional<MeterRegistry> meterRegistry) {
+        this.faradayProperties = faradayProperties;
+        this.registry = meterRegistry.orElseGet(CompositeMeterRegistry::new);
+        this.noMapping = Counter.builder(faradayProperties.getMetrics().getNamesPrefix() + ".no_mapping")
+                .description("Requests for hosts without mapping")
+                .register(registry);
+    }
+
+    public RouteMetrics getMetrics(MappingProperties mapping) {
+        return getMetrics(mapping.getName());
+    }
+
+    public RouteMetrics getMetrics(String mappingName) {
+        RouteMetrics routeMetrics = metrics.get(mappingName);
+        if (routeMetrics != null) {
+            return routeMetrics;
+        }
+        return metrics.computeIfAbsent(mappingName,
+                name -> new RouteMetrics(name, faradayProperties.getMetrics(), registry));
+    }
+
+    public void onNoMappingFound() {
+        noMapping.increment();
+    }
+
+    /**
+     * 路由映射表已更新，为新映射注册指标并移除已删除映射的指标
+     *
+     * @param mappings
+     */
+    public void onMappingsUpdated(List<MappingProperties> mappings) {
+        Set<String> names = mappings.stream().map(MappingProperties::getName).collect(toSet());
+        names.forEach(this::getMetrics);
+        metrics.values().removeIf(routeMetrics -> {
+            if (names.contains(routeMetrics.getMappingName())) {
+                return false;
+            }
+            routeMetrics.remove(registry);
+            return true;
+        });
+    }
+}
@@ -0,0 +1,67 @@
+package xyz.staffjoy.faraday.core.retry;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ *
+ * 最近上游延迟的采样，用于计算对冲请求的延迟
+ * 环形缓冲区只保留最近的样本，并发写入时个别样本可能被覆盖，对百分位数的估计没有影响
+ * 百分位数计算需要排序，结果缓存一段时间
+ *
+ */
+public class LatencySampler {
+
+    // 样本数量不足时不计算百分位数
+    public static final int MIN_SAMPLES = 20;
+    private static final long REFRESH_NANOS = 100_000_000L;
+
+    private final long[] samples;
+    private final AtomicLong count = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    public LatencySampler(int size) {
+        this.samples = new long[size];
+    }
+
+    public void record(long latencyNanos) {
+        samples[(int) (count.getAndIncrement() % samples.length)] = latencyNanos;
+    }
+
+    /**
+     * 最近样本的百分位数
+     *
+     * @param percentile 0-100
+     * @param now        当前时间（纳秒，System.nanoTime）
+     * @return 延迟（纳秒），样本不足时返回-1
+     */
+    public long getPercentile(double percentile, long now) {
+        Snapshot cached = snapshot;
+        if (cached != null && cached.percentile == percentile && now - cached.timestamp < REFRESH_NANOS) {
+            return cached.value;
+        }
+        int size = (int) Math.min(count.get(), samples.length);
+        long value = -1;
+        if (size >= MIN_SAMPLES) {
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100 * size) - 1;
+            value = sorted[Math.max(0, Math.min(index, size - 1))];
+        }
+        snapshot = new Snapshot(percentile, value, now);
+        return value;
+    }
+
+    private static class Snapshot {
+
+        private final double percentile;
+        private final long value;
+        private final long timestamp;
+
+        private Snapshot(double percentile, long value, long timestamp) {
+            this.percentile = percentile;
+            this.value = value;
+            this.timestamp = timestamp;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package xyz.staffjoy.faraday.core.retry;
+
+/*
+ *
+ * 重试预算
+ * 在最近10秒的窗口内，重试次数不超过 请求数 * 比例 + 每秒最少重试次数 * 10
+ * 上游整体不可用时重试（以及对冲请求）最多只会把请求量放大这个比例，不会把故障放大成重试风暴
+ * 窗口由10个1秒的桶组成，随时间滚动，不需要后台线程
+ *
+ */
+public class RetryBudget {
+
+    public static final int WINDOW_SECONDS = 10;
+    private static final long SECOND_NANOS = 1_000_000_000L;
+
+    private final double ratio;
+    private final double minRetriesPerSecond;
+    private final long[] requests = new long[WINDOW_SECONDS];
+    private final long[] retries = new long[WINDOW_SECONDS];
+    private long requestCount;
+    private long retryCount;
+    private long currentSecond;
+    private boolean started;
+
+    public RetryBudget(double ratio, double minRetriesPerSecond) {
+        this.ratio = ratio;
+        this.minRetriesPerSecond = minRetriesPerSecond;
+    }
+
+    /**
+     * 记录一次（可以重试的）请求，为预算存入ratio次重试
+     *
+     * @param now 当前时间（纳秒，System.nanoTime）
+     */
+    public synchronized void onRequest(long now) {
+        requests[advance(now)]++;
+        requestCount++;
+    }
+
+    /**
+     * 申请一次重试
+     *
+     * @param now 当前时间（纳秒，System.nanoTime）
+     * @return 预算内返回true，预算已用完返回false
+     */
+    public synchronized boolean tryAcquire(long now) {
+        int bucket = advance(now);
+        if (retryCount + 1 > requestCount * ratio + minRetriesPerSecond * WINDOW_SECONDS) {
+            return false;
+        }
+        retries[bucket]++;
+        retryCount++;
+        return true;
+    }
+
+    /**
+     * 滚动窗口，清空已过期的桶
+     *
+     * @param now
+     * @return 当前秒对应的桶
+     */
+    private int advance(long now) {
+        long second = Math.floorDiv(now, SECOND_NANOS);
+        if (!started) {
+            started = true;
+            currentSecond = second;
+        }
+        long elapsed = Math.min(second - currentSecond, WINDOW_SECONDS);
+        for (long i = 1; i <= elapsed; i++) {
+            int bucket = (int) Math.floorMod(currentSecond + i, (long) WINDOW_SECONDS);
+            requestCount -= requests[bucket];
+            retryCount -= retries[bucket];
+            requests[bucket] = 0;
+            retries[bucket] = 0;
+        }
+        if (second > currentSecond) {
+            currentSecond = second;
+        }
+        return (int) Math.floorMod(currentSecond, (long) WINDOW_SECONDS);
+    }
+}
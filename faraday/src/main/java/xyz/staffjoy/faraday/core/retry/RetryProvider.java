@@ -0,0 +1,242 @@
+package xyz.staffjoy.faraday.core.retry;
+
+import org.apache.http.conn.ConnectTimeoutException;
+import org.springframework.http.HttpMethod;
+import xyz.staffjoy.faraday.config.MappingProperties;
+import xyz.staffjoy.faraday.core.http.RequestData;
+import xyz.staffjoy.faraday.core.metrics.RouteMetricsProvider;
+
+import java.io.Closeable;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.nio.channels.UnresolvedAddressException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.springframework.http.HttpMethod.*;
+
+/*
+ *
+ * 每个映射的重试预算和延迟采样
+ * 只重试幂等请求，并且只在请求肯定没有被上游处理时重试：连接失败和503响应
+ * 重试和对冲请求共用映射的重试预算
+ * 映射更新后（映射属性不再是同一个对象）重新创建
+ *
+ */
+public class RetryProvider implements Closeable {
+
+    // RFC 7231 4.2.2
+    public static final Set<HttpMethod> IDEMPOTENT_METHODS = Collections.unmodifiableSet(EnumSet.of(GET, HEAD, OPTIONS, TRACE, PUT, DELETE));
+    private static final int LATENCY_SAMPLES = 256;
+
+    protected final RouteMetricsProvider routeMetricsProvider;
+    // <mappingname,MappingRetry>
+    protected final ConcurrentMap<String, MappingRetry> retries = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService scheduler;
+
+    public RetryProvider(RouteMetricsProvider routeMetricsProvider) {
+        this.routeMetricsProvider = routeMetricsProvider;
+    }
+
+    /**
+     * 请求失败后是否可以重试
+     *
+     * @param data
+     * @param mapping
+     * @return
+     */
+    public boolean isRetryable(RequestData data, MappingProperties mapping) {
+        return mapping.getRetry().isEnabled() && mapping.getRetry().getMaxAttempts() > 1
+                && IDEMPOTENT_METHODS.contains(data.getMethod());
+    }
+
+    /**
+     * 请求是否可以发送对冲请求（需要另一个目的主机）
+     *
+     * @param data
+     * @param mapping
+     * @return
+     */
+    public boolean isHedgeable(RequestData data, MappingProperties mapping) {
+        return mapping.getHedging().isEnabled() && mapping.getDestinations().size() > 1
+                && IDEMPOTENT_METHODS.contains(data.getMethod());
+    }
+
+    /**
+     * 上游响应状态码是否可以重试：503表示上游没有处理该请求
+     *
+     * @param statusCode
+     * @return
+     */
+    public boolean isRetryableStatus(int statusCode) {
+        return statusCode == 503;
+    }
+
+    /**
+     * 转发失败是否可以重试：只有连接失败，此时请求还没有发出
+     * 读超时等连接建立后的失败不重试，上游可能已经处理了该请求
+     *
+     * @param e
+     * @return
+     */
+    public boolean isRetryableFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof NoRouteToHostException
+                    || cause instanceof UnknownHostException || cause instanceof UnresolvedAddressException
+                    || cause instanceof ConnectTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 记录一次可以重试或对冲的请求
+     *
+     * @param mapping
+     */
+    public void onRequest(MappingProperties mapping) {
+        getRetry(mapping).budget.onRequest(nanoTime());
+    }
+
+    /**
+     * 申请一次重试
+     *
+     * @param mapping
+     * @return 重试预算已用完时返回false
+     */
+    public boolean tryAcquireRetry(MappingProperties mapping) {
+        if (!getRetry(mapping).budget.tryAcquire(nanoTime())) {
+            routeMetricsProvider.getMetrics(mapping).onRetryBudgetExhausted();
+            return false;
+        }
+        routeMetricsProvider.getMetrics(mapping).onRetry();
+        return true;
+    }
+
+    /**
+     * 申请一次对冲请求
+     *
+     * @param mapping
+     * @return 重试预算已用完时返回false
+     */
+    public boolean tryAcquireHedge(MappingProperties mapping) {
+        if (!getRetry(mapping).budget.tryAcquire(nanoTime())) {
+            routeMetricsProvider.getMetrics(mapping).onRetryBudgetExhausted();
+            return false;
+        }
+        routeMetricsProvider.getMetrics(mapping).onHedge();
+        return true;
+    }
+
+    /**
+     * 记录收到上游响应的延迟（只在开启对冲请求时采样）
+     *
+     * @param mapping
+     * @param latencyNanos
+     */
+    public void recordLatency(MappingProperties mapping, long latencyNanos) {
+        if (mapping.getHedging().isEnabled()) {
+            getRetry(mapping).latencies.record(latencyNanos);
+        }
+    }
+
+    /**
+     * 发送对冲请求前的延迟：最近延迟的百分位数，但不小于最小延迟
+     *
+     * @param mapping
+     * @return 延迟（纳秒），样本不足时返回-1，不发送对冲请求
+     */
+    public long getHedgeDelay(MappingProperties mapping) {
+        MappingProperties.HedgingProperties hedging = mapping.getHedging();
+        long percentile = getRetry(mapping).latencies.getPercentile(hedging.getPercentile(), nanoTime());
+        if (percentile < 0) {
+            return -1;
+        }
+        return Math.max(percentile, MILLISECONDS.toNanos(hedging.getMinDelay()));
+    }
+
+    /**
+     * 延迟执行（发送对冲请求）
+     *
+     * @param task
+     * @param delayNanos
+     * @return
+     */
+    public ScheduledFuture<?> schedule(Runnable task, long delayNanos) {
+        return getScheduler().schedule(task, delayNanos, NANOSECONDS);
+    }
+
+    /**
+     * 路由映射表已更新，移除已删除或已变化映射的重试预算和延迟采样
+     *
+     * @param mappings
+     */
+    public void onMappingsUpdated(List<MappingProperties> mappings) {
+        Set<MappingProperties> current = Collections.newSetFromMap(new IdentityHashMap<>());
+        current.addAll(mappings);
+        retries.values().removeIf(retry -> !current.contains(retry.mapping));
+    }
+
+    /**
+     * 停止发送对冲请求的线程
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    protected MappingRetry getRetry(MappingProperties mapping) {
+        MappingRetry retry = retries.get(mapping.getName());
+        if (retry != null && retry.mapping == mapping) {
+            return retry;
+        }
+        return retries.compute(mapping.getName(), (name, current) -> {
+            if (current != null && current.mapping == mapping) {
+                return current;
+            }
+            return new MappingRetry(mapping);
+        });
+    }
+
+    private ScheduledExecutorService getScheduler() {
+        if (scheduler == null) {
+            synchronized (this) {
+                if (scheduler == null) {
+                    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "faraday-hedging");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return scheduler;
+    }
+
+    protected static class MappingRetry {
+        protected final MappingProperties mapping;
+        protected final RetryBudget budget;
+        protected final LatencySampler latencies = new LatencySampler(LATENCY_SAMPLES);
+
+        protected MappingRetry(MappingProperties mapping) {
+            this.mapping = mapping;
+            this.budget = new RetryBudget(mapping.getRetry().getBudgetRatio(), mapping.getRetry().getMinRetriesPerSecond());
+        }
+    }
+}
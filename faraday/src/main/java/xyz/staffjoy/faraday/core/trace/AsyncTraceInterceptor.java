@@ -0,0 +1,137 @@
+package xyz.staffjoy.faraday.core.trace;
+
+import com.github.structlog4j.ILogger;
+import com.github.structlog4j.SLoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import xyz.staffjoy.faraday.config.TracingProperties;
+import xyz.staffjoy.faraday.core.breaker.CircuitBreaker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/*
+ *
+ * 异步追踪拦截器
+ * 请求线程只把追踪事件放入无锁环形缓冲区，后台导出线程按批取出并交给实际的追踪拦截器（例如日志）
+ * 缓冲区已满时丢弃事件并计数，追踪永远不会阻塞请求
+ *
+ */
+public class AsyncTraceInterceptor implements TraceInterceptor, DisposableBean {
+
+    private static final ILogger log = SLoggerFactory.getLogger(AsyncTraceInterceptor.class);
+
+    private static final long SHUTDOWN_TIMEOUT = 5000;
+
+    protected final TraceInterceptor delegate;
+    protected final TraceRingBuffer<TraceEvent> buffer;
+    protected final int batchSize;
+    protected final long flushIntervalNanos;
+    protected final AtomicLong droppedEvents = new AtomicLong();
+    protected final Thread exporter;
+    protected volatile boolean running = true;
+
+    public AsyncTraceInterceptor(TracingProperties tracingProperties, TraceInterceptor delegate) {
+        this.delegate = delegate;
+        this.buffer = new TraceRingBuffer<>(tracingProperties.getBufferSize());
+        this.batchSize = Math.max(1, tracingProperties.getBatchSize());
+        this.flushIntervalNanos = MILLISECONDS.toNanos(Math.max(1, tracingProperties.getFlushInterval()));
+        this.exporter = new Thread(this::export, "faraday-trace-exporter");
+        this.exporter.setDaemon(true);
+        this.exporter.start();
+    }
+
+    @Override
+    public void onRequestReceived(String traceId, IncomingRequest request) {
+        enqueue(TraceEvent.requestReceived(traceId, request));
+    }
+
+    @Override
+    public void onNoMappingFound(String traceId, IncomingRequest request) {
+        enqueue(TraceEvent.noMappingFound(traceId, request));
+    }
+
+    @Override
+    public void onForwardStart(String traceId, ForwardRequest request) {
+        enqueue(TraceEvent.forwardStart(traceId, request));
+    }
+
+    @Override
+    public void onForwardError(String traceId, Throwable error) {
+        enqueue(TraceEvent.forwardError(traceId, error));
+    }
+
+    @Override
+    public void onForwardComplete(String traceId, ReceivedResponse response) {
+        enqueue(TraceEvent.forwardComplete(traceId, response));
+    }
+
+    @Override
+    public void onCircuitBreakerStateChanged(String mappingName, CircuitBreaker.State from, CircuitBreaker.State to) {
+        enqueue(TraceEvent.circuitBreakerStateChanged(mappingName, from, to));
+    }
+
+    /**
+     * 已丢弃的追踪事件数量
+     *
+     * @return
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * 停止后台导出线程，停止前导出缓冲区中剩余的事件
+     *
+     * @throws InterruptedException
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(exporter);
+        exporter.join(SHUTDOWN_TIMEOUT);
+    }
+
+    protected void enqueue(TraceEvent event) {
+        // 不唤醒导出线程，请求线程上只有一次入队
+        if (!running || !buffer.offer(event)) {
+            droppedEvents.incrementAndGet();
+        }
+    }
+
+    /**
+     * 后台导出线程：缓冲区为空时等待flushInterval，否则连续按批导出
+     */
+    protected void export() {
+        List<TraceEvent> batch = new ArrayList<>(batchSize);
+        long reportedDrops = 0;
+        for (;;) {
+            boolean stopping = !running;
+            if (buffer.drainTo(batch, batchSize) == 0) {
+                if (stopping) {
+                    break;
+                }
+                LockSupport.parkNanos(this, flushIntervalNanos);
+                continue;
+            }
+            for (TraceEvent event : batch) {
+                try {
+                    event.dispatchTo(delegate);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to export trace event", "traceId", event.getTraceId(), "type", event.getType(), e);
+                }
+            }
+            batch.clear();
+
+            long drops = droppedEvents.get();
+            if (drops != reportedDrops) {
+                log.warn("Trace events dropped because the trace buffer is full", "dropped", drops - reportedDrops,
+                        "capacity", buffer.capacity());
+                reportedDrops = drops;
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package xyz.staffjoy.faraday.core.trace;
 
 import com.github.structlog4j.ILogger;
 import com.github.structlog4j.SLoggerFactory;
+import xyz.staffjoy.faraday.core.breaker.CircuitBreaker;
 
 import static org.apache.commons.lang3.StringUtils.trimToEmpty;
 
@@ -42,4 +43,9 @@ public class LoggingTraceInterceptor implements TraceInterceptor {
                 "status", response.getStatus(), "body", response.getBodyAsString(),
                 "headers", response.getHeaders());
     }
+
+    @Override
+    public void onCircuitBreakerStateChanged(String mappingName, CircuitBreaker.State from, CircuitBreaker.State to) {
+        log.info("Circuit breaker state changed: ", "mappingName", mappingName, "from", from, "to", to);
+    }
 }
@@ -4,8 +4,11 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import xyz.staffjoy.faraday.config.FaradayProperties;
+import xyz.staffjoy.faraday.core.breaker.CircuitBreaker;
 
-import static java.util.UUID.randomUUID;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 /*
  *
@@ -25,8 +28,23 @@ public class ProxyingTraceInterceptor {
         this.traceInterceptor = traceInterceptor;
     }
 
+    /**
+     * 生成追踪ID（头部采样）
+     * 只在收到请求时按采样率决定一次，未被采样的请求追踪ID为null，后续的追踪方法都不再记录
+     * 追踪ID只用于关联日志，使用ThreadLocalRandom生成，避免randomUUID在共享的SecureRandom上竞争
+     *
+     * @return 关闭追踪或未被采样时返回null
+     */
     public String generateTraceId() {
-        return faradayProperties.getTracing().isEnabled() ? randomUUID().toString() : null;
+        if (!isTracingEnabled()) {
+            return null;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double sampleRate = faradayProperties.getTracing().getSampleRate();
+        if (sampleRate < 1 && random.nextDouble() >= sampleRate) {
+            return null;
+        }
+        return new UUID(random.nextLong(), random.nextLong()).toString();
     }
 
     /**
@@ -39,11 +57,12 @@ public class ProxyingTraceInterceptor {
      * @param headers
      */
     public void onRequestReceived(String traceId, HttpMethod method, String host, String uri, HttpHeaders headers) {
-        runIfTracingIsEnabled(() -> {
-            IncomingRequest request = getIncomingRequest(method, host, uri, headers);
-            // log.info
-            traceInterceptor.onRequestReceived(traceId, request);
-        });
+        if (!isSampled(traceId)) {
+            return;
+        }
+        IncomingRequest request = getIncomingRequest(method, host, uri, headers);
+        // log.info
+        traceInterceptor.onRequestReceived(traceId, request);
     }
 
     /**
@@ -60,7 +79,7 @@ public class ProxyingTraceInterceptor {
         request.setMethod(method);
         request.setHost(host);
         request.setUri(uri);
-        request.setHeaders(headers);
+        request.setHeaders(snapshot(headers));
         return request;
     }
 
@@ -74,11 +93,12 @@ public class ProxyingTraceInterceptor {
      * @param headers
      */
     public void onNoMappingFound(String traceId, HttpMethod method, String host, String uri, HttpHeaders headers) {
-        runIfTracingIsEnabled(() -> {
-            IncomingRequest request = getIncomingRequest(method, host, uri, headers);
-            // log.info
-            traceInterceptor.onNoMappingFound(traceId, request);
-        });
+        if (!isSampled(traceId)) {
+            return;
+        }
+        IncomingRequest request = getIncomingRequest(method, host, uri, headers);
+        // log.info
+        traceInterceptor.onNoMappingFound(traceId, request);
     }
 
     /**
@@ -93,17 +113,18 @@ public class ProxyingTraceInterceptor {
      * @param headers
      */
     public void onForwardStart(String traceId, String mappingName, HttpMethod method, String host, String uri, byte[] body, HttpHeaders headers) {
-        runIfTracingIsEnabled(() -> {
-            ForwardRequest request = new ForwardRequest();
-            request.setMappingName(mappingName);
-            request.setMethod(method);
-            request.setHost(host);
-            request.setUri(uri);
-            request.setBody(body);
-            request.setHeaders(headers);
-            // log.info
-            traceInterceptor.onForwardStart(traceId, request);
-        });
+        if (!isSampled(traceId)) {
+            return;
+        }
+        ForwardRequest request = new ForwardRequest();
+        request.setMappingName(mappingName);
+        request.setMethod(method);
+        request.setHost(host);
+        request.setUri(uri);
+        request.setBody(truncate(body));
+        request.setHeaders(snapshot(headers));
+        // log.info
+        traceInterceptor.onForwardStart(traceId, request);
     }
 
     /**
@@ -113,8 +134,10 @@ public class ProxyingTraceInterceptor {
      * @param error
      */
     public void onForwardFailed(String traceId, Throwable error) {
-        // log.info
-        runIfTracingIsEnabled(() -> traceInterceptor.onForwardError(traceId, error));
+        if (isSampled(traceId)) {
+            // log.info
+            traceInterceptor.onForwardError(traceId, error);
+        }
     }
 
     /**
@@ -126,24 +149,78 @@ public class ProxyingTraceInterceptor {
      * @param headers
      */
     public void onForwardComplete(String traceId, HttpStatus status, byte[] body, HttpHeaders headers) {
-        runIfTracingIsEnabled(() -> {
-            ReceivedResponse response = new ReceivedResponse();
-            response.setStatus(status);
-            response.setBody(body);
-            response.setHeaders(headers);
-            // log.info
-            traceInterceptor.onForwardComplete(traceId, response);
-        });
+        if (!isSampled(traceId)) {
+            return;
+        }
+        ReceivedResponse response = new ReceivedResponse();
+        response.setStatus(status);
+        response.setBody(truncate(body));
+        response.setHeaders(snapshot(headers));
+        // log.info
+        traceInterceptor.onForwardComplete(traceId, response);
     }
 
     /**
-     * 检查是否开启追踪
+     * 熔断器状态变化
      *
-     * @param operation
+     * @param mappingName
+     * @param from
+     * @param to
+     */
+    public void onCircuitBreakerStateChanged(String mappingName, CircuitBreaker.State from, CircuitBreaker.State to) {
+        if (isTracingEnabled()) {
+            traceInterceptor.onCircuitBreakerStateChanged(mappingName, from, to);
+        }
+    }
+
+    /**
+     * 是否开启追踪
+     * 各个追踪方法先检查该标志，关闭追踪时不创建追踪对象（也不创建捕获参数的lambda）
+     *
+     * @return
+     */
+    public boolean isTracingEnabled() {
+        return faradayProperties.getTracing().isEnabled();
+    }
+
+    /**
+     * 请求是否被采样
+     * 被采样的请求需要记录请求体和响应体，不能使用流式转发
+     *
+     * @param traceId
+     * @return
+     */
+    public boolean isSampled(String traceId) {
+        return traceId != null && isTracingEnabled();
+    }
+
+    /**
+     * 复制请求头（响应头）
+     * 追踪事件在后台线程上导出，此时servlet请求可能已被容器回收，转发流程也可能已修改了请求头
+     *
+     * @param headers
+     * @return
+     */
+    protected HttpHeaders snapshot(HttpHeaders headers) {
+        if (headers == null) {
+            return null;
+        }
+        HttpHeaders copy = new HttpHeaders();
+        headers.forEach(copy::put);
+        return HttpHeaders.readOnlyHttpHeaders(copy);
+    }
+
+    /**
+     * 截断消息体，只保留maxBodySize字节
+     *
+     * @param body
+     * @return
      */
-    protected void runIfTracingIsEnabled(Runnable operation) {
-        if (faradayProperties.getTracing().isEnabled()) {
-            operation.run();
+    protected byte[] truncate(byte[] body) {
+        int maxBodySize = faradayProperties.getTracing().getMaxBodySize();
+        if (body == null || body.length <= maxBodySize) {
+            return body;
         }
+        return Arrays.copyOf(body, Math.max(0, maxBodySize));
     }
 }
@@ -0,0 +1,98 @@
+package xyz.staffjoy.faraday.core.trace;
+
+import xyz.staffjoy.faraday.core.breaker.CircuitBreaker;
+
+/*
+ *
+ * 追踪事件
+ * 请求线程上只创建事件对象并放入缓冲区，由后台导出线程交给实际的追踪拦截器处理
+ *
+ */
+public final class TraceEvent {
+
+    public enum Type {
+        REQUEST_RECEIVED,
+        NO_MAPPING_FOUND,
+        FORWARD_START,
+        FORWARD_ERROR,
+        FORWARD_COMPLETE,
+        CIRCUIT_BREAKER_STATE_CHANGED
+    }
+
+    private final Type type;
+    private final String traceId;
+    private final HttpEntity entity;
+    private final Throwable error;
+    private final String mappingName;
+    private final CircuitBreaker.State from;
+    private final CircuitBreaker.State to;
+
+    private TraceEvent(Type type, String traceId, HttpEntity entity, Throwable error,
+                       String mappingName, CircuitBreaker.State from, CircuitBreaker.State to) {
+        this.type = type;
+        this.traceId = traceId;
+        this.entity = entity;
+        this.error = error;
+        this.mappingName = mappingName;
+        this.from = from;
+        this.to = to;
+    }
+
+    public static TraceEvent requestReceived(String traceId, IncomingRequest request) {
+        return new TraceEvent(Type.REQUEST_RECEIVED, traceId, request, null, null, null, null);
+    }
+
+    public static TraceEvent noMappingFound(String traceId, IncomingRequest request) {
+        return new TraceEvent(Type.NO_MAPPING_FOUND, traceId, request, null, null, null, null);
+    }
+
+    public static TraceEvent forwardStart(String traceId, ForwardRequest request) {
+        return new TraceEvent(Type.FORWARD_START, traceId, request, null, null, null, null);
+    }
+
+    public static TraceEvent forwardError(String traceId, Throwable error) {
+        return new TraceEvent(Type.FORWARD_ERROR, traceId, null, error, null, null, null);
+    }
+
+    public static TraceEvent forwardComplete(String traceId, ReceivedResponse response) {
+        return new TraceEvent(Type.FORWARD_COMPLETE, traceId, response, null, null, null, null);
+    }
+
+    public static TraceEvent circuitBreakerStateChanged(String mappingName, CircuitBreaker.State from, CircuitBreaker.State to) {
+        return new TraceEvent(Type.CIRCUIT_BREAKER_STATE_CHANGED, null, null, null, mappingName, from, to);
+    }
+
+    /**
+     * 交给追踪拦截器处理
+     *
+     * @param traceInterceptor
+     */
+    public void dispatchTo(TraceInterceptor traceInterceptor) {
+        switch (type) {
+            case REQUEST_RECEIVED:
+                traceInterceptor.onRequestReceived(traceId, (IncomingRequest) entity);
+                break;
+            case NO_MAPPING_FOUND:
+                traceInterceptor.onNoMappingFound(traceId, (IncomingRequest) entity);
+                break;
+            case FORWARD_START:
+                traceInterceptor.onForwardStart(traceId, (ForwardRequest) entity);
+                break;
+            case FORWARD_ERROR:
+                traceInterceptor.onForwardError(traceId, error);
+                break;
+            case FORWARD_COMPLETE:
+                traceInterceptor.onForwardComplete(traceId, (ReceivedResponse) entity);
+                break;
+            case CIRCUIT_BREAKER_STATE_CHANGED:
+                traceInterceptor.onCircuitBreakerStateChanged(mappingName, from, to);
+                break;
+            default:
+                break;
+        }
+    }
+
+    public Type getType() { return type; }
+
+    public String getTraceId() { return traceId; }
+}
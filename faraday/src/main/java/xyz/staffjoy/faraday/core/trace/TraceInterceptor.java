@@ -1,5 +1,7 @@
 package xyz.staffjoy.faraday.core.trace;
 
+import xyz.staffjoy.faraday.core.breaker.CircuitBreaker;
+
 /*
  *
  * 追踪拦截器
@@ -19,4 +21,7 @@ public interface TraceInterceptor {
     void onForwardError(String traceId, Throwable error);
 
     void onForwardComplete(String traceId, ReceivedResponse response);
+
+    default void onCircuitBreakerStateChanged(String mappingName, CircuitBreaker.State from, CircuitBreaker.State to) {
+    }
 }
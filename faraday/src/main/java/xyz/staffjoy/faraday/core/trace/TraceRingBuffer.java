@@ -0,0 +1,89 @@
+package xyz.staffjoy.faraday.core.trace;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ *
+ * 追踪事件环形缓冲区（有界、无锁，多生产者单消费者）
+ * 每个槽位带一个序号：生产者通过CAS占用尾部位置，写入元素后发布序号；唯一的消费者按序号顺序取出元素
+ * 缓冲区已满时offer立即返回false，生产者永远不会等待
+ *
+ */
+public class TraceRingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> slots;
+    // 槽位序号：等于写入位置时可写，等于写入位置+1时可读
+    private final AtomicLongArray sequences;
+    // 下一个写入位置（生产者共享）
+    private final AtomicLong tail = new AtomicLong();
+    // 下一个读取位置（只有消费者线程访问）
+    private long head;
+
+    public TraceRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 放入元素，可由多个线程并发调用
+     *
+     * @param element
+     * @return 缓冲区已满时返回false
+     */
+    public boolean offer(E element) {
+        long position = tail.get();
+        for (;;) {
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.lazySet(index, element);
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * 按放入顺序取出元素，只能由消费者线程调用
+     * 遇到已占用但尚未写完的槽位时停止，剩下的元素留到下一次取出
+     *
+     * @param target
+     * @param maxElements
+     * @return 取出的元素数量
+     */
+    public int drainTo(Collection<? super E> target, int maxElements) {
+        int drained = 0;
+        while (drained < maxElements) {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            target.add(slots.get(index));
+            slots.lazySet(index, null);
+            sequences.lazySet(index, head + mask + 1);
+            head++;
+            drained++;
+        }
+        return drained;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
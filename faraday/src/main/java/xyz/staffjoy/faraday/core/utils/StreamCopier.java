@@ -0,0 +1,36 @@
+package xyz.staffjoy.faraday.core.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/*
+ *
+ * 流拷贝（每个线程复用同一个有界缓冲区，避免每次转发都分配新的byte[]）
+ *
+ */
+public class StreamCopier {
+
+    private static final ThreadLocal<byte[]> buffers = new ThreadLocal<>();
+
+    public static long copy(InputStream in, OutputStream out, int bufferSize) throws IOException {
+        byte[] buffer = getBuffer(bufferSize);
+        long count = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+            count += read;
+        }
+        out.flush();
+        return count;
+    }
+
+    private static byte[] getBuffer(int bufferSize) {
+        byte[] buffer = buffers.get();
+        if (buffer == null || buffer.length != bufferSize) {
+            buffer = new byte[bufferSize];
+            buffers.set(buffer);
+        }
+        return buffer;
+    }
+}
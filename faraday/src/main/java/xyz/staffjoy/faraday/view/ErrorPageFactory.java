@@ -32,6 +32,17 @@ public class ErrorPageFactory {
                 .build();
     }
 
+    public ErrorPage buildServiceUnavailableErrorPage() {
+        return ErrorPage.builder()
+                .title("Service Unavailable")
+                .explanation("Sorry, this service is temporarily unavailable. Please try again in a moment.")
+                .headerCode(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .linkText("Click here to check out our system status page")
+                .linkHref("https://status.staffjoy.xyz")
+                .imageBase64(assetLoader.getImageBase64())
+                .build();
+    }
+
     public ErrorPage buildInternalServerErrorPage() {
         return ErrorPage.builder()
                 .title("Internal Server Error")
@@ -14,12 +14,15 @@ import org.springframework.http.ResponseEntity
 import org.springframework.test.annotation.DirtiesContext
 import org.springframework.web.client.HttpStatusCodeException
 import org.springframework.web.client.RestTemplate
+import xyz.staffjoy.faraday.config.FaradayProperties
+import xyz.staffjoy.faraday.core.http.HttpClientProvider
 import spock.lang.Shared
 import spock.lang.Specification
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse
 import static com.github.tomakehurst.wiremock.client.WireMock.any
 import static com.github.tomakehurst.wiremock.client.WireMock.urlMatching
+import static java.util.concurrent.TimeUnit.MILLISECONDS
 import static org.apache.commons.lang3.StringUtils.EMPTY
 import static org.springframework.http.HttpStatus.OK
 import static org.springframework.http.ResponseEntity.status
@@ -38,12 +41,24 @@ abstract class BasicSpec extends Specification {
     protected int port
     @Autowired
     private ServerProperties serverProperties
+    @Autowired
+    private FaradayProperties faradayProperties
+    @Autowired
+    private HttpClientProvider httpClientProvider
 
     void setup() {
         fixWiremock()
         stubResponse(HttpStatus.OK)
     }
 
+    void cleanup() {
+        // 每个用例都会重启WireMock，连接池中的空闲连接随之失效
+        // 转发的请求不带Connection头，失效连接上的非幂等请求不会被自动重试
+        for (def mapping : faradayProperties.mappings) {
+            httpClientProvider.getConnectionManager(mapping.name)?.closeIdleConnections(0, MILLISECONDS)
+        }
+    }
+
     protected ResponseEntity<String> sendRequest(HttpMethod method,
                                                  String host,
                                                  String uri = "/",
@@ -87,6 +102,10 @@ abstract class BasicSpec extends Specification {
         stubResponse(responseStatus, [:], responseBody)
     }
 
+    protected void stubDestinationResponse(HttpStatus responseStatus, Map<String, String> responseHeaders, String responseBody) {
+        stubResponse(responseStatus, responseHeaders, responseBody)
+    }
+
     private void stubResponse(HttpStatus responseStatus = OK,
                               Map<String, String> responseHeaders = [:],
                               String responseBody = null,
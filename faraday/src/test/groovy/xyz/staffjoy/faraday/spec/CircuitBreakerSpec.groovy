@@ -0,0 +1,118 @@
+package xyz.staffjoy.faraday.spec
+
+import spock.lang.Specification
+import xyz.staffjoy.faraday.config.FaradayProperties
+import xyz.staffjoy.faraday.config.MappingProperties
+import xyz.staffjoy.faraday.core.breaker.CircuitBreaker
+import xyz.staffjoy.faraday.core.breaker.CircuitBreakerProvider
+import xyz.staffjoy.faraday.core.trace.ProxyingTraceInterceptor
+import xyz.staffjoy.faraday.exceptions.ServiceUnavailableException
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS
+import static xyz.staffjoy.faraday.core.breaker.CircuitBreaker.State.CLOSED
+import static xyz.staffjoy.faraday.core.breaker.CircuitBreaker.State.HALF_OPEN
+import static xyz.staffjoy.faraday.core.breaker.CircuitBreaker.State.OPEN
+
+class CircuitBreakerSpec extends Specification {
+
+    def transitions = []
+    def properties = new MappingProperties.CircuitBreakerProperties(
+            enabled: true, slidingWindowSize: 4, minimumNumberOfCalls: 4,
+            failureRateThreshold: 50, slowCallRateThreshold: 100, slowCallDuration: 100,
+            waitDurationInOpenState: 50, permittedCallsInHalfOpenState: 2)
+    def circuitBreaker = new CircuitBreaker('test_route', properties, { breaker, from, to -> transitions << [from, to] } as CircuitBreaker.StateListener)
+
+    def "Should open when failure rate reaches threshold"() {
+        when:
+        [false, true, false, true].each { circuitBreaker.onResult(MILLISECONDS.toNanos(1), it) }
+
+        then:
+        circuitBreaker.state == OPEN
+        !circuitBreaker.tryAcquirePermission()
+        transitions == [[CLOSED, OPEN]]
+    }
+
+    def "Should stay closed when too few calls were recorded"() {
+        when:
+        [true, true, true].each { circuitBreaker.onResult(MILLISECONDS.toNanos(1), it) }
+
+        then:
+        circuitBreaker.state == CLOSED
+        circuitBreaker.tryAcquirePermission()
+    }
+
+    def "Should stay closed when failure rate is below threshold"() {
+        when:
+        [true, false, false, false, false, true, false].each { circuitBreaker.onResult(MILLISECONDS.toNanos(1), it) }
+
+        then:
+        circuitBreaker.state == CLOSED
+        transitions.isEmpty()
+    }
+
+    def "Should open when all calls are slow"() {
+        when:
+        (1..4).each { circuitBreaker.onResult(MILLISECONDS.toNanos(200), false) }
+
+        then:
+        circuitBreaker.state == OPEN
+    }
+
+    def "Should close after successful probing calls in half-open state"() {
+        given:
+        (1..4).each { circuitBreaker.onResult(MILLISECONDS.toNanos(1), true) }
+        sleep(60)
+
+        when:
+        def permissions = (1..3).collect { circuitBreaker.tryAcquirePermission() }
+
+        then:
+        permissions == [true, true, false]
+        circuitBreaker.state == HALF_OPEN
+
+        when:
+        (1..2).each { circuitBreaker.onResult(MILLISECONDS.toNanos(1), false) }
+
+        then:
+        circuitBreaker.state == CLOSED
+        transitions == [[CLOSED, OPEN], [OPEN, HALF_OPEN], [HALF_OPEN, CLOSED]]
+    }
+
+    def "Should reopen after failed probing calls in half-open state"() {
+        given:
+        (1..4).each { circuitBreaker.onResult(MILLISECONDS.toNanos(1), true) }
+        sleep(60)
+
+        when:
+        (1..2).each {
+            circuitBreaker.tryAcquirePermission()
+            circuitBreaker.onResult(MILLISECONDS.toNanos(1), true)
+        }
+
+        then:
+        circuitBreaker.state == OPEN
+        transitions == [[CLOSED, OPEN], [OPEN, HALF_OPEN], [HALF_OPEN, OPEN]]
+    }
+
+    def "Should reject requests over bulkhead limit"() {
+        given:
+        def provider = new CircuitBreakerProvider(new FaradayProperties(), Optional.empty(),
+                new ProxyingTraceInterceptor(new FaradayProperties(), null))
+        def mapping = new MappingProperties(name: 'test_route')
+        mapping.bulkhead.maxConcurrentRequests = 2
+
+        when:
+        2.times { provider.acquirePermission(mapping) }
+        provider.acquirePermission(mapping)
+
+        then:
+        thrown(ServiceUnavailableException)
+
+        when:
+        provider.onRequestCompleted(mapping, 1, false)
+        provider.acquirePermission(mapping)
+
+        then:
+        noExceptionThrown()
+    }
+}
@@ -0,0 +1,60 @@
+package xyz.staffjoy.faraday.spec
+
+import org.springframework.core.io.ClassPathResource
+import org.springframework.mock.web.MockFilterChain
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.mock.web.MockHttpServletResponse
+import spock.lang.Specification
+import xyz.staffjoy.common.asset.StaticAssets
+import xyz.staffjoy.faraday.core.filter.FaviconFilter
+
+import java.util.zip.GZIPInputStream
+
+class FaviconSpec extends Specification {
+
+    def favicon = new ClassPathResource('static/assets/images/favicon.ico').inputStream.bytes
+    def filter = new FaviconFilter(StaticAssets.of('/favicon.ico', favicon))
+
+    def "Should serve precompressed favicon with cache headers"() {
+        when:
+        def response = get(['Accept-Encoding': 'gzip'])
+
+        then:
+        response.status == 200
+        response.getHeader('Content-Encoding') == 'gzip'
+        response.getHeader('Cache-Control') == 'public, max-age=86400'
+        response.getHeader('Vary') == 'Accept-Encoding'
+        response.getHeader('ETag') ==~ /"[0-9a-f]{32}-gzip"/
+        new GZIPInputStream(new ByteArrayInputStream(response.contentAsByteArray)).bytes == favicon
+    }
+
+    def "Should serve uncompressed favicon when client does not accept gzip"() {
+        when:
+        def response = get([:])
+
+        then:
+        response.status == 200
+        response.getHeader('Content-Encoding') == null
+        response.contentAsByteArray == favicon
+    }
+
+    def "Should respond with not modified when ETag matches"() {
+        given:
+        def etag = get([:]).getHeader('ETag')
+
+        when:
+        def response = get(['Accept-Encoding': 'gzip', 'If-None-Match': etag])
+
+        then:
+        response.status == 304
+        response.contentAsByteArray.length == 0
+    }
+
+    private MockHttpServletResponse get(Map<String, String> headers) {
+        def request = new MockHttpServletRequest('GET', '/favicon.ico')
+        headers.each { name, value -> request.addHeader(name, value) }
+        def response = new MockHttpServletResponse()
+        filter.doFilter(request, response, new MockFilterChain())
+        return response
+    }
+}
@@ -0,0 +1,71 @@
+package xyz.staffjoy.faraday.spec
+
+import okhttp3.Protocol
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import spock.lang.Specification
+import xyz.staffjoy.faraday.config.FaradayProperties
+import xyz.staffjoy.faraday.config.MappingProperties
+import xyz.staffjoy.faraday.core.http.HttpClientProvider
+import xyz.staffjoy.faraday.core.mappings.MappingsValidator
+import xyz.staffjoy.faraday.core.metrics.RouteMetricsProvider
+import xyz.staffjoy.faraday.exceptions.FaradayException
+
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS
+
+class Http2ForwardingSpec extends Specification {
+
+    def server = new MockWebServer()
+
+    void setup() {
+        server.protocols = [Protocol.H2_PRIOR_KNOWLEDGE]
+        server.start()
+    }
+
+    void cleanup() {
+        server.shutdown()
+    }
+
+    def "Should multiplex concurrent h2c requests over one connection"() {
+        given:
+        def provider = new HttpClientProvider(new FaradayProperties(), Optional.empty(), new RouteMetricsProvider(new FaradayProperties(), Optional.empty()))
+        provider.updateHttpClients([mapping("http://localhost:${server.port}")])
+        def restTemplate = provider.getHttpClient('h2c_route')
+        11.times { server.enqueue(new MockResponse().setBody('Sample body').setBodyDelay(100, MILLISECONDS)) }
+        def executor = Executors.newFixedThreadPool(10)
+
+        when:
+        restTemplate.getForEntity(server.url('/warmup').uri(), String)
+        def responses = (1..10).collect { executor.submit({ restTemplate.getForEntity(server.url("/$it").uri(), String) } as Callable) }*.get()
+        def requests = (1..11).collect { server.takeRequest() }
+
+        then:
+        responses.every { it.statusCodeValue == 200 && it.body == 'Sample body' }
+        provider.getConnectionManager('h2c_route') == null
+        provider.getHttp2Client('h2c_route').connectionPool().connectionCount() == 1
+        requests.count { it.sequenceNumber == 0 } == 1
+
+        cleanup:
+        executor.shutdown()
+    }
+
+    def "Should reject h2c mapping with https destination"() {
+        when:
+        new MappingsValidator().validate([mapping('https://localhost:8443')])
+
+        then:
+        thrown(FaradayException)
+    }
+
+    private static MappingProperties mapping(String destination) {
+        def mapping = new MappingProperties()
+        mapping.name = 'h2c_route'
+        mapping.host = 'h2c.staffjoy-v2.local'
+        mapping.destinations = [destination]
+        mapping.http2.enabled = true
+        return mapping
+    }
+}
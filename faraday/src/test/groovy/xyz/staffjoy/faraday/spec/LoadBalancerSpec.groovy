@@ -0,0 +1,120 @@
+package xyz.staffjoy.faraday.spec
+
+import spock.lang.Specification
+import spock.lang.Unroll
+import xyz.staffjoy.faraday.config.MappingProperties
+import xyz.staffjoy.faraday.core.balancer.LeastOutstandingLoadBalancer
+import xyz.staffjoy.faraday.core.balancer.MappingLoadBalancer
+import xyz.staffjoy.faraday.core.balancer.PeakEwmaLoadBalancer
+import xyz.staffjoy.faraday.core.balancer.RoundRobinLoadBalancer
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS
+import static xyz.staffjoy.faraday.config.MappingProperties.LoadBalancingProperties.Strategy.LEAST_OUTSTANDING
+import static xyz.staffjoy.faraday.config.MappingProperties.LoadBalancingProperties.Strategy.PEAK_EWMA
+import static xyz.staffjoy.faraday.config.MappingProperties.LoadBalancingProperties.Strategy.RANDOM
+import static xyz.staffjoy.faraday.config.MappingProperties.LoadBalancingProperties.Strategy.ROUND_ROBIN
+
+class LoadBalancerSpec extends Specification {
+
+    def "Should choose destinations in round-robin order"() {
+        given:
+        def loadBalancer = new RoundRobinLoadBalancer()
+        def mapping = mapping(ROUND_ROBIN, 'http://a', 'http://b', 'http://c')
+
+        when:
+        def chosen = (1..6).collect { loadBalancer.chooseDestination(mapping) }
+
+        then:
+        chosen.countBy { it } == ['http://a': 2, 'http://b': 2, 'http://c': 2]
+        chosen[0] != chosen[1]
+    }
+
+    def "Should choose destination with least outstanding requests"() {
+        given:
+        def loadBalancer = new LeastOutstandingLoadBalancer()
+        def mapping = mapping(LEAST_OUTSTANDING, 'http://a', 'http://b')
+        loadBalancer.onRequestStarted(mapping, 'http://a')
+
+        expect:
+        (1..10).every { loadBalancer.chooseDestination(mapping) == 'http://b' }
+    }
+
+    def "Should prefer destination with lower peak EWMA latency"() {
+        given:
+        def loadBalancer = new PeakEwmaLoadBalancer()
+        def mapping = mapping(PEAK_EWMA, 'http://a', 'http://b')
+        complete(loadBalancer, mapping, 'http://a', 200, false)
+        complete(loadBalancer, mapping, 'http://b', 10, false)
+
+        expect:
+        (1..10).every { loadBalancer.chooseDestination(mapping) == 'http://b' }
+    }
+
+    @Unroll
+    def "Should eject destination after consecutive failures when strategy is #strategy"() {
+        given:
+        def loadBalancer = new MappingLoadBalancer()
+        def mapping = mapping(strategy, 'http://a', 'http://b')
+
+        when:
+        mapping.loadBalancing.consecutiveFailures.times { complete(loadBalancer, mapping, 'http://a', 1, true) }
+
+        then:
+        (1..10).every { loadBalancer.chooseDestination(mapping) == 'http://b' }
+
+        where:
+        strategy << [ROUND_ROBIN, LEAST_OUTSTANDING, PEAK_EWMA]
+    }
+
+    def "Should not eject more destinations than max ejection percent"() {
+        given:
+        def loadBalancer = new RoundRobinLoadBalancer()
+        def mapping = mapping(ROUND_ROBIN, 'http://a', 'http://b')
+
+        when:
+        mapping.loadBalancing.consecutiveFailures.times {
+            complete(loadBalancer, mapping, 'http://a', 1, true)
+            complete(loadBalancer, mapping, 'http://b', 1, true)
+        }
+
+        then:
+        (1..10).collect { loadBalancer.chooseDestination(mapping) }.unique().size() == 1
+    }
+
+    def "Should not eject destination when failures are interleaved with successes"() {
+        given:
+        def loadBalancer = new RoundRobinLoadBalancer()
+        def mapping = mapping(ROUND_ROBIN, 'http://a', 'http://b')
+
+        when:
+        (mapping.loadBalancing.consecutiveFailures * 2).times {
+            complete(loadBalancer, mapping, 'http://a', 1, it % 2 == 0)
+        }
+
+        then:
+        (1..10).collect { loadBalancer.chooseDestination(mapping) }.toSet() == ['http://a', 'http://b'] as Set
+    }
+
+    def "Should choose random destination by default"() {
+        given:
+        def loadBalancer = new MappingLoadBalancer()
+        def mapping = mapping(RANDOM, 'http://a', 'http://b')
+
+        expect:
+        (1..10).every { loadBalancer.chooseDestination(mapping) in ['http://a', 'http://b'] }
+    }
+
+    private static void complete(loadBalancer, MappingProperties mapping, String destination, long latencyMillis, boolean failed) {
+        loadBalancer.onRequestStarted(mapping, destination)
+        loadBalancer.onRequestCompleted(mapping, destination, MILLISECONDS.toNanos(latencyMillis), failed)
+    }
+
+    private static MappingProperties mapping(MappingProperties.LoadBalancingProperties.Strategy strategy, String... destinations) {
+        def mapping = new MappingProperties()
+        mapping.name = 'test_route'
+        mapping.host = 'test.staffjoy-v2.local'
+        mapping.destinations = destinations as List
+        mapping.loadBalancing.strategy = strategy
+        return mapping
+    }
+}
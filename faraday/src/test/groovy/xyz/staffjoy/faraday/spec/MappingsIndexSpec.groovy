@@ -0,0 +1,49 @@
+package xyz.staffjoy.faraday.spec
+
+import spock.lang.Specification
+import spock.lang.Unroll
+import xyz.staffjoy.faraday.config.MappingProperties
+import xyz.staffjoy.faraday.core.mappings.MappingsIndex
+
+class MappingsIndexSpec extends Specification {
+
+    def index = MappingsIndex.build([
+            mapping('www_route', 'www.staffjoy-v2.local'),
+            mapping('tenant_route', '*.tenant.staffjoy-v2.local'),
+            mapping('vip_tenant_route', 'vip.tenant.staffjoy-v2.local'),
+            mapping('deep_tenant_route', '*.eu.tenant.staffjoy-v2.local'),
+            mapping('upper_route', 'App.Staffjoy-v2.local')
+    ])
+
+    @Unroll
+    def "Should resolve mapping #mappingName when host is '#host'"() {
+        expect:
+        index.find(host)?.name == mappingName
+
+        where:
+        host                                | mappingName
+        'www.staffjoy-v2.local'             | 'www_route'
+        'WWW.Staffjoy-V2.local'             | 'www_route'
+        'app.staffjoy-v2.local'             | 'upper_route'
+        'acme.tenant.staffjoy-v2.local'     | 'tenant_route'
+        'a.b.tenant.staffjoy-v2.local'      | 'tenant_route'
+        'vip.tenant.staffjoy-v2.local'      | 'vip_tenant_route'
+        'acme.eu.tenant.staffjoy-v2.local'  | 'deep_tenant_route'
+        'tenant.staffjoy-v2.local'          | null
+        'unknown.staffjoy-v2.local'         | null
+        ''                                  | null
+    }
+
+    def "Should resolve nothing from empty index"() {
+        expect:
+        MappingsIndex.empty().find('www.staffjoy-v2.local') == null
+    }
+
+    private static MappingProperties mapping(String name, String host) {
+        def mapping = new MappingProperties()
+        mapping.name = name
+        mapping.host = host
+        mapping.destinations = ['localhost:8086']
+        return mapping
+    }
+}
@@ -0,0 +1,198 @@
+package xyz.staffjoy.faraday.spec
+
+import org.springframework.boot.autoconfigure.web.ServerProperties
+import spock.lang.Specification
+import xyz.staffjoy.common.env.EnvConfig
+import xyz.staffjoy.common.env.EnvConstant
+import xyz.staffjoy.common.services.ServiceDirectory
+import xyz.staffjoy.faraday.config.FaradayProperties
+import xyz.staffjoy.faraday.config.MappingProperties
+import xyz.staffjoy.faraday.core.http.HttpClientProvider
+import xyz.staffjoy.faraday.core.mappings.ConfigurationMappingsProvider
+import xyz.staffjoy.faraday.core.mappings.MappingsFileWatcher
+import xyz.staffjoy.faraday.core.mappings.MappingsValidator
+import xyz.staffjoy.faraday.core.mappings.ProgrammaticMappingsProvider
+import xyz.staffjoy.faraday.core.metrics.RouteMetricsProvider
+
+import java.nio.file.Files
+
+class MappingsReloadSpec extends Specification {
+
+    def properties = new FaradayProperties()
+    def httpClientProvider = new HttpClientProvider(properties, Optional.empty(), new RouteMetricsProvider(properties, Optional.empty()))
+    def mappingsProvider = new ConfigurationMappingsProvider(new ServerProperties(), properties, new MappingsValidator(), httpClientProvider)
+
+    void cleanup() {
+        httpClientProvider.close()
+        ServiceDirectory.update(null)
+    }
+
+    def "Should keep clients of unchanged mappings and rebuild changed ones"() {
+        given:
+        properties.mappings = [mapping('first', 'first.staffjoy-v2.local'), mapping('second', 'second.staffjoy-v2.local')]
+        mappingsProvider.updateMappings()
+        def firstMapping = mappingsProvider.resolveMapping('first.staffjoy-v2.local', null)
+        def firstClient = httpClientProvider.getHttpClient('first')
+        def secondClient = httpClientProvider.getHttpClient('second')
+
+        when:
+        def changed = mapping('second', 'second.staffjoy-v2.local')
+        changed.timeout.read = 1000
+        properties.mappings = [mapping('first', 'first.staffjoy-v2.local'), changed, mapping('third', 'third.staffjoy-v2.local')]
+        mappingsProvider.updateMappings()
+
+        then:
+        mappingsProvider.resolveMapping('first.staffjoy-v2.local', null).is(firstMapping)
+        httpClientProvider.getHttpClient('first').is(firstClient)
+        !httpClientProvider.getHttpClient('second').is(secondClient)
+        mappingsProvider.resolveMapping('second.staffjoy-v2.local', null).timeout.read == 1000
+        mappingsProvider.resolveMapping('third.staffjoy-v2.local', null) != null
+        httpClientProvider.getHttpClient('third') != null
+    }
+
+    def "Should keep client of removed mapping until retire delay passes"() {
+        given:
+        properties.mappings = [mapping('first', 'first.staffjoy-v2.local'), mapping('second', 'second.staffjoy-v2.local')]
+        mappingsProvider.updateMappings()
+
+        when:
+        properties.mappings = [mapping('first', 'first.staffjoy-v2.local')]
+        mappingsProvider.updateMappings()
+
+        then:
+        mappingsProvider.resolveMapping('second.staffjoy-v2.local', null) == null
+        httpClientProvider.getHttpClient('second') != null
+        eventually { httpClientProvider.getHttpClient('second') == null }
+        httpClientProvider.getHttpClient('first') != null
+    }
+
+    def "Should treat mappings with a changed nested property as different"() {
+        given:
+        def original = mapping('first', 'first.staffjoy-v2.local')
+        def changed = mapping('first', 'first.staffjoy-v2.local')
+        change(changed)
+
+        expect:
+        original == mapping('first', 'first.staffjoy-v2.local')
+        original.hashCode() == mapping('first', 'first.staffjoy-v2.local').hashCode()
+        original != changed
+
+        where:
+        change << [
+                { it.pool.timeToLive = 1000 },
+                { it.loadBalancing.strategy = MappingProperties.LoadBalancingProperties.Strategy.ROUND_ROBIN },
+                { it.circuitBreaker.permittedCallsInHalfOpenState = 1 },
+                { it.bulkhead.maxConcurrentRequests = 1 },
+                { it.rateLimit.burst = 1 },
+                { it.retry.minRetriesPerSecond = 1 },
+                { it.hedging.minDelay = 1 },
+                { it.customConfiguration.key = 'value' }
+        ]
+    }
+
+    def "Should reload mappings and services when watched file changes"() {
+        given:
+        def directory = Files.createTempDirectory('faraday-mappings')
+        def file = directory.resolve('mappings.yml')
+        file.text = mappingsYaml('first.staffjoy-v2.local')
+        properties.mappingsFile.enabled = true
+        properties.mappingsFile.path = file.toString()
+        properties.mappingsFile.debounce = 50
+        def watcher = new MappingsFileWatcher(properties, mappingsProvider)
+
+        expect:
+        mappingsProvider.resolveMapping('first.staffjoy-v2.local', null).name == 'first'
+
+        when:
+        file.text = mappingsYaml('renamed.staffjoy-v2.local') + '''
+staffjoy:
+  services:
+    first:
+      security: 0
+      backend-domain: first-service-v2
+'''
+
+        then:
+        eventually { mappingsProvider.resolveMapping('renamed.staffjoy-v2.local', null)?.name == 'first' }
+        mappingsProvider.resolveMapping('first.staffjoy-v2.local', null) == null
+        ServiceDirectory.mapping.first.backendDomain == 'first-service-v2'
+        ServiceDirectory.mapping.account != null
+
+        when:
+        file.text = mappingsYaml('invalid.staffjoy-v2.local').replace('http://localhost:8080', '')
+        sleep(500)
+
+        then:
+        mappingsProvider.resolveMapping('renamed.staffjoy-v2.local', null)?.name == 'first'
+        mappingsProvider.resolveMapping('invalid.staffjoy-v2.local', null) == null
+
+        cleanup:
+        watcher?.destroy()
+        directory.toFile().deleteDir()
+    }
+
+    def "Should merge watched file mappings into programmatic mappings"() {
+        given:
+        def envConfig = EnvConfig.getEnvConfg(EnvConstant.ENV_TEST)
+        def programmaticProvider = new ProgrammaticMappingsProvider(envConfig, new ServerProperties(), properties, new MappingsValidator(), httpClientProvider)
+        def directory = Files.createTempDirectory('faraday-mappings')
+        def file = directory.resolve('mappings.yml')
+        file.text = mappingsYaml('first.staffjoy-v2.local')
+        properties.mappingsFile.enabled = true
+        properties.mappingsFile.path = file.toString()
+        properties.mappingsFile.debounce = 50
+        def watcher = new MappingsFileWatcher(properties, programmaticProvider)
+
+        expect:
+        programmaticProvider.resolveMapping('first.staffjoy-v2.local', null).name == 'first'
+        programmaticProvider.resolveMapping('www.' + envConfig.externalApex, null).name == 'www_route'
+
+        when:
+        file.text = mappingsYaml('renamed.staffjoy-v2.local') + """\
+    - name: www_route
+      host: www.${envConfig.externalApex}
+      destinations: http://localhost:8081
+"""
+
+        then:
+        eventually { programmaticProvider.resolveMapping('renamed.staffjoy-v2.local', null)?.name == 'first' }
+        programmaticProvider.resolveMapping('first.staffjoy-v2.local', null) == null
+        programmaticProvider.resolveMapping('www.' + envConfig.externalApex, null).destinations == ['http://localhost:8081']
+        programmaticProvider.resolveMapping('account.' + envConfig.externalApex, null).name == 'account_route'
+
+        cleanup:
+        watcher?.destroy()
+        directory.toFile().deleteDir()
+    }
+
+    private static MappingProperties mapping(String name, String host) {
+        def mapping = new MappingProperties()
+        mapping.name = name
+        mapping.host = host
+        mapping.destinations = ['http://localhost:8080']
+        mapping.timeout.connect = 100
+        mapping.timeout.read = 100
+        return mapping
+    }
+
+    private static String mappingsYaml(String host) {
+        return """\
+faraday:
+  mappings:
+    - name: first
+      host: ${host}
+      destinations: http://localhost:8080
+"""
+    }
+
+    private static boolean eventually(Closure<Boolean> condition) {
+        def deadline = System.currentTimeMillis() + 10000
+        while (!condition()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false
+            }
+            sleep(20)
+        }
+        return true
+    }
+}
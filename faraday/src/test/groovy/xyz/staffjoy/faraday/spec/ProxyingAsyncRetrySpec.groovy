@@ -0,0 +1,169 @@
+package xyz.staffjoy.faraday.spec
+
+import io.micrometer.core.instrument.MeterRegistry
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.http.HttpHeaders
+import org.springframework.mock.web.MockHttpServletRequest
+import xyz.staffjoy.faraday.BasicSpec
+import xyz.staffjoy.faraday.core.breaker.CircuitBreakerProvider
+import xyz.staffjoy.faraday.core.http.AsyncRequestForwarder
+import xyz.staffjoy.faraday.core.http.RequestData
+import xyz.staffjoy.faraday.core.http.RequestForwarder
+import xyz.staffjoy.faraday.core.mappings.MappingsProvider
+import xyz.staffjoy.faraday.core.retry.LatencySampler
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse
+import static com.github.tomakehurst.wiremock.client.WireMock.any
+import static com.github.tomakehurst.wiremock.client.WireMock.urlMatching
+import static org.springframework.http.HttpMethod.GET
+import static org.springframework.http.HttpStatus.OK
+import static xyz.staffjoy.faraday.assertions.Assertions.assertThat
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = 'faraday.async.enabled=true')
+class ProxyingAsyncRetrySpec extends BasicSpec {
+
+    @Autowired
+    private MappingsProvider mappingsProvider
+    @Autowired
+    private MeterRegistry meterRegistry
+    @Autowired
+    private CircuitBreakerProvider circuitBreakerProvider
+    @Autowired
+    private RequestForwarder requestForwarder
+
+    def "Should asynchronously retry idempotent request on another destination when destination responds with 503"() {
+        given:
+        def mapping = mappingsProvider.resolveMapping('www.staffjoy-v2.local', null)
+        mapping.retry.enabled = true
+        localhost8086.stubFor(any(urlMatching('.*')).willReturn(aResponse().withStatus(503)))
+
+        when:
+        def responses = (1..10).collect { sendRequest GET, 'www.staffjoy-v2.local', '/retry/1' }
+
+        then:
+        responses.every { it.statusCode == OK }
+
+        cleanup:
+        mapping.retry.enabled = false
+    }
+
+    def "Should asynchronously retry idempotent request on another destination when connection is refused"() {
+        given:
+        def mapping = mappingsProvider.resolveMapping('www.staffjoy-v2.local', null)
+        mapping.retry.enabled = true
+        localhost8086.stop()
+
+        when:
+        def responses = (1..10).collect { sendRequest GET, 'www.staffjoy-v2.local', '/retry/2' }
+
+        then:
+        responses.every { it.statusCode == OK }
+
+        cleanup:
+        mapping.retry.enabled = false
+    }
+
+    def "Should send hedged request to another destination when response is slower than recent responses"() {
+        given:
+        def mapping = mappingsProvider.resolveMapping('www.staffjoy-v2.local', null)
+        mapping.hedging.enabled = true
+        // 首次建立连接的慢请求不影响延迟的百分位数
+        (LatencySampler.MIN_SAMPLES * 5).times { sendRequest GET, 'www.staffjoy-v2.local', '/warmup' }
+        localhost8086.stubFor(any(urlMatching('.*')).willReturn(aResponse().withStatus(200).withBody('slow').withFixedDelay(400)))
+        localhost8087.stubFor(any(urlMatching('.*')).willReturn(aResponse().withStatus(200).withBody('fast')))
+        def hedges = meterRegistry.get('faraday.www_route.hedges').counter()
+        def initialHedges = hedges.count()
+
+        when:
+        def responses = (1..10).collect { sendRequest GET, 'www.staffjoy-v2.local', '/hedged' }
+
+        then:
+        responses.every { it.statusCode == OK && it.body == 'fast' }
+        hedges.count() > initialHedges
+
+        cleanup:
+        mapping.hedging.enabled = false
+    }
+
+    def "Should acquire bulkhead permit for each asynchronous retry"() {
+        given:
+        def mapping = mappingsProvider.resolveMapping('www.staffjoy-v2.local', null)
+        mapping.retry.enabled = true
+        mapping.bulkhead.maxConcurrentRequests = 1
+        // 重新创建舱壁
+        circuitBreakerProvider.onMappingsUpdated([])
+        localhost8086.stubFor(any(urlMatching('.*')).willReturn(aResponse().withStatus(503)))
+
+        when:
+        def responses = (1..10).collect { sendRequest GET, 'www.staffjoy-v2.local', '/retry/3' }
+
+        then:
+        responses.every { it.statusCode == OK }
+        // 每次尝试都申请并释放一个许可
+        meterRegistry.get('faraday.www_route.bulkhead.in_flight').gauge().value() == 0
+
+        cleanup:
+        mapping.retry.enabled = false
+        mapping.bulkhead.maxConcurrentRequests = 0
+        circuitBreakerProvider.onMappingsUpdated([])
+    }
+
+    def "Should skip hedged request when bulkhead is full"() {
+        given:
+        def mapping = mappingsProvider.resolveMapping('www.staffjoy-v2.local', null)
+        mapping.hedging.enabled = true
+        mapping.bulkhead.maxConcurrentRequests = 1
+        circuitBreakerProvider.onMappingsUpdated([])
+        (LatencySampler.MIN_SAMPLES * 5).times { sendRequest GET, 'www.staffjoy-v2.local', '/warmup' }
+        localhost8086.stubFor(any(urlMatching('.*')).willReturn(aResponse().withStatus(200).withBody('slow').withFixedDelay(400)))
+        localhost8087.stubFor(any(urlMatching('.*')).willReturn(aResponse().withStatus(200).withBody('fast')))
+
+        when:
+        def responses = (1..10).collect { sendRequest GET, 'www.staffjoy-v2.local', '/hedged' }
+
+        then:
+        // 对冲请求没有许可时不发送，仍然等待原来的尝试
+        responses.every { it.statusCode == OK }
+        responses.any { it.body == 'slow' }
+        meterRegistry.get('faraday.www_route.bulkhead.in_flight').gauge().value() == 0
+
+        cleanup:
+        mapping.hedging.enabled = false
+        mapping.bulkhead.maxConcurrentRequests = 0
+        circuitBreakerProvider.onMappingsUpdated([])
+    }
+
+    def "Should not retry or start hedged request after the caller cancels"() {
+        given:
+        def mapping = mappingsProvider.resolveMapping('www.staffjoy-v2.local', null)
+        mapping.retry.enabled = true
+        mapping.bulkhead.maxConcurrentRequests = 1
+        circuitBreakerProvider.onMappingsUpdated([])
+        def data = new RequestData(GET, 'www.staffjoy-v2.local', '/cancelled', new HttpHeaders(), null, new MockHttpServletRequest())
+        def exchange = new AsyncRequestForwarder.Exchange(requestForwarder, data, 'trace', mapping)
+        def destination = requestForwarder.resolveForwardDestination('/cancelled', mapping)
+        def attempt = new AsyncRequestForwarder.Attempt(destination, System.nanoTime())
+        exchange.inFlight.add(attempt)
+
+        when:
+        // 异步请求超时
+        exchange.result.cancel(false)
+        // 取消时已经失败的尝试
+        exchange.onFailure(attempt, new ConnectException('Connection refused'))
+        // 取消前已经取得许可的对冲请求
+        requestForwarder.onRequestStarted('trace', mapping, destination)
+        exchange.start(destination)
+
+        then:
+        exchange.attempts == 0
+        assertThat(localhost8086, localhost8087)
+                .haveReceivedNoRequest()
+        meterRegistry.get('faraday.www_route.bulkhead.in_flight').gauge().value() == 0
+
+        cleanup:
+        mapping.retry.enabled = false
+        mapping.bulkhead.maxConcurrentRequests = 0
+        circuitBreakerProvider.onMappingsUpdated([])
+    }
+}
@@ -0,0 +1,195 @@
+package xyz.staffjoy.faraday.spec
+
+import okhttp3.Protocol
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.http.HttpHeaders
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.web.client.UnknownHttpStatusCodeException
+import spock.lang.Unroll
+import xyz.staffjoy.faraday.BasicSpec
+import xyz.staffjoy.faraday.config.FaradayProperties
+import xyz.staffjoy.faraday.core.http.RequestData
+import xyz.staffjoy.faraday.core.http.RequestForwarder
+import xyz.staffjoy.faraday.core.http.ServletRequestHeaders
+import xyz.staffjoy.faraday.core.mappings.MappingsProvider
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse
+import static com.github.tomakehurst.wiremock.client.WireMock.any
+import static com.github.tomakehurst.wiremock.client.WireMock.urlMatching
+import static java.util.concurrent.TimeUnit.SECONDS
+import static org.springframework.http.HttpMethod.DELETE
+import static org.springframework.http.HttpMethod.GET
+import static org.springframework.http.HttpMethod.POST
+import static org.springframework.http.HttpMethod.PUT
+import static org.springframework.http.HttpStatus.BAD_REQUEST
+import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR
+import static org.springframework.http.HttpStatus.OK
+import static xyz.staffjoy.faraday.assertions.Assertions.assertThat
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = 'faraday.async.enabled=true')
+class ProxyingAsyncSpec extends BasicSpec {
+
+    @Autowired
+    private RequestForwarder requestForwarder
+    @Autowired
+    private MappingsProvider mappingsProvider
+    @Autowired
+    private FaradayProperties faradayProperties
+
+    @Unroll
+    def "Should asynchronously proxy HTTP request preserving request method when method is #method"() {
+        when:
+        sendRequest method, 'www.staffjoy-v2.local', '/path/1'
+
+        then:
+        assertThat(localhost8086, localhost8087)
+                .haveReceivedRequest()
+                .withMethodAndUrl(method, '/path/1')
+                .withoutBody()
+
+        where:
+        method << [GET, POST, DELETE, PUT]
+    }
+
+    @Unroll
+    def "Should asynchronously proxy HTTP request preserving request body when body is '#body'"() {
+        when:
+        sendRequest POST, 'www.staffjoy-v2.local', '/path/1', [:], body
+
+        then:
+        assertThat(localhost8086, localhost8087)
+                .haveReceivedRequest()
+                .withMethodAndUrl(POST, '/path/1')
+                .withBody(body)
+
+        where:
+        body << ['', '   ', 'Sample body', 'x' * 100000]
+    }
+
+    def "Should asynchronously proxy HTTP request with X-Forwarded headers"() {
+        when:
+        sendRequest GET, 'www.staffjoy-v2.local', '/path/1', ['Header-1': 'Value 1', 'TE': 'compress']
+
+        then:
+        assertThat(localhost8086, localhost8087)
+                .haveReceivedRequest()
+                .withMethodAndUrl(GET, '/path/1')
+                .withHeaders(['Header-1': 'Value 1', 'X-Forwarded-For': '127.0.0.1', 'X-Forwarded-Host': 'www.staffjoy-v2.local'])
+                .withoutHeaders(['TE'])
+    }
+
+    @Unroll
+    def "Should asynchronously proxy HTTP response with preserved body when destination response body is '#body'"() {
+        given:
+        stubDestinationResponse body
+
+        when:
+        def response = sendRequest GET, 'www.staffjoy-v2.local', '/path/1'
+
+        then:
+        assertThat(response)
+                .hasStatus(OK)
+                .hasBody(body)
+
+        where:
+        body << ['Sample body', 'y' * 100000]
+    }
+
+    def "Should asynchronously proxy HTTP response with preserved status and headers when destination response status indicates error"() {
+        given:
+        stubDestinationResponse BAD_REQUEST, ['Header-1': 'Value 1', 'Server': 'Apache/2.4.1 (Unix)']
+
+        when:
+        def response = sendRequest GET, 'www.staffjoy-v2.local', '/path/1'
+
+        then:
+        assertThat(response)
+                .hasStatus(BAD_REQUEST)
+                .containsHeaders(['Header-1': 'Value 1'])
+                .notContainsHeaders(['Server'])
+    }
+
+    def "Should asynchronously proxy HTTP response with preserved status when destination response status is non-standard"() {
+        given:
+        [localhost8086, localhost8087].each {
+            it.stubFor(any(urlMatching('.*')).willReturn(aResponse().withStatus(599).withBody('Sample body')))
+        }
+
+        when:
+        sendRequest GET, 'www.staffjoy-v2.local', '/path/1'
+
+        then:
+        def e = thrown(UnknownHttpStatusCodeException)
+        e.rawStatusCode == 599
+        e.responseBodyAsString == 'Sample body'
+    }
+
+    def "Should asynchronously proxy h2c response with preserved status when destination response status is non-standard"() {
+        given:
+        def server = new MockWebServer()
+        server.protocols = [Protocol.H2_PRIOR_KNOWLEDGE]
+        server.start()
+        server.enqueue(new MockResponse().setResponseCode(599).setBody('Sample body'))
+        def mapping = faradayProperties.mappings.find { it.name == 'www_route' }
+        def destinations = mapping.destinations
+        mapping.destinations = ["localhost:${server.port}".toString()]
+        mapping.http2.enabled = true
+        mappingsProvider.updateMappings()
+
+        when:
+        sendRequest GET, 'www.staffjoy-v2.local', '/path/1'
+
+        then:
+        def e = thrown(UnknownHttpStatusCodeException)
+        e.rawStatusCode == 599
+        e.responseBodyAsString == 'Sample body'
+
+        cleanup:
+        mapping.destinations = destinations
+        mapping.http2.enabled = false
+        mappingsProvider.updateMappings()
+        server.shutdown()
+    }
+
+    def "Should copy request headers before forwarding asynchronously"() {
+        given:
+        def request = new MockHttpServletRequest()
+        request.addHeader('Header-1', 'Value 1')
+        def data = new RequestData(GET, 'www.staffjoy-v2.local', '/path/1', new HttpHeaders(new ServletRequestHeaders(request)), null, request)
+
+        when:
+        def forwarded = requestForwarder.forwardHttpRequestAsync(data, 'trace', mappingsProvider.resolveMapping('www.staffjoy-v2.local', request))
+        // 容器回收请求对象
+        request.removeHeader('Header-1')
+
+        then:
+        data.headers.getFirst('Header-1') == 'Value 1'
+        forwarded.get(5, SECONDS).statusCode == OK
+    }
+
+    def "Should fail to asynchronously proxy HTTP request when a timeout occurs"() {
+        given:
+        stubDestinationResponse true
+
+        when:
+        def response = sendRequest GET, 'www.staffjoy-v2.local', '/path/1'
+
+        then:
+        assertThat(response)
+                .hasStatus(INTERNAL_SERVER_ERROR)
+    }
+
+    def "Should fail to asynchronously proxy HTTP request when destination URL cannot be created"() {
+        when:
+        def response = sendRequest GET, 'faraday.staffjoy-v2.local', '/path/4'
+
+        then:
+        assertThat(localhost8086, localhost8087)
+                .haveReceivedNoRequest()
+        assertThat(response)
+                .hasStatus(INTERNAL_SERVER_ERROR)
+    }
+}
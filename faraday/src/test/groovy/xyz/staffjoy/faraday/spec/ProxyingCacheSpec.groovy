@@ -0,0 +1,110 @@
+package xyz.staffjoy.faraday.spec
+
+import spock.lang.Unroll
+import xyz.staffjoy.faraday.BasicSpec
+
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo
+import static org.springframework.http.HttpMethod.GET
+import static org.springframework.http.HttpMethod.POST
+import static org.springframework.http.HttpStatus.NOT_MODIFIED
+import static org.springframework.http.HttpStatus.OK
+import static xyz.staffjoy.faraday.assertions.Assertions.assertThat
+
+class ProxyingCacheSpec extends BasicSpec {
+
+    def "Should serve cacheable HTTP response from cache without proxying HTTP request"() {
+        given:
+        stubDestinationResponse OK, ['Cache-Control': 'max-age=60', 'Content-Type': 'text/calendar'], 'BEGIN:VCALENDAR'
+
+        when:
+        def responses = (1..3).collect { sendRequest GET, 'ical.staffjoy-v2.local', '/cache/1.ics' }
+
+        then:
+        localhost8086.verify(1, getRequestedFor(urlEqualTo('/cache/1.ics')))
+        responses.every { it.statusCode == OK && it.body == 'BEGIN:VCALENDAR' }
+        assertThat(responses[2])
+                .containsHeaders(['Cache-Control': 'max-age=60', 'Content-Type': 'text/calendar', 'Age': '0'])
+    }
+
+    @Unroll
+    def "Should not cache HTTP response when destination response headers are #receivedHeaders"() {
+        given:
+        stubDestinationResponse OK, receivedHeaders, 'body'
+
+        when:
+        2.times { sendRequest GET, 'ical.staffjoy-v2.local', uri }
+
+        then:
+        localhost8086.verify(2, getRequestedFor(urlEqualTo(uri)))
+
+        where:
+        receivedHeaders                                            | uri
+        [:]                                                        | '/cache/2'
+        ['Cache-Control': 'no-store, max-age=60']                  | '/cache/3'
+        ['Cache-Control': 'no-cache, max-age=60']                  | '/cache/4'
+        ['Cache-Control': 'max-age=0']                             | '/cache/5'
+        ['Cache-Control': 'private, max-age=60']                   | '/cache/6'
+        ['Cache-Control': 'max-age=60', 'Set-Cookie': 'id=1']      | '/cache/7'
+        ['Cache-Control': 'max-age=60', 'Vary': '*']               | '/cache/8'
+        ['Cache-Control': 'max-age=60', 'Content-Encoding': 'gzip'] | '/cache/9'
+    }
+
+    def "Should not serve cached HTTP response when request cache control is no-cache"() {
+        given:
+        stubDestinationResponse OK, ['Cache-Control': 'max-age=60'], 'body'
+
+        when:
+        sendRequest GET, 'ical.staffjoy-v2.local', '/cache/10'
+        sendRequest GET, 'ical.staffjoy-v2.local', '/cache/10', ['Cache-Control': 'no-cache']
+
+        then:
+        localhost8086.verify(2, getRequestedFor(urlEqualTo('/cache/10')))
+    }
+
+    def "Should get not modified HTTP response from cache when request ETag matches"() {
+        given:
+        stubDestinationResponse OK, ['Cache-Control': 'max-age=60', 'ETag': '"v1"'], 'body'
+
+        when:
+        def etag = sendRequest(GET, 'ical.staffjoy-v2.local', '/cache/11').headers.getETag()
+        def notModified = sendRequest GET, 'ical.staffjoy-v2.local', '/cache/11', ['If-None-Match': "W/$etag".toString()]
+        def modified = sendRequest GET, 'ical.staffjoy-v2.local', '/cache/11', ['If-None-Match': '"v0"']
+
+        then:
+        localhost8086.verify(1, getRequestedFor(urlEqualTo('/cache/11')))
+        assertThat(notModified)
+                .hasStatus(NOT_MODIFIED)
+                .containsHeaders(['ETag': etag])
+                .hasNoBody()
+        assertThat(modified)
+                .hasStatus(OK)
+                .hasBody('body')
+    }
+
+    def "Should cache separate HTTP responses for request headers listed in Vary"() {
+        given:
+        stubDestinationResponse OK, ['Cache-Control': 'max-age=60', 'Vary': 'Accept-Language'], 'body'
+
+        when:
+        ['en', 'fr', 'en', 'fr'].each { sendRequest GET, 'ical.staffjoy-v2.local', '/cache/12', ['Accept-Language': it] }
+
+        then:
+        localhost8086.verify(2, getRequestedFor(urlEqualTo('/cache/12')))
+    }
+
+    def "Should invalidate cached HTTP response after unsafe HTTP request to the same URI"() {
+        given:
+        stubDestinationResponse OK, ['Cache-Control': 'max-age=60'], 'body'
+
+        when:
+        sendRequest GET, 'ical.staffjoy-v2.local', '/cache/13'
+        sendRequest POST, 'ical.staffjoy-v2.local', '/cache/13'
+        sendRequest GET, 'ical.staffjoy-v2.local', '/cache/13'
+
+        then:
+        localhost8086.verify(2, getRequestedFor(urlEqualTo('/cache/13')))
+        localhost8086.verify(1, postRequestedFor(urlEqualTo('/cache/13')))
+    }
+}
@@ -0,0 +1,79 @@
+package xyz.staffjoy.faraday.spec
+
+import com.github.tomakehurst.wiremock.matching.RequestPatternBuilder
+import io.micrometer.core.instrument.MeterRegistry
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import xyz.staffjoy.faraday.BasicSpec
+import xyz.staffjoy.faraday.core.breaker.CircuitBreakerProvider
+import xyz.staffjoy.faraday.core.mappings.MappingsProvider
+
+import java.util.concurrent.CompletableFuture
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse
+import static com.github.tomakehurst.wiremock.client.WireMock.any
+import static com.github.tomakehurst.wiremock.client.WireMock.urlMatching
+import static java.util.concurrent.TimeUnit.SECONDS
+import static org.springframework.http.HttpMethod.GET
+import static org.springframework.http.HttpStatus.OK
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE
+import static xyz.staffjoy.faraday.assertions.Assertions.assertThat
+
+class ProxyingCircuitBreakerSpec extends BasicSpec {
+
+    @Autowired
+    protected MappingsProvider mappingsProvider
+    @Autowired
+    protected CircuitBreakerProvider circuitBreakerProvider
+    @Autowired
+    protected MeterRegistry meterRegistry
+
+    def "Should fail fast without proxying HTTP request when circuit breaker is open"() {
+        given:
+        stubDestinationResponse SERVICE_UNAVAILABLE
+
+        when:
+        def failedResponses = (1..2).collect { sendRequest GET, 'ical.staffjoy-v2.local', '/path/1' }
+        stubDestinationResponse OK
+        def response = sendRequest GET, 'ical.staffjoy-v2.local', '/path/1'
+
+        then:
+        failedResponses.every { it.statusCode == SERVICE_UNAVAILABLE }
+        localhost8086.verify(2, RequestPatternBuilder.allRequests())
+        assertThat(response)
+                .hasStatus(SERVICE_UNAVAILABLE)
+    }
+
+    def "Should fail fast without proxying HTTP request when bulkhead is full"() {
+        given:
+        def mapping = mappingsProvider.resolveMapping('www.staffjoy-v2.local', null)
+        mapping.bulkhead.maxConcurrentRequests = 1
+        // 重新创建舱壁
+        circuitBreakerProvider.onMappingsUpdated([])
+        [localhost8086, localhost8087].each {
+            it.stubFor(any(urlMatching('/slow')).willReturn(aResponse().withStatus(200).withFixedDelay(400)))
+        }
+
+        when:
+        def slow = CompletableFuture.supplyAsync { sendRequest GET, 'www.staffjoy-v2.local', '/slow' }
+        sleep(200)
+        def rejected = sendRequest GET, 'www.staffjoy-v2.local', '/path/1'
+        def slowResponse = slow.get(5, SECONDS)
+        def response = sendRequest GET, 'www.staffjoy-v2.local', '/path/1'
+
+        then:
+        rejected.statusCode == SERVICE_UNAVAILABLE
+        slowResponse.statusCode == OK
+        response.statusCode == OK
+        // 每个许可都被释放且只释放一次
+        meterRegistry.get('faraday.www_route.bulkhead.in_flight').gauge().value() == 0
+
+        cleanup:
+        mapping.bulkhead.maxConcurrentRequests = 0
+        circuitBreakerProvider.onMappingsUpdated([])
+    }
+}
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = 'faraday.async.enabled=true')
+class ProxyingAsyncCircuitBreakerSpec extends ProxyingCircuitBreakerSpec {
+}
@@ -0,0 +1,154 @@
+package xyz.staffjoy.faraday.spec
+
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.http.HttpHeaders
+import org.springframework.http.HttpMethod
+import org.springframework.http.ResponseEntity
+import org.springframework.mock.web.MockHttpServletRequest
+import spock.lang.Unroll
+import xyz.staffjoy.common.auth.AuthConstant
+import xyz.staffjoy.faraday.BasicSpec
+import xyz.staffjoy.faraday.config.FaradayProperties
+import xyz.staffjoy.faraday.config.MappingProperties
+import xyz.staffjoy.faraday.core.http.RequestCoalescer
+import xyz.staffjoy.faraday.core.http.RequestData
+import xyz.staffjoy.faraday.core.mappings.MappingsProvider
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CancellationException
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.Executors
+
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo
+import static org.springframework.http.HttpMethod.GET
+import static org.springframework.http.HttpStatus.OK
+
+class ProxyingCoalescingSpec extends BasicSpec {
+
+    @Autowired
+    private MappingsProvider mappingsProvider
+
+    def coalescer = new RequestCoalescer(new FaradayProperties(), Optional.empty())
+
+    def "Should forward concurrent identical GET requests once"() {
+        given:
+        mappingsProvider.resolveMapping('ical.staffjoy-v2.local', null).coalescing.enabled = true
+        stubDestinationResponse true
+        def executor = Executors.newFixedThreadPool(5)
+
+        when:
+        def responses = (1..5).collect { executor.submit({ sendRequest GET, 'ical.staffjoy-v2.local', '/coalesce/1' } as Callable) }*.get()
+
+        then:
+        localhost8086.verify(1, getRequestedFor(urlEqualTo('/coalesce/1')))
+        responses.every { it.statusCode == OK }
+
+        cleanup:
+        executor.shutdown()
+        mappingsProvider.resolveMapping('ical.staffjoy-v2.local', null).coalescing.enabled = false
+    }
+
+    def "Should share response of in-flight request and forward again once it completes"() {
+        given:
+        def mapping = mapping()
+        def upstream = new CompletableFuture<ResponseEntity<byte[]>>()
+        def forwards = 0
+
+        when:
+        def first = coalescer.coalesce(requestData('/1'), mapping, { forwards++; upstream })
+        def second = coalescer.coalesce(requestData('/1'), mapping, { forwards++; new CompletableFuture() })
+        def otherUri = coalescer.coalesce(requestData('/2'), mapping, { forwards++; new CompletableFuture() })
+        upstream.complete(ResponseEntity.ok('body'.bytes))
+
+        then:
+        forwards == 2
+        first.get().body == 'body'.bytes
+        second.get().is(first.get())
+        !otherUri.done
+        coalescer.inFlightCount() == 1
+
+        when:
+        coalescer.coalesce(requestData('/1'), mapping, { forwards++; new CompletableFuture() })
+
+        then:
+        forwards == 3
+    }
+
+    def "Should fail all waiting requests when forwarding fails"() {
+        given:
+        def mapping = mapping()
+        def upstream = new CompletableFuture<ResponseEntity<byte[]>>()
+
+        when:
+        def first = coalescer.coalesce(requestData('/1'), mapping, { upstream })
+        def second = coalescer.coalesce(requestData('/1'), mapping, { upstream })
+        upstream.completeExceptionally(new IllegalStateException('upstream failed'))
+        second.join()
+
+        then:
+        def e = thrown(CompletionException)
+        e.cause.message == 'upstream failed'
+        first.completedExceptionally
+        coalescer.inFlightCount() == 0
+    }
+
+    def "Should not affect other waiting requests when one of them is cancelled"() {
+        given:
+        def mapping = mapping()
+        def upstream = new CompletableFuture<ResponseEntity<byte[]>>()
+        def first = coalescer.coalesce(requestData('/1'), mapping, { upstream })
+        def second = coalescer.coalesce(requestData('/1'), mapping, { upstream })
+
+        when:
+        first.cancel(false)
+        upstream.complete(ResponseEntity.ok('body'.bytes))
+        first.join()
+
+        then:
+        thrown(CancellationException)
+        !upstream.cancelled
+        second.get().body == 'body'.bytes
+    }
+
+    def "Should coalesce requests of different users separately"() {
+        given:
+        def mapping = mapping()
+        def forwards = 0
+
+        when:
+        coalescer.coalesce(requestData('/1', [(AuthConstant.CURRENT_USER_HEADER): 'user-1']), mapping, { forwards++; new CompletableFuture() })
+        coalescer.coalesce(requestData('/1', [(AuthConstant.CURRENT_USER_HEADER): 'user-2']), mapping, { forwards++; new CompletableFuture() })
+
+        then:
+        forwards == 2
+    }
+
+    @Unroll
+    def "Should not coalesce #method request with headers #headers"() {
+        expect:
+        !coalescer.isCoalescable(requestData('/1', headers, method), mapping())
+
+        where:
+        method          | headers
+        HttpMethod.POST | [:]
+        GET             | ['If-None-Match': '"1"']
+        GET             | ['Range': 'bytes=0-1']
+        GET             | ['Cache-Control': 'no-cache']
+        GET             | ['Content-Length': '4']
+    }
+
+    private static MappingProperties mapping() {
+        def mapping = new MappingProperties()
+        mapping.name = 'coalesced_route'
+        mapping.coalescing.enabled = true
+        return mapping
+    }
+
+    private static RequestData requestData(String uri, Map<String, String> headers = [:], HttpMethod method = GET) {
+        def httpHeaders = new HttpHeaders()
+        headers.each { name, value -> httpHeaders.set(name, value) }
+        return new RequestData(method, 'coalesced.staffjoy-v2.local', uri, httpHeaders, new byte[0], new MockHttpServletRequest())
+    }
+}
@@ -0,0 +1,143 @@
+package xyz.staffjoy.faraday.spec
+
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.http.HttpEntity
+import org.springframework.http.HttpHeaders
+import org.springframework.http.HttpMethod
+import org.springframework.http.HttpStatus
+import org.springframework.mock.web.MockHttpServletRequest
+import spock.lang.Unroll
+import xyz.staffjoy.faraday.BasicSpec
+import xyz.staffjoy.faraday.config.CompressionProperties
+import xyz.staffjoy.faraday.core.compression.ContentEncoder
+import xyz.staffjoy.faraday.core.compression.GzipContentEncoder
+import xyz.staffjoy.faraday.core.compression.ResponseCompressor
+
+import java.util.zip.GZIPInputStream
+import java.util.zip.GZIPOutputStream
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse
+import static com.github.tomakehurst.wiremock.client.WireMock.any
+import static com.github.tomakehurst.wiremock.client.WireMock.urlMatching
+import static org.springframework.http.HttpMethod.GET
+import static org.springframework.http.HttpMethod.POST
+import static org.springframework.http.HttpStatus.OK
+import static xyz.staffjoy.faraday.assertions.Assertions.assertThat
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = ['faraday.compression.enabled=true', 'faraday.compression.min-response-size=100'])
+class ProxyingCompressionSpec extends BasicSpec {
+
+    private static final String JSON = '[' + (1..50).collect { """{"id":"$it","name":"Worker $it","active":true}""" }.join(',') + ']'
+    // Accept-Encoding原样转发后WireMock（Jetty GzipHandler）会自己压缩响应，Jetty默认不压缩MSIE 6.0的响应，用来模拟不压缩的上游
+    private static final Map<String, String> UNCOMPRESSED_DESTINATION = ['User-Agent': 'MSIE 6.0']
+
+    def "Should gzip response when client accepts gzip"() {
+        given:
+        stubDestinationResponse OK, ['Content-Type': 'application/json'], JSON
+
+        when:
+        def response = exchange POST, ['Accept-Encoding': 'deflate, gzip'] + UNCOMPRESSED_DESTINATION
+
+        then:
+        response.headers.getFirst('Content-Encoding') == 'gzip'
+        response.headers.getVary().contains('Accept-Encoding')
+        response.body.length < JSON.length()
+        gunzip(response.body) == JSON
+    }
+
+    @Unroll
+    def "Should not compress response when #reason"() {
+        given:
+        stubDestinationResponse OK, ['Content-Type': contentType], body
+
+        when:
+        def response = exchange POST, (acceptEncoding ? ['Accept-Encoding': acceptEncoding] : [:]) + UNCOMPRESSED_DESTINATION
+
+        then:
+        !response.headers.containsKey('Content-Encoding')
+        new String(response.body) == body
+
+        where:
+        reason                              | contentType        | acceptEncoding | body
+        'client does not accept any coding' | 'application/json' | null           | JSON
+        'client refuses gzip'               | 'application/json' | 'gzip;q=0'     | JSON
+        'body is below threshold'           | 'application/json' | 'gzip'         | '{"id":"1"}'
+        'content type is not allowed'       | 'image/png'        | 'gzip'         | JSON
+    }
+
+    def "Should pass client Accept-Encoding to destination and forward encoded response as is"() {
+        given:
+        def encoded = gzip(JSON)
+        [localhost8086, localhost8087].each {
+            it.stubFor(any(urlMatching('.*')).willReturn(aResponse()
+                    .withStatus(200)
+                    .withHeader('Content-Type', 'application/json')
+                    .withHeader('Content-Encoding', 'gzip')
+                    .withBody(encoded)))
+        }
+
+        when:
+        def response = exchange GET, ['Accept-Encoding': 'gzip']
+
+        then:
+        assertThat(localhost8086, localhost8087)
+                .haveReceivedRequest()
+                .withHeaders(['Accept-Encoding': 'gzip'])
+        response.headers.get('Content-Encoding') == ['gzip']
+        response.body == encoded
+    }
+
+    def "Should weaken destination ETag when compressing response"() {
+        given:
+        stubDestinationResponse OK, ['Content-Type': 'application/json', 'ETag': '"v1"'], JSON
+
+        when:
+        def compressed = exchange GET, ['Accept-Encoding': 'gzip'] + UNCOMPRESSED_DESTINATION
+        def uncompressed = exchange GET, UNCOMPRESSED_DESTINATION
+
+        then:
+        compressed.headers.get('Content-Encoding') == ['gzip']
+        compressed.headers.getETag() == 'W/"v1"'
+        !uncompressed.headers.containsKey('Content-Encoding')
+        uncompressed.headers.getETag() == '"v1"'
+    }
+
+    def "Should choose encoding with the highest weight accepted by client"() {
+        given:
+        def properties = new CompressionProperties(enabled: true, minResponseSize: 0)
+        def br = Stub(ContentEncoder) { getEncoding() >> 'br' }
+        def compressor = new ResponseCompressor(properties, [new GzipContentEncoder(6), br])
+        def headers = new HttpHeaders()
+        headers.set('Content-Type', 'application/json;charset=UTF-8')
+        def request = new MockHttpServletRequest('GET', '/')
+        request.addHeader('Accept-Encoding', acceptEncoding)
+
+        expect:
+        compressor.negotiate(request, HttpStatus.OK, headers, -1)?.encoding == encoding
+
+        where:
+        acceptEncoding         | encoding
+        'gzip, deflate, br'    | 'br'
+        'gzip, br;q=0.5'       | 'gzip'
+        'br;q=0, *'            | 'gzip'
+        'identity'             | null
+        '*;q=0.1, gzip;q=0'    | 'br'
+    }
+
+    private exchange(HttpMethod method, Map<String, String> headers) {
+        def httpHeaders = new HttpHeaders()
+        headers.each { name, value -> httpHeaders.set(name, value) }
+        return restTemplate.exchange("http://www.staffjoy-v2.local:$port/path/1".toString(), method, new HttpEntity<>('', httpHeaders), byte[])
+    }
+
+    private static byte[] gzip(String body) {
+        def bytes = new ByteArrayOutputStream()
+        new GZIPOutputStream(bytes).withStream { it.write(body.bytes) }
+        return bytes.toByteArray()
+    }
+
+    private static String gunzip(byte[] body) {
+        return new GZIPInputStream(new ByteArrayInputStream(body)).text
+    }
+}
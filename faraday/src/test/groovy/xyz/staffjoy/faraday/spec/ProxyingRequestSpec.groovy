@@ -101,6 +101,8 @@ class ProxyingRequestSpec extends BasicSpec {
         requestHeaders                            | destinationHeaders         | removedHeaders
         [:]                                       | ['Host': 'ical.staffjoy-v2.local'] | []
         ['TE': 'compress']                        | ['Host': 'ical.staffjoy-v2.local'] | ['TE']
+        ['Proxy-Authorization': 'Basic dXNlcg=='] | ['Host': 'ical.staffjoy-v2.local'] | ['Proxy-Authorization']
+        ['Proxy-Connection': 'keep-alive']        | ['Host': 'ical.staffjoy-v2.local'] | ['Proxy-Connection']
     }
 
     @Unroll
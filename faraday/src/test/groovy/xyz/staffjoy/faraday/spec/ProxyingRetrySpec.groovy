@@ -0,0 +1,124 @@
+package xyz.staffjoy.faraday.spec
+
+import io.micrometer.core.instrument.MeterRegistry
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.web.client.ResourceAccessException
+import xyz.staffjoy.faraday.BasicSpec
+import xyz.staffjoy.faraday.config.FaradayProperties
+import xyz.staffjoy.faraday.core.mappings.MappingsProvider
+import xyz.staffjoy.faraday.core.metrics.RouteMetricsProvider
+import xyz.staffjoy.faraday.core.retry.RetryBudget
+import xyz.staffjoy.faraday.core.retry.RetryProvider
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse
+import static com.github.tomakehurst.wiremock.client.WireMock.any
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo
+import static com.github.tomakehurst.wiremock.client.WireMock.urlMatching
+import static java.util.concurrent.TimeUnit.SECONDS
+import static org.springframework.http.HttpMethod.GET
+import static org.springframework.http.HttpMethod.POST
+import static org.springframework.http.HttpStatus.OK
+
+class ProxyingRetrySpec extends BasicSpec {
+
+    @Autowired
+    private MappingsProvider mappingsProvider
+    @Autowired
+    private MeterRegistry meterRegistry
+
+    def "Should retry idempotent request on another destination when destination responds with 503"() {
+        given:
+        def mapping = mappingsProvider.resolveMapping('www.staffjoy-v2.local', null)
+        mapping.retry.enabled = true
+        localhost8086.stubFor(any(urlMatching('.*')).willReturn(aResponse().withStatus(503)))
+        def retries = meterRegistry.get('faraday.www_route.retries').counter()
+        def initialRetries = retries.count()
+
+        when:
+        def responses = (1..10).collect { sendRequest GET, 'www.staffjoy-v2.local', '/retry/1' }
+
+        then:
+        responses.every { it.statusCode == OK }
+        retries.count() == initialRetries + localhost8086.allServeEvents.size()
+
+        cleanup:
+        mapping.retry.enabled = false
+    }
+
+    def "Should retry idempotent request on another destination when connection is refused"() {
+        given:
+        def mapping = mappingsProvider.resolveMapping('www.staffjoy-v2.local', null)
+        mapping.retry.enabled = true
+        localhost8086.stop()
+
+        when:
+        def responses = (1..10).collect { sendRequest GET, 'www.staffjoy-v2.local', '/retry/2' }
+
+        then:
+        responses.every { it.statusCode == OK }
+
+        cleanup:
+        mapping.retry.enabled = false
+    }
+
+    def "Should not retry non-idempotent request"() {
+        given:
+        def mapping = mappingsProvider.resolveMapping('www.staffjoy-v2.local', null)
+        mapping.retry.enabled = true
+        localhost8086.stubFor(any(urlMatching('.*')).willReturn(aResponse().withStatus(503)))
+
+        when:
+        def responses = (1..10).collect { sendRequest POST, 'www.staffjoy-v2.local', '/retry/3', [:], 'body' }
+
+        then:
+        localhost8086.findAll(postRequestedFor(urlEqualTo('/retry/3'))).size() + localhost8087.findAll(postRequestedFor(urlEqualTo('/retry/3'))).size() == 10
+        responses.count { it.statusCode.value() == 503 } == localhost8086.findAll(postRequestedFor(urlEqualTo('/retry/3'))).size()
+
+        cleanup:
+        mapping.retry.enabled = false
+    }
+
+    def "Should limit retries to ratio of requests within the budget window"() {
+        given:
+        def budget = new RetryBudget(0.2, 0)
+        def now = SECONDS.toNanos(100)
+
+        when:
+        10.times { budget.onRequest(now) }
+
+        then:
+        budget.tryAcquire(now)
+        budget.tryAcquire(now + SECONDS.toNanos(1))
+        !budget.tryAcquire(now + SECONDS.toNanos(9))
+
+        when:
+        10.times { budget.onRequest(now + SECONDS.toNanos(11)) }
+
+        then:
+        budget.tryAcquire(now + SECONDS.toNanos(11))
+        budget.tryAcquire(now + SECONDS.toNanos(11))
+        !budget.tryAcquire(now + SECONDS.toNanos(11))
+    }
+
+    def "Should allow min retries per second without requests"() {
+        given:
+        def budget = new RetryBudget(0.2, 1)
+        def now = SECONDS.toNanos(100)
+
+        expect:
+        (1..RetryBudget.WINDOW_SECONDS).every { budget.tryAcquire(now) }
+        !budget.tryAcquire(now)
+    }
+
+    def "Should retry only connect failures"() {
+        given:
+        def provider = new RetryProvider(new RouteMetricsProvider(new FaradayProperties(), Optional.empty()))
+
+        expect:
+        provider.isRetryableFailure(new ResourceAccessException('I/O error', new ConnectException('Connection refused')))
+        !provider.isRetryableFailure(new ResourceAccessException('I/O error', new SocketTimeoutException('Read timed out')))
+        provider.isRetryableStatus(503)
+        !provider.isRetryableStatus(500)
+    }
+}
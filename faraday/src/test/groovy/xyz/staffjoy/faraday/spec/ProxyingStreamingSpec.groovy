@@ -0,0 +1,147 @@
+package xyz.staffjoy.faraday.spec
+
+import io.micrometer.core.instrument.MeterRegistry
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.web.client.UnknownHttpStatusCodeException
+import spock.lang.Unroll
+import xyz.staffjoy.faraday.BasicSpec
+import xyz.staffjoy.faraday.core.breaker.CircuitBreakerProvider
+import xyz.staffjoy.faraday.core.mappings.MappingsProvider
+
+import java.util.concurrent.CompletableFuture
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse
+import static com.github.tomakehurst.wiremock.client.WireMock.any
+import static com.github.tomakehurst.wiremock.client.WireMock.urlMatching
+import static java.util.concurrent.TimeUnit.SECONDS
+import static org.springframework.http.HttpMethod.GET
+import static org.springframework.http.HttpMethod.POST
+import static org.springframework.http.HttpStatus.BAD_REQUEST
+import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR
+import static org.springframework.http.HttpStatus.OK
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE
+import static xyz.staffjoy.faraday.assertions.Assertions.assertThat
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = 'faraday.streaming.enabled=true')
+class ProxyingStreamingSpec extends BasicSpec {
+
+    @Autowired
+    private MappingsProvider mappingsProvider
+    @Autowired
+    private CircuitBreakerProvider circuitBreakerProvider
+    @Autowired
+    private MeterRegistry meterRegistry
+
+    @Unroll
+    def "Should stream HTTP request preserving request body when body is '#body'"() {
+        when:
+        sendRequest POST, 'www.staffjoy-v2.local', '/path/1', [:], body
+
+        then:
+        assertThat(localhost8086, localhost8087)
+                .haveReceivedRequest()
+                .withMethodAndUrl(POST, '/path/1')
+                .withBody(body)
+
+        where:
+        body << ['', '   ', 'Sample body', 'x' * 100000]
+    }
+
+    def "Should stream HTTP request without body when request has no body"() {
+        when:
+        sendRequest GET, 'www.staffjoy-v2.local', '/path/1'
+
+        then:
+        assertThat(localhost8086, localhost8087)
+                .haveReceivedRequest()
+                .withMethodAndUrl(GET, '/path/1')
+                .withoutBody()
+    }
+
+    @Unroll
+    def "Should stream HTTP response with preserved body when destination response body is '#body'"() {
+        given:
+        stubDestinationResponse body
+
+        when:
+        def response = sendRequest GET, 'www.staffjoy-v2.local', '/path/1'
+
+        then:
+        assertThat(response)
+                .hasStatus(OK)
+                .hasBody(body)
+
+        where:
+        body << ['Sample body', 'y' * 100000]
+    }
+
+    def "Should stream HTTP response with preserved status and headers when destination response status indicates error"() {
+        given:
+        stubDestinationResponse BAD_REQUEST, ['Header-1': 'Value 1', 'Server': 'Apache/2.4.1 (Unix)']
+
+        when:
+        def response = sendRequest GET, 'www.staffjoy-v2.local', '/path/1'
+
+        then:
+        assertThat(response)
+                .hasStatus(BAD_REQUEST)
+                .containsHeaders(['Header-1': 'Value 1'])
+                .notContainsHeaders(['Server'])
+    }
+
+    def "Should stream HTTP response with preserved status when destination response status is non-standard"() {
+        given:
+        [localhost8086, localhost8087].each {
+            it.stubFor(any(urlMatching('.*')).willReturn(aResponse().withStatus(599).withBody('Sample body')))
+        }
+
+        when:
+        sendRequest GET, 'www.staffjoy-v2.local', '/path/1'
+
+        then:
+        def e = thrown(UnknownHttpStatusCodeException)
+        e.rawStatusCode == 599
+        e.responseBodyAsString == 'Sample body'
+    }
+
+    def "Should hold bulkhead permit until streamed response body is written"() {
+        given:
+        def mapping = mappingsProvider.resolveMapping('www.staffjoy-v2.local', null)
+        mapping.bulkhead.maxConcurrentRequests = 1
+        // 重新创建舱壁
+        circuitBreakerProvider.onMappingsUpdated([])
+        // 响应头立即返回，响应体在600毫秒内分块写出（小于读超时）
+        [localhost8086, localhost8087].each {
+            it.stubFor(any(urlMatching('/download')).willReturn(aResponse().withStatus(200).withBody('z' * 1000).withChunkedDribbleDelay(4, 600)))
+        }
+
+        when:
+        def download = CompletableFuture.supplyAsync { sendRequest GET, 'www.staffjoy-v2.local', '/download' }
+        sleep(300)
+        def rejected = sendRequest GET, 'www.staffjoy-v2.local', '/path/1'
+        def downloadResponse = download.get(5, SECONDS)
+
+        then:
+        rejected.statusCode == SERVICE_UNAVAILABLE
+        downloadResponse.statusCode == OK
+        downloadResponse.body == 'z' * 1000
+        meterRegistry.get('faraday.www_route.bulkhead.in_flight').gauge().value() == 0
+
+        cleanup:
+        mapping.bulkhead.maxConcurrentRequests = 0
+        circuitBreakerProvider.onMappingsUpdated([])
+    }
+
+    def "Should fail to stream HTTP request when a timeout occurs"() {
+        given:
+        stubDestinationResponse true
+
+        when:
+        def response = sendRequest GET, 'www.staffjoy-v2.local', '/path/1'
+
+        then:
+        assertThat(response)
+                .hasStatus(INTERNAL_SERVER_ERROR)
+    }
+}
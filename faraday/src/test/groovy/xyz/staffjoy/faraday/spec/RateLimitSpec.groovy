@@ -0,0 +1,227 @@
+package xyz.staffjoy.faraday.spec
+
+import org.springframework.boot.autoconfigure.web.ServerProperties
+import org.springframework.http.HttpHeaders
+import org.springframework.http.HttpMethod
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.mock.web.MockHttpServletResponse
+import spock.lang.Specification
+import xyz.staffjoy.common.auth.AuthConstant
+import xyz.staffjoy.common.env.EnvConfig
+import xyz.staffjoy.common.env.EnvConstant
+import xyz.staffjoy.faraday.config.FaradayProperties
+import xyz.staffjoy.faraday.config.MappingProperties
+import xyz.staffjoy.faraday.core.filter.LoadSheddingFilter
+import xyz.staffjoy.faraday.core.http.HttpClientProvider
+import xyz.staffjoy.faraday.core.http.RequestData
+import xyz.staffjoy.faraday.core.http.RequestDataExtractor
+import xyz.staffjoy.faraday.core.interceptor.RateLimitInterceptor
+import xyz.staffjoy.faraday.core.limiter.RateLimiter
+import xyz.staffjoy.faraday.core.mappings.ConfigurationMappingsProvider
+import xyz.staffjoy.faraday.core.mappings.MappingsValidator
+import xyz.staffjoy.faraday.core.mappings.ProgrammaticMappingsProvider
+import xyz.staffjoy.faraday.core.metrics.RouteMetricsProvider
+
+import javax.servlet.FilterChain
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS
+import static java.util.concurrent.TimeUnit.SECONDS
+
+class RateLimitSpec extends Specification {
+
+    def "Should allow burst and then limit to configured rate"() {
+        given:
+        def limiter = new RateLimiter(100)
+        def now = SECONDS.toNanos(100)
+
+        expect:
+        (1..5).every { limiter.tryAcquire('key', 10, 5, now) == 0 }
+        limiter.tryAcquire('key', 10, 5, now) == MILLISECONDS.toNanos(100)
+        limiter.tryAcquire('other', 10, 5, now) == 0
+        limiter.tryAcquire('key', 10, 5, now + MILLISECONDS.toNanos(100)) == 0
+        limiter.tryAcquire('key', 10, 5, now + MILLISECONDS.toNanos(100)) > 0
+    }
+
+    def "Should evict keys when key limit is reached"() {
+        given:
+        def limiter = new RateLimiter(10)
+
+        when:
+        (1..100).each { limiter.tryAcquire("key$it", 1, 1, 0) }
+
+        then:
+        limiter.size() <= 10
+    }
+
+    def "Should respond with 429 per user once rate limit is exceeded"() {
+        given:
+        def properties = new FaradayProperties()
+        def interceptor = new RateLimitInterceptor(properties, new RateLimiter(100), Optional.empty())
+        def mapping = mapping()
+
+        when:
+        def first = requestData('user-1')
+        interceptor.intercept(first, mapping)
+        def second = requestData('user-1')
+        interceptor.intercept(second, mapping)
+        def otherUser = requestData('user-2')
+        interceptor.intercept(otherUser, mapping)
+
+        then:
+        first.response == null
+        second.response.statusCodeValue == 429
+        second.response.headers.getFirst(HttpHeaders.RETRY_AFTER) == '1'
+        otherUser.response == null
+    }
+
+    def "Should key anonymous requests by client address behind trusted proxies"() {
+        given:
+        def properties = new FaradayProperties()
+        def interceptor = new RateLimitInterceptor(properties, new RateLimiter(100), Optional.empty())
+        def mapping = mapping()
+
+        when:
+        def first = anonymousRequestData('10.0.0.6', '203.0.113.1, 10.0.0.5, 10.0.0.6')
+        interceptor.intercept(first, mapping)
+        def otherClient = anonymousRequestData('10.0.0.6', '203.0.113.2, 10.0.0.5, 10.0.0.6')
+        interceptor.intercept(otherClient, mapping)
+        def sameClient = anonymousRequestData('10.0.0.7', '203.0.113.1', '10.0.0.7')
+        interceptor.intercept(sameClient, mapping)
+        def spoofed = anonymousRequestData('198.51.100.1', '203.0.113.3, 198.51.100.1')
+        interceptor.intercept(spoofed, mapping)
+        def spoofedAgain = anonymousRequestData('198.51.100.1', '203.0.113.4, 198.51.100.1')
+        interceptor.intercept(spoofedAgain, mapping)
+
+        then:
+        first.response == null
+        otherClient.response == null
+        sameClient.response.statusCodeValue == 429
+        spoofed.response == null
+        spoofedAgain.response.statusCodeValue == 429
+    }
+
+    def "Should apply rate limit defaults to programmatic mappings"() {
+        given:
+        def properties = new FaradayProperties()
+        properties.rateLimiter.defaults.enabled = true
+        properties.rateLimiter.defaults.permitsPerSecond = 5
+        def httpClientProvider = new HttpClientProvider(properties, Optional.empty(), new RouteMetricsProvider(properties, Optional.empty()))
+        def envConfig = EnvConfig.getEnvConfg(EnvConstant.ENV_TEST)
+        def mappingsProvider = new ProgrammaticMappingsProvider(envConfig, new ServerProperties(), properties, new MappingsValidator(), httpClientProvider)
+
+        when:
+        mappingsProvider.updateMappings()
+        def mapping = mappingsProvider.resolveMapping('www.' + envConfig.externalApex, null)
+
+        then:
+        mapping.rateLimit.enabled
+        mapping.rateLimit.permitsPerSecond == 5
+
+        cleanup:
+        httpClientProvider.close()
+    }
+
+    def "Should shed requests without queueing once concurrency limit is reached"() {
+        given:
+        def properties = new FaradayProperties()
+        properties.loadShedding.maxConcurrentRequests = 1
+        properties.loadShedding.maxConcurrentRequestsPerRoute = 0
+        def filter = new LoadSheddingFilter(properties, null, new RequestDataExtractor(), Optional.empty())
+        def entered = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def blockingChain = { request, response -> entered.countDown(); release.await() } as FilterChain
+        def executor = Executors.newSingleThreadExecutor()
+
+        when:
+        def inFlight = executor.submit { filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), blockingChain) }
+        entered.await()
+        def shed = new MockHttpServletResponse()
+        filter.doFilter(new MockHttpServletRequest(), shed, { request, response -> } as FilterChain)
+        release.countDown()
+        inFlight.get()
+
+        then:
+        shed.status == 503
+        shed.getHeader(HttpHeaders.RETRY_AFTER) == '1'
+        filter.availablePermits == 1
+
+        cleanup:
+        executor.shutdown()
+    }
+
+    def "Should shed requests of an overloaded route without starving other routes"() {
+        given:
+        def properties = new FaradayProperties()
+        properties.loadShedding.maxConcurrentRequests = 10
+        properties.loadShedding.maxConcurrentRequestsPerRoute = 1
+        properties.mappings = [routeMapping('slow_route', 'slow.staffjoy-v2.local'), routeMapping('fast_route', 'fast.staffjoy-v2.local')]
+        def httpClientProvider = new HttpClientProvider(properties, Optional.empty(), new RouteMetricsProvider(properties, Optional.empty()))
+        def mappingsProvider = new ConfigurationMappingsProvider(new ServerProperties(), properties, new MappingsValidator(), httpClientProvider)
+        mappingsProvider.updateMappings()
+        def filter = new LoadSheddingFilter(properties, mappingsProvider, new RequestDataExtractor(), Optional.empty())
+        def entered = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def blockingChain = { request, response -> entered.countDown(); release.await() } as FilterChain
+        def executor = Executors.newSingleThreadExecutor()
+
+        when:
+        def inFlight = executor.submit { filter.doFilter(request('slow.staffjoy-v2.local'), new MockHttpServletResponse(), blockingChain) }
+        entered.await()
+        def slow = new MockHttpServletResponse()
+        filter.doFilter(request('slow.staffjoy-v2.local'), slow, { request, response -> } as FilterChain)
+        def fast = new MockHttpServletResponse()
+        filter.doFilter(request('fast.staffjoy-v2.local'), fast, { request, response -> } as FilterChain)
+        release.countDown()
+        inFlight.get()
+
+        then:
+        slow.status == 503
+        fast.status == 200
+        filter.availablePermits == 10
+        filter.getAvailablePermits('slow_route') == 1
+        filter.getAvailablePermits('fast_route') == 1
+
+        cleanup:
+        executor.shutdown()
+        httpClientProvider.close()
+    }
+
+    private static MappingProperties mapping() {
+        def mapping = new MappingProperties()
+        mapping.name = 'limited_route'
+        mapping.rateLimit.enabled = true
+        mapping.rateLimit.permitsPerSecond = 1
+        mapping.rateLimit.burst = 1
+        return mapping
+    }
+
+    private static RequestData requestData(String userId) {
+        def headers = new HttpHeaders()
+        headers.set(AuthConstant.CURRENT_USER_HEADER, userId)
+        return new RequestData(HttpMethod.GET, 'limited.staffjoy-v2.local', '/', headers, new byte[0], new MockHttpServletRequest())
+    }
+
+    private static RequestData anonymousRequestData(String remoteAddr, String... forwardedFor) {
+        def headers = new HttpHeaders()
+        forwardedFor.each { headers.add('X-Forwarded-For', it) }
+        def request = new MockHttpServletRequest()
+        request.remoteAddr = remoteAddr
+        return new RequestData(HttpMethod.GET, 'limited.staffjoy-v2.local', '/', headers, new byte[0], request)
+    }
+
+    private static MappingProperties routeMapping(String name, String host) {
+        def mapping = new MappingProperties()
+        mapping.name = name
+        mapping.host = host
+        mapping.destinations = ['http://localhost:8080']
+        return mapping
+    }
+
+    private static MockHttpServletRequest request(String host) {
+        def request = new MockHttpServletRequest()
+        request.serverName = host
+        return request
+    }
+}
@@ -0,0 +1,91 @@
+package xyz.staffjoy.faraday.spec
+
+import org.springframework.http.HttpHeaders
+import spock.lang.Specification
+import xyz.staffjoy.faraday.config.FaradayProperties
+import xyz.staffjoy.faraday.core.cache.CachedResponse
+import xyz.staffjoy.faraday.core.cache.ResponseCache
+
+import static java.lang.System.currentTimeMillis
+import static org.springframework.http.HttpStatus.OK
+
+class ResponseCacheSpec extends Specification {
+
+    def properties = new FaradayProperties()
+    def cache = new ResponseCache(properties)
+
+    def "Should evict least recently used responses when max entries is exceeded"() {
+        given:
+        properties.cache.maxEntries = 2
+        cache.put('a', [], new HttpHeaders(), response(1))
+        cache.put('b', [], new HttpHeaders(), response(1))
+
+        when:
+        cache.get('a', new HttpHeaders())
+        cache.put('c', [], new HttpHeaders(), response(1))
+
+        then:
+        cache.get('a', new HttpHeaders()) != null
+        cache.get('b', new HttpHeaders()) == null
+        cache.get('c', new HttpHeaders()) != null
+        cache.count() == 2
+    }
+
+    def "Should evict responses when max size is exceeded"() {
+        given:
+        properties.cache.maxSize = 10
+        cache.put('a', [], new HttpHeaders(), response(6))
+
+        when:
+        cache.put('b', [], new HttpHeaders(), response(6))
+
+        then:
+        cache.get('a', new HttpHeaders()) == null
+        cache.get('b', new HttpHeaders()) != null
+        cache.size() == 6
+    }
+
+    def "Should not cache response larger than max entry size"() {
+        given:
+        properties.cache.maxEntrySize = 5
+
+        when:
+        cache.put('a', [], new HttpHeaders(), response(6))
+
+        then:
+        cache.get('a', new HttpHeaders()) == null
+        cache.size() == 0
+    }
+
+    def "Should not return expired response"() {
+        given:
+        def now = currentTimeMillis()
+        cache.put('a', [], new HttpHeaders(), new CachedResponse(OK, new HttpHeaders(), new byte[1], 0, now - 2000, now - 1000))
+
+        expect:
+        cache.get('a', new HttpHeaders()) == null
+        cache.size() == 0
+    }
+
+    def "Should match response variant by request headers listed in Vary"() {
+        given:
+        def english = headers('accept-language': 'en')
+        def french = headers('accept-language': 'fr')
+        cache.put('a', ['accept-language'], english, response(1))
+
+        expect:
+        cache.get('a', english) != null
+        cache.get('a', french) == null
+    }
+
+    private static CachedResponse response(int size) {
+        def now = currentTimeMillis()
+        return new CachedResponse(OK, new HttpHeaders(), new byte[size], 0, now, now + 60000)
+    }
+
+    private static HttpHeaders headers(Map<String, String> values) {
+        def headers = new HttpHeaders()
+        values.each { name, value -> headers.add(name, value) }
+        return headers
+    }
+}
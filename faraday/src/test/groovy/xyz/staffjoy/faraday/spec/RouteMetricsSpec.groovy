@@ -0,0 +1,92 @@
+package xyz.staffjoy.faraday.spec
+
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.beans.factory.annotation.Autowired
+import xyz.staffjoy.faraday.BasicSpec
+import xyz.staffjoy.faraday.config.FaradayProperties
+import xyz.staffjoy.faraday.config.MappingProperties
+import xyz.staffjoy.faraday.core.metrics.RouteMetrics
+import xyz.staffjoy.faraday.core.metrics.RouteMetricsProvider
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS
+import static org.springframework.http.HttpMethod.POST
+import static org.springframework.http.HttpStatus.NOT_FOUND
+import static org.springframework.http.HttpStatus.OK
+
+class RouteMetricsSpec extends BasicSpec {
+
+    @Autowired
+    private MeterRegistry meterRegistry
+
+    def "Should pre-register meters of every mapping"() {
+        expect:
+        ['faraday_route', 'account_route', 'ical_route', 'www_route'].every { name ->
+            meterRegistry.find("faraday.${name}").timer() != null &&
+                    meterRegistry.find("faraday.${name}.responses").tag('status', '5xx').counter() != null &&
+                    meterRegistry.find("faraday.${name}.in_flight").gauge() != null &&
+                    meterRegistry.find("faraday.${name}.upstream.first_byte").timer() != null
+        }
+    }
+
+    def "Should record status class, bytes and upstream timings of forwarded request"() {
+        given:
+        stubDestinationResponse status, 'response body'
+        def responses = meterRegistry.get('faraday.www_route.responses').tag('status', statusClass).counter()
+        def initialResponses = responses.count()
+        def initialRequestBytes = meterRegistry.get('faraday.www_route.request.bytes').counter().count()
+        def initialResponseBytes = meterRegistry.get('faraday.www_route.response.bytes').counter().count()
+        def initialFirstBytes = meterRegistry.get('faraday.www_route.upstream.first_byte').timer().count()
+
+        when:
+        sendRequest POST, 'www.staffjoy-v2.local', '/metrics', [:], 'request body'
+
+        then:
+        responses.count() == initialResponses + 1
+        meterRegistry.get('faraday.www_route.request.bytes').counter().count() == initialRequestBytes + 'request body'.length()
+        meterRegistry.get('faraday.www_route.response.bytes').counter().count() == initialResponseBytes + 'response body'.length()
+        meterRegistry.get('faraday.www_route.upstream.first_byte').timer().count() == initialFirstBytes + 1
+        meterRegistry.get('faraday.www_route.upstream.connect').timer().count() > 0
+        meterRegistry.get('faraday.www_route.in_flight').gauge().value() == 0
+
+        where:
+        status    | statusClass
+        OK        | '2xx'
+        NOT_FOUND | '4xx'
+    }
+
+    def "Should count requests without upstream response and remove meters of removed mappings"() {
+        given:
+        def registry = new SimpleMeterRegistry()
+        def provider = new RouteMetricsProvider(new FaradayProperties(), Optional.of(registry))
+        provider.onMappingsUpdated([mapping('first'), mapping('second')])
+        def metrics = provider.getMetrics('first')
+
+        when:
+        metrics.onRequestStarted()
+        metrics.onRequestStarted()
+        metrics.onRequestCompleted(MILLISECONDS.toNanos(30), RouteMetrics.NO_RESPONSE)
+        provider.onNoMappingFound()
+
+        then:
+        registry.get('faraday.first.errors').counter().count() == 1
+        registry.get('faraday.first.in_flight').gauge().value() == 1
+        registry.get('faraday.first').timer().count() == 1
+        registry.get('faraday.no_mapping').counter().count() == 1
+        registry.find('faraday.second.responses').counters().size() == 5
+
+        when:
+        provider.onMappingsUpdated([mapping('first')])
+
+        then:
+        registry.find('faraday.second.responses').counters().isEmpty()
+        registry.find('faraday.second').timer() == null
+        provider.getMetrics('first').is(metrics)
+    }
+
+    private static MappingProperties mapping(String name) {
+        def mapping = new MappingProperties()
+        mapping.name = name
+        return mapping
+    }
+}
@@ -0,0 +1,70 @@
+package xyz.staffjoy.faraday.spec
+
+import org.springframework.http.HttpHeaders
+import org.springframework.mock.web.MockHttpServletRequest
+import spock.lang.Specification
+import xyz.staffjoy.faraday.core.http.ServletRequestHeaders
+
+class ServletRequestHeadersSpec extends Specification {
+
+    def request = new MockHttpServletRequest('GET', '/')
+    def headers = new HttpHeaders(new ServletRequestHeaders(request))
+
+    void setup() {
+        request.addHeader('Accept', 'text/html')
+        request.addHeader('X-Forwarded-For', '172.10.89.11')
+        request.addHeader('Cookie', 'a=1')
+        request.addHeader('Cookie', 'b=2')
+    }
+
+    def "Should read servlet request headers ignoring case"() {
+        expect:
+        headers.getFirst('accept') == 'text/html'
+        headers.get('COOKIE') == ['a=1', 'b=2']
+        headers.containsKey('X-Forwarded-For')
+        !headers.containsKey('Authorization')
+        headers.get('Authorization') == null
+    }
+
+    def "Should apply changes without modifying servlet request"() {
+        when:
+        headers.add('X-Forwarded-For', '127.0.0.1')
+        headers.set('Authorization', 'faraday-anonymous')
+        headers.remove('cookie')
+
+        then:
+        headers.get('X-Forwarded-For') == ['172.10.89.11', '127.0.0.1']
+        headers.getFirst('Authorization') == 'faraday-anonymous'
+        !headers.containsKey('Cookie')
+        request.getHeader('Authorization') == null
+        request.getHeaders('X-Forwarded-For').toList() == ['172.10.89.11']
+        request.getHeaders('Cookie').toList() == ['a=1', 'b=2']
+    }
+
+    def "Should iterate servlet request headers in order followed by added headers"() {
+        given:
+        headers.remove('Accept')
+        headers.set('Cookie', 'c=3')
+        headers.set('Authorization', 'faraday-anonymous')
+        def iterated = [:]
+
+        when:
+        headers.forEach { name, values -> iterated[name] = values }
+
+        then:
+        iterated == ['X-Forwarded-For': ['172.10.89.11'], 'Cookie': ['c=3'], 'Authorization': ['faraday-anonymous']]
+        headers.entrySet().collect { it.key } == ['X-Forwarded-For', 'Cookie', 'Authorization']
+    }
+
+    def "Should copy headers into other HTTP headers"() {
+        given:
+        headers.set('Authorization', 'faraday-anonymous')
+        def copy = new HttpHeaders()
+
+        when:
+        copy.putAll(headers)
+
+        then:
+        copy == ['Accept': ['text/html'], 'X-Forwarded-For': ['172.10.89.11'], 'Cookie': ['a=1', 'b=2'], 'Authorization': ['faraday-anonymous']]
+    }
+}
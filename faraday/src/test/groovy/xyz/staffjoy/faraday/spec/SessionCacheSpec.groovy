@@ -0,0 +1,100 @@
+package xyz.staffjoy.faraday.spec
+
+import org.springframework.http.HttpHeaders
+import org.springframework.mock.web.MockHttpServletRequest
+import spock.lang.Specification
+import xyz.staffjoy.common.auth.AuthConstant
+import xyz.staffjoy.common.crypto.Sign
+import xyz.staffjoy.common.env.EnvConfig
+import xyz.staffjoy.common.env.EnvConstant
+import xyz.staffjoy.faraday.config.MappingProperties
+import xyz.staffjoy.faraday.core.http.RequestData
+import xyz.staffjoy.faraday.core.interceptor.AuthRequestInterceptor
+import xyz.staffjoy.faraday.core.interceptor.SessionCache
+
+import javax.servlet.http.Cookie
+
+import static java.lang.System.currentTimeMillis
+import static org.springframework.http.HttpMethod.GET
+
+class SessionCacheSpec extends Specification {
+
+    static final String SIGNING_SECRET = 'TEST_SIGNING_SECRET'
+
+    def "Should get cached session until token expires"() {
+        given:
+        def cache = new SessionCache<String>(10)
+        cache.put('token-1', 'session-1', currentTimeMillis() + 60000)
+        cache.put('token-2', 'session-2', currentTimeMillis() - 1)
+
+        expect:
+        cache.get('token-1') == 'session-1'
+        cache.get('token-2') == null
+        cache.get('token-3') == null
+        cache.size() == 1
+    }
+
+    def "Should not exceed max entries"() {
+        given:
+        def cache = new SessionCache<String>(10)
+
+        when:
+        (1..25).each { cache.put("token-$it".toString(), "session-$it".toString(), currentTimeMillis() + 60000) }
+
+        then:
+        cache.size() <= 10
+        cache.get('token-25') == 'session-25'
+    }
+
+    def "Should not cache sessions when max entries is zero"() {
+        given:
+        def cache = new SessionCache<String>(0)
+
+        when:
+        cache.put('token-1', 'session-1', currentTimeMillis() + 60000)
+
+        then:
+        cache.get('token-1') == null
+    }
+
+    def "Should resolve same authenticated user from cached session"() {
+        given:
+        def interceptor = new AuthRequestInterceptor(SIGNING_SECRET, EnvConfig.getEnvConfg(EnvConstant.ENV_TEST), 10)
+        def token = Sign.generateSessionToken('user-1', SIGNING_SECRET, false, 60000)
+
+        when:
+        def first = intercept(interceptor, token)
+        def second = intercept(interceptor, token)
+
+        then:
+        [first, second].every {
+            it.getFirst(AuthConstant.CURRENT_USER_HEADER) == 'user-1' &&
+                    it.getFirst(AuthConstant.AUTHORIZATION_HEADER) == AuthConstant.AUTHORIZATION_AUTHENTICATED_USER
+        }
+    }
+
+    def "Should treat request with invalid token as anonymous"() {
+        given:
+        def interceptor = new AuthRequestInterceptor(SIGNING_SECRET, EnvConfig.getEnvConfg(EnvConstant.ENV_TEST), 10)
+        def token = Sign.generateSessionToken('user-1', 'OTHER_SIGNING_SECRET', false, 60000)
+
+        when:
+        def headers = intercept(interceptor, token)
+
+        then:
+        !headers.containsKey(AuthConstant.CURRENT_USER_HEADER)
+        headers.getFirst(AuthConstant.AUTHORIZATION_HEADER) == AuthConstant.AUTHORIZATION_ANONYMOUS_WEB
+    }
+
+    private static HttpHeaders intercept(AuthRequestInterceptor interceptor, String token) {
+        def request = new MockHttpServletRequest('GET', '/')
+        request.setCookies(new Cookie(AuthConstant.COOKIE_NAME, token))
+        def mapping = new MappingProperties()
+        mapping.name = 'www_route'
+        mapping.host = 'www.staffjoy-v2.local'
+        mapping.destinations = ['localhost:8086']
+        def data = new RequestData(GET, 'www.staffjoy-v2.local', '/', new HttpHeaders(), null, request)
+        interceptor.intercept(data, mapping)
+        return data.headers
+    }
+}
@@ -0,0 +1,183 @@
+package xyz.staffjoy.faraday.spec
+
+import org.springframework.http.HttpHeaders
+import org.springframework.http.HttpMethod
+import org.springframework.http.HttpStatus
+import spock.lang.Specification
+import xyz.staffjoy.faraday.config.FaradayProperties
+import xyz.staffjoy.faraday.config.TracingProperties
+import xyz.staffjoy.faraday.core.trace.AsyncTraceInterceptor
+import xyz.staffjoy.faraday.core.trace.ForwardRequest
+import xyz.staffjoy.faraday.core.trace.IncomingRequest
+import xyz.staffjoy.faraday.core.trace.ProxyingTraceInterceptor
+import xyz.staffjoy.faraday.core.trace.ReceivedResponse
+import xyz.staffjoy.faraday.core.trace.TraceInterceptor
+import xyz.staffjoy.faraday.core.trace.TraceRingBuffer
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.Executors
+
+import static java.util.concurrent.TimeUnit.SECONDS
+
+class TracePipelineSpec extends Specification {
+
+    def "Should drop elements when ring buffer is full and drain them in order"() {
+        given:
+        def buffer = new TraceRingBuffer<Integer>(4)
+        def drained = []
+
+        expect:
+        (1..4).every { buffer.offer(it) }
+        !buffer.offer(5)
+
+        when:
+        buffer.drainTo(drained, 3)
+
+        then:
+        drained == [1, 2, 3]
+        buffer.offer(6)
+        buffer.drainTo(drained, 10) == 2
+        drained == [1, 2, 3, 4, 6]
+    }
+
+    def "Should not lose elements offered concurrently"() {
+        given:
+        def buffer = new TraceRingBuffer<Integer>(8192)
+        def executor = Executors.newFixedThreadPool(4)
+
+        when:
+        def futures = (0..<4).collect { producer ->
+            executor.submit { (0..<1000).each { assert buffer.offer(producer * 1000 + it) } }
+        }
+        futures*.get()
+        def drained = []
+        buffer.drainTo(drained, Integer.MAX_VALUE)
+
+        then:
+        drained.size() == 4000
+        drained.toSet() == (0..<4000).toSet()
+
+        cleanup:
+        executor.shutdown()
+    }
+
+    def "Should export trace events on background thread"() {
+        given:
+        def exported = new CopyOnWriteArrayList()
+        def interceptor = new AsyncTraceInterceptor(tracing(1.0), recordingInterceptor(exported))
+
+        when:
+        interceptor.onRequestReceived('trace-1', new IncomingRequest())
+        interceptor.onForwardError('trace-1', new IllegalStateException())
+        interceptor.destroy()
+
+        then:
+        exported == ['received trace-1', 'error trace-1']
+        interceptor.droppedEvents == 0
+    }
+
+    def "Should drop trace events instead of blocking when buffer is full"() {
+        given:
+        def stalled = new CountDownLatch(1)
+        def exported = new CopyOnWriteArrayList()
+        def delegate = recordingInterceptor(exported) { stalled.await(10, SECONDS) }
+        def properties = tracing(1.0)
+        properties.bufferSize = 4
+        def interceptor = new AsyncTraceInterceptor(properties, delegate)
+
+        when:
+        100.times { interceptor.onRequestReceived("trace-$it", new IncomingRequest()) }
+
+        then:
+        // 导出线程最多取走一批事件后卡住，缓冲区中再放满一次
+        interceptor.droppedEvents >= 100 - 2 * properties.bufferSize
+
+        when:
+        stalled.countDown()
+        interceptor.destroy()
+
+        then:
+        exported.size() + interceptor.droppedEvents == 100
+    }
+
+    def "Should not trace requests that are not sampled"() {
+        given:
+        def exported = []
+        def interceptor = new ProxyingTraceInterceptor(faradayProperties(0.0), recordingInterceptor(exported))
+
+        when:
+        def traceId = interceptor.generateTraceId()
+        interceptor.onRequestReceived(traceId, HttpMethod.GET, 'localhost', '/', new HttpHeaders())
+
+        then:
+        traceId == null
+        !interceptor.isSampled(traceId)
+        exported.isEmpty()
+    }
+
+    def "Should truncate bodies and copy headers of sampled requests"() {
+        given:
+        def responses = []
+        def delegate = Stub(TraceInterceptor) {
+            onForwardComplete(_, _) >> { String traceId, ReceivedResponse response -> responses << response }
+        }
+        def properties = faradayProperties(1.0)
+        properties.tracing.maxBodySize = 4
+        def interceptor = new ProxyingTraceInterceptor(properties, delegate)
+        def headers = new HttpHeaders()
+        headers.add('Header-1', 'Value 1')
+
+        when:
+        def traceId = interceptor.generateTraceId()
+        interceptor.onForwardComplete(traceId, HttpStatus.OK, 'Sample body'.bytes, headers)
+        headers.remove('Header-1')
+
+        then:
+        traceId != null
+        responses.size() == 1
+        responses[0].bodyAsString == 'Samp'
+        responses[0].headers.getFirst('Header-1') == 'Value 1'
+    }
+
+    private static TracingProperties tracing(double sampleRate) {
+        def tracing = new TracingProperties()
+        tracing.enabled = true
+        tracing.sampleRate = sampleRate
+        tracing.flushInterval = 10
+        return tracing
+    }
+
+    private static FaradayProperties faradayProperties(double sampleRate) {
+        def properties = new FaradayProperties()
+        properties.tracing = tracing(sampleRate)
+        return properties
+    }
+
+    private static TraceInterceptor recordingInterceptor(List exported, Closure onEvent = {}) {
+        return new TraceInterceptor() {
+            @Override
+            void onRequestReceived(String traceId, IncomingRequest request) {
+                onEvent()
+                exported << "received $traceId".toString()
+            }
+
+            @Override
+            void onNoMappingFound(String traceId, IncomingRequest request) {
+            }
+
+            @Override
+            void onForwardStart(String traceId, ForwardRequest request) {
+            }
+
+            @Override
+            void onForwardError(String traceId, Throwable error) {
+                exported << "error $traceId".toString()
+            }
+
+            @Override
+            void onForwardComplete(String traceId, ReceivedResponse response) {
+            }
+        }
+    }
+}
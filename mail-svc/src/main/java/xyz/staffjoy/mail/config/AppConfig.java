@@ -5,7 +5,7 @@ import com.aliyuncs.IAcsClient;
 import com.aliyuncs.profile.DefaultProfile;
 import com.aliyuncs.profile.IClientProfile;
 import org.springframework.context.annotation.Import;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import xyz.staffjoy.common.async.AsyncExecutorFactory;
 import xyz.staffjoy.common.config.StaffjoyRestConfig;
 import xyz.staffjoy.mail.MailConstant;
 import xyz.staffjoy.mail.props.AppProps;
@@ -44,15 +44,9 @@ public class AppConfig {
         return client;
     }
 
-    @Bean(name=ASYNC_EXECUTOR_NAME)
-    public Executor asyncExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(3);
-        executor.setMaxPoolSize(5);
-        executor.setQueueCapacity(100);
-        executor.setWaitForTasksToCompleteOnShutdown(true);
-        executor.setThreadNamePrefix("AsyncThread-");
-        executor.initialize();
-        return executor;
+    @Bean(name = ASYNC_EXECUTOR_NAME)
+    public Executor asyncExecutor(AsyncExecutorFactory asyncExecutorFactory) {
+        // 线程池大小和拒绝策略由 staffjoy.async.executors.asyncExecutor 配置
+        return asyncExecutorFactory.create(ASYNC_EXECUTOR_NAME);
     }
 }
@@ -10,7 +10,8 @@ import com.github.structlog4j.SLoggerFactory;
 import io.sentry.SentryClient;
 import org.springframework.context.annotation.Import;
 import org.springframework.scheduling.annotation.EnableAsync;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import xyz.staffjoy.common.async.AsyncExecutorFactory;
+import xyz.staffjoy.common.async.AsyncExecutorProperties;
 import xyz.staffjoy.common.config.StaffjoyRestConfig;
 import xyz.staffjoy.sms.SmsConstant;
 import xyz.staffjoy.sms.props.AppProps;
@@ -45,15 +46,13 @@ public class AppConfig {
         return client;
     }
 
-    @Bean(name=ASYNC_EXECUTOR_NAME)
-    public Executor asyncExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(appProps.getConcurrency());
-        executor.setMaxPoolSize(appProps.getConcurrency());
-        executor.setQueueCapacity(SmsConstant.DEFAULT_EXECUTOR_QUEUE_CAPACITY);
-        executor.setWaitForTasksToCompleteOnShutdown(true);
-        executor.setThreadNamePrefix("AsyncThread-");
-        executor.initialize();
-        return executor;
+    @Bean(name = ASYNC_EXECUTOR_NAME)
+    public Executor asyncExecutor(AsyncExecutorFactory asyncExecutorFactory) {
+        // 没有配置 staffjoy.async.executors.asyncExecutor 时按短信发送并发数创建
+        AsyncExecutorProperties.ExecutorProperties defaults = new AsyncExecutorProperties.ExecutorProperties();
+        defaults.setCorePoolSize(appProps.getConcurrency());
+        defaults.setMaxPoolSize(appProps.getConcurrency());
+        defaults.setQueueCapacity(SmsConstant.DEFAULT_EXECUTOR_QUEUE_CAPACITY);
+        return asyncExecutorFactory.create(ASYNC_EXECUTOR_NAME, defaults);
     }
 }
@@ -4,8 +4,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.scheduling.annotation.EnableAsync;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
-import xyz.staffjoy.common.async.ContextCopyingDecorator;
+import xyz.staffjoy.common.async.AsyncExecutorFactory;
 import xyz.staffjoy.common.config.StaffjoyWebConfig;
 
 import java.util.concurrent.Executor;
@@ -18,18 +17,10 @@ public class AppConfig {
 
     public static final String ASYNC_EXECUTOR_NAME = "asyncExecutor";
 
-    @Bean(name=ASYNC_EXECUTOR_NAME)
-    public Executor asyncExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        // for passing in request scope context
-        executor.setTaskDecorator(new ContextCopyingDecorator());
-        executor.setCorePoolSize(3);
-        executor.setMaxPoolSize(5);
-        executor.setQueueCapacity(100);
-        executor.setWaitForTasksToCompleteOnShutdown(true);
-        executor.setThreadNamePrefix("AsyncThread-");
-        executor.initialize();
-        return executor;
+    @Bean(name = ASYNC_EXECUTOR_NAME)
+    public Executor asyncExecutor(AsyncExecutorFactory asyncExecutorFactory) {
+        // 线程池大小和拒绝策略由 staffjoy.async.executors.asyncExecutor 配置
+        return asyncExecutorFactory.create(ASYNC_EXECUTOR_NAME);
     }
 
 }
@@ -2,8 +2,13 @@ package xyz.staffjoy.web.config;
 
 import ch.mfrey.thymeleaf.extras.with.WithDialect;
 import nz.net.ultraq.thymeleaf.LayoutDialect;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import xyz.staffjoy.common.asset.StaticAssets;
+import xyz.staffjoy.web.filter.StaticAssetFilter;
+
+import java.io.IOException;
 
 @Configuration
 public class ViewConfig {
@@ -16,4 +21,14 @@ public class ViewConfig {
     public WithDialect withDialect() {
         return new WithDialect();
     }
+
+    @Bean
+    public StaticAssets staticAssets() throws IOException {
+        return StaticAssets.load("classpath:static/assets/", StaticAssetFilter.ASSETS_PREFIX);
+    }
+
+    @Bean
+    public FilterRegistrationBean<StaticAssetFilter> staticAssetFilterRegistrationBean(StaticAssets staticAssets) {
+        return new FilterRegistrationBean<>(new StaticAssetFilter(staticAssets));
+    }
 }
@@ -0,0 +1,81 @@
+package xyz.staffjoy.web.filter;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+import xyz.staffjoy.common.asset.StaticAsset;
+import xyz.staffjoy.common.asset.StaticAssetWriter;
+import xyz.staffjoy.common.asset.StaticAssets;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+
+/*
+ *
+ * 静态资源过滤器
+ * 输出启动时加载的静态资源，带内容摘要的URL长期缓存，原始URL用ETag重新验证
+ * 页面中的 @{/assets/...} 链接替换为带内容摘要的URL，资源内容变化后URL随之变化
+ *
+ */
+public class StaticAssetFilter extends OncePerRequestFilter {
+
+    public static final String ASSETS_PREFIX = "/assets/";
+
+    private final StaticAssets assets;
+    private final StaticAssetWriter writer = new StaticAssetWriter();
+
+    public StaticAssetFilter(StaticAssets assets) {
+        this.assets = assets;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith(ASSETS_PREFIX)
+                && (HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod()))) {
+            StaticAsset asset = assets.get(path);
+            if (asset != null) {
+                writer.write(request, response, asset,
+                        assets.isHashedPath(path) ? StaticAssetWriter.IMMUTABLE : StaticAssetWriter.REVALIDATE);
+                return;
+            }
+        }
+        filterChain.doFilter(request, new AssetUrlEncodingResponse(request.getContextPath(), response));
+    }
+
+    /**
+     * Thymeleaf通过encodeURL生成链接，在这里把资源路径替换为带内容摘要的路径
+     */
+    private class AssetUrlEncodingResponse extends HttpServletResponseWrapper {
+
+        private final String contextPath;
+
+        private AssetUrlEncodingResponse(String contextPath, HttpServletResponse response) {
+            super(response);
+            this.contextPath = contextPath;
+        }
+
+        @Override
+        public String encodeURL(String url) {
+            return super.encodeURL(hashAssetUrl(url));
+        }
+
+        private String hashAssetUrl(String url) {
+            if (!url.startsWith(contextPath + ASSETS_PREFIX)) {
+                return url;
+            }
+            int end = url.length();
+            for (char delimiter : new char[]{'?', '#'}) {
+                int index = url.indexOf(delimiter);
+                if (index >= 0 && index < end) {
+                    end = index;
+                }
+            }
+            String path = url.substring(contextPath.length(), end);
+            return contextPath + assets.getHashedPath(path) + url.substring(end);
+        }
+    }
+}
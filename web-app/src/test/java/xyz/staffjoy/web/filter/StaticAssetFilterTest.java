@@ -0,0 +1,89 @@
+package xyz.staffjoy.web.filter;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.util.StreamUtils;
+import xyz.staffjoy.account.client.AccountClient;
+import xyz.staffjoy.common.asset.StaticAssetWriter;
+import xyz.staffjoy.common.asset.StaticAssets;
+import xyz.staffjoy.web.controller.ResetController;
+
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class StaticAssetFilterTest {
+    @Autowired
+    MockMvc mockMvc;
+
+    @MockBean
+    AccountClient accountClient;
+
+    @Autowired
+    StaticAssets staticAssets;
+
+    @Test
+    public void testCompressedAssetWithEtag() throws Exception {
+        byte[] css = StreamUtils.copyToByteArray(new ClassPathResource("static/assets/css/staffjoy.css").getInputStream());
+
+        MvcResult mvcResult = mockMvc.perform(get("/assets/css/staffjoy.css")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, StaticAssetWriter.REVALIDATE))
+                .andReturn();
+        byte[] body = mvcResult.getResponse().getContentAsByteArray();
+        assertThat(body.length).isLessThan(css.length);
+        assertThat(StreamUtils.copyToByteArray(new GZIPInputStream(new ByteArrayInputStream(body)))).isEqualTo(css);
+
+        // 浏览器重新验证
+        String etag = mvcResult.getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/assets/css/staffjoy.css")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    public void testHashedAssetIsImmutable() throws Exception {
+        // 大文件从临时文件输出
+        byte[] js = StreamUtils.copyToByteArray(new ClassPathResource("static/assets/js/bundle.js").getInputStream());
+        assertThat(js.length).isGreaterThanOrEqualTo(StaticAssets.FILE_THRESHOLD);
+        String hashedPath = staticAssets.getHashedPath("/assets/js/bundle.js");
+        assertThat(hashedPath).matches("/assets/js/bundle-[0-9a-f]{32}\\.js");
+
+        mockMvc.perform(get(hashedPath))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, StaticAssetWriter.IMMUTABLE))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().bytes(js));
+    }
+
+    @Test
+    public void testPageLinksHashedAssets() throws Exception {
+        mockMvc.perform(get(ResetController.PASSWORD_RESET_PATH))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(staticAssets.getHashedPath("/assets/css/staffjoy.css"))))
+                .andExpect(content().string(containsString(staticAssets.getHashedPath("/assets/js/bundle.js"))))
+                .andExpect(content().string(containsString(staticAssets.getHashedPath("/assets/images/staffjoy-logos/logo-white.svg"))));
+    }
+}